@@ -3,7 +3,9 @@ package org.digio.bank;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(
@@ -19,6 +21,8 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 		"org.digio.bank.repository"
 })
 @EnableScheduling
+@EnableAsync
+@ConfigurationPropertiesScan(basePackages = "org.digio.bank.config")
 public class BankThanakritApplication {
 
 	public static void main(String[] args) {
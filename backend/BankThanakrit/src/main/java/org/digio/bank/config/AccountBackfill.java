@@ -0,0 +1,31 @@
+package org.digio.bank.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.digio.bank.repository.AccountRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+//เติม account_no และ version ให้บัญชีเก่าที่สร้างก่อนมีคอลัมน์เหล่านี้
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AccountBackfill {
+
+    private final AccountRepository accountRepository;
+
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        int updated = accountRepository.backfillAccountNo();
+        if (updated > 0) {
+            log.info("เติม account_no ให้บัญชีเดิม {} รายการ", updated);
+        }
+        int versioned = accountRepository.backfillVersion();
+        if (versioned > 0) {
+            log.info("เติม version ให้บัญชีเดิม {} รายการ", versioned);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package org.digio.bank.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "bank.account-number")
+public class AccountNumberProperties {
+
+    //จำนวนเลขที่จองจากฐานข้อมูลต่อครั้ง
+    private int blockSize = 1000;
+
+    //เหลือเลขในคิวน้อยกว่านี้จะเริ่มจองช่วงถัดไปเบื้องหลัง
+    private int lowWatermark = 200;
+
+    //เวลารอสูงสุดเมื่อคิวว่างระหว่างรอเติม
+    private long takeTimeoutMs = 5_000;
+}
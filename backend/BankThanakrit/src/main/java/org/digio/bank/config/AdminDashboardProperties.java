@@ -0,0 +1,15 @@
+package org.digio.bank.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "bank.admin-dashboard")
+public class AdminDashboardProperties {
+
+    //จำนวนบัญชีและรายการในหน้าแรกของ snapshot
+    private int pageSize = 50;
+
+    //จำนวน stripe ต่อตัวนับ มากขึ้น = รายการพร้อมกันรอล็อกแถวตัวนับเดียวกันน้อยลง แต่อ่านหลายแถวขึ้น
+    private int counterStripes = 16;
+}
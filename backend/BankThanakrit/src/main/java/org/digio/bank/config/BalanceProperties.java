@@ -0,0 +1,28 @@
+package org.digio.bank.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "bank.balance")
+public class BalanceProperties {
+
+    public enum Mode {
+        //ล็อกแถวบัญชีด้วย SELECT ... FOR UPDATE เรียงตามเลขบัญชีเพื่อกัน deadlock
+        PESSIMISTIC,
+        //ตรวจ @Version ตอน commit ถ้าชนกันให้ลองใหม่ตาม retry/backoff
+        OPTIMISTIC,
+        //UPDATE ... WHERE balance >= ? AND status = ? คำสั่งเดียวต่อขา ดูผลจากจำนวนแถวที่ถูกแก้
+        ATOMIC,
+        //ไม่แก้ accounts.balance ทุกรายการ ยอดคำนวณจาก snapshot + journal ล็อกเฉพาะบัญชีต้นทางตอนตัดเงิน
+        JOURNAL
+    }
+
+    private Mode mode = Mode.PESSIMISTIC;
+
+    private int maxRetries = 5;
+
+    private long backoffMs = 10;
+
+    private long maxBackoffMs = 200;
+}
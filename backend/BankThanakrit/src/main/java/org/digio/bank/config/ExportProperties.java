@@ -0,0 +1,15 @@
+package org.digio.bank.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "bank.export")
+public class ExportProperties {
+
+    //MySQL Connector/J: Integer.MIN_VALUE = ส่งแถวมาทีละแถวแบบ streaming ไม่โหลดทั้ง result set เข้า heap
+    private int fetchSize = Integer.MIN_VALUE;
+
+    //flush response ทุก ๆ กี่แถว
+    private int flushEvery = 500;
+}
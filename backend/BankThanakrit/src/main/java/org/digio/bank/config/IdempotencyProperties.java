@@ -0,0 +1,16 @@
+package org.digio.bank.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "bank.idempotency")
+public class IdempotencyProperties {
+
+    private int maxEntries = 100_000;
+
+    private long ttlSeconds = 86_400;
+
+    //เก็บคีย์ลงตาราง idempotency_keys ด้วย เพื่อให้กันซ้ำได้ข้ามเครื่องและหลังรีสตาร์ต
+    private boolean persistent = false;
+}
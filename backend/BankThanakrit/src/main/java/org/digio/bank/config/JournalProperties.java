@@ -0,0 +1,17 @@
+package org.digio.bank.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "bank.journal")
+public class JournalProperties {
+
+    private long snapshotIntervalMs = 60_000;
+
+    //รอบที่แต่ละเครื่องเขียน low water ของตัวเองลง journal_watermarks
+    private long watermarkIntervalMs = 1_000;
+
+    //แถวของเครื่องอื่นที่เก่ากว่านี้ไม่นำมาคิด ต้องนานกว่า transaction ที่เขียน journal ที่ยาวที่สุดมาก
+    private long watermarkStaleMs = 60_000;
+}
@@ -0,0 +1,28 @@
+package org.digio.bank.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "bank.ledger")
+public class LedgerProperties {
+
+    //เปิดใช้ยอดเงินในหน่วยความจำ (LedgerEngine) แทนการแก้ตาราง accounts ทุกรายการ
+    private boolean enabled = false;
+
+    private int shards = 4;
+
+    private long flushIntervalMs = 200;
+
+    private int flushBatchSize = 500;
+
+    private int recoveryPageSize = 1000;
+
+    //flush ชุดเดิมล้มเหลวครบจำนวนนี้ พักชุดนั้นไว้ (bank.ledger.parked) แล้ว flush ชุดถัดไปต่อ
+    private int maxFlushAttempts = 5;
+
+    //ชื่อ GET_LOCK ที่ instance เจ้าของ ledger ถือไว้ ได้ไม่ทันเวลาจะไม่ยอมเริ่มระบบ
+    private String ownerLock = "bank.ledger.owner";
+
+    private int ownerLockWaitSeconds = 10;
+}
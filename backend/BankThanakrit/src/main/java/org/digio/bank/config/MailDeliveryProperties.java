@@ -0,0 +1,29 @@
+package org.digio.bank.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "bank.mail")
+public class MailDeliveryProperties {
+
+    //จำนวน SMTP connection ที่เปิดค้างไว้ (หนึ่ง sender thread ต่อหนึ่ง connection)
+    private int connections = 2;
+
+    //จำนวนข้อความสูงสุดที่ส่งต่อเนื่องบน connection เดียวในหนึ่งรอบ
+    private int batchSize = 20;
+
+    private int queueCapacity = 1_000;
+
+    //เวลารอผลการส่งของผู้เรียก
+    private long sendTimeoutMs = 30_000;
+
+    //ไม่มีงานนานเท่านี้จะปิด connection ก่อนเซิร์ฟเวอร์ตัดเอง
+    private long idleCloseMs = 30_000;
+
+    //ส่งไม่สำเร็จติดกันกี่ครั้งถึงเปิด circuit breaker
+    private int failureThreshold = 5;
+
+    //ระยะเวลาที่ breaker เปิด (ปฏิเสธทันที) ก่อนลองส่งใหม่หนึ่งครั้ง
+    private long openMs = 30_000;
+}
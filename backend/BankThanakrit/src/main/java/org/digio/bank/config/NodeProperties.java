@@ -0,0 +1,15 @@
+package org.digio.bank.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "bank.node")
+public class NodeProperties {
+
+    //เลขประจำเครื่อง 0-99 ต้องไม่ซ้ำกันในแต่ละ instance ที่ต่อฐานข้อมูลเดียวกัน
+    private int id = 0;
+
+    //ตอนเริ่มระบบค้นเลขที่ธุรกรรมล่าสุดของ node นี้ย้อนจากเวลาปัจจุบัน + ค่านี้ (รองรับนาฬิกาที่เคยเร็วเกิน)
+    private long idSeedToleranceMs = 600_000;
+}
@@ -0,0 +1,36 @@
+package org.digio.bank.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "bank.password")
+public class PasswordProperties {
+
+    //จำนวน thread ที่คำนวณ bcrypt พร้อมกันได้ (งาน CPU ล้วน ไม่ควรเกินจำนวน core) 0 = เท่าจำนวน core
+    private int threads = 0;
+
+    //งานที่รอได้สูงสุด เกินนี้ตอบ 429 ทันที
+    private int queueCapacity = 64;
+
+    //pool แยกสำหรับตรวจ PIN ที่อนุมัติรายการเงิน ไม่ใช้คิวร่วมกับ login 0 = เท่าจำนวน core
+    private int pinThreads = 0;
+
+    private int pinQueueCapacity = 64;
+
+    //รอผลรวมเวลาคิวไม่เกินนี้
+    private long timeoutMs = 5_000;
+
+    public int resolvedThreads() {
+        return orCores(threads);
+    }
+
+    public int resolvedPinThreads() {
+        return orCores(pinThreads);
+    }
+
+    //สอง lane ใช้ core ร่วมกัน แต่ละ lane ใช้ได้ทุก core เมื่ออีก lane ว่าง จำนวนงานที่รอยังถูกจำกัดด้วยคิว
+    private static int orCores(int configured) {
+        return configured > 0 ? configured : Runtime.getRuntime().availableProcessors();
+    }
+}
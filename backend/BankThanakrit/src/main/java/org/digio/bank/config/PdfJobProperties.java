@@ -0,0 +1,24 @@
+package org.digio.bank.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "bank.pdf-job")
+public class PdfJobProperties {
+
+    private int workers = 4;
+
+    //งานที่รอได้สูงสุด เกินนี้ตอบ 429 ทันทีแทนการต่อคิวยาว
+    private int queueCapacity = 200;
+
+    private int maxAttempts = 3;
+
+    private long backoffMs = 2_000;
+
+    //เก็บสถานะงานที่จบแล้วไว้ให้ถามได้นานเท่านี้
+    private long retentionSeconds = 3_600;
+
+    //ตอนปิดระบบรองานที่กำลังทำ/รอในคิวได้นานเท่านี้ แล้วจึงตัดทิ้ง
+    private long shutdownWaitMs = 10_000;
+}
@@ -0,0 +1,33 @@
+package org.digio.bank.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "bank.search")
+public class SearchProperties {
+
+    //false = ไม่สร้าง index ตอนเริ่มระบบ และ endpoint ค้นหาตอบ 503
+    private boolean enabled = true;
+
+    //จำนวนผลสูงสุดที่คืนต่อคำค้น (อันดับดีที่สุด maxHits แรก)
+    private int maxHits = 1_000;
+
+    //จำนวน candidate สูงสุดที่ให้คะแนนต่อคำค้น เกินนี้ total เป็นแค่ขั้นต่ำ (totalExact = false)
+    private int maxCandidates = 100_000;
+
+    //จำนวนแถวต่อหน้าตอนโหลด index จากฐานข้อมูล
+    private int buildPageSize = 1_000;
+
+    //ดึงรายการที่ node อื่นเขียนจากตาราง transactions ทุกช่วงนี้
+    private long pollIntervalMs = 5_000;
+
+    //ไล่ย้อนจากเวลาปัจจุบันเท่านี้ทุกรอบ ต้องมากกว่าเวลา commit ที่นานที่สุดบวกนาฬิกาที่ต่างกันระหว่าง node
+    private long pollOverlapMs = 30_000;
+
+    //โหลดบัญชีทั้งหมดใหม่ (บัญชีใหม่/ชื่อที่แก้/บัญชีที่ลบจาก node อื่น) และตัดรายการเก่าออกทุกช่วงนี้
+    private long accountRefreshMs = 300_000;
+
+    //เก็บเฉพาะรายการย้อนหลังไม่เกินจำนวนวันนี้ใน heap (0 = เก็บทั้งหมด) รายการเก่ากว่าดูได้จากประวัติบัญชี
+    private int transactionRetentionDays = 365;
+}
@@ -0,0 +1,47 @@
+package org.digio.bank.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "bank.security")
+public class SecurityProperties {
+
+    //กุญแจ HMAC แบบ base64 (อย่างน้อย 32 ไบต์) ถ้าว่างจะสุ่มใหม่ทุกครั้งที่เริ่มระบบ token เดิมจะใช้ไม่ได้
+    private String tokenSecret;
+
+    //อายุของ token ยืนยัน PIN
+    private long pinTokenTtlSeconds = 300;
+
+    private long sessionTtlSeconds = 3_600;
+
+    //false = ตรวจ token เมื่อส่งมาเท่านั้น (ช่วงเปลี่ยนผ่าน), true = ทุก path ที่ไม่อยู่ใน publicPaths ต้องมี token
+    private boolean enforceSession = false;
+
+    //ไม่ต้องมี session token: "/path/**" หรือระบุ method เช่น "POST /members"
+    private List<String> publicPaths = new ArrayList<>(List.of(
+            "POST /members",
+            "/members/login",
+            "/members/email/**",
+            "/members/username/**",
+            "GET /members/*/exists",
+            "/admins/login",
+            "/password/**",
+            "/actuator/**",
+            "/error"));
+
+    //ต้องเป็นผู้ดูแล รูปแบบเดียวกับ publicPaths ส่วน path ของสมาชิกตรวจความเป็นเจ้าของใน controller (OwnershipService)
+    private List<String> adminPaths = new ArrayList<>(List.of(
+            "/admins/**",
+            "GET /members",
+            "GET /accounts",
+            "PUT /accounts/*",
+            "GET /transactions",
+            "GET /transactions/export",
+            "POST /transactions",
+            "PUT /transactions/*",
+            "DELETE /transactions/*"));
+}
@@ -0,0 +1,89 @@
+package org.digio.bank.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.digio.bank.service.SessionTokenService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * ตรวจ session token จาก header Authorization: Bearer ... โดยไม่แตะฐานข้อมูล
+ * token ถูกต้องจะแนบ Session ไว้ใน request attribute ให้ controller ใช้ต่อ
+ * token ผิด/หมดอายุ/ถูก revoke ตอบ 401 เสมอ ส่วนการบังคับให้ต้องมี token ขึ้นกับ bank.security.enforce-session
+ * path ใน bank.security.admin-paths ตอบ 403 เมื่อ session ไม่ใช่ผู้ดูแล
+ */
+@Component
+@RequiredArgsConstructor
+public class SessionTokenFilter extends OncePerRequestFilter {
+
+    public static final String SESSION_ATTRIBUTE = "bank.session";
+    public static final String TOKEN_HEADER = "X-Auth-Token";
+    private static final String BEARER = "Bearer ";
+
+    private final SessionTokenService sessionTokenService;
+    private final SecurityProperties properties;
+    private final AntPathMatcher matcher = new AntPathMatcher();
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String token = bearerToken(request);
+        SessionTokenService.Session session = null;
+        if (token != null) {
+            session = sessionTokenService.verify(token);
+            if (session == null) {
+                response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "เซสชันหมดอายุ กรุณาเข้าสู่ระบบใหม่");
+                return;
+            }
+            request.setAttribute(SESSION_ATTRIBUTE, session);
+        }
+
+        if (!HttpMethod.OPTIONS.matches(request.getMethod()) && !matches(properties.getPublicPaths(), request)) {
+            if (session == null && properties.isEnforceSession()) {
+                response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "กรุณาเข้าสู่ระบบ");
+                return;
+            }
+            //มี session แล้วตรวจสิทธิ์ผู้ดูแลเสมอ แม้ยังไม่บังคับ session
+            if (session != null && !session.isAdmin() && matches(properties.getAdminPaths(), request)) {
+                response.sendError(HttpServletResponse.SC_FORBIDDEN, "ไม่มีสิทธิ์เข้าถึง");
+                return;
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    public static String bearerToken(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            return null;
+        }
+        String token = header.substring(BEARER.length()).trim();
+        return token.isEmpty() ? null : token;
+    }
+
+    //รูปแบบ "/path/**" หรือ "POST /path"
+    private boolean matches(List<String> patterns, HttpServletRequest request) {
+        String path = request.getRequestURI();
+        for (String entry : patterns) {
+            int space = entry.indexOf(' ');
+            if (space < 0) {
+                if (matcher.match(entry, path)) {
+                    return true;
+                }
+            } else if (entry.substring(0, space).equalsIgnoreCase(request.getMethod())
+                    && matcher.match(entry.substring(space + 1).trim(), path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,20 @@
+package org.digio.bank.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "bank.statement")
+public class StatementProperties {
+
+    //จำนวนรายการที่อ่านจากฐานข้อมูลต่อหน้า และเขียนลง PDF ก่อน flush ตาราง
+    private int pageSize = 500;
+
+    private int workers = 4;
+
+    //ส่ง statement เดือนก่อนหน้าให้ทุกบัญชีตาม cron
+    private boolean monthEndEnabled = false;
+
+    //ตอนปิดระบบรอ statement ที่กำลังส่งได้นานเท่านี้ แล้วจึงตัดทิ้ง
+    private long shutdownWaitMs = 30_000;
+}
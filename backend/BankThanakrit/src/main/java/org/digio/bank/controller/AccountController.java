@@ -1,13 +1,29 @@
 package org.digio.bank.controller;
 
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.digio.bank.config.SessionTokenFilter;
+import org.digio.bank.dto.AccountBalance;
 import org.digio.bank.dto.OpenAccount;
 import org.digio.entitty.model.Account;
+import org.digio.entitty.model.DailyAccountSummary;
 import org.digio.bank.service.AccountService;
+import org.digio.bank.service.OwnershipService;
+import org.digio.bank.service.SessionTokenService;
+import org.digio.bank.service.StatementService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.util.GregorianCalendar;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/accounts")
@@ -15,30 +31,97 @@ import java.util.List;
 public class AccountController {
 
     private final AccountService accountService;
+    private final StatementService statementService;
+    private final OwnershipService ownershipService;
 
+    //ส่ง size หรือ cursor = แบ่งหน้าแบบ keyset (CursorPage), ไม่ส่ง = รายการทั้งหมดแบบเดิม
     @GetMapping
-    public ResponseEntity<List<Account>> getAllAccounts() {
-
+    public ResponseEntity<?> getAllAccounts(
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor
+    ) {
+        if (size != null || cursor != null) {
+            return ResponseEntity.ok(accountService.getAccountPage(cursor, size));
+        }
         return ResponseEntity.ok(accountService.getAllAccounts());
     }
 
     @GetMapping("/{accountId}")
-    public ResponseEntity<Account> getAccountById(@PathVariable String accountId) {
+    public ResponseEntity<Account> getAccountById(
+            @PathVariable String accountId,
+            @RequestAttribute(value = SessionTokenFilter.SESSION_ATTRIBUTE, required = false)
+            SessionTokenService.Session session
+    ) {
+        ownershipService.requireAccount(session, accountId);
         Account account = accountService.getAccountById(accountId);
         return account != null ? ResponseEntity.ok(account) : ResponseEntity.notFound().build();
     }
 
+    //ยอดคงเหลือจาก journal, ระบุ at (ISO-8601) เพื่อดูยอด ณ เวลาย้อนหลัง
+    @GetMapping("/{accountId}/balance")
+    public ResponseEntity<AccountBalance> getBalance(@PathVariable String accountId,
+                                                     @RequestParam(required = false)
+                                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime at,
+                                                     @RequestAttribute(value = SessionTokenFilter.SESSION_ATTRIBUTE, required = false)
+                                                     SessionTokenService.Session session) {
+        ownershipService.requireAccount(session, accountId);
+        AccountBalance balance = accountService.getBalance(accountId,
+                at == null ? null : GregorianCalendar.from(at.toZonedDateTime()));
+        return balance != null ? ResponseEntity.ok(balance) : ResponseEntity.notFound().build();
+    }
+
+    //ยอดฝาก/ถอน/โอน/รับรายวัน from/to รูปแบบ yyyy-MM-dd (รวมทั้งสองวัน)
+    @GetMapping("/{accountId}/daily-summary")
+    public ResponseEntity<List<DailyAccountSummary>> getDailySummary(
+            @PathVariable String accountId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestAttribute(value = SessionTokenFilter.SESSION_ATTRIBUTE, required = false)
+            SessionTokenService.Session session
+    ) {
+        ownershipService.requireAccount(session, accountId);
+        List<DailyAccountSummary> summary = accountService.getDailySummary(accountId, from, to);
+        return summary != null ? ResponseEntity.ok(summary) : ResponseEntity.notFound().build();
+    }
+
+    //month รูปแบบ yyyy-MM, PDF ถูกเขียนลง response ทีละส่วนระหว่างอ่านรายการ
+    @GetMapping("/{accountId}/statement")
+    public void getStatement(@PathVariable String accountId,
+                             @RequestParam YearMonth month,
+                             @RequestAttribute(value = SessionTokenFilter.SESSION_ATTRIBUTE, required = false)
+                             SessionTokenService.Session session,
+                             HttpServletResponse response) throws IOException {
+        ownershipService.requireAccount(session, accountId);
+        //ไม่พบบัญชีตอบ 404 ก่อนเริ่มเขียน แล้วเขียน PDF ตรงลง response ใน thread ของ request (ไม่ติด async timeout)
+        Account account = statementService.requireAccount(accountId);
+        response.setContentType(MediaType.APPLICATION_PDF_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"statement-" + month + ".pdf\"");
+        statementService.writeStatement(account, month, response.getOutputStream());
+    }
+
     @GetMapping("/member/{memberId}")
-    public ResponseEntity<List<Account>> getAccountsByMember(@PathVariable String memberId) {
-        return ResponseEntity.ok(accountService.getAccountsByMember(memberId));
+    public CompletableFuture<ResponseEntity<List<Account>>> getAccountsByMember(
+            @PathVariable String memberId,
+            @RequestAttribute(value = SessionTokenFilter.SESSION_ATTRIBUTE, required = false)
+            SessionTokenService.Session session
+    ) {
+        ownershipService.requireMember(session, memberId);
+        return accountService.getAccountsByMember(memberId).thenApply(ResponseEntity::ok);
     }
 
     @PostMapping
-    public ResponseEntity<Account> addAccount(@RequestBody OpenAccount request) {
+    public ResponseEntity<Account> addAccount(
+            @RequestAttribute(value = SessionTokenFilter.SESSION_ATTRIBUTE, required = false)
+            SessionTokenService.Session session,
+            @RequestBody OpenAccount request
+    ) {
+        ownershipService.requireMember(session, request.getMemberId());
         Account created = accountService.createAccount(request);
         return ResponseEntity.ok(created);
     }
 
+    //แก้ยอด/สถานะโดยตรงได้เฉพาะผู้ดูแล (bank.security.admin-paths)
     @PutMapping("/{accountId}")
     public ResponseEntity<Account> updateAccount(@PathVariable String accountId, @RequestBody Account update) {
         Account updated = accountService.updateAccount(accountId, update);
@@ -46,7 +129,12 @@ public class AccountController {
     }
 
     @DeleteMapping("/{accountId}")
-    public ResponseEntity<Void> removeAccount(@PathVariable String accountId) {
+    public ResponseEntity<Void> removeAccount(
+            @PathVariable String accountId,
+            @RequestAttribute(value = SessionTokenFilter.SESSION_ATTRIBUTE, required = false)
+            SessionTokenService.Session session
+    ) {
+        ownershipService.requireAccount(session, accountId);
         boolean deleted = accountService.deleteAccount(accountId);
         return deleted ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
     }
@@ -1,11 +1,17 @@
 package org.digio.bank.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.digio.bank.config.SessionTokenFilter;
+import org.digio.bank.dto.AdminAccountRow;
 import org.digio.bank.dto.AdminLogin;
+import org.digio.bank.dto.AdminSnapshot;
+import org.digio.bank.dto.CursorPage;
 import org.digio.entitty.model.Account;
 import org.digio.entitty.model.Transaction;
 import org.digio.entitty.model.Admin;
+import org.digio.bank.service.AdminDashboardService;
 import org.digio.bank.service.AdminService;
+import org.digio.bank.service.SessionTokenService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -17,11 +23,59 @@ import java.util.Map;
 public class AdminController {
 
     private final AdminService adminService;
+    private final SessionTokenService sessionTokenService;
+    private final AdminDashboardService adminDashboardService;
 
     @PostMapping("/login")
     public ResponseEntity<Admin> login(@RequestBody AdminLogin request) {
         Admin login = adminService.adminLogin(request);
-        return ResponseEntity.ok(login);
+        String token = sessionTokenService.issue(String.valueOf(login.getAdminId()), SessionTokenService.ROLE_ADMIN);
+        return ResponseEntity.ok()
+                .header(SessionTokenFilter.TOKEN_HEADER, token)
+                .body(login);
+    }
+
+    //บัญชีหน้าแรก รายการล่าสุด และตัวเลขสรุปในคำขอเดียว
+    @GetMapping("/dashboard")
+    public ResponseEntity<AdminSnapshot> dashboard() {
+        return ResponseEntity.ok(adminDashboardService.snapshot());
+    }
+
+    //หน้าถัดไปของตารางบัญชี ใช้ nextCursor จาก dashboard
+    @GetMapping("/accounts")
+    public ResponseEntity<CursorPage<AdminAccountRow>> getAccounts(
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor
+    ) {
+        return ResponseEntity.ok(adminDashboardService.getAccountPage(cursor, size));
+    }
+
+    //ค้นด้วยเลขบัญชี (มีหรือไม่มีขีด) หรือชื่อเจ้าของไทย/อังกฤษ อย่างน้อย 3 ตัวอักษร
+    @GetMapping("/search/accounts")
+    public ResponseEntity<?> searchAccounts(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size
+    ) {
+        try {
+            return ResponseEntity.ok(adminDashboardService.searchAccounts(q, page, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    //ค้นด้วยเลขรายการ หรือบัญชีต้นทาง/ปลายทาง
+    @GetMapping("/search/transactions")
+    public ResponseEntity<?> searchTransactions(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size
+    ) {
+        try {
+            return ResponseEntity.ok(adminDashboardService.searchTransactions(q, page, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
     }
 
     @PostMapping("/accounts/{accountId}/status")
@@ -31,6 +85,12 @@ public class AdminController {
         return ResponseEntity.ok(updated);
     }
 
+    @PostMapping("/ledger/retry-parked")
+    public ResponseEntity<Map<String, Integer>> retryParkedLedger() {
+        int requeued = adminService.retryParkedLedger();
+        return requeued < 0 ? ResponseEntity.notFound().build() : ResponseEntity.ok(Map.of("requeued", requeued));
+    }
+
     @PostMapping("/transactions/{transactionId}/cancel")
     public ResponseEntity<Transaction> cancelTransaction( @PathVariable String transactionId) {
         Transaction canceled = adminService.cancelTransaction(transactionId);
@@ -1,33 +1,61 @@
 package org.digio.bank.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.digio.bank.config.SessionTokenFilter;
 import org.digio.bank.dto.Login;
+import org.digio.bank.dto.PinToken;
+import org.digio.bank.dto.PinVerify;
 import org.digio.bank.dto.Register;
 import org.digio.entitty.model.Member;
 import org.digio.bank.service.MemberService;
+import org.digio.bank.service.OwnershipService;
+import org.digio.bank.service.PinTokenService;
+import org.digio.bank.service.SessionTokenService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/members")
 @RequiredArgsConstructor
 public class MemberController {
 
     private final MemberService memberService;
+    private final PinTokenService pinTokenService;
+    private final SessionTokenService sessionTokenService;
+    private final OwnershipService ownershipService;
 
+    //ส่ง size หรือ cursor = แบ่งหน้าแบบ keyset (CursorPage), ไม่ส่ง = รายการทั้งหมดแบบเดิม
     @GetMapping
-    public ResponseEntity<List<Member>> getAllMembers() {
+    public ResponseEntity<?> getAllMembers(
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor
+    ) {
+        if (size != null || cursor != null) {
+            return ResponseEntity.ok(memberService.getMemberPage(cursor, size));
+        }
         return ResponseEntity.ok(memberService.getAllMembers());
     }
 
     @GetMapping("/{memberId}")
-    public ResponseEntity<Member> getMemberById(@PathVariable String memberId) {
+    public ResponseEntity<Member> getMemberById(
+            @PathVariable String memberId,
+            @RequestAttribute(value = SessionTokenFilter.SESSION_ATTRIBUTE, required = false)
+            SessionTokenService.Session session
+    ) {
+        ownershipService.requireMember(session, memberId);
         Member member = memberService.getMemberById(memberId);
         return member != null ? ResponseEntity.ok(member) : ResponseEntity.notFound().build();
     }
 
+    //ตรวจว่าเลขบัตรถูกใช้สมัครแล้วหรือยัง (ตอนสมัคร ยังไม่มี session) ไม่คืนข้อมูลสมาชิก
+    @GetMapping("/{memberId}/exists")
+    public ResponseEntity<Void> memberExists(@PathVariable String memberId) {
+        return memberService.getMemberById(memberId) != null
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
     @GetMapping("/email/{email}")
     public ResponseEntity<Member> getMemberByEmail(@PathVariable String email) {
         Member member = memberService.getMemberByEmail(email);
@@ -49,17 +77,53 @@ public class MemberController {
     @PostMapping("/login")
     public ResponseEntity<Member> login(@RequestBody Login loginMember) {
         Member login = memberService.login(loginMember.getUser(), loginMember.getPassword());
-        return ResponseEntity.ok(login);
+        String token = sessionTokenService.issue(login.getMemberId(), SessionTokenService.ROLE_MEMBER);
+        return ResponseEntity.ok()
+                .header(SessionTokenFilter.TOKEN_HEADER, token)
+                .body(login);
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(HttpServletRequest request) {
+        String token = SessionTokenFilter.bearerToken(request);
+        if (token != null) {
+            sessionTokenService.revoke(token);
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    //ยืนยัน PIN ครั้งเดียวแล้วใช้ token แทน PIN ในการถอน/โอนจนกว่าจะหมดอายุ
+    @PostMapping("/{memberId}/pin-token")
+    public ResponseEntity<PinToken> issuePinToken(
+            @PathVariable String memberId,
+            @RequestHeader(value = "X-Device-Id", required = false) String deviceId,
+            @RequestAttribute(value = SessionTokenFilter.SESSION_ATTRIBUTE, required = false)
+            SessionTokenService.Session session,
+            @RequestBody PinVerify request
+    ) {
+        ownershipService.requireMember(session, memberId);
+        return ResponseEntity.ok(pinTokenService.issue(memberId, request.getPin(), deviceId));
     }
 
     @PutMapping("/{memberId}")
-    public ResponseEntity<Member> updateMember(@PathVariable String memberId, @RequestBody Member member) {
+    public ResponseEntity<Member> updateMember(
+            @PathVariable String memberId,
+            @RequestAttribute(value = SessionTokenFilter.SESSION_ATTRIBUTE, required = false)
+            SessionTokenService.Session session,
+            @RequestBody Member member
+    ) {
+        ownershipService.requireMember(session, memberId);
         Member updateM = memberService.updateMember(memberId, member);
         return updateM != null ? ResponseEntity.ok(updateM) : ResponseEntity.notFound().build();
     }
 
     @DeleteMapping("/{memberId}")
-    public ResponseEntity<Void> removeMember(@PathVariable String memberId) {
+    public ResponseEntity<Void> removeMember(
+            @PathVariable String memberId,
+            @RequestAttribute(value = SessionTokenFilter.SESSION_ATTRIBUTE, required = false)
+            SessionTokenService.Session session
+    ) {
+        ownershipService.requireMember(session, memberId);
         boolean deleteMember = memberService.deleteMember(memberId);
         return deleteMember ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
     }
@@ -1,16 +1,35 @@
 package org.digio.bank.controller;
 
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.digio.bank.config.SessionTokenFilter;
 import org.digio.bank.dto.Deposit;
-import org.digio.bank.dto.TransactionView;
+import org.digio.bank.dto.PdfJob;
 import org.digio.bank.dto.Transfer;
+import org.digio.bank.dto.TransferResult;
 import org.digio.bank.dto.Withdraw;
 import org.digio.entitty.model.Transaction;
+import org.digio.entitty.util.AccountNumbers;
+import org.digio.bank.service.IdempotencyService;
+import org.digio.bank.service.OwnershipService;
+import org.digio.bank.service.PdfJobService;
+import org.digio.bank.service.SessionTokenService;
+import org.digio.bank.service.TransactionExportService;
 import org.digio.bank.service.TransactionService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/transactions")
@@ -18,21 +37,63 @@ import java.util.List;
 public class TransactionController {
 
     private final TransactionService transactionService;
+    private final IdempotencyService idempotencyService;
+    private final PdfJobService pdfJobService;
+    private final TransactionExportService transactionExportService;
+    private final OwnershipService ownershipService;
 
+    //ส่ง size หรือ cursor = แบ่งหน้าแบบ keyset (CursorPage), ไม่ส่ง = รายการทั้งหมดแบบเดิม
     @GetMapping
-    public ResponseEntity<List<TransactionView>> getAllTransactions() {
+    public ResponseEntity<?> getAllTransactions(
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor
+    ) {
+        if (size != null || cursor != null) {
+            return ResponseEntity.ok(transactionService.getTransactionPage(cursor, size));
+        }
         return ResponseEntity.ok(transactionService.getAllTransactions());
     }
 
+    //NDJSON ทีละบรรทัดระหว่างอ่านจากฐานข้อมูล สำหรับงาน extract, from/to เป็น ISO-8601 (to ไม่รวม)
+    //เขียนตรงลง response ใน thread ของ request จึงไม่ติด spring.mvc.async.request-timeout เมื่อ export ทั้งหมด
+    //ข้อมูลทุกบัญชี ต้องมี session ผู้ดูแลเสมอ แม้ยังไม่บังคับ session ที่ path อื่น
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public void exportTransactions(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+            @RequestAttribute(value = SessionTokenFilter.SESSION_ATTRIBUTE, required = false)
+            SessionTokenService.Session session,
+            HttpServletResponse response
+    ) throws IOException {
+        if (session == null || !session.isAdmin()) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "ไม่มีสิทธิ์เข้าถึง");
+        }
+        Calendar start = from == null ? null : GregorianCalendar.from(from.toZonedDateTime());
+        Calendar end = to == null ? null : GregorianCalendar.from(to.toZonedDateTime());
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        transactionExportService.writeNdjson(start, end, response.getOutputStream());
+    }
+
     @GetMapping("/{transactionId}")
-    public ResponseEntity<Transaction> getTransactionById(@PathVariable String transactionId) {
+    public ResponseEntity<Transaction> getTransactionById(
+            @PathVariable String transactionId,
+            @RequestAttribute(value = SessionTokenFilter.SESSION_ATTRIBUTE, required = false)
+            SessionTokenService.Session session
+    ) {
+        ownershipService.requireTransaction(session, transactionId);
         Transaction transaction = transactionService.getTransactionById(transactionId);
         return transaction != null ? ResponseEntity.ok(transaction) : ResponseEntity.notFound().build();
     }
 
     @GetMapping("/account/{accountId}")
-    public ResponseEntity<List<Transaction>> getByAccount(@PathVariable String accountId) {
-        return ResponseEntity.ok(transactionService.getByAccountId(accountId));
+    public CompletableFuture<ResponseEntity<List<Transaction>>> getByAccount(
+            @PathVariable String accountId,
+            @RequestAttribute(value = SessionTokenFilter.SESSION_ATTRIBUTE, required = false)
+            SessionTokenService.Session session
+    ) {
+        ownershipService.requireAccount(session, accountId);
+        return transactionService.getByAccountId(accountId).thenApply(ResponseEntity::ok);
     }
 
     @PostMapping
@@ -41,27 +102,100 @@ public class TransactionController {
         return ResponseEntity.ok(created);
     }
     @PostMapping("/deposit")
-    public ResponseEntity<Transaction> deposit(@RequestBody Deposit request) {
-        Transaction deposit = transactionService.deposit(request);
+    public ResponseEntity<Transaction> deposit(
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestAttribute(value = SessionTokenFilter.SESSION_ATTRIBUTE, required = false)
+            SessionTokenService.Session session,
+            @RequestBody Deposit request
+    ) {
+        ownershipService.requireAccount(session, request.getAccountId());
+        Transaction deposit = idempotencyService.execute(idempotencyKey, "deposit",
+                idempotencyScope(session, request.getAccountId()),
+                IdempotencyService.fingerprint(AccountNumbers.normalize(request.getAccountId()), request.getAmount()),
+                () -> transactionService.deposit(request));
         return ResponseEntity.ok(deposit);
     }
 
     @PostMapping("/withdraw")
-    public ResponseEntity<Transaction> withdraw(@RequestBody Withdraw request) {
-        Transaction withdraw = transactionService.withdraw(request);
+    public ResponseEntity<Transaction> withdraw(
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestHeader(value = "X-Device-Id", required = false) String deviceId,
+            @RequestAttribute(value = SessionTokenFilter.SESSION_ATTRIBUTE, required = false)
+            SessionTokenService.Session session,
+            @RequestBody Withdraw request
+    ) {
+        ownershipService.requireAccount(session, request.getAccountId());
+        request.setDeviceId(deviceId);
+        Transaction withdraw = idempotencyService.execute(idempotencyKey, "withdraw",
+                idempotencyScope(session, request.getAccountId()),
+                IdempotencyService.fingerprint(AccountNumbers.normalize(request.getAccountId()), request.getAmount()),
+                () -> transactionService.withdraw(request));
         return ResponseEntity.ok(withdraw);
     }
 
     @PostMapping("/transfer")
-    public ResponseEntity<Transaction> transfer(@RequestBody Transfer request) {
-        Transaction transfer = transactionService.transfer(request);
+    public ResponseEntity<Transaction> transfer(
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestHeader(value = "X-Device-Id", required = false) String deviceId,
+            @RequestAttribute(value = SessionTokenFilter.SESSION_ATTRIBUTE, required = false)
+            SessionTokenService.Session session,
+            @RequestBody Transfer request
+    ) {
+        ownershipService.requireAccount(session, request.getFromAccountId());
+        request.setDeviceId(deviceId);
+        Transaction transfer = idempotencyService.execute(idempotencyKey, "transfer",
+                idempotencyScope(session, request.getFromAccountId()),
+                IdempotencyService.fingerprint(AccountNumbers.normalize(request.getFromAccountId()),
+                        AccountNumbers.normalize(request.getToAccountId()), request.getAmount()),
+                () -> transactionService.transfer(request));
         return ResponseEntity.ok(transfer);
     }
 
+    //คีย์ผูกกับผู้ที่เข้าสู่ระบบ ถ้ายังไม่มี session (ช่วงเปลี่ยนผ่าน) ผูกกับเลขบัญชีที่ทำรายการ
+    private static String idempotencyScope(SessionTokenService.Session session, String accountId) {
+        if (session != null) {
+            return session.role() + "-" + session.subject();
+        }
+        return AccountNumbers.normalize(accountId);
+    }
+
+    @PostMapping("/transfer/batch")
+    public ResponseEntity<List<TransferResult>> transferBatch(
+            @RequestHeader(value = "X-Device-Id", required = false) String deviceId,
+            @RequestAttribute(value = SessionTokenFilter.SESSION_ATTRIBUTE, required = false)
+            SessionTokenService.Session session,
+            @RequestBody List<Transfer> requests
+    ) {
+        requests.forEach(r -> ownershipService.requireAccount(session, r.getFromAccountId()));
+        requests.forEach(r -> r.setDeviceId(deviceId));
+        return ResponseEntity.ok(transactionService.transferBatch(requests));
+    }
+
+    //รับงานเข้าคิวแล้วตอบ 202 ทันที ติดตามสถานะที่ /transactions/pdf-jobs/{jobId}
     @PostMapping("/{transactionId}/pdf")
-    public ResponseEntity<Void> exportTransactionPdf(@PathVariable String transactionId) {
-        transactionService.exportTransactionPdf(transactionId);
-        return ResponseEntity.ok().build();
+    public ResponseEntity<PdfJob> exportTransactionPdf(
+            @PathVariable String transactionId,
+            @RequestAttribute(value = SessionTokenFilter.SESSION_ATTRIBUTE, required = false)
+            SessionTokenService.Session session
+    ) {
+        ownershipService.requireTransaction(session, transactionId);
+        PdfJob job = pdfJobService.submit(transactionId);
+        return ResponseEntity.accepted()
+                .location(URI.create("/transactions/pdf-jobs/" + job.getJobId()))
+                .body(job);
+    }
+
+    @GetMapping("/pdf-jobs/{jobId}")
+    public ResponseEntity<PdfJob> getPdfJob(
+            @PathVariable String jobId,
+            @RequestAttribute(value = SessionTokenFilter.SESSION_ATTRIBUTE, required = false)
+            SessionTokenService.Session session
+    ) {
+        PdfJob job = pdfJobService.getJob(jobId);
+        if (job != null) {
+            ownershipService.requireTransaction(session, job.getTransactionId());
+        }
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
     }
 
     @PutMapping("/{transactionId}")
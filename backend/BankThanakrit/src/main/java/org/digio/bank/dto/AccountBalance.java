@@ -0,0 +1,17 @@
+package org.digio.bank.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Calendar;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountBalance {
+    private String accountId;
+    private BigDecimal balance;
+    private Calendar at;
+}
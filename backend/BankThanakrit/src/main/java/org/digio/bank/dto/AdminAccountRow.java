@@ -0,0 +1,20 @@
+package org.digio.bank.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Calendar;
+
+//บัญชีสำหรับตารางของผู้ดูแล ไม่มี Member/Address ซ้อนมาทั้งก้อน
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AdminAccountRow {
+    private String accountId;
+    private String ownerName;
+    private BigDecimal balance;
+    private String status;
+    private Calendar createdDate;
+}
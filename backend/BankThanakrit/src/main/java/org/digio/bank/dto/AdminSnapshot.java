@@ -0,0 +1,30 @@
+package org.digio.bank.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Calendar;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AdminSnapshot {
+    private CursorPage<AdminAccountRow> accounts;
+    //เรียงใหม่ -> เก่า
+    private CursorPage<TransactionView> transactions;
+
+    private long totalAccounts;
+    private Map<String, Long> accountsByStatus;
+    private long totalTransactions;
+    private Map<String, Long> transactionsByStatus;
+    private Map<String, Long> transactionsByType;
+    //ไม่รวมรายการที่ยกเลิก
+    private Map<String, BigDecimal> amountByType;
+    //เวลาที่อ่านตัวนับ
+    private Calendar countedAt;
+}
@@ -2,8 +2,10 @@ package org.digio.bank.dto;
 
 import lombok.Data;
 
+import java.math.BigDecimal;
+
 @Data
 public class Deposit {
     private String accountId;
-    private Double amount;
+    private BigDecimal amount;
 }
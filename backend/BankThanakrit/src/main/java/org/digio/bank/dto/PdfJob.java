@@ -0,0 +1,32 @@
+package org.digio.bank.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Calendar;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class PdfJob {
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        //ส่งอีเมลไม่สำเร็จ รอส่งใหม่ตาม backoff
+        RETRYING,
+        SENT,
+        FAILED
+    }
+
+    private String jobId;
+    private String transactionId;
+    private Status status;
+    private int attempts;
+    private String message;
+    private Calendar createdDate;
+    private Calendar updatedDate;
+}
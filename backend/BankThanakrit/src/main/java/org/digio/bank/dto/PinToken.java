@@ -0,0 +1,14 @@
+package org.digio.bank.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PinToken {
+    private String token;
+    //epoch วินาที
+    private long expiresAt;
+}
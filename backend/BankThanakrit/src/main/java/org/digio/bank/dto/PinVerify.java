@@ -0,0 +1,8 @@
+package org.digio.bank.dto;
+
+import lombok.Data;
+
+@Data
+public class PinVerify {
+    private String pin;
+}
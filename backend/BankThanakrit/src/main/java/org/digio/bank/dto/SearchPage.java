@@ -0,0 +1,22 @@
+package org.digio.bank.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+//ผลค้นหาเรียงตามความตรง แบ่งหน้าด้วยเลขหน้า (เริ่มที่ 0)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchPage<T> {
+    private String query;
+    //จำนวนผลที่ตรงทั้งหมด หน้าที่ดูได้มีไม่เกิน bank.search.max-hits รายการแรก
+    private int total;
+    //false = ตรวจไม่ครบเพราะถึง bank.search.max-candidates, total เป็นแค่ขั้นต่ำ
+    private boolean totalExact;
+    private int page;
+    private int size;
+    private List<T> items;
+}
@@ -2,6 +2,7 @@ package org.digio.bank.dto;
 
 import lombok.Data;
 
+import java.math.BigDecimal;
 import java.util.Calendar;
 
 @Data
@@ -9,7 +10,7 @@ public class TransactionView {
     private String transientId;
     private Calendar transactionDate;
     private String type;
-    private Double amount;
+    private BigDecimal amount;
     private String status;
     private String fromAccount;
     private String toAccount;
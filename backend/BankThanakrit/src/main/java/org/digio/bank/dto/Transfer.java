@@ -1,11 +1,19 @@
 package org.digio.bank.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 
+import java.math.BigDecimal;
+
 @Data
 public class Transfer {
     private String fromAccountId;
     private String toAccountId;
-    private Double amount;
+    private BigDecimal amount;
     private String pin;
+    //ใช้แทน pin ได้ ออกโดย POST /members/{memberId}/pin-token
+    private String pinToken;
+    //มาจาก header X-Device-Id ไม่รับจาก body
+    @JsonIgnore
+    private String deviceId;
 }
@@ -0,0 +1,20 @@
+package org.digio.bank.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferResult {
+    private int index;
+    private boolean success;
+    private String transientId;
+    private String fromAccountId;
+    private String toAccountId;
+    private BigDecimal amount;
+    private String message;
+}
@@ -0,0 +1,32 @@
+package org.digio.bank.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+//เขียนยอดคงเหลือจาก LedgerEngine ทับทั้งชุดด้วย JDBC batch (คำสั่ง UPDATE เดียวต่อหลายบัญชี ไม่ไปทีละแถว)
+@Repository
+@RequiredArgsConstructor
+public class AccountBalanceWriter {
+
+    private static final String UPDATE_SQL =
+            "UPDATE `accounts` SET `balance` = ?, `version` = `version` + 1 WHERE `account_no` = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void overwriteAll(Map<String, BigDecimal> balances, int batchSize) {
+        if (balances.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<String, BigDecimal>> rows = new ArrayList<>(balances.entrySet());
+        jdbcTemplate.batchUpdate(UPDATE_SQL, rows, Math.max(1, batchSize), (ps, row) -> {
+            ps.setBigDecimal(1, row.getValue());
+            ps.setString(2, row.getKey());
+        });
+    }
+}
@@ -1,10 +1,134 @@
 package org.digio.bank.repository;
 
+import jakarta.persistence.LockModeType;
 import org.digio.entitty.model.Account;
+import org.digio.entitty.util.AccountNumbers;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface AccountRepository extends JpaRepository<Account, String> {
     List<Account> findByMember_MemberId(String memberId);
+
+    @Query("select a from Account a where a.accountNo = :accountNo or a.accountId = :accountId")
+    Optional<Account> findByAccountNoOrAccountId(@Param("accountNo") String accountNo,
+                                                 @Param("accountId") String accountId);
+
+    //รับได้ทั้ง 431-7-99003-6 และ 431799036
+    default Optional<Account> findByAnyAccountId(String input) {
+        if (input == null || input.isBlank()) {
+            return Optional.empty();
+        }
+        return findByAccountNoOrAccountId(AccountNumbers.normalize(input), input);
+    }
+
+    //รหัสสมาชิกเจ้าของบัญชี สำหรับตรวจสิทธิ์ ไม่โหลด entity
+    @Query("select a.member.memberId from Account a where a.accountNo = :accountNo or a.accountId = :accountId")
+    Optional<String> findOwnerByAccountNoOrAccountId(@Param("accountNo") String accountNo,
+                                                     @Param("accountId") String accountId);
+
+    default Optional<String> findOwnerByAnyAccountId(String input) {
+        if (input == null || input.isBlank()) {
+            return Optional.empty();
+        }
+        return findOwnerByAccountNoOrAccountId(AccountNumbers.normalize(input), input);
+    }
+
+    //SELECT ... FOR UPDATE
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from Account a where a.accountNo = :accountNo or a.accountId = :accountId")
+    Optional<Account> lockByAccountNoOrAccountId(@Param("accountNo") String accountNo,
+                                                 @Param("accountId") String accountId);
+
+    default Optional<Account> lockByAnyAccountId(String input) {
+        if (input == null || input.isBlank()) {
+            return Optional.empty();
+        }
+        return lockByAccountNoOrAccountId(AccountNumbers.normalize(input), input);
+    }
+
+    //ตัดเงินเฉพาะเมื่อยอดพอและบัญชีอยู่ในสถานะที่กำหนด คืนจำนวนแถวที่ถูกแก้ (0 = ไม่ผ่านเงื่อนไข)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Account a set a.balance = a.balance - :amount, a.version = a.version + 1 " +
+            "where a.accountNo = :accountNo and a.balance >= :amount and a.status = :status")
+    int debit(@Param("accountNo") String accountNo,
+              @Param("amount") BigDecimal amount,
+              @Param("status") String status);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Account a set a.balance = a.balance + :amount, a.version = a.version + 1 " +
+            "where a.accountNo = :accountNo and a.status = :status")
+    int credit(@Param("accountNo") String accountNo,
+               @Param("amount") BigDecimal amount,
+               @Param("status") String status);
+
+    //ล็อกหลายบัญชีในคำสั่งเดียว เรียงตามเลขบัญชีเพื่อให้ลำดับการล็อกเหมือนกันทุกรายการ
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from Account a where a.accountNo in :accountNos order by a.accountNo")
+    List<Account> lockAllByAccountNoIn(@Param("accountNos") Collection<String> accountNos);
+
+    @Query("select a from Account a where a.accountNo in :accountNos order by a.accountNo")
+    List<Account> findAllByAccountNoIn(@Param("accountNos") Collection<String> accountNos);
+
+    //ใช้ตอน LedgerEngine โหลดยอดทั้งหมดขึ้นหน่วยความจำ เรียงตาม accountId แบบ keyset
+    @Query("select a.accountId, a.balance, a.status from Account a where a.accountId > :after order by a.accountId")
+    List<Object[]> findLedgerRows(@Param("after") String after, Pageable page);
+
+    @Modifying
+    @Query("update Account a set a.balance = :balance, a.version = a.version + 1 where a.accountNo = :accountNo")
+    int overwriteBalance(@Param("accountNo") String accountNo, @Param("balance") BigDecimal balance);
+
+    @Modifying
+    @Query("update Account a set a.accountNo = function('REPLACE', a.accountId, '-', '') where a.accountNo is null")
+    int backfillAccountNo();
+
+    @Modifying
+    @Query("update Account a set a.version = 0 where a.version is null")
+    int backfillVersion();
+
+    @Query("select a.accountNo from Account a where a.accountNo in :accountNos")
+    List<String> findExistingAccountNos(@Param("accountNos") Collection<String> accountNos);
+
+    //keyset ตาม primary key, หน้าแรกส่ง after = ""
+    @Query("select a from Account a where a.accountId > :after order by a.accountId")
+    List<Account> findPageAfter(@Param("after") String after, Pageable page);
+
+    //ตารางบัญชีของผู้ดูแล [accountId, balance, status, createdDate, firstNameTh, lastNameTh]
+    @Query("select a.accountId, a.balance, a.status, a.createdDate, m.firstNameTh, m.lastNameTh " +
+            "from Account a join a.member m where a.accountId > :after order by a.accountId")
+    List<Object[]> findAdminRowsAfter(@Param("after") String after, Pageable page);
+
+    //แถวเดียวกับ findAdminRowsAfter สำหรับผลค้นหา (ลำดับไม่แน่นอน ผู้เรียกเรียงเอง)
+    @Query("select a.accountId, a.balance, a.status, a.createdDate, m.firstNameTh, m.lastNameTh " +
+            "from Account a join a.member m where a.accountId in :accountIds")
+    List<Object[]> findAdminRowsByIds(@Param("accountIds") Collection<String> accountIds);
+
+    //สำหรับ index ค้นหา [accountId, createdDate, firstNameTh, lastNameTh, firstNameEn, lastNameEn]
+    @Query("select a.accountId, a.createdDate, m.firstNameTh, m.lastNameTh, m.firstNameEn, m.lastNameEn " +
+            "from Account a join a.member m where a.accountId > :after order by a.accountId")
+    List<Object[]> findSearchRowsAfter(@Param("after") String after, Pageable page);
+
+    @Query("select a.accountId, a.createdDate, m.firstNameTh, m.lastNameTh, m.firstNameEn, m.lastNameEn " +
+            "from Account a join a.member m where a.accountId in :accountIds")
+    List<Object[]> findSearchRowsByIds(@Param("accountIds") Collection<String> accountIds);
+
+    @Query("select a.accountId, a.createdDate, m.firstNameTh, m.lastNameTh, m.firstNameEn, m.lastNameEn " +
+            "from Account a join a.member m where m.memberId = :memberId")
+    List<Object[]> findSearchRowsByMember(@Param("memberId") String memberId);
+
+    //ชื่อเจ้าของหลายบัญชีในคำสั่งเดียว [accountNo, firstNameTh, lastNameTh]
+    @Query("select a.accountNo, m.firstNameTh, m.lastNameTh from Account a join a.member m where a.accountNo in :accountNos")
+    List<Object[]> findOwnerNames(@Param("accountNos") Collection<String> accountNos);
+
+    //ผู้รับ statement ประจำเดือน [accountId, email] เรียงตาม accountId แบบ keyset
+    @Query("select a.accountId, m.email from Account a join a.member m where a.accountId > :after order by a.accountId")
+    List<Object[]> findStatementRecipients(@Param("after") String after, Pageable page);
 }
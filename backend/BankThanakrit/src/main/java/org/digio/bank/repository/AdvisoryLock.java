@@ -0,0 +1,73 @@
+package org.digio.bank.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * lock ระดับฐานข้อมูลด้วย GET_LOCK ของ MySQL ใช้กันไม่ให้มีสอง instance ทำงานที่ต้องมีเจ้าของเดียว
+ * lock ผูกกับ connection จึงถือ connection ไว้ตลอดอายุ lock ถ้า connection หลุด lock จะถูกปล่อยเอง
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class AdvisoryLock {
+
+    private final DataSource dataSource;
+
+    public record Held(String name, Connection connection) {
+    }
+
+    //คืน null ถ้ามีคนอื่นถือ lock อยู่เกิน waitSeconds
+    public Held acquire(String name, int waitSeconds) throws SQLException {
+        Connection connection = dataSource.getConnection();
+        try (PreparedStatement ps = connection.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            ps.setString(1, name);
+            ps.setInt(2, Math.max(0, waitSeconds));
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next() && rs.getInt(1) == 1) {
+                    return new Held(name, connection);
+                }
+            }
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        connection.close();
+        return null;
+    }
+
+    //ยังถือ lock อยู่หรือไม่ (connection อาจหลุดแล้วถูกปล่อยไปโดยไม่รู้ตัว)
+    public boolean isHeld(Held held) {
+        if (held == null) {
+            return false;
+        }
+        try (PreparedStatement ps = held.connection().prepareStatement("SELECT IS_USED_LOCK(?) = CONNECTION_ID()")) {
+            ps.setString(1, held.name());
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    public void release(Held held) {
+        if (held == null) {
+            return;
+        }
+        try (Connection connection = held.connection();
+             PreparedStatement ps = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            ps.setString(1, held.name());
+            ps.execute();
+        } catch (SQLException e) {
+            log.warn("ปล่อย lock {} ไม่สำเร็จ: {}", held.name(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.digio.bank.repository;
+
+import org.digio.entitty.model.BalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Calendar;
+import java.util.List;
+import java.util.Optional;
+
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, Long> {
+
+    Optional<BalanceSnapshot> findFirstByAccountNoOrderByLastEntryIdDesc(String accountNo);
+
+    Optional<BalanceSnapshot> findFirstByAccountNoAndSnapshotDateLessThanEqualOrderBySnapshotDateDesc(
+            String accountNo, Calendar at);
+
+    //ยอดยกมาตอนเริ่มใช้ journal (lastEntryId = 0) ใช้เป็นจุดตั้งต้นย้อนยอดด้วยตาราง transactions
+    Optional<BalanceSnapshot> findFirstByAccountNoAndLastEntryIdOrderBySnapshotDateAsc(String accountNo, long lastEntryId);
+
+    @Query("select max(s.lastEntryId) from BalanceSnapshot s")
+    Long maxLastEntryId();
+
+    //บัญชีที่มีอยู่ก่อนเริ่มใช้ journal: ยังไม่มีทั้ง snapshot และ journal entry
+    @Query("select a.accountNo, a.balance from Account a " +
+            "where a.accountNo is not null " +
+            "and not exists (select s.snapshotId from BalanceSnapshot s where s.accountNo = a.accountNo) " +
+            "and not exists (select e.entryId from JournalEntry e where e.accountNo = a.accountNo)")
+    List<Object[]> findUnseededAccounts();
+}
@@ -0,0 +1,15 @@
+package org.digio.bank.repository;
+
+import org.digio.entitty.model.DailyAccountSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailySummaryRepository extends JpaRepository<DailyAccountSummary, Long> {
+
+    //ใช้ uk_daily_summary_account_date ทั้งช่วง
+    List<DailyAccountSummary> findByAccountIdAndSummaryDateBetweenOrderBySummaryDate(String accountId,
+                                                                                  LocalDate from,
+                                                                                  LocalDate to);
+}
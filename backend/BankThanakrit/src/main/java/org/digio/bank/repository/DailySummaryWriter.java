@@ -0,0 +1,64 @@
+package org.digio.bank.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.digio.entitty.model.DailyAccountSummary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.util.List;
+
+//บวกค่าเปลี่ยนแปลงเข้ากับแถวของวันนั้นด้วย upsert ไม่ต้อง select ก่อน (ค่าติดลบ = หักออก เช่นตอนยกเลิกรายการ)
+@Repository
+@RequiredArgsConstructor
+public class DailySummaryWriter {
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO `daily_account_summary` (`account_id`, `summary_date`, `deposit`, `withdraw`, `transfer`, " +
+            "`receive`, `transaction_count`) VALUES (?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE `deposit` = `deposit` + VALUES(`deposit`), " +
+            "`withdraw` = `withdraw` + VALUES(`withdraw`), `transfer` = `transfer` + VALUES(`transfer`), " +
+            "`receive` = `receive` + VALUES(`receive`), " +
+            "`transaction_count` = `transaction_count` + VALUES(`transaction_count`)";
+
+    //สร้างยอดย้อนหลังจากรายการเดิมทั้งหมด ใช้ครั้งเดียวตอนตารางยังว่าง (transaction_date เก็บเป็นเวลา Asia/Bangkok)
+    //ถอน/โอนเก็บ amount ติดลบ จึงใช้ ABS ให้ตรงกับ DailySummaryService.apply
+    private static final String REBUILD_SQL =
+            "INSERT IGNORE INTO `daily_account_summary` (`account_id`, `summary_date`, `deposit`, `withdraw`, " +
+            "`transfer`, `receive`, `transaction_count`) " +
+            "SELECT `account_id`, DATE(`transaction_date`), " +
+            "SUM(CASE WHEN `type` = ? THEN ABS(`amount`) ELSE 0 END), " +
+            "SUM(CASE WHEN `type` = ? THEN ABS(`amount`) ELSE 0 END), " +
+            "SUM(CASE WHEN `type` = ? THEN ABS(`amount`) ELSE 0 END), " +
+            "SUM(CASE WHEN `type` = ? THEN ABS(`amount`) ELSE 0 END), " +
+            "COUNT(*) FROM `transactions` WHERE `account_id` IS NOT NULL AND `status` <> ? " +
+            "AND `type` IN (?, ?, ?, ?) GROUP BY `account_id`, DATE(`transaction_date`)";
+
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void addAll(List<DailyAccountSummary> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, deltas, BATCH_SIZE, (ps, d) -> {
+            ps.setString(1, d.getAccountId());
+            ps.setDate(2, Date.valueOf(d.getSummaryDate()));
+            ps.setBigDecimal(3, d.getDeposit());
+            ps.setBigDecimal(4, d.getWithdraw());
+            ps.setBigDecimal(5, d.getTransfer());
+            ps.setBigDecimal(6, d.getReceive());
+            ps.setInt(7, d.getTransactionCount());
+        });
+    }
+
+    public boolean isEmpty() {
+        return jdbcTemplate.queryForList("SELECT 1 FROM `daily_account_summary` LIMIT 1").isEmpty();
+    }
+
+    public int rebuild(String deposit, String withdraw, String transfer, String receive, String cancelled) {
+        return jdbcTemplate.update(REBUILD_SQL, deposit, withdraw, transfer, receive, cancelled,
+                deposit, withdraw, transfer, receive);
+    }
+}
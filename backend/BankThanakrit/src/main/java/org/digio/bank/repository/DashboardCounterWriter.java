@@ -0,0 +1,65 @@
+package org.digio.bank.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.digio.entitty.model.DashboardCounter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+//บวกค่าเปลี่ยนแปลงเข้ากับ stripe ของตัวนับด้วย upsert แบบเดียวกับ DailySummaryWriter
+@Repository
+@RequiredArgsConstructor
+public class DashboardCounterWriter {
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO `dashboard_counters` (`kind`, `category`, `status`, `stripe`, `item_count`, `amount`) " +
+            "VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE `item_count` = `item_count` + VALUES(`item_count`), " +
+            "`amount` = `amount` + VALUES(`amount`)";
+
+    //[kind, category, status, count, sum(amount)] ตารางนี้มีแค่ (ประเภท x สถานะ x stripe) แถว
+    private static final String READ_SQL =
+            "SELECT `kind`, `category`, `status`, SUM(`item_count`), SUM(`amount`) FROM `dashboard_counters` " +
+            "GROUP BY `kind`, `category`, `status`";
+
+    //สร้างตัวนับจากข้อมูลเดิมทั้งหมด ใช้ครั้งเดียวตอนตารางยังว่าง
+    private static final String REBUILD_TRANSACTIONS_SQL =
+            "INSERT IGNORE INTO `dashboard_counters` (`kind`, `category`, `status`, `stripe`, `item_count`, `amount`) " +
+            "SELECT ?, `type`, `status`, 0, COUNT(*), COALESCE(SUM(`amount`), 0) FROM `transactions` " +
+            "GROUP BY `type`, `status`";
+
+    private static final String REBUILD_ACCOUNTS_SQL =
+            "INSERT IGNORE INTO `dashboard_counters` (`kind`, `category`, `status`, `stripe`, `item_count`, `amount`) " +
+            "SELECT ?, '', `status`, 0, COUNT(*), 0 FROM `accounts` GROUP BY `status`";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void addAll(List<DashboardCounter> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, deltas, deltas.size(), (ps, d) -> {
+            ps.setString(1, d.getKind());
+            ps.setString(2, d.getCategory());
+            ps.setString(3, d.getStatus());
+            ps.setInt(4, d.getStripe());
+            ps.setLong(5, d.getItemCount());
+            ps.setBigDecimal(6, d.getAmount());
+        });
+    }
+
+    public List<Object[]> readAll() {
+        return jdbcTemplate.query(READ_SQL, (rs, i) -> new Object[]{
+                rs.getString(1), rs.getString(2), rs.getString(3), rs.getLong(4), rs.getBigDecimal(5)});
+    }
+
+    public boolean isEmpty() {
+        return jdbcTemplate.queryForList("SELECT 1 FROM `dashboard_counters` LIMIT 1").isEmpty();
+    }
+
+    public int rebuild(String transactionKind, String accountKind) {
+        return jdbcTemplate.update(REBUILD_TRANSACTIONS_SQL, transactionKind)
+                + jdbcTemplate.update(REBUILD_ACCOUNTS_SQL, accountKind);
+    }
+}
@@ -0,0 +1,38 @@
+package org.digio.bank.repository;
+
+import org.digio.entitty.model.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Calendar;
+
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    //จองคีย์แบบ insert-only คืน 1 ถ้าจองได้ 0 ถ้ามีคนจองไว้แล้ว
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO `idempotency_keys` (`idem_key`, `request_hash`, `transient_id`, `created_date`) " +
+            "VALUES (:idemKey, :requestHash, NULL, :createdDate)", nativeQuery = true)
+    int claim(@Param("idemKey") String idemKey,
+              @Param("requestHash") String requestHash,
+              @Param("createdDate") Calendar createdDate);
+
+    //เรียกภายใน transaction ของการบันทึกรายการ ผลจึง commit พร้อมกับการเคลื่อนไหวของเงิน
+    @Transactional
+    @Modifying
+    @Query("update IdempotencyKey k set k.transientId = :transientId where k.idemKey = :idemKey")
+    int complete(@Param("idemKey") String idemKey, @Param("transientId") String transientId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.idemKey = :idemKey and k.transientId is null")
+    int release(@Param("idemKey") String idemKey);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.createdDate < :before")
+    int deleteOlderThan(@Param("before") Calendar before);
+}
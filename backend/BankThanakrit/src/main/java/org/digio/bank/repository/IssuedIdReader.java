@@ -0,0 +1,40 @@
+package org.digio.bank.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+//เลขที่ล่าสุดที่ node หนึ่งออกไปแล้ว (รายการเงิน และ journal ปรับปรุงที่ขึ้นต้นด้วย ADJ)
+//ไล่ primary key/idx_journal_entries_journal ถอยหลังจาก upTo จนเจอเลขของ node นั้น ไม่สแกนทั้งตาราง
+@Repository
+@RequiredArgsConstructor
+public class IssuedIdReader {
+
+    private static final String LAST_TRANSACTION_SQL =
+            "SELECT `transient_id` FROM `transactions` WHERE `transient_id` <= ? " +
+            "AND SUBSTRING(`transient_id`, 12, 2) = ? ORDER BY `transient_id` DESC LIMIT 1";
+
+    private static final String LAST_ADJUSTMENT_SQL =
+            "SELECT SUBSTRING(`journal_id`, 4) FROM `journal_entries` WHERE `journal_id` > ? AND `journal_id` <= ? " +
+            "AND SUBSTRING(`journal_id`, 15, 2) = ? ORDER BY `journal_id` DESC LIMIT 1";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    //คืน null ถ้ายังไม่เคยออกเลข
+    public String lastIssued(int node, String upTo, String adjustmentPrefix) {
+        String nodeDigits = String.format("%02d", node);
+        String last = first(jdbcTemplate.queryForList(LAST_TRANSACTION_SQL, String.class, upTo, nodeDigits));
+        String adjustment = first(jdbcTemplate.queryForList(LAST_ADJUSTMENT_SQL, String.class,
+                adjustmentPrefix, adjustmentPrefix + upTo, nodeDigits));
+        if (last == null || (adjustment != null && adjustment.compareTo(last) > 0)) {
+            return adjustment;
+        }
+        return last;
+    }
+
+    private static String first(List<String> rows) {
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+}
@@ -0,0 +1,36 @@
+package org.digio.bank.repository;
+
+import org.digio.entitty.model.JournalEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.Calendar;
+import java.util.List;
+
+public interface JournalEntryRepository extends JpaRepository<JournalEntry, Long> {
+
+    //ผลรวมเครดิต - เดบิต ของบัญชีหลัง entry ที่ after (null ถ้าไม่มีรายการ)
+    @Query("select sum(case when e.direction = 'CREDIT' then e.amount else -e.amount end) " +
+            "from JournalEntry e where e.accountNo = :accountNo and e.entryId > :after")
+    BigDecimal sumAfter(@Param("accountNo") String accountNo, @Param("after") long after);
+
+    @Query("select sum(case when e.direction = 'CREDIT' then e.amount else -e.amount end) " +
+            "from JournalEntry e where e.accountNo = :accountNo and e.entryId > :after and e.entryId <= :upTo")
+    BigDecimal sumBetween(@Param("accountNo") String accountNo,
+                          @Param("after") long after,
+                          @Param("upTo") long upTo);
+
+    @Query("select sum(case when e.direction = 'CREDIT' then e.amount else -e.amount end) " +
+            "from JournalEntry e where e.accountNo = :accountNo and e.entryId > :after and e.postedDate <= :at")
+    BigDecimal sumAfterUntil(@Param("accountNo") String accountNo,
+                             @Param("after") long after,
+                             @Param("at") Calendar at);
+
+    @Query("select max(e.entryId) from JournalEntry e")
+    Long maxEntryId();
+
+    @Query("select distinct e.accountNo from JournalEntry e where e.entryId > :after and e.entryId <= :upTo")
+    List<String> findAccountsTouched(@Param("after") long after, @Param("upTo") long upTo);
+}
@@ -0,0 +1,37 @@
+package org.digio.bank.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.digio.entitty.model.JournalEntry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+//journal เป็นแบบเพิ่มอย่างเดียว จึงเขียนด้วย JDBC batch insert ได้ทั้งชุด
+@Repository
+@RequiredArgsConstructor
+public class JournalEntryWriter {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO `journal_entries` (`journal_id`, `account_no`, `direction`, `amount`, " +
+            "`transient_id`, `posted_date`) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insertAll(List<JournalEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, entries, BATCH_SIZE, (ps, e) -> {
+            ps.setString(1, e.getJournalId());
+            ps.setString(2, e.getAccountNo());
+            ps.setString(3, e.getDirection());
+            ps.setBigDecimal(4, e.getAmount());
+            ps.setString(5, e.getTransientId());
+            ps.setTimestamp(6, new Timestamp(e.getPostedDate().getTimeInMillis()));
+        });
+    }
+}
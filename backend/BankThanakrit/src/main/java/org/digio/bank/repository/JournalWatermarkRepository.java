@@ -0,0 +1,13 @@
+package org.digio.bank.repository;
+
+import org.digio.entitty.model.JournalWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Calendar;
+import java.util.List;
+
+public interface JournalWatermarkRepository extends JpaRepository<JournalWatermark, Integer> {
+
+    //เครื่องอื่นที่ยังรายงานค่าอยู่ แถวที่ไม่อัปเดตนานเกินกำหนดถือว่าเครื่องนั้นหยุดไปแล้ว
+    List<JournalWatermark> findByNodeIdNotAndUpdatedDateAfter(Integer nodeId, Calendar since);
+}
@@ -3,10 +3,19 @@ package org.digio.bank.repository;
 
 import org.digio.entitty.model.Member;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 public interface MemberRepository extends JpaRepository<Member, String > {
     Member findByEmail(String email);
     Member findByUsername(String username);
 
+    //keyset ตาม primary key, หน้าแรกส่ง after = ""
+    @Query("select m from Member m where m.memberId > :after order by m.memberId")
+    List<Member> findPageAfter(@Param("after") String after, Pageable page);
+
 }
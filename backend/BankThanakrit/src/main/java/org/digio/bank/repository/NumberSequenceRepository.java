@@ -0,0 +1,25 @@
+package org.digio.bank.repository;
+
+import jakarta.persistence.LockModeType;
+import org.digio.entitty.model.NumberSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+public interface NumberSequenceRepository extends JpaRepository<NumberSequence, String> {
+
+    //สร้างแถวเริ่มต้นถ้ายังไม่มี หลายเครื่องเรียกพร้อมกันได้
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO `number_sequences` (`name`, `next_value`) VALUES (:name, 0)", nativeQuery = true)
+    int createIfAbsent(@Param("name") String name);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from NumberSequence s where s.name = :name")
+    Optional<NumberSequence> lockByName(@Param("name") String name);
+}
@@ -0,0 +1,44 @@
+package org.digio.bank.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.digio.entitty.model.Transaction;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+//insert รายการธุรกรรมจำนวนมากด้วย JDBC batch ตรง ๆ (ไม่ผ่าน merge ของ JPA ที่ต้อง select ก่อนทุกแถว)
+@Repository
+@RequiredArgsConstructor
+public class TransactionBatchWriter {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO `transactions` (`transient_id`, `transaction_date`, `type`, `amount`, `confirm_pin`, " +
+            "`status`, `from_account`, `to_account`, `admin_id`, `account_id`) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insertAll(List<Transaction> transactions, int batchSize) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, transactions, Math.max(1, batchSize), (ps, t) -> {
+            ps.setString(1, t.getTransientId());
+            ps.setTimestamp(2, new Timestamp(t.getTransactionDate().getTimeInMillis()));
+            ps.setString(3, t.getType());
+            ps.setBigDecimal(4, t.getAmount());
+            ps.setString(5, t.getConfirmPin());
+            ps.setString(6, t.getStatus());
+            ps.setString(7, t.getFromAccount());
+            ps.setString(8, t.getToAccount());
+            if (t.getAdmin() != null) {
+                ps.setInt(9, t.getAdmin().getAdminId());
+            } else {
+                ps.setNull(9, Types.INTEGER);
+            }
+            ps.setString(10, t.getAccount().getAccountId());
+        });
+    }
+}
@@ -0,0 +1,63 @@
+package org.digio.bank.repository;
+
+import org.digio.bank.config.ExportProperties;
+import org.digio.bank.dto.TransactionView;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.function.Consumer;
+
+/**
+ * อ่านรายการธุรกรรมพร้อมชื่อเจ้าของบัญชีทั้งสองฝั่งด้วย cursor แบบ forward-only
+ * ส่งทีละแถวให้ consumer ทันที ไม่สร้าง List และไม่มี query ย่อยต่อแถว
+ */
+@Repository
+public class TransactionExportReader {
+
+    //ชื่อคู่บัญชี join ผ่าน uk_accounts_account_no, เรียงตาม idx_transactions_date_id จึงไม่ต้อง filesort
+    private static final String SELECT_SQL =
+            "SELECT t.`transient_id`, t.`transaction_date`, t.`type`, t.`amount`, t.`status`, " +
+            "t.`from_account`, t.`to_account`, t.`account_id`, " +
+            "CONCAT(fm.`first_name_th`, ' ', fm.`last_name_th`), CONCAT(tm.`first_name_th`, ' ', tm.`last_name_th`) " +
+            "FROM `transactions` t " +
+            "LEFT JOIN `accounts` fa ON fa.`account_no` = REPLACE(t.`from_account`, '-', '') " +
+            "LEFT JOIN `members` fm ON fm.`member_id` = fa.`member_id` " +
+            "LEFT JOIN `accounts` ta ON ta.`account_no` = REPLACE(t.`to_account`, '-', '') " +
+            "LEFT JOIN `members` tm ON tm.`member_id` = ta.`member_id` " +
+            "WHERE t.`transaction_date` >= ? AND t.`transaction_date` < ? " +
+            "ORDER BY t.`transaction_date`, t.`transient_id`";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TransactionExportReader(DataSource dataSource, ExportProperties properties) {
+        //JdbcTemplate แยกจากตัวหลัก เพื่อไม่ให้ fetch size แบบ streaming ไปกระทบ query อื่น
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(properties.getFetchSize());
+    }
+
+    //from รวม, to ไม่รวม
+    public void forEach(Calendar from, Calendar to, Consumer<TransactionView> consumer) {
+        jdbcTemplate.query(SELECT_SQL, rs -> {
+            TransactionView v = new TransactionView();
+            v.setTransientId(rs.getString(1));
+            Timestamp date = rs.getTimestamp(2);
+            if (date != null) {
+                Calendar c = Calendar.getInstance();
+                c.setTimeInMillis(date.getTime());
+                v.setTransactionDate(c);
+            }
+            v.setType(rs.getString(3));
+            v.setAmount(rs.getBigDecimal(4));
+            v.setStatus(rs.getString(5));
+            v.setFromAccount(rs.getString(6));
+            v.setToAccount(rs.getString(7));
+            v.setAccountId(rs.getString(8));
+            v.setFromAccountName(rs.getString(9));
+            v.setToAccountName(rs.getString(10));
+            consumer.accept(v);
+        }, new Timestamp(from.getTimeInMillis()), new Timestamp(to.getTimeInMillis()));
+    }
+}
@@ -3,10 +3,79 @@ package org.digio.bank.repository;
 
 import org.digio.entitty.model.Transaction;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.util.Calendar;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface TransactionRepository extends JpaRepository<Transaction, String> {
     List<Transaction> findByAccount_AccountId(String accountId);
+
+    //แถวสำหรับ TransactionView ในคำสั่งเดียว ไม่โหลด Account/Member/Address ต่อรายการ
+    //[transientId, transactionDate, type, amount, status, fromAccount, toAccount, accountId]
+    @Query("select t.transientId, t.transactionDate, t.type, t.amount, t.status, t.fromAccount, t.toAccount, " +
+            "t.account.accountId from Transaction t")
+    List<Object[]> findAllViewRows();
+
+    //หน้าแรกของรายการทั้งหมด ใหม่ -> เก่า ใช้ idx_transactions_date_id (คอลัมน์เดียวกับ findAllViewRows)
+    @Query("select t.transientId, t.transactionDate, t.type, t.amount, t.status, t.fromAccount, t.toAccount, " +
+            "t.account.accountId from Transaction t order by t.transactionDate desc, t.transientId desc")
+    List<Object[]> findViewRowsFirst(Pageable page);
+
+    //หน้าถัดไปแบบ keyset ต่อจากแถว (beforeDate, beforeId)
+    @Query("select t.transientId, t.transactionDate, t.type, t.amount, t.status, t.fromAccount, t.toAccount, " +
+            "t.account.accountId from Transaction t " +
+            "where t.transactionDate < :beforeDate or (t.transactionDate = :beforeDate and t.transientId < :beforeId) " +
+            "order by t.transactionDate desc, t.transientId desc")
+    List<Object[]> findViewRowsBefore(@Param("beforeDate") Calendar beforeDate,
+                                      @Param("beforeId") String beforeId,
+                                      Pageable page);
+
+    //แถวเดียวกับ findAllViewRows สำหรับผลค้นหา (ลำดับไม่แน่นอน ผู้เรียกเรียงเอง)
+    @Query("select t.transientId, t.transactionDate, t.type, t.amount, t.status, t.fromAccount, t.toAccount, " +
+            "a.accountId from Transaction t left join t.account a where t.transientId in :ids")
+    List<Object[]> findViewRowsByIds(@Param("ids") Collection<String> ids);
+
+    //สำหรับ index ค้นหา keyset ตาม primary key [transientId, transactionDate, fromAccount, toAccount, accountId]
+    @Query("select t.transientId, t.transactionDate, t.fromAccount, t.toAccount, a.accountId " +
+            "from Transaction t left join t.account a where t.transientId > :after and t.transactionDate >= :since " +
+            "order by t.transientId")
+    List<Object[]> findSearchRowsAfter(@Param("after") String after, @Param("since") Calendar since, Pageable page);
+
+    //แถวเดียวกันในช่วงเลขที่ (after, upTo] เลขที่เรียงตามเวลา ช่วงนี้จึงเป็นช่วงเวลาที่ไล่ดูผ่าน primary key
+    @Query("select t.transientId, t.transactionDate, t.fromAccount, t.toAccount, a.accountId " +
+            "from Transaction t left join t.account a where t.transientId > :after and t.transientId <= :upTo " +
+            "order by t.transientId")
+    List<Object[]> findSearchRowsBetween(@Param("after") String after, @Param("upTo") String upTo, Pageable page);
+
+    //รหัสสมาชิกเจ้าของบัญชีของรายการ สำหรับตรวจสิทธิ์
+    @Query("select t.account.member.memberId from Transaction t where t.transientId = :transactionId")
+    Optional<String> findOwnerByTransactionId(@Param("transactionId") String transactionId);
+
+    //ผลรวมยอดมีเครื่องหมายของบัญชีในช่วง [from, to) ใช้ย้อนยอดช่วงก่อนเริ่มใช้ journal
+    @Query("select sum(t.amount) from Transaction t where t.account.accountNo = :accountNo " +
+            "and t.transactionDate >= :from and t.transactionDate < :to")
+    BigDecimal sumAmountBetween(@Param("accountNo") String accountNo,
+                                @Param("from") Calendar from,
+                                @Param("to") Calendar to);
+
+    //หน้าถัดไปของ statement แบบ keyset (transactionDate, transientId) คืนเฉพาะคอลัมน์ที่พิมพ์ ไม่โหลด entity
+    //[transientId, transactionDate, type, amount, fromAccount, toAccount, status]
+    @Query("select t.transientId, t.transactionDate, t.type, t.amount, t.fromAccount, t.toAccount, t.status " +
+            "from Transaction t where t.account.accountId = :accountId " +
+            "and t.transactionDate >= :from and t.transactionDate < :to " +
+            "and (t.transactionDate > :afterDate or (t.transactionDate = :afterDate and t.transientId > :afterId)) " +
+            "order by t.transactionDate, t.transientId")
+    List<Object[]> findStatementPage(@Param("accountId") String accountId,
+                                     @Param("from") Calendar from,
+                                     @Param("to") Calendar to,
+                                     @Param("afterDate") Calendar afterDate,
+                                     @Param("afterId") String afterId,
+                                     Pageable page);
 }
@@ -0,0 +1,31 @@
+package org.digio.bank.scheduler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.digio.bank.config.StatementProperties;
+import org.digio.bank.service.StatementService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.time.ZoneId;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StatementScheduler {
+
+    private final StatementService statementService;
+    private final StatementProperties properties;
+
+    //ตี 2 ของวันที่ 1 ส่ง statement ของเดือนที่แล้ว
+    @Scheduled(cron = "${bank.statement.month-end-cron:0 0 2 1 * *}", zone = "Asia/Bangkok")
+    public void runMonthEnd() {
+        if (!properties.isMonthEndEnabled()) {
+            return;
+        }
+        YearMonth month = YearMonth.now(ZoneId.of("Asia/Bangkok")).minusMonths(1);
+        log.info("เริ่มส่ง statement ประจำเดือน {}", month);
+        statementService.runMonthEnd(month);
+    }
+}
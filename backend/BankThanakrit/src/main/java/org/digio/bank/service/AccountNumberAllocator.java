@@ -0,0 +1,161 @@
+package org.digio.bank.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.digio.bank.config.AccountNumberProperties;
+import org.digio.bank.repository.AccountRepository;
+import org.digio.bank.repository.NumberSequenceRepository;
+import org.digio.entitty.model.NumberSequence;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * ออกเลขบัญชีรูปแบบ xxx-x-xxxxx-c (c = ผลรวมหลัก % 10) ที่ไม่ซ้ำกันโดยไม่ต้องสุ่มแล้วเช็กซ้ำทีละเลข
+ *
+ * แต่ละเครื่องจองช่วงลำดับ [n, n + blockSize) จากตาราง number_sequences (ล็อกแถวเดียวสั้น ๆ ต่อหนึ่งช่วง)
+ * ลำดับ n ถูกแปลงเป็นเลข 9 หลักด้วย (n * MULTIPLIER + OFFSET) mod 10^9 ซึ่งเป็น bijection
+ * เพราะ MULTIPLIER ไม่มีตัวประกอบร่วมกับ 10 เลขจึงไม่ซ้ำกันและไม่เรียงต่อกันจนเดาได้
+ * เลขบัญชีเก่าที่สุ่มไว้ก่อนหน้าถูกกรองออกด้วย query เดียวต่อช่วง
+ */
+@Slf4j
+@Service
+public class AccountNumberAllocator {
+
+    private static final String SEQUENCE_NAME = "account_number";
+    private static final long SPACE = 1_000_000_000L;
+    //ห้ามเปลี่ยนหลังเริ่มใช้งาน ไม่เช่นนั้นเลขที่ออกไปแล้วอาจถูกออกซ้ำ
+    private static final long MULTIPLIER = 738_219_451L;
+    private static final long OFFSET = 104_729_383L;
+
+    private final NumberSequenceRepository numberSequenceRepository;
+    private final AccountRepository accountRepository;
+    private final AccountNumberProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final LinkedBlockingQueue<String> pool = new LinkedBlockingQueue<>();
+    private final AtomicBoolean refilling = new AtomicBoolean();
+    private final ExecutorService refiller = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "account-number-refill");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public AccountNumberAllocator(NumberSequenceRepository numberSequenceRepository,
+                                  AccountRepository accountRepository,
+                                  AccountNumberProperties properties,
+                                  PlatformTransactionManager transactionManager) {
+        this.numberSequenceRepository = numberSequenceRepository;
+        this.accountRepository = accountRepository;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        scheduleRefill();
+    }
+
+    public String next() {
+        String accountId = pool.poll();
+        if (pool.size() < properties.getLowWatermark()) {
+            scheduleRefill();
+        }
+        if (accountId != null) {
+            return accountId;
+        }
+        try {
+            accountId = pool.poll(properties.getTakeTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (accountId == null) {
+            throw new IllegalStateException("ไม่สามารถออกเลขบัญชีได้ในขณะนี้ กรุณาลองใหม่อีกครั้ง");
+        }
+        return accountId;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refiller.shutdownNow();
+    }
+
+    private void scheduleRefill() {
+        if (!refilling.compareAndSet(false, true)) {
+            return;
+        }
+        refiller.execute(() -> {
+            try {
+                while (pool.size() < properties.getLowWatermark()) {
+                    refill();
+                }
+            } catch (RuntimeException e) {
+                log.error("จองเลขบัญชีช่วงใหม่ไม่สำเร็จ: {}", e.getMessage());
+            } finally {
+                refilling.set(false);
+            }
+        });
+    }
+
+    private void refill() {
+        long start = reserveBlock();
+        int size = properties.getBlockSize();
+        List<String> candidates = new ArrayList<>(size);
+        for (long n = start; n < start + size && n < SPACE; n++) {
+            candidates.add(digitsOf((n * MULTIPLIER + OFFSET) % SPACE));
+        }
+        //เลขบัญชีเก่าที่สุ่มไว้ก่อนมีตัวจัดสรรนี้อาจชนกับช่วงใหม่
+        Set<String> taken = new HashSet<>(accountRepository.findExistingAccountNos(candidates));
+        for (String accountNo : candidates) {
+            if (!taken.contains(accountNo)) {
+                pool.add(format(accountNo));
+            }
+        }
+        log.info("จองเลขบัญชีช่วง {} - {} (ชนเลขเดิม {} เลข)", start, start + candidates.size() - 1, taken.size());
+    }
+
+    private long reserveBlock() {
+        numberSequenceRepository.createIfAbsent(SEQUENCE_NAME);
+        Long start = transactionTemplate.execute(status -> {
+            NumberSequence seq = numberSequenceRepository.lockByName(SEQUENCE_NAME).orElseThrow();
+            long next = seq.getNextValue();
+            if (next >= SPACE) {
+                throw new IllegalStateException("เลขบัญชีถูกใช้ครบทุกเลขแล้ว");
+            }
+            seq.setNextValue(next + properties.getBlockSize());
+            return next;
+        });
+        return start == null ? 0 : start;
+    }
+
+    //เลข 9 หลัก + checksum 1 หลัก (รูปเดียวกับ accounts.account_no)
+    private static String digitsOf(long value) {
+        char[] out = new char[10];
+        int sum = 0;
+        for (int i = 8; i >= 0; i--) {
+            int d = (int) (value % 10);
+            out[i] = (char) ('0' + d);
+            sum += d;
+            value /= 10;
+        }
+        out[9] = (char) ('0' + sum % 10);
+        return new String(out);
+    }
+
+    //1234567890 -> 123-4-56789-0
+    private static String format(String accountNo) {
+        return accountNo.substring(0, 3) + "-" + accountNo.charAt(3) + "-"
+                + accountNo.substring(4, 9) + "-" + accountNo.charAt(9);
+    }
+}
@@ -1,16 +1,29 @@
 package org.digio.bank.service;
 
 import lombok.RequiredArgsConstructor;
+import org.digio.bank.dto.AccountBalance;
+import org.digio.bank.dto.CursorPage;
 import org.digio.bank.dto.OpenAccount;
 import org.digio.entitty.model.Account;
+import org.digio.entitty.model.DailyAccountSummary;
 import org.digio.entitty.model.Member;
+import org.digio.entitty.util.AccountNumbers;
+import org.digio.entitty.util.Money;
 import org.digio.bank.repository.AccountRepository;
 import org.digio.bank.repository.MemberRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.security.SecureRandom;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.Calendar;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 
 @Service
@@ -21,67 +34,124 @@ public class AccountService {
     private final AccountRepository accountRepository;
     private final PasswordService passwordService;
     private final MemberRepository memberRepository;
-    private static final SecureRandom RANDOM = new SecureRandom();
+    private final ObjectProvider<LedgerEngine> ledgerEngine;
+    private final JournalService journalService;
+    private final AccountNumberAllocator accountNumberAllocator;
+    private final DailySummaryService dailySummaryService;
+    private final DashboardCounterService dashboardCounterService;
+    private final SearchIndexService searchIndexService;
+    private final BalanceMutationExecutor balanceExecutor;
 
     public List<Account> getAllAccounts() {
         return accountRepository.findAll();
     }
 
+    public CursorPage<Account> getAccountPage(String cursor, Integer size) {
+        int pageSize = KeysetCursor.size(size);
+        String after = cursor == null || cursor.isBlank() ? "" : KeysetCursor.decode(cursor, 1)[0];
+        List<Account> rows = accountRepository.findPageAfter(after, PageRequest.of(0, pageSize + 1));
+        return KeysetCursor.page(rows, pageSize, page -> page, a -> KeysetCursor.encode(a.getAccountId()));
+    }
+
     public Account getAccountById(String accountId) {
         return accountRepository.findById(accountId).orElse(null);
     }
 
-    public List<Account> getAccountsByMember(String memberId) {
-        return accountRepository.findByMember_MemberId(memberId);
+    //at = null คือยอดปัจจุบัน
+    public AccountBalance getBalance(String accountId, Calendar at) {
+        Account account = accountRepository.findByAnyAccountId(accountId).orElse(null);
+        if (account == null) {
+            return null;
+        }
+        String accountNo = AccountNumbers.normalize(account.getAccountId());
+        BigDecimal balance = at == null ? journalService.currentBalance(accountNo) : journalService.balanceAt(accountNo, at);
+        return new AccountBalance(account.getAccountId(), balance, at == null ? Calendar.getInstance() : at);
+    }
+
+    //to = null คือวันนี้, from = null คือย้อนหลัง 30 วันจาก to
+    public List<DailyAccountSummary> getDailySummary(String accountId, LocalDate from, LocalDate to) {
+        Account account = accountRepository.findByAnyAccountId(accountId).orElse(null);
+        if (account == null) {
+            return null;
+        }
+        LocalDate end = to != null ? to : LocalDate.now(ZoneId.of("Asia/Bangkok"));
+        LocalDate start = from != null ? from : end.minusDays(30);
+        return dailySummaryService.getRange(account.getAccountId(), start, end);
+    }
+
+    @Async
+    @Transactional(readOnly = true)
+    public CompletableFuture<List<Account>> getAccountsByMember(String memberId) {
+        return CompletableFuture.completedFuture(accountRepository.findByMember_MemberId(memberId));
     }
 
     public Account createAccount(OpenAccount req) {
         Member member = memberRepository.findById(req.getMemberId())
                 .orElseThrow(() -> new RuntimeException("ไม่พบสมาชิก"));
 
-        if (!passwordService.matches(req.getPin(), member.getPin())) {
+        if (!passwordService.matchesPin(req.getPin(), member.getPin())) {
             throw new IllegalArgumentException("PIN ไม่ถูกต้อง");
         }
 
         Account account = Account.builder()
-                .accountId(generateAccountId())
-                .balance(0.00)
+                .accountId(accountNumberAllocator.next())
+                .balance(Money.ZERO)
                 .status("เปิดใช้งาน")
                 .createdDate(Calendar.getInstance())
                 .member(member)
                 .build();
 
-        return accountRepository.save(account);
-    }
-
-    private String generateAccountId() {
-        String a1 = String.format("%03d", RANDOM.nextInt(1000));
-        String a2 = String.format("%01d", RANDOM.nextInt(10));
-        String a3 = String.format("%05d", RANDOM.nextInt(100000));
-        String raw = a1 + a2 + a3;
-        int sum = 0;
-        for (char c : raw.toCharArray()) {
-            sum += Character.getNumericValue(c);
-        }
-        int checksum = sum % 10;
-        return a1 + "-" + a2 + "-" + a3 + "-" + checksum;
+        //แถวบัญชีกับตัวนับต้อง commit พร้อมกัน
+        Account saved = balanceExecutor.execute(() -> {
+            Account created = accountRepository.save(account);
+            dashboardCounterService.account(null, created.getStatus());
+            return created;
+        });
+        ledgerEngine.ifAvailable(ledger -> ledger.register(saved));
+        searchIndexService.reindexAccounts(saved.getAccountId());
+        return saved;
     }
 
+    //ล็อกแถวบัญชีแบบเดียวกับการตัดเงิน แล้วบันทึก journal ปรับปรุงกับแถวบัญชีใน transaction เดียว
     public Account updateAccount(String accountId, Account update) {
-        return accountRepository.findById(accountId).map(existing -> {
+        AtomicBoolean adjusted = new AtomicBoolean();
+        Account updated = balanceExecutor.execute(() -> accountRepository.lockByAnyAccountId(accountId).map(existing -> {
+            //แก้ยอดเฉพาะเมื่อค่าที่ส่งมาต่างจากเดิมจริง ไม่ใช่ค่าเดิมที่ส่งกลับมาพร้อมการแก้สถานะ
+            if (update.getBalance() != null && (existing.getBalance() == null
+                    || update.getBalance().compareTo(existing.getBalance()) != 0)) {
+                journalService.adjust(AccountNumbers.normalize(existing.getAccountId()), update.getBalance());
+                adjusted.set(true);
+            }
             existing.setBalance(update.getBalance());
+            dashboardCounterService.account(existing.getStatus(), update.getStatus());
             existing.setStatus(update.getStatus());
             existing.setCreatedDate(update.getCreatedDate());
             existing.setMember(update.getMember());
-            return accountRepository.save(existing);
-        }).orElse(null);
+            Account saved = accountRepository.save(existing);
+            searchIndexService.reindexAccounts(saved.getAccountId());
+            return saved;
+        }).orElse(null));
+        if (updated != null) {
+            ledgerEngine.ifAvailable(ledger -> {
+                ledger.register(updated);
+                if (adjusted.get()) {
+                    ledger.setBalance(updated.getAccountId(), updated.getBalance());
+                }
+            });
+        }
+        return updated;
     }
 
+    @Transactional
     public boolean deleteAccount(String accountId) {
-        if (!accountRepository.existsById(accountId)) {
+        Account existing = accountRepository.findById(accountId).orElse(null);
+        if (existing == null) {
             return false;
         }
-        accountRepository.deleteById(accountId);
+        dashboardCounterService.account(existing.getStatus(), null);
+        accountRepository.delete(existing);
+        ledgerEngine.ifAvailable(ledger -> ledger.remove(accountId));
+        searchIndexService.removeAccount(accountId);
         return true;
     }
 }
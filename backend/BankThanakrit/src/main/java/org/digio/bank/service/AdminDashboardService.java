@@ -0,0 +1,160 @@
+package org.digio.bank.service;
+
+import lombok.RequiredArgsConstructor;
+import org.digio.bank.config.AdminDashboardProperties;
+import org.digio.bank.dto.AdminAccountRow;
+import org.digio.bank.dto.AdminSnapshot;
+import org.digio.bank.dto.CursorPage;
+import org.digio.bank.dto.SearchPage;
+import org.digio.bank.dto.TransactionView;
+import org.digio.bank.repository.AccountRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * หน้าแรกของผู้ดูแลในคำขอเดียว: บัญชีหน้าแรก, รายการล่าสุด (เรียงที่ฐานข้อมูล) และตัวเลขสรุป
+ * ตัวเลขสรุปอ่านจาก dashboard_counters ที่ปรับทุกครั้งที่เขียน (DashboardCounterService) ไม่ได้สแกนตาราง
+ */
+@Service
+@RequiredArgsConstructor
+public class AdminDashboardService {
+
+    private static final String CANCELLED = "ยกเลิก";
+
+    private final AccountRepository accountRepository;
+    private final TransactionService transactionService;
+    private final AdminDashboardProperties properties;
+    private final SearchIndexService searchIndexService;
+    private final DashboardCounterService dashboardCounterService;
+
+    private record Counters(long totalAccounts, Map<String, Long> accountsByStatus,
+                            long totalTransactions, Map<String, Long> transactionsByStatus,
+                            Map<String, Long> transactionsByType, Map<String, BigDecimal> amountByType,
+                            Calendar countedAt) {
+    }
+
+    @Transactional(readOnly = true)
+    public AdminSnapshot snapshot() {
+        int size = properties.getPageSize();
+        Counters c = count();
+        return AdminSnapshot.builder()
+                .accounts(getAccountPage(null, size))
+                .transactions(transactionService.getTransactionPage(null, size))
+                .totalAccounts(c.totalAccounts())
+                .accountsByStatus(c.accountsByStatus())
+                .totalTransactions(c.totalTransactions())
+                .transactionsByStatus(c.transactionsByStatus())
+                .transactionsByType(c.transactionsByType())
+                .amountByType(c.amountByType())
+                .countedAt(c.countedAt())
+                .build();
+    }
+
+    public CursorPage<AdminAccountRow> getAccountPage(String cursor, Integer size) {
+        int pageSize = KeysetCursor.size(size);
+        String after = cursor == null || cursor.isBlank() ? "" : KeysetCursor.decode(cursor, 1)[0];
+        List<Object[]> rows = accountRepository.findAdminRowsAfter(after, PageRequest.of(0, pageSize + 1));
+        return KeysetCursor.page(rows, pageSize, AdminDashboardService::toAccountRows,
+                r -> KeysetCursor.encode((String) r[0]));
+    }
+
+    //page เริ่มที่ 0, size ใช้ขอบเขตเดียวกับ cursor (ค่าเริ่มต้น 50 สูงสุด 500)
+    @Transactional(readOnly = true)
+    public SearchPage<AdminAccountRow> searchAccounts(String query, Integer page, Integer size) {
+        SearchIndexService.Hits hits = searchIndexService.searchAccounts(query);
+        int pageSize = KeysetCursor.size(size);
+        int pageNo = pageNo(page);
+        List<String> ids = slice(hits.keys(), pageNo, pageSize);
+        Map<String, AdminAccountRow> byId = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (AdminAccountRow row : toAccountRows(accountRepository.findAdminRowsByIds(ids))) {
+                byId.put(row.getAccountId(), row);
+            }
+        }
+        List<AdminAccountRow> items = new ArrayList<>(byId.size());
+        for (String id : ids) {
+            AdminAccountRow row = byId.get(id);
+            if (row != null) {
+                items.add(row);
+            }
+        }
+        return new SearchPage<>(query, hits.total(), hits.totalExact(), pageNo, pageSize, items);
+    }
+
+    @Transactional(readOnly = true)
+    public SearchPage<TransactionView> searchTransactions(String query, Integer page, Integer size) {
+        SearchIndexService.Hits hits = searchIndexService.searchTransactions(query);
+        int pageSize = KeysetCursor.size(size);
+        int pageNo = pageNo(page);
+        List<TransactionView> items = transactionService.getViewsByIds(slice(hits.keys(), pageNo, pageSize));
+        return new SearchPage<>(query, hits.total(), hits.totalExact(), pageNo, pageSize, items);
+    }
+
+    private static int pageNo(Integer page) {
+        if (page == null) {
+            return 0;
+        }
+        if (page < 0) {
+            throw new IllegalArgumentException("page ต้องไม่ติดลบ");
+        }
+        return page;
+    }
+
+    private static List<String> slice(List<String> keys, int page, int size) {
+        long from = (long) page * size;
+        if (from >= keys.size()) {
+            return List.of();
+        }
+        return keys.subList((int) from, (int) Math.min(from + size, keys.size()));
+    }
+
+    //[accountId, balance, status, createdDate, firstNameTh, lastNameTh]
+    private static List<AdminAccountRow> toAccountRows(List<Object[]> rows) {
+        List<AdminAccountRow> out = new ArrayList<>(rows.size());
+        for (Object[] r : rows) {
+            out.add(new AdminAccountRow((String) r[0], r[4] + " " + r[5], (BigDecimal) r[1],
+                    (String) r[2], (Calendar) r[3]));
+        }
+        return out;
+    }
+
+    //[kind, category, status, count, sum(amount)] ตัวนับที่เหลือ 0 (เช่นสถานะที่ไม่มีบัญชีแล้ว) ไม่แสดง
+    private Counters count() {
+        long totalAccounts = 0;
+        Map<String, Long> accountsByStatus = new TreeMap<>();
+        long totalTransactions = 0;
+        Map<String, Long> byStatus = new TreeMap<>();
+        Map<String, Long> byType = new TreeMap<>();
+        Map<String, BigDecimal> amountByType = new TreeMap<>();
+        for (Object[] r : dashboardCounterService.readAll()) {
+            String category = (String) r[1];
+            String status = (String) r[2];
+            long n = (Long) r[3];
+            if (n == 0) {
+                continue;
+            }
+            if (DashboardCounterService.KIND_ACCOUNT.equals(r[0])) {
+                accountsByStatus.merge(status, n, Long::sum);
+                totalAccounts += n;
+                continue;
+            }
+            totalTransactions += n;
+            byStatus.merge(status, n, Long::sum);
+            byType.merge(category, n, Long::sum);
+            if (!CANCELLED.equals(status) && r[4] != null) {
+                amountByType.merge(category, (BigDecimal) r[4], BigDecimal::add);
+            }
+        }
+        return new Counters(totalAccounts, accountsByStatus, totalTransactions, byStatus, byType, amountByType,
+                Calendar.getInstance());
+    }
+}
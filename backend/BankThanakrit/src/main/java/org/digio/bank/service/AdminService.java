@@ -8,7 +8,9 @@ import org.digio.entitty.model.Admin;
 import org.digio.bank.repository.AccountRepository;
 import org.digio.bank.repository.AdminRepository;
 import org.digio.bank.repository.TransactionRepository;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -20,6 +22,9 @@ public class AdminService {
     private final PasswordService passwordService;
     private final AccountRepository accountRepository;
     private final TransactionRepository transactionRepository;
+    private final ObjectProvider<LedgerEngine> ledgerEngine;
+    private final DailySummaryService dailySummaryService;
+    private final DashboardCounterService dashboardCounterService;
 
     public Admin adminLogin(AdminLogin req) {
         List<Admin> admins = adminRepository.findByUsername(req.getUsername());
@@ -40,21 +45,38 @@ public class AdminService {
     }
 
     //อายัด
+    @Transactional
     public Account updateAccountStatus(String accountId, String status) {
         return accountRepository.findById(accountId)
                 .map(acc -> {
+                    dashboardCounterService.account(acc.getStatus(), status);
                     acc.setStatus(status);
-                    return accountRepository.save(acc);
+                    Account saved = accountRepository.save(acc);
+                    ledgerEngine.ifAvailable(ledger -> ledger.updateStatus(accountId, status));
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("ไม่พบบัญชีเลขที่ " + accountId));
     }
 
-    //ยกเลิกธุรกรรม
+    //นำ posting ที่ LedgerEngine พักไว้ (flush ล้มเหลวซ้ำ) กลับเข้าคิว คืน -1 ถ้าไม่ได้เปิด ledger
+    public int retryParkedLedger() {
+        LedgerEngine ledger = ledgerEngine.getIfAvailable();
+        return ledger == null ? -1 : ledger.retryParked();
+    }
+
+    //ยกเลิกธุรกรรม ยอดสรุปรายวันถูกหักออก และตัวนับย้ายไปสถานะยกเลิกใน transaction เดียวกัน
+    @Transactional
     public Transaction cancelTransaction(String transactionId) {
         Transaction t = transactionRepository.findById(transactionId)
                 .orElseThrow(() -> new RuntimeException("ไม่พบรายการธุรกรรม " + transactionId));
+        if ("ยกเลิก".equals(t.getStatus())) {
+            return t;
+        }
+        dailySummaryService.reverse(t);
         t.setStatus("ยกเลิก");
-        return transactionRepository.save(t);
+        Transaction saved = transactionRepository.save(t);
+        dailySummaryService.record(saved);
+        return saved;
     }
 
 }
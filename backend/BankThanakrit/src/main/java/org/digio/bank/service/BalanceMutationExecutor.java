@@ -0,0 +1,184 @@
+package org.digio.bank.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.digio.bank.config.BalanceProperties;
+import org.digio.bank.repository.AccountRepository;
+import org.digio.entitty.model.Account;
+import org.digio.entitty.util.AccountNumbers;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * ครอบการแก้ไขยอดเงิน (read-modify-write บน Account.balance) ด้วยกลยุทธ์ที่ตั้งไว้ใน bank.balance.mode
+ * PESSIMISTIC ล็อกแถวบัญชีตามลำดับเลขบัญชี, OPTIMISTIC อาศัย @Version แล้ว retry เมื่อชนกัน
+ * ATOMIC ไม่โหลดบัญชีมาแก้ แต่ใช้ AccountRepository.debit/credit แบบมีเงื่อนไข (ดู TransactionService)
+ */
+@Slf4j
+@Service
+public class BalanceMutationExecutor {
+
+    private final AccountRepository accountRepository;
+    private final BalanceProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Timer lockWait;
+    private final Counter retries;
+    private final Counter conflicts;
+    private final Counter exhausted;
+
+    public BalanceMutationExecutor(AccountRepository accountRepository,
+                                   BalanceProperties properties,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.lockWait = Timer.builder("bank.balance.lock.wait")
+                .description("เวลารอล็อกแถวบัญชี")
+                .register(meterRegistry);
+        this.retries = Counter.builder("bank.balance.retries")
+                .description("จำนวนครั้งที่ลองทำรายการใหม่หลังชนกัน")
+                .register(meterRegistry);
+        this.conflicts = Counter.builder("bank.balance.conflicts")
+                .description("จำนวนครั้งที่ optimistic lock ชนกัน")
+                .register(meterRegistry);
+        this.exhausted = Counter.builder("bank.balance.retries.exhausted")
+                .description("จำนวนรายการที่ลองครบแล้วยังไม่สำเร็จ")
+                .register(meterRegistry);
+    }
+
+    public boolean isAtomic() {
+        return properties.getMode() == BalanceProperties.Mode.ATOMIC;
+    }
+
+    public boolean isJournal() {
+        return properties.getMode() == BalanceProperties.Mode.JOURNAL;
+    }
+
+    public <T> T execute(Supplier<T> work) {
+        if (properties.getMode() != BalanceProperties.Mode.OPTIMISTIC) {
+            return transactionTemplate.execute(status -> work.get());
+        }
+
+        int attempt = 0;
+        while (true) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (OptimisticLockingFailureException e) {
+                conflicts.increment();
+                if (attempt >= properties.getMaxRetries()) {
+                    exhausted.increment();
+                    throw new IllegalStateException("มีรายการอื่นกำลังทำกับบัญชีนี้ กรุณาลองใหม่อีกครั้ง", e);
+                }
+                attempt++;
+                retries.increment();
+                backoff(attempt);
+            }
+        }
+    }
+
+    //ต้องเรียกภายใน execute เท่านั้น
+    public Optional<Account> acquire(String accountId) {
+        if (properties.getMode() != BalanceProperties.Mode.PESSIMISTIC) {
+            return accountRepository.findByAnyAccountId(accountId);
+        }
+        return lock(accountId);
+    }
+
+    //บัญชีที่จะถูกตัดเงิน โหมด JOURNAL ล็อกเฉพาะขานี้ เพื่อให้ยอดที่คำนวณจาก journal ไม่ถูกตัดซ้อน
+    public Optional<Account> acquireForDebit(String accountId) {
+        if (properties.getMode() != BalanceProperties.Mode.PESSIMISTIC && !isJournal()) {
+            return accountRepository.findByAnyAccountId(accountId);
+        }
+        return lock(accountId);
+    }
+
+    private Optional<Account> lock(String accountId) {
+        long start = System.nanoTime();
+        try {
+            return accountRepository.lockByAnyAccountId(accountId);
+        } finally {
+            lockWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * ล็อก/โหลดสองบัญชีโดยเรียงตามเลขบัญชีตัวเลขล้วนเสมอ ไม่ว่าจะโอนไปทางไหน
+     * ทำให้สองรายการที่โอนสวนกันไม่เกิด deadlock; ผลลัพธ์คืนตามลำดับ first, second เดิม
+     */
+    public AccountPair acquireInOrder(String first, String second) {
+        String firstNo = AccountNumbers.normalize(first);
+        String secondNo = AccountNumbers.normalize(second);
+        if (firstNo != null && secondNo != null && firstNo.compareTo(secondNo) > 0) {
+            Optional<Account> b = acquire(second);
+            Optional<Account> a = acquire(first);
+            return new AccountPair(a, b);
+        }
+        Optional<Account> a = acquire(first);
+        Optional<Account> b = acquire(second);
+        return new AccountPair(a, b);
+    }
+
+    /**
+     * โหลดหลายบัญชีพร้อมกัน (ใช้กับ batch) คีย์ของผลลัพธ์คือเลขบัญชีตัวเลขล้วน
+     * ทุกโหมดยกเว้น OPTIMISTIC จะล็อกแถวด้วย FOR UPDATE เพราะ batch คำนวณยอดต่อเนื่องในหน่วยความจำ
+     * โหมด JOURNAL ล็อกเฉพาะบัญชีใน debited (บัญชีต้นทาง) ที่เหลือเป็นการ append อย่างเดียว
+     */
+    public Map<String, Account> acquireAll(Collection<String> accountNos, Collection<String> debited) {
+        if (accountNos.isEmpty()) {
+            return Map.of();
+        }
+        List<Account> accounts;
+        if (properties.getMode() == BalanceProperties.Mode.OPTIMISTIC) {
+            accounts = accountRepository.findAllByAccountNoIn(accountNos);
+        } else {
+            long start = System.nanoTime();
+            try {
+                if (isJournal()) {
+                    if (!debited.isEmpty()) {
+                        accountRepository.lockAllByAccountNoIn(debited);
+                    }
+                    //แถวที่ล็อกแล้วอยู่ใน persistence context จึงได้ instance เดิมกลับมา
+                    accounts = accountRepository.findAllByAccountNoIn(accountNos);
+                } else {
+                    accounts = accountRepository.lockAllByAccountNoIn(accountNos);
+                }
+            } finally {
+                lockWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+        Map<String, Account> byNo = new HashMap<>(accounts.size() * 2);
+        for (Account a : accounts) {
+            byNo.put(a.getAccountNo(), a);
+        }
+        return byNo;
+    }
+
+    public record AccountPair(Optional<Account> first, Optional<Account> second) {
+    }
+
+    private void backoff(int attempt) {
+        long base = Math.min(properties.getMaxBackoffMs(), properties.getBackoffMs() << Math.min(attempt - 1, 16));
+        long sleep = base / 2 + ThreadLocalRandom.current().nextLong(base / 2 + 1);
+        try {
+            Thread.sleep(sleep);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("ทำรายการถูกยกเลิก", e);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.digio.bank.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.digio.bank.repository.DailySummaryRepository;
+import org.digio.bank.repository.DailySummaryWriter;
+import org.digio.entitty.model.DailyAccountSummary;
+import org.digio.entitty.model.Transaction;
+import org.digio.entitty.util.Money;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * ยอดฝาก/ถอน/โอน/รับรายวันต่อบัญชี ปรับทุกครั้งที่บันทึก แก้ไข ลบ หรือยกเลิกรายการ (พร้อมตัวนับของหน้าผู้ดูแล)
+ * ต้องเรียกภายใน transaction เดียวกับการเขียนรายการ ยอดสรุปจึงตรงกับรายการเสมอ
+ * หน้าสรุปอ่านแค่แถวของช่วงวันที่ต้องการ ไม่ต้องดึงรายการทั้งหมด
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DailySummaryService {
+
+    private static final ZoneId ZONE = ZoneId.of("Asia/Bangkok");
+    private static final String DEPOSIT_TYPE = "ฝากเงิน";
+    private static final String WITHDRAW_TYPE = "ถอนเงิน";
+    private static final String TRANSFER_TYPE = "โอนเงิน";
+    private static final String RECEIVE_TYPE = "รับเงิน";
+    private static final String CANCELLED = "ยกเลิก";
+    private static final int MAX_RANGE_DAYS = 3_660;
+
+    private final DailySummaryRepository dailySummaryRepository;
+    private final DailySummaryWriter dailySummaryWriter;
+    private final DashboardCounterService dashboardCounterService;
+
+    public void record(Transaction... transactions) {
+        record(Arrays.asList(transactions));
+    }
+
+    public void record(Collection<Transaction> transactions) {
+        apply(transactions, 1);
+    }
+
+    //หักรายการออกจากยอดสรุป ใช้ก่อนลบ/แก้ไข หรือก่อนเปลี่ยนเป็นยกเลิก (แล้ว record อีกครั้งหลังเปลี่ยน)
+    public void reverse(Transaction transaction) {
+        apply(List.of(transaction), -1);
+    }
+
+    public List<DailyAccountSummary> getRange(String accountId, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("วันที่เริ่มต้องไม่เกินวันที่สิ้นสุด");
+        }
+        if (from.plusDays(MAX_RANGE_DAYS).isBefore(to)) {
+            throw new IllegalArgumentException("ช่วงวันที่ต้องไม่เกิน " + MAX_RANGE_DAYS + " วัน");
+        }
+        return dailySummaryRepository.findByAccountIdAndSummaryDateBetweenOrderBySummaryDate(accountId, from, to);
+    }
+
+    //สร้างยอดย้อนหลังจากรายการที่มีอยู่ก่อนมีตารางนี้
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if (!dailySummaryWriter.isEmpty()) {
+            return;
+        }
+        int rows = dailySummaryWriter.rebuild(DEPOSIT_TYPE, WITHDRAW_TYPE, TRANSFER_TYPE, RECEIVE_TYPE, CANCELLED);
+        if (rows > 0) {
+            log.info("สร้างยอดสรุปรายวันจากรายการเดิม {} แถว", rows);
+        }
+    }
+
+    private void apply(Collection<Transaction> transactions, int sign) {
+        dashboardCounterService.transactions(transactions, sign);
+        //รวมหลายรายการของบัญชี/วันเดียวกันเป็นแถวเดียว และเรียงคีย์ให้ลำดับการล็อกแถวเหมือนกันทุกครั้ง
+        Map<String, DailyAccountSummary> deltas = new TreeMap<>();
+        for (Transaction t : transactions) {
+            if (t == null || t.getAccount() == null || t.getAmount() == null || t.getTransactionDate() == null
+                    || CANCELLED.equals(t.getStatus())) {
+                continue;
+            }
+            String type = t.getType();
+            if (!DEPOSIT_TYPE.equals(type) && !WITHDRAW_TYPE.equals(type)
+                    && !TRANSFER_TYPE.equals(type) && !RECEIVE_TYPE.equals(type)) {
+                continue;
+            }
+            String accountId = t.getAccount().getAccountId();
+            LocalDate day = t.getTransactionDate().toInstant().atZone(ZONE).toLocalDate();
+            DailyAccountSummary d = deltas.computeIfAbsent(accountId + '|' + day, k -> DailyAccountSummary.builder()
+                    .accountId(accountId)
+                    .summaryDate(day)
+                    .deposit(Money.ZERO)
+                    .withdraw(Money.ZERO)
+                    .transfer(Money.ZERO)
+                    .receive(Money.ZERO)
+                    .transactionCount(0)
+                    .build());
+            BigDecimal amount = sign > 0 ? t.getAmount().abs() : t.getAmount().abs().negate();
+            switch (type) {
+                case DEPOSIT_TYPE -> d.setDeposit(d.getDeposit().add(amount));
+                case WITHDRAW_TYPE -> d.setWithdraw(d.getWithdraw().add(amount));
+                case TRANSFER_TYPE -> d.setTransfer(d.getTransfer().add(amount));
+                default -> d.setReceive(d.getReceive().add(amount));
+            }
+            d.setTransactionCount(d.getTransactionCount() + sign);
+        }
+        dailySummaryWriter.addAll(new ArrayList<>(deltas.values()));
+    }
+}
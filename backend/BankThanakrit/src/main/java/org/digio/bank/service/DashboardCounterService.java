@@ -0,0 +1,109 @@
+package org.digio.bank.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.digio.bank.config.AdminDashboardProperties;
+import org.digio.bank.repository.DashboardCounterWriter;
+import org.digio.entitty.model.DashboardCounter;
+import org.digio.entitty.model.Transaction;
+import org.digio.entitty.util.Money;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * จำนวนบัญชีตามสถานะ และจำนวน/ยอดรวมรายการตามประเภทและสถานะ สำหรับหน้าผู้ดูแล
+ * ปรับแบบเพิ่ม/ลดทุกครั้งที่เขียนรายการหรือบัญชี (ต้องเรียกใน transaction เดียวกับการเขียน)
+ * การอ่านจึงรวมแค่ไม่กี่แถว ไม่ต้อง GROUP BY ตาราง transactions/accounts และเห็นการเขียนจากทุก node
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DashboardCounterService {
+
+    static final String KIND_ACCOUNT = "ACCOUNT";
+    static final String KIND_TRANSACTION = "TRANSACTION";
+
+    private final DashboardCounterWriter dashboardCounterWriter;
+    private final AdminDashboardProperties properties;
+
+    //sign = 1 เพิ่มรายการตามประเภท/สถานะปัจจุบัน, -1 หักออก (ก่อนแก้ไข ลบ หรือเปลี่ยนสถานะ)
+    public void transactions(Collection<Transaction> transactions, int sign) {
+        //ทุกแถวของการเขียนครั้งนี้ลง stripe เดียวกัน และเรียงคีย์ให้ลำดับการล็อกเหมือนกันทุกครั้ง
+        int stripe = stripe();
+        Map<String, DashboardCounter> deltas = new TreeMap<>();
+        for (Transaction t : transactions) {
+            if (t == null) {
+                continue;
+            }
+            String type = String.valueOf(t.getType());
+            String status = String.valueOf(t.getStatus());
+            DashboardCounter d = deltas.computeIfAbsent(type + '|' + status,
+                    k -> delta(KIND_TRANSACTION, type, status, stripe));
+            d.setItemCount(d.getItemCount() + sign);
+            if (t.getAmount() != null) {
+                d.setAmount(sign > 0 ? d.getAmount().add(t.getAmount()) : d.getAmount().subtract(t.getAmount()));
+            }
+        }
+        dashboardCounterWriter.addAll(new ArrayList<>(deltas.values()));
+    }
+
+    //oldStatus = null คือบัญชีใหม่, newStatus = null คือลบบัญชี
+    public void account(String oldStatus, String newStatus) {
+        if (oldStatus != null && oldStatus.equals(newStatus)) {
+            return;
+        }
+        int stripe = stripe();
+        Map<String, DashboardCounter> deltas = new TreeMap<>();
+        if (oldStatus != null) {
+            deltas.put(oldStatus, delta(KIND_ACCOUNT, "", oldStatus, stripe));
+            deltas.get(oldStatus).setItemCount(-1L);
+        }
+        if (newStatus != null) {
+            deltas.put(newStatus, delta(KIND_ACCOUNT, "", newStatus, stripe));
+            deltas.get(newStatus).setItemCount(1L);
+        }
+        dashboardCounterWriter.addAll(new ArrayList<>(deltas.values()));
+    }
+
+    public List<Object[]> readAll() {
+        return dashboardCounterWriter.readAll();
+    }
+
+    //นับจากตารางเดิมครั้งเดียวตอนเริ่มใช้ตัวนับ
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if (!dashboardCounterWriter.isEmpty()) {
+            return;
+        }
+        int rows = dashboardCounterWriter.rebuild(KIND_TRANSACTION, KIND_ACCOUNT);
+        if (rows > 0) {
+            log.info("สร้างตัวนับหน้าผู้ดูแลจากข้อมูลเดิม {} แถว", rows);
+        }
+    }
+
+    private int stripe() {
+        return ThreadLocalRandom.current().nextInt(Math.max(1, properties.getCounterStripes()));
+    }
+
+    private static DashboardCounter delta(String kind, String category, String status, int stripe) {
+        return DashboardCounter.builder()
+                .kind(kind)
+                .category(category)
+                .status(status)
+                .stripe(stripe)
+                .itemCount(0L)
+                .amount(Money.ZERO)
+                .build();
+    }
+}
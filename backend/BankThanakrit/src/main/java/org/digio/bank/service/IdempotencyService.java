@@ -0,0 +1,256 @@
+package org.digio.bank.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.digio.bank.config.IdempotencyProperties;
+import org.digio.bank.repository.IdempotencyKeyRepository;
+import org.digio.bank.repository.TransactionRepository;
+import org.digio.entitty.model.IdempotencyKey;
+import org.digio.entitty.model.Transaction;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Calendar;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * กันการทำรายการเงินซ้ำเมื่อ client ส่ง Idempotency-Key เดิมมาอีกครั้ง
+ * คีย์ที่ทำเสร็จแล้วจะคืนผล Transaction เดิมโดยไม่แตะยอดเงินในบัญชี
+ * คีย์ผูกกับผู้ทำรายการ (scope) และ hash ของเนื้อหาคำขอ คีย์เดิมแต่เนื้อหาต่างกันตอบ 422
+ * เก็บในหน่วยความจำแบบจำกัดจำนวน + TTL และเลือกเก็บลงตาราง idempotency_keys ได้
+ * โหมด persistent บันทึกผลใน transaction เดียวกับรายการเงิน (ดู completeInTransaction)
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 150;
+
+    //คีย์ที่จองไว้ของ thread นี้ ให้ TransactionService บันทึกผลใน transaction ของรายการ
+    private static final ThreadLocal<Pending> PENDING = new ThreadLocal<>();
+
+    private final IdempotencyProperties properties;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionRepository transactionRepository;
+
+    //เกินจำนวนแล้วจะลบเฉพาะคีย์ที่ทำเสร็จแล้ว คีย์ที่กำลังทำอยู่ต้องอยู่จนจบ ไม่อย่างนั้นคำขอซ้ำจะทำรายการซ้อน
+    private final Map<String, Entry> entries = new LinkedHashMap<>(1024, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() <= properties.getMaxEntries()) {
+                return false;
+            }
+            Iterator<Entry> it = values().iterator();
+            while (size() > properties.getMaxEntries() && it.hasNext()) {
+                if (it.next().result != null) {
+                    it.remove();
+                }
+            }
+            return false;
+        }
+    };
+
+    private static final class Entry {
+        final long createdAt;
+        final String fingerprint;
+        volatile Transaction result;
+
+        Entry(long createdAt, String fingerprint) {
+            this.createdAt = createdAt;
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    private static final class Pending {
+        final String id;
+        boolean completed;
+
+        Pending(String id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * scope = ผู้ทำรายการ (subject ของ session หรือเลขบัญชีที่ทำรายการ) คีย์เดียวกันของต่างคนจึงไม่ชนกัน
+     * fingerprint = hash ของเนื้อหาคำขอจาก fingerprint(...)
+     */
+    public Transaction execute(String key, String operation, String scope, String fingerprint,
+                               Supplier<Transaction> work) {
+        if (key == null || key.isBlank()) {
+            return work.get();
+        }
+        String id = operation + ":" + (scope == null ? "" : scope) + ":" + key.trim();
+        if (id.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key ยาวเกินไป");
+        }
+
+        long now = System.currentTimeMillis();
+        Entry existing;
+        synchronized (entries) {
+            existing = entries.get(id);
+            if (existing != null && existing.result != null && isExpired(existing, now)) {
+                entries.remove(id);
+                existing = null;
+            }
+            if (existing == null) {
+                entries.put(id, new Entry(now, fingerprint));
+            }
+        }
+        if (existing != null) {
+            if (!existing.fingerprint.equals(fingerprint)) {
+                throw mismatch();
+            }
+            return replay(existing.result);
+        }
+
+        boolean claimed = false;
+        Pending pending = null;
+        try {
+            if (properties.isPersistent()) {
+                if (idempotencyKeyRepository.claim(id, fingerprint, Calendar.getInstance()) == 0) {
+                    Transaction prior = replayPersistent(id, fingerprint);
+                    remember(id, prior);
+                    return prior;
+                }
+                claimed = true;
+                pending = new Pending(id);
+                PENDING.set(pending);
+            }
+
+            Transaction result = work.get();
+            //ทางที่ไม่ผ่าน TransactionService.saveAndPost (เช่น LedgerEngine) บันทึกผลหลังทำรายการเสร็จ
+            if (claimed && !pending.completed) {
+                idempotencyKeyRepository.complete(id, result.getTransientId());
+            }
+            remember(id, result);
+            return result;
+        } catch (RuntimeException e) {
+            synchronized (entries) {
+                Entry entry = entries.get(id);
+                if (entry != null && entry.result == null) {
+                    entries.remove(id);
+                }
+            }
+            if (claimed) {
+                //ผลที่บันทึกไว้ถูก rollback ไปพร้อมรายการแล้ว จึงลบคีย์ที่ยังไม่มีผลได้
+                idempotencyKeyRepository.release(id);
+            }
+            throw e;
+        } finally {
+            if (pending != null) {
+                PENDING.remove();
+            }
+        }
+    }
+
+    /**
+     * เรียกจากภายใน transaction ที่บันทึกรายการเงิน ถ้า thread นี้จองคีย์ไว้ ผลจะ commit/rollback พร้อมรายการ
+     * ถ้าเครื่องดับหลัง commit คำขอซ้ำจะได้ผลเดิม ถ้าดับก่อน commit ทั้งเงินและผลหายไปด้วยกัน
+     */
+    public void completeInTransaction(Transaction result) {
+        Pending pending = PENDING.get();
+        if (pending == null || result == null) {
+            return;
+        }
+        idempotencyKeyRepository.complete(pending.id, result.getTransientId());
+        pending.completed = true;
+    }
+
+    //SHA-256 ของส่วนประกอบคำขอ จำนวนเงินเทียบแบบไม่สนเลขศูนย์ท้าย (100 = 100.00)
+    public static String fingerprint(Object... parts) {
+        StringBuilder sb = new StringBuilder();
+        for (Object part : parts) {
+            if (part instanceof BigDecimal amount) {
+                sb.append(amount.stripTrailingZeros().toPlainString());
+            } else {
+                sb.append(part);
+            }
+            sb.append('\u001f');
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(sb.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Iterator<Entry> it = entries.values().iterator();
+            while (it.hasNext()) {
+                Entry entry = it.next();
+                if (!isExpired(entry, now)) {
+                    break;
+                }
+                if (entry.result != null) {
+                    it.remove();
+                }
+            }
+        }
+        if (properties.isPersistent()) {
+            Calendar before = Calendar.getInstance();
+            before.setTimeInMillis(now - properties.getTtlSeconds() * 1000);
+            int deleted = idempotencyKeyRepository.deleteOlderThan(before);
+            if (deleted > 0) {
+                log.info("ลบ idempotency key ที่หมดอายุ {} รายการ", deleted);
+            }
+        }
+    }
+
+    private Transaction replayPersistent(String id, String fingerprint) {
+        IdempotencyKey prior = idempotencyKeyRepository.findById(id).orElse(null);
+        if (prior == null) {
+            throw inProgress();
+        }
+        if (prior.getRequestHash() != null && !prior.getRequestHash().equals(fingerprint)) {
+            throw mismatch();
+        }
+        if (prior.getTransientId() == null) {
+            throw inProgress();
+        }
+        return replay(transactionRepository.findById(prior.getTransientId()).orElse(null));
+    }
+
+    private Transaction replay(Transaction result) {
+        if (result == null) {
+            throw inProgress();
+        }
+        return result;
+    }
+
+    private void remember(String id, Transaction result) {
+        synchronized (entries) {
+            Entry entry = entries.get(id);
+            if (entry != null) {
+                entry.result = result;
+            }
+        }
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return now - entry.createdAt > properties.getTtlSeconds() * 1000;
+    }
+
+    private static ResponseStatusException inProgress() {
+        return new ResponseStatusException(HttpStatus.CONFLICT, "รายการนี้กำลังดำเนินการอยู่ กรุณารอสักครู่");
+    }
+
+    private static ResponseStatusException mismatch() {
+        return new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                "Idempotency-Key นี้ถูกใช้กับคำขออื่นแล้ว");
+    }
+}
@@ -0,0 +1,347 @@
+package org.digio.bank.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.digio.bank.config.BalanceProperties;
+import org.digio.bank.config.JournalProperties;
+import org.digio.bank.config.NodeProperties;
+import org.digio.bank.repository.AccountRepository;
+import org.digio.bank.repository.BalanceSnapshotRepository;
+import org.digio.bank.repository.JournalEntryRepository;
+import org.digio.bank.repository.JournalEntryWriter;
+import org.digio.bank.repository.JournalWatermarkRepository;
+import org.digio.bank.repository.TransactionRepository;
+import org.digio.entitty.model.BalanceSnapshot;
+import org.digio.entitty.model.JournalEntry;
+import org.digio.entitty.model.JournalWatermark;
+import org.digio.entitty.model.Transaction;
+import org.digio.entitty.util.AccountNumbers;
+import org.digio.entitty.util.Money;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * สมุดบัญชีคู่แบบเพิ่มอย่างเดียว ทุกรายการเงินถูกบันทึกเป็นขาเดบิตและเครดิตที่มี journal_id เดียวกัน
+ * ยอดคงเหลือ = snapshot ล่าสุดของบัญชี + ผลรวม journal หลัง snapshot นั้น
+ * snapshot ถูกสร้างเป็นระยะโดย {@link #snapshot()} ทำให้ส่วนท้ายที่ต้องรวมสั้นเสมอ
+ * posting ที่ยังไม่ commit ถูกจดไว้ในหน่วยความจำพร้อมขอบล่าง (entry id สูงสุดที่เห็นก่อน insert)
+ * แต่ละเครื่องเขียนขอบล่างต่ำสุดของตัวเองลง journal_watermarks เป็นระยะ snapshot ใช้ค่าต่ำสุดของทุกเครื่อง
+ * เป็นขอบบน entry ทุกตัวที่ id ไม่เกินค่านี้จึง commit แล้ว โดยไม่มีแถวใดที่ทุกรายการต้อง lock ร่วมกัน
+ */
+@Slf4j
+@Service
+public class JournalService {
+
+    private final JournalEntryRepository journalEntryRepository;
+    private final JournalEntryWriter journalEntryWriter;
+    private final BalanceSnapshotRepository balanceSnapshotRepository;
+    private final AccountRepository accountRepository;
+    private final JournalWatermarkRepository journalWatermarkRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final BalanceProperties balanceProperties;
+    private final JournalProperties journalProperties;
+    private final int nodeId;
+    private final TransactionTemplate transactionTemplate;
+
+    static final String ADJUSTMENT_PREFIX = "ADJ";
+
+    private volatile long lastSnapshotEntryId = -1;
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+
+    //entry id สูงสุดที่ commit แล้วเท่าที่เครื่องนี้เคยเห็น id ที่จะออกใหม่มากกว่าค่านี้เสมอ
+    private final AtomicLong knownMaxEntryId = new AtomicLong();
+    //posting ที่ insert แล้วแต่ยังไม่จบ transaction -> ขอบล่างตอนเริ่ม
+    private final ConcurrentHashMap<Object, Long> inFlight = new ConcurrentHashMap<>();
+
+    public JournalService(JournalEntryRepository journalEntryRepository,
+                          JournalEntryWriter journalEntryWriter,
+                          BalanceSnapshotRepository balanceSnapshotRepository,
+                          AccountRepository accountRepository,
+                          JournalWatermarkRepository journalWatermarkRepository,
+                          TransactionRepository transactionRepository,
+                          TransactionIdGenerator transactionIdGenerator,
+                          BalanceProperties balanceProperties,
+                          JournalProperties journalProperties,
+                          NodeProperties nodeProperties,
+                          PlatformTransactionManager transactionManager) {
+        this.journalEntryRepository = journalEntryRepository;
+        this.journalEntryWriter = journalEntryWriter;
+        this.balanceSnapshotRepository = balanceSnapshotRepository;
+        this.accountRepository = accountRepository;
+        this.journalWatermarkRepository = journalWatermarkRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionIdGenerator = transactionIdGenerator;
+        this.balanceProperties = balanceProperties;
+        this.journalProperties = journalProperties;
+        this.nodeId = nodeProperties.getId();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * บันทึกหนึ่งรายการ (posting) จากแถว Transaction ที่สร้างขึ้น
+     * 1 แถว: ฝาก (ยอดบวก) หรือถอน (ยอดลบ) คู่กับบัญชีเงินสด, 2 แถว: [ขาโอนออก, ขารับเงิน]
+     */
+    public void post(Transaction... posting) {
+        write(entriesFor(posting));
+    }
+
+    public void postAll(List<Transaction[]> postings) {
+        List<JournalEntry> entries = new ArrayList<>(postings.size() * 2);
+        for (Transaction[] posting : postings) {
+            entries.addAll(entriesFor(posting));
+        }
+        write(entries);
+    }
+
+    //ผู้ดูแลแก้ยอดบัญชีโดยตรง บันทึกส่วนต่างเป็นรายการปรับปรุงคู่กับบัญชีเงินสด
+    //ต้องเรียกภายใน transaction ที่ล็อกแถวบัญชีไว้แล้ว ส่วนต่างจึงคำนวณจากยอดที่ไม่มีรายการอื่นแทรก
+    public void adjust(String accountNo, BigDecimal target) {
+        BigDecimal delta = Money.rounded(target).subtract(currentBalance(accountNo));
+        if (delta.signum() == 0) {
+            return;
+        }
+        String journalId = ADJUSTMENT_PREFIX + transactionIdGenerator.next();
+        Calendar now = Calendar.getInstance();
+        boolean credit = delta.signum() > 0;
+        BigDecimal amount = delta.abs();
+        List<JournalEntry> entries = List.of(
+                adjustment(journalId, JournalEntry.CASH_ACCOUNT, credit ? JournalEntry.DEBIT : JournalEntry.CREDIT, amount, now),
+                adjustment(journalId, accountNo, credit ? JournalEntry.CREDIT : JournalEntry.DEBIT, amount, now));
+        write(entries);
+    }
+
+    //จดขอบล่างก่อน insert และลบออกเมื่อ transaction ของรายการ commit/rollback
+    private void write(List<JournalEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        Object token = new Object();
+        inFlight.put(token, knownMaxEntryId.get());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            try {
+                journalEntryWriter.insertAll(entries);
+            } finally {
+                inFlight.remove(token);
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                inFlight.remove(token);
+            }
+        });
+        journalEntryWriter.insertAll(entries);
+    }
+
+    //เขียนค่าแรกก่อนรับรายการ เครื่องอื่นจึงเห็นเครื่องนี้ตั้งแต่ posting แรก
+    @PostConstruct
+    void publishInitialWatermark() {
+        publishWatermark();
+    }
+
+    /**
+     * ขอบล่างของเครื่องนี้ = ค่าต่ำสุดของ entry id ที่เห็นล่าสุดกับขอบล่างของ posting ที่ยังไม่จบ
+     * posting ที่เริ่มหลังจากเขียนค่าแล้วได้ขอบล่างไม่ต่ำกว่าค่าที่เขียน ค่าในตารางจึงยังใช้ได้จนถึงรอบถัดไป
+     */
+    @Scheduled(fixedDelayString = "${bank.journal.watermark-interval-ms:1000}",
+            initialDelayString = "${bank.journal.watermark-interval-ms:1000}")
+    public void publishWatermark() {
+        refreshKnownMax();
+        journalWatermarkRepository.save(JournalWatermark.builder()
+                .nodeId(nodeId)
+                .lowWater(lowWater())
+                .updatedDate(Calendar.getInstance())
+                .build());
+    }
+
+    private long refreshKnownMax() {
+        Long max = journalEntryRepository.maxEntryId();
+        return knownMaxEntryId.accumulateAndGet(max == null ? 0 : max, Math::max);
+    }
+
+    private long lowWater() {
+        long low = knownMaxEntryId.get();
+        for (long floor : inFlight.values()) {
+            low = Math.min(low, floor);
+        }
+        return low;
+    }
+
+    public BigDecimal currentBalance(String accountNo) {
+        Optional<BalanceSnapshot> snap = balanceSnapshotRepository.findFirstByAccountNoOrderByLastEntryIdDesc(accountNo);
+        long after = snap.map(BalanceSnapshot::getLastEntryId).orElse(0L);
+        BigDecimal base = snap.map(BalanceSnapshot::getBalance).orElse(Money.ZERO);
+        return add(base, journalEntryRepository.sumAfter(accountNo, after));
+    }
+
+    //ยอด ณ เวลาใด ๆ ก่อนวันที่เริ่มใช้ journal ย้อนจากยอดยกมาด้วยรายการในตาราง transactions
+    public BigDecimal balanceAt(String accountNo, Calendar at) {
+        Optional<BalanceSnapshot> seed = balanceSnapshotRepository
+                .findFirstByAccountNoAndLastEntryIdOrderBySnapshotDateAsc(accountNo, 0L);
+        if (seed.isPresent() && at.before(seed.get().getSnapshotDate())) {
+            BigDecimal since = transactionRepository.sumAmountBetween(accountNo, at, seed.get().getSnapshotDate());
+            return since == null ? seed.get().getBalance() : seed.get().getBalance().subtract(since);
+        }
+        Optional<BalanceSnapshot> snap = balanceSnapshotRepository
+                .findFirstByAccountNoAndSnapshotDateLessThanEqualOrderBySnapshotDateDesc(accountNo, at);
+        long after = snap.map(BalanceSnapshot::getLastEntryId).orElse(0L);
+        BigDecimal base = snap.map(BalanceSnapshot::getBalance).orElse(Money.ZERO);
+        return add(base, journalEntryRepository.sumAfterUntil(accountNo, after, at));
+    }
+
+    //บัญชีเดิมก่อนมี journal ใช้ยอดในตาราง accounts เป็นยอดยกมา
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedOpeningBalances() {
+        List<Object[]> rows = balanceSnapshotRepository.findUnseededAccounts();
+        if (rows.isEmpty()) {
+            return;
+        }
+        Calendar now = Calendar.getInstance();
+        List<BalanceSnapshot> seeds = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            seeds.add(BalanceSnapshot.builder()
+                    .accountNo((String) row[0])
+                    .lastEntryId(0L)
+                    .balance(row[1] == null ? Money.ZERO : Money.rounded((BigDecimal) row[1]))
+                    .snapshotDate(now)
+                    .build());
+        }
+        balanceSnapshotRepository.saveAll(seeds);
+        log.info("สร้างยอดยกมาใน journal ให้บัญชีเดิม {} รายการ", seeds.size());
+    }
+
+    @Scheduled(fixedDelayString = "${bank.journal.snapshot-interval-ms:60000}",
+            initialDelayString = "${bank.journal.snapshot-interval-ms:60000}")
+    public void snapshot() {
+        snapshotLock.lock();
+        try {
+            snapshotTouched();
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    private void snapshotTouched() {
+        if (lastSnapshotEntryId < 0) {
+            Long covered = balanceSnapshotRepository.maxLastEntryId();
+            lastSnapshotEntryId = covered == null ? 0 : covered;
+        }
+        long upTo = committedHighWater();
+        if (upTo <= lastSnapshotEntryId) {
+            return;
+        }
+
+        List<String> touched = journalEntryRepository.findAccountsTouched(lastSnapshotEntryId, upTo);
+        boolean materialize = balanceProperties.getMode() == BalanceProperties.Mode.JOURNAL;
+        Calendar now = Calendar.getInstance();
+        for (String accountNo : touched) {
+            transactionTemplate.executeWithoutResult(status -> {
+                Optional<BalanceSnapshot> prev = balanceSnapshotRepository.findFirstByAccountNoOrderByLastEntryIdDesc(accountNo);
+                long after = prev.map(BalanceSnapshot::getLastEntryId).orElse(0L);
+                if (after >= upTo) {
+                    return;
+                }
+                BigDecimal balance = add(prev.map(BalanceSnapshot::getBalance).orElse(Money.ZERO),
+                        journalEntryRepository.sumBetween(accountNo, after, upTo));
+                balanceSnapshotRepository.save(BalanceSnapshot.builder()
+                        .accountNo(accountNo)
+                        .lastEntryId(upTo)
+                        .balance(balance)
+                        .snapshotDate(now)
+                        .build());
+                //โหมด JOURNAL ไม่แก้ accounts.balance ทุกรายการ จึงอัปเดตยอดให้ตามทันที่นี่
+                if (materialize && !JournalEntry.CASH_ACCOUNT.equals(accountNo)) {
+                    accountRepository.overwriteBalance(accountNo, balance);
+                }
+            });
+        }
+        lastSnapshotEntryId = upTo;
+        log.info("สร้าง balance snapshot {} บัญชี ถึง entry {}", touched.size(), upTo);
+    }
+
+    /**
+     * ขอบบนของ snapshot: ค่าต่ำสุดของ MAX(entry_id) ที่เห็น, ขอบล่างของเครื่องนี้ และขอบล่างของเครื่องอื่นที่ยังรายงานอยู่
+     * entry ที่ id ไม่เกินค่านี้ commit แล้วทั้งหมด ไม่มี lock ใด ๆ รายการที่ยังไม่ commit แค่ทำให้ขอบบนต่ำลง
+     * เครื่องที่หยุดรายงานนานกว่า bank.journal.watermark-stale-ms ไม่นำมาคิด
+     * (transaction ที่เขียน journal ค้างนานกว่านั้นจะทำให้ snapshot ข้าม entry ของมันไป)
+     */
+    long committedHighWater() {
+        long upTo = Math.min(refreshKnownMax(), lowWater());
+        Calendar since = Calendar.getInstance();
+        since.setTimeInMillis(since.getTimeInMillis() - journalProperties.getWatermarkStaleMs());
+        for (JournalWatermark other : journalWatermarkRepository.findByNodeIdNotAndUpdatedDateAfter(nodeId, since)) {
+            upTo = Math.min(upTo, other.getLowWater());
+        }
+        return upTo;
+    }
+
+    private List<JournalEntry> entriesFor(Transaction... posting) {
+        List<JournalEntry> entries = new ArrayList<>(2);
+        if (posting.length == 2) {
+            Transaction out = posting[0];
+            Transaction in = posting[1];
+            BigDecimal amount = in.getAmount().abs();
+            entries.add(entry(out.getTransientId(), accountNoOf(out), JournalEntry.DEBIT, amount, out));
+            entries.add(entry(out.getTransientId(), accountNoOf(in), JournalEntry.CREDIT, amount, in));
+        } else if (posting.length == 1) {
+            Transaction t = posting[0];
+            BigDecimal amount = t.getAmount().abs();
+            if (t.getAmount().signum() >= 0) {
+                entries.add(entry(t.getTransientId(), JournalEntry.CASH_ACCOUNT, JournalEntry.DEBIT, amount, t));
+                entries.add(entry(t.getTransientId(), accountNoOf(t), JournalEntry.CREDIT, amount, t));
+            } else {
+                entries.add(entry(t.getTransientId(), accountNoOf(t), JournalEntry.DEBIT, amount, t));
+                entries.add(entry(t.getTransientId(), JournalEntry.CASH_ACCOUNT, JournalEntry.CREDIT, amount, t));
+            }
+        }
+        return entries;
+    }
+
+    private static JournalEntry entry(String journalId, String accountNo, String direction,
+                                      BigDecimal amount, Transaction source) {
+        return JournalEntry.builder()
+                .journalId(journalId)
+                .accountNo(accountNo)
+                .direction(direction)
+                .amount(amount)
+                .transientId(source.getTransientId())
+                .postedDate(source.getTransactionDate())
+                .build();
+    }
+
+    private static JournalEntry adjustment(String journalId, String accountNo, String direction,
+                                           BigDecimal amount, Calendar at) {
+        return JournalEntry.builder()
+                .journalId(journalId)
+                .accountNo(accountNo)
+                .direction(direction)
+                .amount(amount)
+                .postedDate(at)
+                .build();
+    }
+
+    private static String accountNoOf(Transaction t) {
+        return AccountNumbers.normalize(t.getAccount().getAccountId());
+    }
+
+    private static BigDecimal add(BigDecimal base, BigDecimal delta) {
+        return delta == null ? base : base.add(delta);
+    }
+}
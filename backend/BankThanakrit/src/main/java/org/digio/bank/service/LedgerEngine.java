@@ -0,0 +1,448 @@
+package org.digio.bank.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.digio.bank.config.LedgerProperties;
+import org.digio.bank.repository.AccountBalanceWriter;
+import org.digio.bank.repository.AccountRepository;
+import org.digio.bank.repository.AdvisoryLock;
+import org.digio.entitty.model.Account;
+import org.digio.entitty.model.Transaction;
+import org.digio.entitty.util.AccountNumbers;
+import org.digio.entitty.util.Money;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * เก็บยอดเงินทุกบัญชีไว้ในหน่วยความจำ แบ่งตาม hash ของเลขบัญชีไปยัง shard ที่มีเธรดเขียนเดียว (แบบ LMAX)
+ * ยอดเงินและรายการธุรกรรมถูกเขียนลง MySQL แบบ write-behind เป็นชุดทุก bank.ledger.flush-interval-ms
+ * ตอนเริ่มระบบจะโหลดยอดจากตาราง accounts ดังนั้นฐานข้อมูลคือ state ล่าสุดที่ flush แล้ว
+ * ต้องมีเจ้าของเดียว: ถือ GET_LOCK (bank.ledger.owner-lock) ตลอดอายุ ได้ไม่ทันจะไม่ยอมเริ่มระบบ
+ * ชุดที่ flush ล้มเหลวครบ bank.ledger.max-flush-attempts ถูกพักไว้ (gauge bank.ledger.parked) จนผู้ดูแลสั่งลองใหม่
+ * ระหว่างนั้นยอดของบัญชีที่เกี่ยวข้องจะไม่ถูก flush เพื่อให้ยอดในฐานข้อมูลตรงกับรายการที่บันทึกแล้ว
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "bank.ledger", name = "enabled", havingValue = "true")
+public class LedgerEngine {
+
+    public record Legs(Account from, Account to) {
+    }
+
+    private static final String STATUS_OPEN = "เปิดใช้งาน";
+
+    private final AccountRepository accountRepository;
+    private final EntityManager entityManager;
+    private final LedgerProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final LedgerShard[] shards;
+    private final JournalService journalService;
+    private final DailySummaryService dailySummaryService;
+    private final SearchIndexService searchIndexService;
+    //หนึ่งสมาชิก = หนึ่ง posting (ฝาก/ถอน 1 แถว, โอน 2 แถว)
+    private final ConcurrentLinkedDeque<Transaction[]> pending = new ConcurrentLinkedDeque<>();
+    private final ConcurrentLinkedDeque<Transaction[]> parked = new ConcurrentLinkedDeque<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AccountBalanceWriter accountBalanceWriter;
+    private final AdvisoryLock advisoryLock;
+    private final Counter flushFailures;
+    private AdvisoryLock.Held owner;
+    //จำนวนครั้งที่ชุดหัวคิวล้มเหลวติดกัน (ภายใต้ flushLock)
+    private int failedAttempts;
+
+    public LedgerEngine(AccountRepository accountRepository,
+                        EntityManager entityManager,
+                        JournalService journalService,
+                        DailySummaryService dailySummaryService,
+                        SearchIndexService searchIndexService,
+                        AccountBalanceWriter accountBalanceWriter,
+                        AdvisoryLock advisoryLock,
+                        LedgerProperties properties,
+                        PlatformTransactionManager transactionManager,
+                        MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.accountBalanceWriter = accountBalanceWriter;
+        this.advisoryLock = advisoryLock;
+        this.entityManager = entityManager;
+        this.journalService = journalService;
+        this.dailySummaryService = dailySummaryService;
+        this.searchIndexService = searchIndexService;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shards = new LedgerShard[Math.max(1, properties.getShards())];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new LedgerShard(i);
+        }
+        Gauge.builder("bank.ledger.parked", parked, ConcurrentLinkedDeque::size)
+                .description("posting ที่ flush ไม่สำเร็จครบจำนวนครั้งแล้วถูกพักไว้")
+                .register(meterRegistry);
+        Gauge.builder("bank.ledger.pending", pending, ConcurrentLinkedDeque::size)
+                .register(meterRegistry);
+        this.flushFailures = Counter.builder("bank.ledger.flush.failed").register(meterRegistry);
+    }
+
+    @PostConstruct
+    void recover() {
+        acquireOwnership();
+        String after = "";
+        int loaded = 0;
+        while (true) {
+            List<Object[]> rows = accountRepository.findLedgerRows(after,
+                    PageRequest.of(0, properties.getRecoveryPageSize()));
+            if (rows.isEmpty()) {
+                break;
+            }
+            List<CompletableFuture<Void>> puts = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                String accountId = (String) row[0];
+                long balance = row[1] == null ? 0L : Money.toSatang(Money.rounded(new BigDecimal(row[1].toString())));
+                String status = (String) row[2];
+                String accountNo = AccountNumbers.normalize(accountId);
+                LedgerShard shard = shardFor(accountNo);
+                puts.add(shard.submit(() -> {
+                    shard.put(accountId, accountNo, balance, status);
+                    return null;
+                }));
+                after = accountId;
+            }
+            CompletableFuture.allOf(puts.toArray(new CompletableFuture[0])).join();
+            loaded += rows.size();
+        }
+        log.info("LedgerEngine โหลดบัญชี {} รายการเข้า {} shard", loaded, shards.length);
+    }
+
+    public Account deposit(String accountId, BigDecimal amount) {
+        long satang = Money.toSatang(amount);
+        String accountNo = AccountNumbers.normalize(accountId);
+        LedgerShard shard = shardFor(accountNo);
+        return join(shard.submit(() -> {
+            LedgerShard.Entry e = shard.require(accountNo, "ไม่พบบัญชีเลขที่ " + accountId);
+            shard.requireOpen(e, STATUS_OPEN, "ไม่สามารถทำรายการได้ บัญชีไม่ได้อยู่ในสถานะปกติ");
+            return shard.credit(e, satang);
+        }));
+    }
+
+    public Account withdraw(String accountId, BigDecimal amount) {
+        long satang = Money.toSatang(amount);
+        String accountNo = AccountNumbers.normalize(accountId);
+        LedgerShard shard = shardFor(accountNo);
+        return join(shard.submit(() -> {
+            LedgerShard.Entry e = shard.require(accountNo, "ไม่พบบัญชีเลขที่" + accountId);
+            shard.requireOpen(e, STATUS_OPEN, "ไม่สามารถทำรายการได้ บัญชีไม่ได้อยู่ในสถานะปกติ");
+            return shard.debit(e, satang);
+        }));
+    }
+
+    /**
+     * ถ้าสองบัญชีอยู่ shard เดียวกันทำในงานเดียว ถ้าต่าง shard จะตัดเงินฝั่งต้นทางก่อน
+     * แล้วค่อยเติมฝั่งปลายทาง หากปลายทางไม่ผ่านจะคืนเงินให้ต้นทาง (ไม่มีล็อกข้าม shard)
+     */
+    public Legs transfer(String fromAccountId, String toAccountId, BigDecimal amount) {
+        long satang = Money.toSatang(amount);
+        String fromNo = AccountNumbers.normalize(fromAccountId);
+        String toNo = AccountNumbers.normalize(toAccountId);
+        LedgerShard src = shardFor(fromNo);
+        LedgerShard dst = shardFor(toNo);
+
+        if (src == dst) {
+            return join(src.submit(() -> {
+                LedgerShard.Entry from = src.require(fromNo, "ไม่พบบัญชีต้นทาง");
+                LedgerShard.Entry to = src.require(toNo, "ไม่พบบัญชีปลายทาง");
+                src.requireOpen(from, STATUS_OPEN, "บัญชีต้นทางไม่ได้อยู่ในสถานะปกติ");
+                src.requireOpen(to, STATUS_OPEN, "บัญชีปลายทางไม่ได้อยู่ในสถานะปกติ");
+                Account debited = src.debit(from, satang);
+                Account credited = src.credit(to, satang);
+                return new Legs(from == to ? credited : debited, credited);
+            }));
+        }
+
+        Account debited = join(src.submit(() -> {
+            LedgerShard.Entry from = src.require(fromNo, "ไม่พบบัญชีต้นทาง");
+            src.requireOpen(from, STATUS_OPEN, "บัญชีต้นทางไม่ได้อยู่ในสถานะปกติ");
+            return src.debit(from, satang);
+        }));
+        try {
+            Account credited = join(dst.submit(() -> {
+                LedgerShard.Entry to = dst.require(toNo, "ไม่พบบัญชีปลายทาง");
+                dst.requireOpen(to, STATUS_OPEN, "บัญชีปลายทางไม่ได้อยู่ในสถานะปกติ");
+                return dst.credit(to, satang);
+            }));
+            return new Legs(debited, credited);
+        } catch (RuntimeException e) {
+            //ชดเชย: คืนเงินให้บัญชีต้นทางโดยไม่สนสถานะ
+            join(src.submit(() -> {
+                LedgerShard.Entry from = src.get(fromNo);
+                return from == null ? null : src.credit(from, satang);
+            }));
+            throw e;
+        }
+    }
+
+    //รายการที่รอ write-behind
+    public void record(Transaction... posting) {
+        pending.addLast(posting);
+    }
+
+    //บัญชีใหม่ หรือบัญชีที่ถูกแก้ผ่าน AccountService: บัญชีที่มีอยู่แล้วแก้เฉพาะสถานะ ไม่ทับยอดที่ยังไม่ได้ flush
+    public void register(Account account) {
+        String accountNo = AccountNumbers.normalize(account.getAccountId());
+        LedgerShard shard = shardFor(accountNo);
+        long balance = account.getBalance() == null ? 0L : Money.toSatang(Money.rounded(account.getBalance()));
+        join(shard.submit(() -> {
+            shard.putIfAbsent(account.getAccountId(), accountNo, balance, account.getStatus());
+            return null;
+        }));
+    }
+
+    //ผู้ดูแลกำหนดยอดใหม่ (คู่กับ journal ปรับปรุง) ยอดนี้จะถูก flush รอบถัดไป
+    public Account setBalance(String accountId, BigDecimal balance) {
+        long satang = Money.toSatang(Money.rounded(balance));
+        String accountNo = AccountNumbers.normalize(accountId);
+        LedgerShard shard = shardFor(accountNo);
+        return join(shard.submit(() -> shard.overwrite(
+                shard.require(accountNo, "ไม่พบบัญชีเลขที่ " + accountId), satang)));
+    }
+
+    public void updateStatus(String accountId, String status) {
+        String accountNo = AccountNumbers.normalize(accountId);
+        LedgerShard shard = shardFor(accountNo);
+        join(shard.submit(() -> {
+            LedgerShard.Entry e = shard.get(accountNo);
+            if (e != null) {
+                e.status = status;
+            }
+            return null;
+        }));
+    }
+
+    public void remove(String accountId) {
+        String accountNo = AccountNumbers.normalize(accountId);
+        LedgerShard shard = shardFor(accountNo);
+        join(shard.submit(() -> {
+            shard.remove(accountNo);
+            return null;
+        }));
+    }
+
+    //สอง instance ที่โหลดยอดชุดเดียวกันแล้วเขียนทับกันจะทำยอดหาย จึงไม่ยอมเริ่มระบบถ้าไม่ได้ lock
+    private void acquireOwnership() {
+        try {
+            owner = advisoryLock.acquire(properties.getOwnerLock(), properties.getOwnerLockWaitSeconds());
+        } catch (SQLException e) {
+            throw new IllegalStateException("ขอ lock เจ้าของ LedgerEngine ไม่สำเร็จ: " + e.getMessage(), e);
+        }
+        if (owner == null) {
+            throw new IllegalStateException("มี instance อื่นถือ LedgerEngine (" + properties.getOwnerLock()
+                    + ") อยู่ ไม่สามารถเริ่มระบบได้");
+        }
+    }
+
+    //นำ posting ที่ถูกพักไว้กลับเข้าคิว หลังแก้สาเหตุแล้ว คืนจำนวนที่นำกลับ
+    public int retryParked() {
+        flushLock.lock();
+        try {
+            int moved = 0;
+            Transaction[] posting;
+            while ((posting = parked.pollLast()) != null) {
+                pending.addFirst(posting);
+                moved++;
+            }
+            //posting กลับเข้าคิวแล้ว ยอดของบัญชีที่ถูก hold จะออกไปพร้อมรายการใน flush รอบถัดไป
+            for (LedgerShard shard : shards) {
+                join(shard.submit(() -> {
+                    shard.releaseAll();
+                    return null;
+                }));
+            }
+            failedAttempts = 0;
+            return moved;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public int parkedCount() {
+        return parked.size();
+    }
+
+    //ใช้ ReentrantLock แทน synchronized: ระหว่างถือล็อกต้องรอฐานข้อมูล ซึ่งบน virtual thread จะตรึง carrier ไว้
+    @Scheduled(fixedDelayString = "${bank.ledger.flush-interval-ms:200}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushPending();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushPending() {
+        if (!advisoryLock.isHeld(owner)) {
+            //connection ที่ถือ lock หลุด: ขอใหม่ ถ้ามีคนอื่นได้ไปแล้วห้ามเขียนทับ
+            advisoryLock.release(owner);
+            try {
+                owner = advisoryLock.acquire(properties.getOwnerLock(), 0);
+            } catch (SQLException e) {
+                owner = null;
+            }
+            if (owner == null) {
+                log.error("LedgerEngine เสีย lock เจ้าของ ({}) งด flush จนกว่าจะได้คืน", properties.getOwnerLock());
+                return;
+            }
+        }
+        Map<LedgerShard, Map<String, BigDecimal>> balances = new HashMap<>();
+        for (LedgerShard shard : shards) {
+            Map<String, BigDecimal> dirty = join(shard.submit(shard::drainDirty));
+            if (!dirty.isEmpty()) {
+                balances.put(shard, dirty);
+            }
+        }
+
+        List<Transaction[]> batch = new ArrayList<>();
+        Transaction[] posting;
+        while ((posting = pending.pollFirst()) != null) {
+            batch.add(posting);
+        }
+        if (balances.isEmpty() && batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            int batchSize = Math.max(1, properties.getFlushBatchSize());
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Map<String, BigDecimal> dirty : balances.values()) {
+                    accountBalanceWriter.overwriteAll(dirty, batchSize);
+                }
+                int persisted = 0;
+                List<Transaction> records = new ArrayList<>();
+                for (Transaction[] legs : batch) {
+                    for (Transaction t : legs) {
+                        records.add(t);
+                        entityManager.persist(persistable(t));
+                        if (++persisted % batchSize == 0) {
+                            entityManager.flush();
+                            entityManager.clear();
+                        }
+                    }
+                }
+                journalService.postAll(batch);
+                dailySummaryService.record(records);
+                searchIndexService.indexTransactions(records);
+            });
+            failedAttempts = 0;
+        } catch (RuntimeException e) {
+            flushFailures.increment();
+            if (++failedAttempts < Math.max(1, properties.getMaxFlushAttempts())) {
+                log.error("LedgerEngine flush ไม่สำเร็จ (ครั้งที่ {}) จะลองใหม่รอบถัดไป: {}",
+                        failedAttempts, e.getMessage());
+                for (int i = batch.size() - 1; i >= 0; i--) {
+                    pending.addFirst(batch.get(i));
+                }
+            } else {
+                //ชุดที่ล้มเหลวซ้ำไม่ควรขวางชุดถัดไปตลอดไป พักไว้ให้ผู้ดูแลตรวจแล้วสั่ง retryParked
+                //บัญชีที่ posting ถูกพักต้องไม่ถูก flush ยอดก่อนรายการ จึง hold ไว้ด้วย
+                parked.addAll(batch);
+                holdAccounts(batch);
+                log.error("LedgerEngine flush ไม่สำเร็จ {} ครั้งติดกัน พัก {} posting ไว้ ({}): {}",
+                        failedAttempts, batch.size(), transientIds(batch), e.getMessage());
+                failedAttempts = 0;
+            }
+            balances.forEach((shard, dirty) -> join(shard.submit(() -> {
+                shard.markDirty(dirty.keySet());
+                return null;
+            })));
+        }
+    }
+
+    private void holdAccounts(List<Transaction[]> batch) {
+        Map<LedgerShard, Set<String>> touched = new HashMap<>();
+        for (Transaction[] legs : batch) {
+            for (Transaction t : legs) {
+                String accountNo = AccountNumbers.normalize(t.getAccount().getAccountId());
+                touched.computeIfAbsent(shardFor(accountNo), k -> new HashSet<>()).add(accountNo);
+            }
+        }
+        touched.forEach((shard, accountNos) -> join(shard.submit(() -> {
+            shard.hold(accountNos);
+            return null;
+        })));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flush();
+        if (!pending.isEmpty() || !parked.isEmpty()) {
+            log.error("LedgerEngine ปิดระบบโดยยังมี posting ไม่ได้บันทึก: รอ {} พัก {} ({})",
+                    pending.size(), parked.size(), transientIds(parked));
+        }
+        for (LedgerShard shard : shards) {
+            shard.shutdown();
+        }
+        if (owner != null) {
+            advisoryLock.release(owner);
+        }
+    }
+
+    private static String transientIds(Collection<Transaction[]> postings) {
+        StringJoiner ids = new StringJoiner(",");
+        for (Transaction[] posting : postings) {
+            ids.add(posting[0].getTransientId());
+        }
+        return ids.toString();
+    }
+
+    //สร้างสำเนาที่ชี้ไปยังบัญชีด้วย reference อย่างเดียว เพื่อไม่ให้ persist ไปโหลดบัญชีทั้งก้อน
+    private Transaction persistable(Transaction t) {
+        return Transaction.builder()
+                .transientId(t.getTransientId())
+                .transactionDate(t.getTransactionDate())
+                .type(t.getType())
+                .amount(t.getAmount())
+                .confirmPin(t.getConfirmPin())
+                .status(t.getStatus())
+                .fromAccount(t.getFromAccount())
+                .toAccount(t.getToAccount())
+                .admin(t.getAdmin())
+                .account(entityManager.getReference(Account.class, t.getAccount().getAccountId()))
+                .build();
+    }
+
+    private LedgerShard shardFor(String accountNo) {
+        return shards[Math.floorMod(accountNo == null ? 0 : accountNo.hashCode(), shards.length)];
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package org.digio.bank.service;
+
+import org.digio.entitty.model.Account;
+import org.digio.entitty.util.Money;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * พาร์ติชันของ LedgerEngine มีเธรดเขียนเพียงเธรดเดียว
+ * state ทั้งหมดในคลาสนี้ถูกอ่าน/แก้จากเธรดของ shard เท่านั้น จึงไม่ต้องใช้ล็อก
+ * ยอดเงินเก็บเป็นสตางค์ (long) เพื่อให้บวกลบได้ตรงและไม่ต้องสร้าง object ทุกรายการ
+ */
+class LedgerShard {
+
+    static final class Entry {
+        final String accountId;
+        final String accountNo;
+        long balance;
+        String status;
+
+        Entry(String accountId, String accountNo, long balance, String status) {
+            this.accountId = accountId;
+            this.accountNo = accountNo;
+            this.balance = balance;
+            this.status = status;
+        }
+    }
+
+    private final ExecutorService executor;
+    private final Map<String, Entry> accounts = new HashMap<>();
+    private final Set<String> dirty = new HashSet<>();
+    //บัญชีที่มี posting ถูกพักไว้ ห้าม flush ยอดจนกว่าจะนำ posting กลับเข้าคิว ไม่งั้นยอดจะไปก่อนรายการ
+    private final Set<String> held = new HashSet<>();
+
+    LedgerShard(int index) {
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "ledger-shard-" + index);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    <T> CompletableFuture<T> submit(Supplier<T> op) {
+        return CompletableFuture.supplyAsync(op, executor);
+    }
+
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    // ---- เมธอดด้านล่างต้องรันบนเธรดของ shard (ผ่าน submit) ----
+
+    void put(String accountId, String accountNo, long balance, String status) {
+        accounts.put(accountNo, new Entry(accountId, accountNo, balance, status));
+    }
+
+    //บัญชีที่มีอยู่แล้วแก้เฉพาะสถานะ ยอดใน shard คือยอดล่าสุดเสมอ
+    void putIfAbsent(String accountId, String accountNo, long balance, String status) {
+        Entry e = accounts.get(accountNo);
+        if (e == null) {
+            put(accountId, accountNo, balance, status);
+        } else {
+            e.status = status;
+        }
+    }
+
+    void remove(String accountNo) {
+        accounts.remove(accountNo);
+        dirty.remove(accountNo);
+        held.remove(accountNo);
+    }
+
+    Entry get(String accountNo) {
+        return accounts.get(accountNo);
+    }
+
+    Entry require(String accountNo, String notFoundMessage) {
+        Entry e = accounts.get(accountNo);
+        if (e == null) {
+            throw new RuntimeException(notFoundMessage);
+        }
+        return e;
+    }
+
+    void requireOpen(Entry e, String openStatus, String message) {
+        if (!openStatus.equalsIgnoreCase(e.status)) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    Account credit(Entry e, long amount) {
+        e.balance += amount;
+        dirty.add(e.accountNo);
+        return snapshot(e);
+    }
+
+    Account debit(Entry e, long amount) {
+        if (e.balance < amount) {
+            throw new IllegalArgumentException("ยอดเงินในบัญชีไม่เพียงพอ");
+        }
+        e.balance -= amount;
+        dirty.add(e.accountNo);
+        return snapshot(e);
+    }
+
+    Account overwrite(Entry e, long balance) {
+        e.balance = balance;
+        dirty.add(e.accountNo);
+        return snapshot(e);
+    }
+
+    //คืนยอดล่าสุดของบัญชีที่เปลี่ยนตั้งแต่ flush รอบก่อน แล้วล้างรายการ dirty (บัญชีที่ถูก hold ยังค้างเป็น dirty)
+    Map<String, BigDecimal> drainDirty() {
+        Map<String, BigDecimal> out = new HashMap<>(dirty.size() * 2);
+        Iterator<String> it = dirty.iterator();
+        while (it.hasNext()) {
+            String accountNo = it.next();
+            if (held.contains(accountNo)) {
+                continue;
+            }
+            Entry e = accounts.get(accountNo);
+            if (e != null) {
+                out.put(accountNo, Money.fromSatang(e.balance));
+            }
+            it.remove();
+        }
+        return out;
+    }
+
+    void markDirty(Set<String> accountNos) {
+        for (String accountNo : accountNos) {
+            if (accounts.containsKey(accountNo)) {
+                dirty.add(accountNo);
+            }
+        }
+    }
+
+    void hold(Set<String> accountNos) {
+        for (String accountNo : accountNos) {
+            if (accounts.containsKey(accountNo)) {
+                held.add(accountNo);
+                dirty.add(accountNo);
+            }
+        }
+    }
+
+    void releaseAll() {
+        held.clear();
+    }
+
+    static Account snapshot(Entry e) {
+        return Account.builder()
+                .accountId(e.accountId)
+                .accountNo(e.accountNo)
+                .balance(Money.fromSatang(e.balance))
+                .status(e.status)
+                .build();
+    }
+}
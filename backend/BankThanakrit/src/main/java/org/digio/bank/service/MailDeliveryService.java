@@ -0,0 +1,253 @@
+package org.digio.bank.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.digio.bank.config.MailDeliveryProperties;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * ส่งอีเมลผ่าน SMTP connection ที่ login ค้างไว้ แทนการเปิด session ใหม่ทุกข้อความ
+ *
+ * ข้อความเข้าคิวขนาดจำกัด sender thread แต่ละตัวถือ Transport ของตัวเอง ดึงงานทีละชุด (batch)
+ * แล้วส่งต่อเนื่องบน connection เดิม ถ้าเซิร์ฟเวอร์มีปัญหาติดกันจนครบ threshold จะเปิด circuit breaker
+ * ให้ผู้เรียกล้มเหลวทันทีแทนการรอ timeout
+ */
+@Slf4j
+@Service
+public class MailDeliveryService {
+
+    private final JavaMailSenderImpl mailSender;
+    private final MailDeliveryProperties properties;
+    private final BlockingQueue<Pending> queue;
+    private final CircuitBreaker breaker;
+    private final Timer latency;
+    private final Counter sent;
+    private final Counter failed;
+    private final Counter rejected;
+    private final List<Thread> senders = new ArrayList<>();
+    private volatile boolean running;
+
+    //ผู้เรียกที่หมดเวลารอกับ sender thread แย่งกัน claim: ใครได้ก่อนคนนั้นตัดสินว่าข้อความนี้จะถูกส่งหรือไม่
+    private record Pending(MimeMessage message, CompletableFuture<Void> result, AtomicBoolean claimed) {
+
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+    }
+
+    public MailDeliveryService(JavaMailSenderImpl mailSender,
+                               MailDeliveryProperties properties,
+                               MeterRegistry meterRegistry) {
+        this.mailSender = mailSender;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity()));
+        this.breaker = new CircuitBreaker(properties.getFailureThreshold(), properties.getOpenMs());
+
+        Gauge.builder("bank.mail.queue.depth", queue, BlockingQueue::size)
+                .description("จำนวนอีเมลที่รอส่ง")
+                .register(meterRegistry);
+        Gauge.builder("bank.mail.breaker.open", breaker, b -> b.state() == CircuitBreaker.State.CLOSED ? 0 : 1)
+                .register(meterRegistry);
+        this.latency = Timer.builder("bank.mail.send.latency")
+                .description("เวลาส่งหนึ่งข้อความบน connection ที่เปิดอยู่")
+                .register(meterRegistry);
+        this.sent = Counter.builder("bank.mail.sent").register(meterRegistry);
+        this.failed = Counter.builder("bank.mail.failed").register(meterRegistry);
+        this.rejected = Counter.builder("bank.mail.rejected")
+                .description("อีเมลที่ถูกปฏิเสธเพราะคิวเต็มหรือ breaker เปิด")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        for (int i = 0; i < Math.max(1, properties.getConnections()); i++) {
+            Thread t = new Thread(this::senderLoop, "mail-sender-" + (i + 1));
+            t.setDaemon(true);
+            t.start();
+            senders.add(t);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        senders.forEach(Thread::interrupt);
+    }
+
+    public MimeMessage createMimeMessage() {
+        return mailSender.createMimeMessage();
+    }
+
+    /**
+     * เข้าคิวแล้วรอผล ถ้า breaker เปิดหรือคิวเต็มจะล้มเหลวทันที
+     * หมดเวลาขณะข้อความยังอยู่ในคิวจะยกเลิกข้อความนั้น (ผู้เรียกลองใหม่ได้โดยไม่ได้อีเมลซ้ำ)
+     * ถ้า sender หยิบไปส่งแล้วจะรอผลจริง ซึ่งถูกจำกัดด้วย mail.smtp.timeout/writetimeout
+     */
+    public void send(MimeMessage message) {
+        Pending pending = offer(message);
+        try {
+            try {
+                pending.result().get(properties.getSendTimeoutMs(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (pending.claim()) {
+                    pending.result().cancel(false);
+                    queue.remove(pending);
+                    throw new IllegalStateException("ส่งอีเมลไม่สำเร็จ: หมดเวลารอเซิร์ฟเวอร์อีเมล", e);
+                }
+                pending.result().get();
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re
+                    : new IllegalStateException("ส่งอีเมลไม่สำเร็จ", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (pending.claim()) {
+                pending.result().cancel(false);
+                queue.remove(pending);
+            }
+            throw new IllegalStateException("ส่งอีเมลไม่สำเร็จ: ถูกยกเลิก", e);
+        }
+    }
+
+    //ยกเลิก future ที่คืนไปก่อน sender หยิบข้อความ จะทำให้ข้อความนั้นไม่ถูกส่ง
+    public CompletableFuture<Void> enqueue(MimeMessage message) {
+        return offer(message).result();
+    }
+
+    private Pending offer(MimeMessage message) {
+        if (breaker.isOpen()) {
+            rejected.increment();
+            throw breakerOpen();
+        }
+        Pending pending = new Pending(message, new CompletableFuture<>(), new AtomicBoolean());
+        if (!queue.offer(pending)) {
+            rejected.increment();
+            throw new IllegalStateException("คิวส่งอีเมลเต็ม กรุณาลองใหม่ภายหลัง");
+        }
+        return pending;
+    }
+
+    int queueDepth() {
+        return queue.size();
+    }
+
+    CircuitBreaker.State breakerState() {
+        return breaker.state();
+    }
+
+    private void senderLoop() {
+        Transport transport = null;
+        List<Pending> batch = new ArrayList<>(properties.getBatchSize());
+        while (running) {
+            try {
+                Pending first = queue.poll(properties.getIdleCloseMs(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    transport = close(transport);
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, Math.max(0, properties.getBatchSize() - 1));
+                transport = sendBatch(transport, batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+        close(transport);
+        Pending left;
+        while ((left = queue.poll()) != null) {
+            left.result().completeExceptionally(new IllegalStateException("ระบบอีเมลกำลังปิด"));
+        }
+    }
+
+    //คืน transport ที่ยังใช้ต่อได้ (null ถ้าต้องต่อใหม่รอบหน้า)
+    private Transport sendBatch(Transport transport, List<Pending> batch) {
+        for (Pending p : batch) {
+            //ผู้เรียกยกเลิกหรือหมดเวลาไปแล้ว ห้ามส่ง ไม่งั้นการลองใหม่ของผู้เรียกจะได้อีเมลซ้ำ
+            if (p.result().isDone() || !p.claim()) {
+                continue;
+            }
+            if (!breaker.allowRequest()) {
+                fail(p, breakerOpen());
+                continue;
+            }
+            long start = System.nanoTime();
+            try {
+                if (transport == null || !transport.isConnected()) {
+                    transport = connect();
+                }
+                MimeMessage message = p.message();
+                if (message.getSentDate() == null) {
+                    message.setSentDate(new Date());
+                }
+                message.saveChanges();
+                transport.sendMessage(message, message.getAllRecipients());
+                latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                breaker.onSuccess();
+                sent.increment();
+                p.result().complete(null);
+            } catch (SendFailedException e) {
+                //ปัญหาที่ผู้รับ ไม่ใช่เซิร์ฟเวอร์ ไม่นับเข้า breaker
+                fail(p, new IllegalArgumentException("ที่อยู่อีเมลไม่ถูกต้อง", e));
+            } catch (MessagingException | RuntimeException e) {
+                breaker.onFailure();
+                transport = close(transport);
+                log.warn("ส่งอีเมลไม่สำเร็จ: {}", e.getMessage());
+                fail(p, new IllegalStateException("ส่งอีเมลไม่สำเร็จ", e));
+            }
+        }
+        return transport;
+    }
+
+    private Transport connect() throws MessagingException {
+        Transport transport = mailSender.getSession().getTransport(
+                mailSender.getProtocol() == null ? "smtp" : mailSender.getProtocol());
+        transport.connect(mailSender.getHost(), mailSender.getPort(),
+                mailSender.getUsername(), mailSender.getPassword());
+        return transport;
+    }
+
+    private Transport close(Transport transport) {
+        if (transport != null) {
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.debug("ปิด SMTP connection ไม่สำเร็จ: {}", e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private void fail(Pending p, RuntimeException e) {
+        failed.increment();
+        p.result().completeExceptionally(e);
+    }
+
+    private static IllegalStateException breakerOpen() {
+        return new IllegalStateException("ระบบอีเมลขัดข้องชั่วคราว กรุณาลองใหม่ภายหลัง");
+    }
+}
@@ -1,22 +1,25 @@
 package org.digio.bank.service;
 
+import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import org.springframework.core.io.ByteArrayResource;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import java.nio.file.Path;
+
+//สร้างข้อความ ส่วนการส่งจริงผ่าน connection pool ใน MailDeliveryService
 @Service
 @RequiredArgsConstructor
 public class MailService {
 
-    private final JavaMailSender mailSender;
+    private final MailDeliveryService mailDelivery;
 
     public void sendTransactionPdf(String email, byte[] pdf, String txId) {
-
+        MimeMessage message = mailDelivery.createMimeMessage();
         try {
-            MimeMessage message = mailSender.createMimeMessage();
             MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
 
             helper.setTo(email);
@@ -24,12 +27,26 @@ public class MailService {
             helper.setText("เอกสารแนบเป็นรายละเอียดรายการธุรกรรม\nรหัสผ่าน PDF คือเลขบัญชี 4 ตัวท้าย");
 
             helper.addAttachment("transaction-" + txId + ".pdf", new ByteArrayResource(pdf));
+        } catch (MessagingException e) {
+            throw new IllegalArgumentException("สร้างอีเมลไม่สำเร็จ", e);
+        }
+        mailDelivery.send(message);
+    }
 
-            mailSender.send(message);
+    //แนบจากไฟล์ ไม่ต้องโหลด statement ทั้งไฟล์ขึ้นหน่วยความจำ
+    public void sendStatementPdf(String email, Path pdf, String accountId, String month) {
+        MimeMessage message = mailDelivery.createMimeMessage();
+        try {
+            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+
+            helper.setTo(email);
+            helper.setSubject("Monthly Statement " + month + ": " + accountId);
+            helper.setText("เอกสารแนบเป็นรายการเดินบัญชีประจำเดือน " + month + "\nรหัสผ่าน PDF คือเลขบัญชี 4 ตัวท้าย");
 
-        } catch (Exception e) {
-            throw new IllegalArgumentException  ("ส่งอีเมลไม่สำเร็จ");
+            helper.addAttachment("statement-" + month + ".pdf", new FileSystemResource(pdf));
+        } catch (MessagingException e) {
+            throw new IllegalArgumentException("สร้างอีเมลไม่สำเร็จ", e);
         }
+        mailDelivery.send(message);
     }
 }
-
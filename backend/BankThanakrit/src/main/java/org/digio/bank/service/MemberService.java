@@ -1,16 +1,19 @@
 package org.digio.bank.service;
 
 import lombok.RequiredArgsConstructor;
+import org.digio.bank.dto.CursorPage;
 import org.digio.bank.dto.Register;
 import org.digio.entitty.model.Member;
 import org.digio.entitty.model.Address;
 import org.digio.bank.repository.MemberRepository;
 import org.digio.checkthaiid.validate.ValidateID;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Logger;
 
 @Service
@@ -19,12 +22,20 @@ public class MemberService {
 
     private final MemberRepository memberRepository;
     private final PasswordService passwordService;
+    private final SearchIndexService searchIndexService;
 
     public List<Member> getAllMembers() {
 
         return memberRepository.findAll();
     }
 
+    public CursorPage<Member> getMemberPage(String cursor, Integer size) {
+        int pageSize = KeysetCursor.size(size);
+        String after = cursor == null || cursor.isBlank() ? "" : KeysetCursor.decode(cursor, 1)[0];
+        List<Member> rows = memberRepository.findPageAfter(after, PageRequest.of(0, pageSize + 1));
+        return KeysetCursor.page(rows, pageSize, page -> page, m -> KeysetCursor.encode(m.getMemberId()));
+    }
+
     public Member getMemberByEmail(String email) {
 
         return memberRepository.findByEmail(email);
@@ -48,8 +59,11 @@ public class MemberService {
             throw new IllegalArgumentException("รูปแบบเลขบัตรประชาชนไม่ถูกต้อง");
         }
 
-        String hashedPassword = passwordService.encode(req.getPassword());
-        String hashedPin = passwordService.encode(req.getPin());
+        //hash รหัสผ่านและ PIN พร้อมกันบน pool ของ bcrypt
+        CompletableFuture<String> passwordHash = passwordService.encodeAsync(req.getPassword());
+        CompletableFuture<String> pinHash = passwordService.encodeAsync(req.getPin());
+        String hashedPassword = passwordService.await(passwordHash);
+        String hashedPin = passwordService.await(pinHash);
 
         Address address = Address.builder()
                 .houseNumber(req.getHouseNumber())
@@ -116,7 +130,9 @@ public class MemberService {
             existing.setBirthDate(update.getBirthDate());
             existing.setPhoneNumber(update.getPhoneNumber());
 
-            return memberRepository.save(existing);
+            Member saved = memberRepository.save(existing);
+            searchIndexService.reindexMember(memberId);
+            return saved;
         }).orElse(null);
     }
 
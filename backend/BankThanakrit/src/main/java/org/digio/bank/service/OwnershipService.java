@@ -0,0 +1,67 @@
+package org.digio.bank.service;
+
+import lombok.RequiredArgsConstructor;
+import org.digio.bank.repository.AccountRepository;
+import org.digio.bank.repository.TransactionRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Optional;
+
+/**
+ * ตรวจว่าสมาชิกที่เข้าสู่ระบบเข้าถึงได้เฉพาะข้อมูลของตัวเอง ผู้ดูแลเข้าถึงได้ทั้งหมด
+ * session = null คือยังไม่ได้บังคับ session (bank.security.enforce-session=false) จึงปล่อยผ่านแบบเดิม
+ * ข้อมูลที่ไม่มีอยู่ปล่อยผ่าน ให้ controller ตอบ 404 ตามปกติ
+ */
+@Service
+@RequiredArgsConstructor
+public class OwnershipService {
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+
+    public void requireAdmin(SessionTokenService.Session session) {
+        if (session != null && !session.isAdmin()) {
+            throw forbidden();
+        }
+    }
+
+    public void requireMember(SessionTokenService.Session session, String memberId) {
+        if (session != null && !session.isAdmin() && !session.subject().equals(memberId)) {
+            throw forbidden();
+        }
+    }
+
+    public void requireAccount(SessionTokenService.Session session, String accountId) {
+        if (session == null || session.isAdmin()) {
+            return;
+        }
+        Optional<String> owner = accountRepository.findOwnerByAnyAccountId(accountId);
+        if (owner.isEmpty() && accountRepository.findByAnyAccountId(accountId).isEmpty()) {
+            return;
+        }
+        requireOwner(session, owner);
+    }
+
+    public void requireTransaction(SessionTokenService.Session session, String transactionId) {
+        if (session == null || session.isAdmin() || transactionId == null) {
+            return;
+        }
+        if (!transactionRepository.existsById(transactionId)) {
+            return;
+        }
+        requireOwner(session, transactionRepository.findOwnerByTransactionId(transactionId));
+    }
+
+    //บัญชีที่ไม่มีเจ้าของ (ไม่ผูกสมาชิก) ถือว่าไม่ใช่ของสมาชิกคนนี้
+    private void requireOwner(SessionTokenService.Session session, Optional<String> owner) {
+        if (owner.isEmpty() || !owner.get().equals(session.subject())) {
+            throw forbidden();
+        }
+    }
+
+    private static ResponseStatusException forbidden() {
+        return new ResponseStatusException(HttpStatus.FORBIDDEN, "ไม่มีสิทธิ์เข้าถึง");
+    }
+}
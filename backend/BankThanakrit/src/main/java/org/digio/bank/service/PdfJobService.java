@@ -0,0 +1,201 @@
+package org.digio.bank.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.digio.bank.config.PdfJobProperties;
+import org.digio.bank.dto.PdfJob;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * คิวสร้างสลิป PDF และส่งอีเมลเบื้องหลัง request คืน 202 พร้อม jobId ทันที
+ * worker มีจำนวนจำกัดและคิวมีขนาดจำกัด เมื่อเต็มจะตอบ 429 (backpressure) แทนการกิน thread ของ request
+ * ส่งอีเมลไม่สำเร็จจะลองใหม่แบบ exponential backoff โดยไม่สร้าง PDF ซ้ำ
+ * งานและสถานะเก็บในหน่วยความจำเท่านั้น (ไม่ durable): ปิดระบบจะรองานไม่เกิน bank.pdf-job.shutdown-wait-ms
+ * งานที่ยังไม่เสร็จหลังจากนั้นหายไปพร้อม jobId (ถามสถานะได้ 404) ผู้ใช้ต้องขอสลิปใหม่
+ */
+@Slf4j
+@Service
+public class PdfJobService {
+
+    private final TransactionService transactionService;
+    private final MailService mailService;
+    private final PdfJobProperties properties;
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService retryTimer;
+    private final Map<String, PdfJob> jobs = new ConcurrentHashMap<>();
+    private final Counter sent;
+    private final Counter failed;
+    private final Counter rejected;
+
+    public PdfJobService(TransactionService transactionService,
+                         MailService mailService,
+                         PdfJobProperties properties,
+                         MeterRegistry meterRegistry) {
+        this.transactionService = transactionService;
+        this.mailService = mailService;
+        this.properties = properties;
+        AtomicInteger seq = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(properties.getWorkers(), properties.getWorkers(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                r -> {
+                    Thread t = new Thread(r, "pdf-job-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.retryTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pdf-job-retry");
+            t.setDaemon(true);
+            return t;
+        });
+
+        Gauge.builder("bank.pdf.jobs.queued", workers, e -> e.getQueue().size())
+                .description("จำนวนงานสลิปที่รอ worker")
+                .register(meterRegistry);
+        this.sent = Counter.builder("bank.pdf.jobs.sent").register(meterRegistry);
+        this.failed = Counter.builder("bank.pdf.jobs.failed").register(meterRegistry);
+        this.rejected = Counter.builder("bank.pdf.jobs.rejected")
+                .description("งานที่ถูกปฏิเสธเพราะคิวเต็ม")
+                .register(meterRegistry);
+    }
+
+    public PdfJob submit(String transactionId) {
+        Calendar now = Calendar.getInstance();
+        PdfJob job = PdfJob.builder()
+                .jobId(UUID.randomUUID().toString())
+                .transactionId(transactionId)
+                .status(PdfJob.Status.QUEUED)
+                .attempts(0)
+                .createdDate(now)
+                .updatedDate(now)
+                .build();
+        jobs.put(job.getJobId(), job);
+        try {
+            workers.execute(() -> run(job.getJobId(), null));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getJobId());
+            rejected.increment();
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                    "ระบบกำลังส่งสลิปจำนวนมาก กรุณาลองใหม่ภายหลัง");
+        }
+        return job;
+    }
+
+    public PdfJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictFinished() {
+        long before = System.currentTimeMillis() - properties.getRetentionSeconds() * 1000;
+        jobs.values().removeIf(j -> (j.getStatus() == PdfJob.Status.SENT || j.getStatus() == PdfJob.Status.FAILED)
+                && j.getUpdatedDate().getTimeInMillis() < before);
+    }
+
+    //หยุดรับงานใหม่และรอบลองใหม่ รองานที่อยู่ในคิวให้จบตามเวลาที่กำหนด ที่เหลือบันทึก log ไว้ว่าหายไป
+    @PreDestroy
+    void shutdown() {
+        retryTimer.shutdownNow();
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(properties.getShutdownWaitMs(), TimeUnit.MILLISECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        List<String> unfinished = jobs.values().stream()
+                .filter(j -> j.getStatus() != PdfJob.Status.SENT && j.getStatus() != PdfJob.Status.FAILED)
+                .map(PdfJob::getTransactionId)
+                .toList();
+        if (!unfinished.isEmpty()) {
+            log.warn("ปิดระบบโดยงานสลิปยังไม่เสร็จ {} งาน (รายการ {}) งานเหล่านี้ไม่ถูกเก็บไว้",
+                    unfinished.size(), unfinished);
+        }
+    }
+
+    //slip = null ในรอบแรก รอบที่ลองใหม่ใช้ PDF ที่สร้างไว้แล้ว
+    private void run(String jobId, TransactionService.Slip slip) {
+        PdfJob job = update(jobId, PdfJob.Status.RUNNING, null);
+        if (job == null) {
+            return;
+        }
+        if (slip == null) {
+            try {
+                slip = transactionService.renderSlip(job.getTransactionId());
+            } catch (RuntimeException e) {
+                //ไม่พบรายการหรือสร้าง PDF ไม่ได้ ลองใหม่ก็ไม่หาย
+                fail(jobId, e.getMessage());
+                return;
+            }
+        }
+
+        int attempt = job.getAttempts() + 1;
+        try {
+            mailService.sendTransactionPdf(slip.email(), slip.pdf(), slip.transientId());
+            jobs.computeIfPresent(jobId, (k, j) -> j.toBuilder()
+                    .status(PdfJob.Status.SENT).attempts(attempt).message(null)
+                    .updatedDate(Calendar.getInstance()).build());
+            sent.increment();
+            log.info("ส่ง PDF transaction {} (job {})", job.getTransactionId(), jobId);
+        } catch (RuntimeException e) {
+            if (attempt >= properties.getMaxAttempts()) {
+                jobs.computeIfPresent(jobId, (k, j) -> j.toBuilder().attempts(attempt).build());
+                fail(jobId, e.getMessage());
+                return;
+            }
+            jobs.computeIfPresent(jobId, (k, j) -> j.toBuilder()
+                    .status(PdfJob.Status.RETRYING).attempts(attempt).message(e.getMessage())
+                    .updatedDate(Calendar.getInstance()).build());
+            scheduleRetry(jobId, slip, attempt);
+        }
+    }
+
+    private void scheduleRetry(String jobId, TransactionService.Slip slip, int attempt) {
+        long delay = properties.getBackoffMs() << Math.min(attempt - 1, 10);
+        try {
+            retryTimer.schedule(() -> {
+                try {
+                    workers.execute(() -> run(jobId, slip));
+                } catch (RejectedExecutionException e) {
+                    fail(jobId, "คิวส่งสลิปเต็ม");
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            //กำลังปิดระบบ ไม่มีรอบลองใหม่แล้ว
+            fail(jobId, "ระบบกำลังปิด ไม่ได้ส่งอีเมลซ้ำ");
+        }
+    }
+
+    private void fail(String jobId, String message) {
+        failed.increment();
+        update(jobId, PdfJob.Status.FAILED, message);
+        log.warn("ส่ง PDF ไม่สำเร็จ (job {}): {}", jobId, message);
+    }
+
+    private PdfJob update(String jobId, PdfJob.Status status, String message) {
+        return jobs.computeIfPresent(jobId, (k, j) -> j.toBuilder()
+                .status(status).message(message).updatedDate(Calendar.getInstance()).build());
+    }
+}
@@ -1,5 +1,7 @@
 package org.digio.bank.service;
 
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
 import com.itextpdf.io.font.PdfEncodings;
 import com.itextpdf.kernel.font.PdfFont;
 import com.itextpdf.kernel.font.PdfFontFactory;
@@ -8,6 +10,7 @@ import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfWriter;
 import com.itextpdf.kernel.pdf.WriterProperties;
 import com.itextpdf.layout.Document;
+import com.itextpdf.layout.Style;
 import com.itextpdf.layout.borders.Border;
 import com.itextpdf.layout.borders.SolidBorder;
 import com.itextpdf.layout.element.Cell;
@@ -17,11 +20,17 @@ import com.itextpdf.layout.properties.UnitValue;
 import com.itextpdf.layout.element.Table;
 import lombok.extern.slf4j.Slf4j;
 import org.digio.bank.dto.TransactionView;
+import org.digio.entitty.util.AccountNumbers;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.Calendar;
 import java.util.Locale;
 
@@ -29,9 +38,49 @@ import java.util.Locale;
 @Service
 public class PdfService {
 
+    //แยก parse ไฟล์ TTF ครั้งเดียวตอนเริ่ม FontProgram ใช้ร่วมกันได้ทุกเอกสาร ส่วน PdfFont ต้องสร้างใหม่ต่อเอกสาร
+    private final FontProgram regularProgram;
+    private final FontProgram boldProgram;
+
+    //ส่วนคงที่ของสลิป: ป้ายกำกับ สัดส่วนคอลัมน์ เส้น และ style ของเซลล์
+    private static final String[] DETAIL_LABELS = {"Transaction ID", "Date", "Type", "From", "To", "Status"};
+    private static final float[] DETAIL_COLUMNS = {3, 5};
+    private static final Border SLIP_BORDER = new SolidBorder(1);
+    private static final Border LINE_BORDER = new SolidBorder(0.8f);
+    private static final Style LABEL_STYLE = new Style()
+            .setFontSize(12)
+            .setBorder(Border.NO_BORDER);
+    private static final Style VALUE_STYLE = new Style()
+            .setFontSize(12)
+            .setTextAlignment(TextAlignment.RIGHT)
+            .setBorder(Border.NO_BORDER);
+    private static final DateTimeFormatter DATE_FORMAT =
+            DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm", Locale.forLanguageTag("th-TH"));
+
+    public PdfService() throws IOException {
+        this.regularProgram = loadFont("fonts/Sarabun-Regular.ttf");
+        this.boldProgram = loadFont("fonts/Sarabun-Bold.ttf");
+    }
+
+    private static FontProgram loadFont(String path) throws IOException {
+        try (InputStream in = new ClassPathResource(path).getInputStream()) {
+            return FontProgramFactory.createFont(in.readAllBytes());
+        }
+    }
+
+    //รหัสผ่านไฟล์ PDF ของบัญชี = เลขบัญชี 4 ตัวท้าย
+    public static String pdfPassword(String accountId) {
+        String normalizedAccountId = AccountNumbers.normalize(accountId);
+
+        if (normalizedAccountId == null || normalizedAccountId.length() < 4) {
+            throw new IllegalStateException("เลขบัญชีไม่ถูกต้อง");
+        }
+        return normalizedAccountId.substring(normalizedAccountId.length() - 4);
+    }
+
     public byte[] generateTransactionPdf(TransactionView v, String password) throws IOException {
 
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
         WriterProperties props = new WriterProperties()
                 .setStandardEncryption(
                         password.getBytes(),
@@ -43,24 +92,15 @@ public class PdfService {
         PdfWriter writer = new PdfWriter(out, props);
         PdfDocument pdf = new PdfDocument(writer);
 
-        PdfFont regular = PdfFontFactory.createFont(
-                "fonts/Sarabun-Regular.ttf",
-                PdfEncodings.IDENTITY_H,
-                PdfFontFactory.EmbeddingStrategy.PREFER_EMBEDDED
-        );
-
-        PdfFont bold = PdfFontFactory.createFont(
-                "fonts/Sarabun-Bold.ttf",
-                PdfEncodings.IDENTITY_H,
-                PdfFontFactory.EmbeddingStrategy.PREFER_EMBEDDED
-        );
+        PdfFont regular = regularFont();
+        PdfFont bold = boldFont();
 
         Document doc = new Document(pdf);
         doc.setMargins(20, 20, 20, 20);
         doc.setFont(regular);
         Table slip = new Table(1);
         slip.setWidth(UnitValue.createPercentValue(100));
-        slip.setBorder(new SolidBorder(1));
+        slip.setBorder(SLIP_BORDER);
 
         slip.addCell(centerCell("DIGIO BANK", bold, 18, Border.NO_BORDER));
         slip.addCell(centerCell("Transaction Success", bold, 14, Border.NO_BORDER));
@@ -68,7 +108,7 @@ public class PdfService {
         slip.addCell(line());
 
         slip.addCell(centerCell(
-                formatCurrency(Math.abs(v.getAmount())),
+                formatCurrency(v.getAmount()),
                 bold,
                 24,
                 Border.NO_BORDER
@@ -76,26 +116,21 @@ public class PdfService {
 
         slip.addCell(line());
 
-        Table detail = new Table(new float[]{3, 5});
+        Table detail = new Table(DETAIL_COLUMNS);
         detail.setWidth(UnitValue.createPercentValue(100));
 
-        detail.addCell(label("Transaction ID"));
-        detail.addCell(value(v.getTransientId()));
-
-        detail.addCell(label("Date"));
-        detail.addCell(value(formatDate(v.getTransactionDate())));
-
-        detail.addCell(label("Type"));
-        detail.addCell(value(v.getType()));
-
-        detail.addCell(label("From"));
-        detail.addCell(value(nvl(v.getFromAccount())));
-
-        detail.addCell(label("To"));
-        detail.addCell(value(nvl(v.getToAccount())));
-
-        detail.addCell(label("Status"));
-        detail.addCell(value(v.getStatus()));
+        String[] values = {
+                v.getTransientId(),
+                formatDate(v.getTransactionDate()),
+                v.getType(),
+                nvl(v.getFromAccount()),
+                nvl(v.getToAccount()),
+                v.getStatus()
+        };
+        for (int i = 0; i < DETAIL_LABELS.length; i++) {
+            detail.addCell(label(DETAIL_LABELS[i]));
+            detail.addCell(value(values[i]));
+        }
 
         slip.addCell(new Cell().add(detail).setBorder(Border.NO_BORDER));
 
@@ -105,6 +140,16 @@ public class PdfService {
         return out.toByteArray();
     }
 
+    PdfFont regularFont() {
+        return PdfFontFactory.createFont(regularProgram, PdfEncodings.IDENTITY_H,
+                PdfFontFactory.EmbeddingStrategy.PREFER_EMBEDDED);
+    }
+
+    PdfFont boldFont() {
+        return PdfFontFactory.createFont(boldProgram, PdfEncodings.IDENTITY_H,
+                PdfFontFactory.EmbeddingStrategy.PREFER_EMBEDDED);
+    }
+
     private Cell centerCell(String text, PdfFont font, int size, Border border) {
         return new Cell()
                 .add(new Paragraph(text).setFont(font).setFontSize(size))
@@ -116,21 +161,18 @@ public class PdfService {
     private Cell label(String text) {
         return new Cell()
                 .add(new Paragraph(text))
-                .setFontSize(12)
-                .setBorder(Border.NO_BORDER);
+                .addStyle(LABEL_STYLE);
     }
 
     private Cell value(String text) {
         return new Cell()
                 .add(new Paragraph(text))
-                .setFontSize(12)
-                .setTextAlignment(TextAlignment.RIGHT)
-                .setBorder(Border.NO_BORDER);
+                .addStyle(VALUE_STYLE);
     }
 
     private Cell line() {
         return new Cell()
-                .setBorderBottom(new SolidBorder(0.8f))
+                .setBorderBottom(LINE_BORDER)
                 .setBorderLeft(Border.NO_BORDER)
                 .setBorderRight(Border.NO_BORDER)
                 .setBorderTop(Border.NO_BORDER)
@@ -142,17 +184,15 @@ public class PdfService {
         return v == null || v.isBlank() ? "-" : v;
     }
 
-    private String formatDate(Calendar date) {
+    String formatDate(Calendar date) {
         if (date == null) return "ไม่ระบุวันที่";
 
-        Locale thaiLocale = Locale.forLanguageTag("th-TH");
-        SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy HH:mm", thaiLocale);
-        sdf.setCalendar(date);
-        return sdf.format(date.getTime());
+        return DATE_FORMAT.format(ZonedDateTime.ofInstant(date.toInstant(), date.getTimeZone().toZoneId()));
     }
 
-    private String formatCurrency(double amount) {
-        return String.format("฿%.2f", Math.abs(amount));
+    String formatCurrency(BigDecimal amount) {
+        if (amount == null) return "฿0.00";
+        return "฿" + amount.abs().setScale(2, RoundingMode.HALF_UP).toPlainString();
     }
 
 }
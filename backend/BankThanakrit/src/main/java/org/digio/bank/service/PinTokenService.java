@@ -0,0 +1,65 @@
+package org.digio.bank.service;
+
+import lombok.RequiredArgsConstructor;
+import org.digio.bank.config.SecurityProperties;
+import org.digio.bank.dto.PinToken;
+import org.digio.bank.repository.MemberRepository;
+import org.digio.entitty.model.Member;
+import org.springframework.stereotype.Service;
+
+/**
+ * step-up หลังยืนยัน PIN ครั้งเดียว: ออก token อายุสั้นที่ผูกกับสมาชิกและอุปกรณ์
+ * ธุรกรรมถัดไปในช่วงอายุ token ใช้ token แทน PIN จึงตรวจแค่ HMAC ไม่ต้อง bcrypt ทุกครั้ง
+ */
+@Service
+@RequiredArgsConstructor
+public class PinTokenService {
+
+    private static final String TYPE = "pin";
+    private static final char SEP = '|';
+
+    private final TokenSigner tokenSigner;
+    private final MemberRepository memberRepository;
+    private final PasswordService passwordService;
+    private final SecurityProperties properties;
+
+    public PinToken issue(String memberId, String pin, String deviceId) {
+        Member member = memberRepository.findById(memberId)
+                .orElseThrow(() -> new RuntimeException("ไม่พบสมาชิก"));
+
+        if (pin == null || pin.isBlank()) {
+            throw new IllegalArgumentException("กรุณากรอก PIN");
+        }
+        if (!passwordService.matchesPin(pin, member.getPin())) {
+            throw new IllegalArgumentException("PIN ไม่ถูกต้อง");
+        }
+
+        long expiresAt = System.currentTimeMillis() / 1000 + properties.getPinTokenTtlSeconds();
+        String payload = TYPE + SEP + memberId + SEP + nvl(deviceId) + SEP + expiresAt;
+        return new PinToken(tokenSigner.sign(payload), expiresAt);
+    }
+
+    public boolean verify(String token, String memberId, String deviceId) {
+        String payload = tokenSigner.verify(token);
+        if (payload == null) {
+            return false;
+        }
+        String[] parts = payload.split("\\|", -1);
+        if (parts.length != 4 || !TYPE.equals(parts[0])) {
+            return false;
+        }
+        long expiresAt;
+        try {
+            expiresAt = Long.parseLong(parts[3]);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        return parts[1].equals(memberId)
+                && parts[2].equals(nvl(deviceId))
+                && System.currentTimeMillis() / 1000 < expiresAt;
+    }
+
+    private static String nvl(String v) {
+        return v == null ? "" : v;
+    }
+}
@@ -0,0 +1,360 @@
+package org.digio.bank.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.digio.bank.config.SearchProperties;
+import org.digio.bank.repository.AccountRepository;
+import org.digio.bank.repository.TransactionRepository;
+import org.digio.entitty.model.Transaction;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ค้นหาบัญชี (เลขบัญชีแบบมี/ไม่มีขีด, ชื่อไทย/อังกฤษของเจ้าของ) และรายการ (เลขรายการ, บัญชีต้นทาง/ปลายทาง)
+ * จาก TrigramIndex ในหน่วยความจำ แทน LIKE '%...%' ที่ต้องสแกนทั้งตาราง
+ * โหลดจากฐานข้อมูลแบบ keyset ใน thread เบื้องหลังตอนเริ่มระบบ แล้วอัปเดตหลัง commit ของทุกการเขียน
+ *
+ * index อยู่ในหน่วยความจำของแต่ละ node: การเขียนจาก node อื่นเข้ามาทางการ poll
+ * รายการใหม่ไล่ตามเลขที่ที่เรียงตามเวลา (ย้อน pollOverlapMs) ทุก pollIntervalMs
+ * บัญชีโหลดใหม่ทั้งชุดทุก accountRefreshMs การลบรายการจาก node อื่นจึงยังนับใน total ได้
+ * แต่ผลค้นหาอ่านแถวจริงจากฐานข้อมูลเสมอ จึงไม่แสดงรายการที่ถูกลบแล้ว
+ * heap โตตามจำนวนรายการ จึงเก็บเฉพาะรายการย้อนหลัง transactionRetentionDays วัน
+ */
+@Slf4j
+@Service
+public class SearchIndexService {
+
+    public record Hits(List<String> keys, int total, boolean totalExact) {
+    }
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final SearchProperties properties;
+
+    private final TrigramIndex accounts = new TrigramIndex();
+    private final TrigramIndex transactions = new TrigramIndex();
+
+    //key ที่ถูกเขียนระหว่างโหลดครั้งแรก แถวจากการโหลดอาจเก่ากว่า จึงข้าม key เหล่านี้
+    private final Set<String> touchedAccounts = ConcurrentHashMap.newKeySet();
+    private final Set<String> touchedTransactions = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean ready;
+
+    public SearchIndexService(AccountRepository accountRepository,
+                              TransactionRepository transactionRepository,
+                              SearchProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.properties = properties;
+
+        Gauge.builder("bank.search.documents", accounts, TrigramIndex::size)
+                .tag("index", "accounts")
+                .register(meterRegistry);
+        Gauge.builder("bank.search.documents", transactions, TrigramIndex::size)
+                .tag("index", "transactions")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Thread builder = new Thread(this::build, "search-index-build");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    private void build() {
+        long started = System.currentTimeMillis();
+        try {
+            int pageSize = Math.max(1, properties.getBuildPageSize());
+
+            String after = "";
+            List<Object[]> rows;
+            do {
+                rows = accountRepository.findSearchRowsAfter(after, PageRequest.of(0, pageSize));
+                for (Object[] r : rows) {
+                    synchronized (accounts) {
+                        if (!touchedAccounts.contains((String) r[0])) {
+                            putAccount(r);
+                        }
+                    }
+                    after = (String) r[0];
+                }
+            } while (rows.size() == pageSize);
+
+            after = "";
+            Calendar since = Calendar.getInstance();
+            since.setTimeInMillis(retentionCutoff());
+            do {
+                rows = transactionRepository.findSearchRowsAfter(after, since, PageRequest.of(0, pageSize));
+                for (Object[] r : rows) {
+                    synchronized (transactions) {
+                        if (!touchedTransactions.contains((String) r[0])) {
+                            putTransaction((String) r[0], (Calendar) r[1], (String) r[2], (String) r[3], (String) r[4]);
+                        }
+                    }
+                    after = (String) r[0];
+                }
+            } while (rows.size() == pageSize);
+
+            ready = true;
+            touchedAccounts.clear();
+            touchedTransactions.clear();
+            log.info("สร้าง index ค้นหาเสร็จ บัญชี {} รายการ {} ใช้เวลา {} ms",
+                    accounts.size(), transactions.size(), System.currentTimeMillis() - started);
+        } catch (RuntimeException e) {
+            log.error("สร้าง index ค้นหาไม่สำเร็จ: {}", e.getMessage(), e);
+        }
+    }
+
+    //รายการที่ node อื่น commit ในช่วง pollOverlapMs ที่ผ่านมา (ของตัวเองก็อ่านซ้ำได้ put แบบเดิมไม่เปลี่ยนอะไร)
+    @Scheduled(fixedDelayString = "${bank.search.poll-interval-ms:5000}")
+    public void pollTransactions() {
+        if (!properties.isEnabled() || !ready) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        String after = TransactionIdGenerator.lastIdBefore(now - properties.getPollOverlapMs());
+        String upTo = TransactionIdGenerator.lastIdBefore(now + properties.getPollOverlapMs());
+        int pageSize = Math.max(1, properties.getBuildPageSize());
+        long cutoff = retentionCutoff();
+        try {
+            List<Object[]> rows;
+            do {
+                rows = transactionRepository.findSearchRowsBetween(after, upTo, PageRequest.of(0, pageSize));
+                synchronized (transactions) {
+                    for (Object[] r : rows) {
+                        if (millis((Calendar) r[1]) >= cutoff) {
+                            putTransaction((String) r[0], (Calendar) r[1], (String) r[2], (String) r[3], (String) r[4]);
+                        }
+                    }
+                }
+                if (!rows.isEmpty()) {
+                    after = (String) rows.get(rows.size() - 1)[0];
+                }
+            } while (rows.size() == pageSize);
+        } catch (RuntimeException e) {
+            log.warn("ดึงรายการใหม่เข้า index ค้นหาไม่สำเร็จ: {}", e.getMessage());
+        }
+    }
+
+    //โหลดบัญชีทั้งหมดใหม่ ลบบัญชีที่ไม่มีแล้ว และตัดรายการที่เก่ากว่าระยะเก็บออกจาก heap
+    @Scheduled(fixedDelayString = "${bank.search.account-refresh-ms:300000}",
+            initialDelayString = "${bank.search.account-refresh-ms:300000}")
+    public void refresh() {
+        if (!properties.isEnabled() || !ready) {
+            return;
+        }
+        try {
+            //บัญชีที่เพิ่มระหว่างโหลดไม่อยู่ในชุดนี้ จึงไม่ถูกลบเพราะ keyset ผ่านไปแล้ว
+            Set<String> gone = accounts.keys();
+            int pageSize = Math.max(1, properties.getBuildPageSize());
+            String after = "";
+            List<Object[]> rows;
+            do {
+                rows = accountRepository.findSearchRowsAfter(after, PageRequest.of(0, pageSize));
+                synchronized (accounts) {
+                    for (Object[] r : rows) {
+                        putAccount(r);
+                        gone.remove((String) r[0]);
+                        after = (String) r[0];
+                    }
+                }
+            } while (rows.size() == pageSize);
+            synchronized (accounts) {
+                gone.forEach(accounts::remove);
+            }
+            int evicted = transactions.removeOlderThan(retentionCutoff());
+            if (evicted > 0) {
+                log.info("ตัดรายการเก่ากว่า {} วันออกจาก index ค้นหา {} รายการ",
+                        properties.getTransactionRetentionDays(), evicted);
+            }
+        } catch (RuntimeException e) {
+            log.warn("โหลดบัญชีเข้า index ค้นหาใหม่ไม่สำเร็จ: {}", e.getMessage());
+        }
+    }
+
+    public Hits searchAccounts(String query) {
+        return search(accounts, query);
+    }
+
+    public Hits searchTransactions(String query) {
+        return search(transactions, query);
+    }
+
+    private Hits search(TrigramIndex index, String query) {
+        if (!ready) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "ระบบค้นหากำลังเตรียมข้อมูล กรุณาลองใหม่ภายหลัง");
+        }
+        String normalized = TrigramIndex.normalize(query);
+        if (normalized.length() < TrigramIndex.GRAM) {
+            throw new IllegalArgumentException("คำค้นต้องมีอย่างน้อย " + TrigramIndex.GRAM + " ตัวอักษร");
+        }
+        TrigramIndex.Result result = index.search(normalized, Math.max(1, properties.getMaxHits()),
+                Math.max(1, properties.getMaxCandidates()));
+        return new Hits(result.keys(), result.total(), result.exact());
+    }
+
+    public void indexTransactions(Transaction... saved) {
+        indexTransactions(Arrays.asList(saved));
+    }
+
+    //เก็บค่าไว้ก่อน entity จะหลุด context แล้วเขียน index หลัง commit
+    public void indexTransactions(Collection<Transaction> saved) {
+        if (!properties.isEnabled() || saved.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(saved.size());
+        for (Transaction t : saved) {
+            rows.add(new Object[]{t.getTransientId(), t.getTransactionDate(), t.getFromAccount(), t.getToAccount(),
+                    t.getAccount() != null ? t.getAccount().getAccountId() : null});
+        }
+        long cutoff = retentionCutoff();
+        afterCommit(() -> {
+            synchronized (transactions) {
+                for (Object[] r : rows) {
+                    touch(touchedTransactions, (String) r[0]);
+                    //รายการที่ถูกแก้วันที่ย้อนไปเก่ากว่าระยะเก็บ ต้องหลุดจาก index ด้วย
+                    if (millis((Calendar) r[1]) < cutoff) {
+                        transactions.remove((String) r[0]);
+                    } else {
+                        putTransaction((String) r[0], (Calendar) r[1], (String) r[2], (String) r[3], (String) r[4]);
+                    }
+                }
+            }
+        });
+    }
+
+    public void removeTransaction(String transientId) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        afterCommit(() -> {
+            synchronized (transactions) {
+                touch(touchedTransactions, transientId);
+                transactions.remove(transientId);
+            }
+        });
+    }
+
+    //อ่านชื่อเจ้าของใหม่หลัง commit บัญชีที่ไม่พบแล้วจะถูกลบออกจาก index
+    public void reindexAccounts(String... accountIds) {
+        if (!properties.isEnabled() || accountIds.length == 0) {
+            return;
+        }
+        List<String> ids = List.of(accountIds);
+        afterCommit(() -> refreshAccounts(ids, accountRepository.findSearchRowsByIds(ids)));
+    }
+
+    //ชื่อสมาชิกเปลี่ยน ทุกบัญชีของสมาชิกต้องค้นด้วยชื่อใหม่ได้
+    public void reindexMember(String memberId) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        afterCommit(() -> refreshAccounts(List.of(), accountRepository.findSearchRowsByMember(memberId)));
+    }
+
+    public void removeAccount(String accountId) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        afterCommit(() -> {
+            synchronized (accounts) {
+                touch(touchedAccounts, accountId);
+                accounts.remove(accountId);
+            }
+        });
+    }
+
+    private void refreshAccounts(Collection<String> expected, List<Object[]> rows) {
+        Set<String> missing = new HashSet<>(expected);
+        synchronized (accounts) {
+            for (Object[] r : rows) {
+                touch(touchedAccounts, (String) r[0]);
+                putAccount(r);
+                missing.remove((String) r[0]);
+            }
+            for (String accountId : missing) {
+                touch(touchedAccounts, accountId);
+                accounts.remove(accountId);
+            }
+        }
+    }
+
+    private void touch(Set<String> touched, String key) {
+        if (!ready) {
+            touched.add(key);
+        }
+    }
+
+    //[accountId, createdDate, firstNameTh, lastNameTh, firstNameEn, lastNameEn]
+    private void putAccount(Object[] r) {
+        String firstTh = (String) r[2];
+        String lastTh = (String) r[3];
+        String firstEn = (String) r[4];
+        String lastEn = (String) r[5];
+        accounts.put((String) r[0], millis((Calendar) r[1]),
+                (String) r[0], join(firstTh, lastTh), lastTh, join(firstEn, lastEn), lastEn);
+    }
+
+    private void putTransaction(String transientId, Calendar date, String fromAccount, String toAccount,
+                                String accountId) {
+        transactions.put(transientId, millis(date), transientId, fromAccount, toAccount, accountId);
+    }
+
+    private long retentionCutoff() {
+        int days = properties.getTransactionRetentionDays();
+        return days <= 0 ? Long.MIN_VALUE : System.currentTimeMillis() - TimeUnit.DAYS.toMillis(days);
+    }
+
+    private static String join(String first, String last) {
+        return (first == null ? "" : first) + (last == null ? "" : last);
+    }
+
+    private static long millis(Calendar date) {
+        return date == null ? 0L : date.getTimeInMillis();
+    }
+
+    //index ต้องไม่เห็นข้อมูลที่ยัง rollback ได้ และความผิดพลาดของ index ต้องไม่ทำให้รายการล้ม
+    private static void afterCommit(Runnable action) {
+        Runnable safe = () -> {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                log.warn("อัปเดต index ค้นหาไม่สำเร็จ: {}", e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    safe.run();
+                }
+            });
+        } else {
+            safe.run();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.digio.bank.service;
+
+import lombok.RequiredArgsConstructor;
+import org.digio.bank.config.SecurityProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * session token แบบ stateless: ลงลายมือชื่อ HMAC ด้วย TokenSigner เดียวกับ pin token
+ * payload = "sess|subject|role|tokenId|exp" ตรวจได้โดยไม่ต้องอ่านฐานข้อมูล
+ * token ที่ logout แล้วเก็บใน revocation list ในหน่วยความจำจนกว่าจะหมดอายุเอง
+ */
+@Service
+@RequiredArgsConstructor
+public class SessionTokenService {
+
+    public static final String ROLE_MEMBER = "MEMBER";
+    public static final String ROLE_ADMIN = "ADMIN";
+
+    private static final String TYPE = "sess";
+    private static final char SEP = '|';
+
+    private final TokenSigner tokenSigner;
+    private final SecurityProperties properties;
+
+    //tokenId -> exp (epoch วินาที)
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    public record Session(String subject, String role, String tokenId, long expiresAt) {
+        public boolean isAdmin() {
+            return ROLE_ADMIN.equals(role);
+        }
+    }
+
+    public String issue(String subject, String role) {
+        long expiresAt = nowSeconds() + properties.getSessionTtlSeconds();
+        String tokenId = UUID.randomUUID().toString();
+        return tokenSigner.sign(TYPE + SEP + subject + SEP + role + SEP + tokenId + SEP + expiresAt);
+    }
+
+    //คืน null ถ้าลายมือชื่อผิด หมดอายุ หรือถูก revoke แล้ว
+    public Session verify(String token) {
+        String payload = tokenSigner.verify(token);
+        if (payload == null) {
+            return null;
+        }
+        String[] parts = payload.split("\\|", -1);
+        if (parts.length != 5 || !TYPE.equals(parts[0])) {
+            return null;
+        }
+        long expiresAt;
+        try {
+            expiresAt = Long.parseLong(parts[4]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (nowSeconds() >= expiresAt || revoked.containsKey(parts[3])) {
+            return null;
+        }
+        return new Session(parts[1], parts[2], parts[3], expiresAt);
+    }
+
+    public boolean revoke(String token) {
+        Session session = verify(token);
+        if (session == null) {
+            return false;
+        }
+        revoked.put(session.tokenId(), session.expiresAt());
+        return true;
+    }
+
+    //token ที่หมดอายุแล้วใช้ไม่ได้อยู่แล้ว ไม่ต้องจำไว้
+    @Scheduled(fixedDelay = 60_000)
+    public void purgeRevoked() {
+        long now = nowSeconds();
+        revoked.values().removeIf(exp -> exp <= now);
+    }
+
+    private static long nowSeconds() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
@@ -0,0 +1,285 @@
+package org.digio.bank.service;
+
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.pdf.EncryptionConstants;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.WriterProperties;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.borders.Border;
+import com.itextpdf.layout.element.Cell;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.element.Table;
+import com.itextpdf.layout.properties.TextAlignment;
+import com.itextpdf.layout.properties.UnitValue;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.digio.bank.config.StatementProperties;
+import org.digio.bank.repository.AccountRepository;
+import org.digio.bank.repository.TransactionRepository;
+import org.digio.entitty.model.Account;
+import org.digio.entitty.model.Member;
+import org.digio.entitty.util.AccountNumbers;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * statement รายเดือนของบัญชีเป็น PDF หลายหน้า
+ * อ่านรายการทีละหน้าแบบ keyset แล้วเขียนลงตารางขนาดใหญ่ของ iText ที่ flush ทุกหน้า
+ * หน่วยความจำจึงคงที่ไม่ว่าบัญชีจะมีกี่รายการ ใช้ฟอนต์และรหัสผ่าน PDF ชุดเดียวกับสลิป
+ */
+@Slf4j
+@Service
+public class StatementService {
+
+    private static final ZoneId ZONE = ZoneId.of("Asia/Bangkok");
+    private static final float[] COLUMNS = {3, 4, 3, 4, 4, 3};
+    private static final String[] HEADERS = {"Date", "Transaction ID", "Type", "From", "To", "Amount"};
+
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final PdfService pdfService;
+    private final JournalService journalService;
+    private final MailService mailService;
+    private final StatementProperties properties;
+    private final ExecutorService workers;
+
+    public record MonthEndResult(int sent, int failed) {
+    }
+
+    public StatementService(TransactionRepository transactionRepository,
+                            AccountRepository accountRepository,
+                            PdfService pdfService,
+                            JournalService journalService,
+                            MailService mailService,
+                            StatementProperties properties) {
+        this.transactionRepository = transactionRepository;
+        this.accountRepository = accountRepository;
+        this.pdfService = pdfService;
+        this.journalService = journalService;
+        this.mailService = mailService;
+        this.properties = properties;
+        AtomicInteger seq = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, properties.getWorkers()), r -> {
+            Thread t = new Thread(r, "statement-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    //ตรวจบัญชีก่อนเริ่มเขียน response เพื่อให้ตอบ 404 ได้ (เริ่มเขียน PDF แล้วเปลี่ยนสถานะไม่ได้)
+    public Account requireAccount(String accountId) {
+        return accountRepository.findByAnyAccountId(accountId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "ไม่พบบัญชีเลขที่ " + accountId));
+    }
+
+    public void writeStatement(String accountId, YearMonth month, OutputStream out) throws IOException {
+        writeStatement(requireAccount(accountId), month, out);
+    }
+
+    /**
+     * ยอดยกมา/ยกไปมาจาก journal เดือนที่อยู่ก่อนวันที่เริ่มใช้ journal
+     * JournalService.balanceAt ย้อนจากยอดยกมาด้วยรายการในตาราง transactions แทนการคืน 0
+     */
+    public void writeStatement(Account account, YearMonth month, OutputStream out) throws IOException {
+        String accountNo = AccountNumbers.normalize(account.getAccountId());
+        Calendar from = startOf(month);
+        Calendar to = startOf(month.plusMonths(1));
+
+        WriterProperties props = new WriterProperties()
+                .setStandardEncryption(
+                        PdfService.pdfPassword(account.getAccountId()).getBytes(),
+                        null,
+                        EncryptionConstants.ALLOW_PRINTING,
+                        EncryptionConstants.ENCRYPTION_AES_128
+                );
+        PdfDocument pdf = new PdfDocument(new PdfWriter(out, props));
+        PdfFont regular = pdfService.regularFont();
+        PdfFont bold = pdfService.boldFont();
+        //immediateFlush = true: หน้าที่วางเสร็จแล้วถูกเขียนออกทันที ไม่ค้างในหน่วยความจำ
+        Document doc = new Document(pdf, PageSize.A4, true);
+        doc.setMargins(24, 24, 24, 24);
+        doc.setFont(regular);
+        doc.setFontSize(9);
+
+        Member member = account.getMember();
+        doc.add(new Paragraph("DIGIO BANK - Monthly Statement").setFont(bold).setFontSize(14));
+        doc.add(new Paragraph("Account: " + account.getAccountId()
+                + (member == null ? "" : "   " + member.getFirstNameTh() + " " + member.getLastNameTh())));
+        doc.add(new Paragraph("Period: " + month));
+        doc.add(new Paragraph("Opening balance: " + money(journalService.balanceAt(accountNo, from))));
+
+        Table table = new Table(UnitValue.createPercentArray(COLUMNS), true);
+        table.setWidth(UnitValue.createPercentValue(100));
+        for (String header : HEADERS) {
+            table.addHeaderCell(new Cell().add(new Paragraph(header).setFont(bold)));
+        }
+        doc.add(table);
+
+        int rows = 0;
+        Calendar afterDate = from;
+        String afterId = "";
+        PageRequest page = PageRequest.of(0, Math.max(1, properties.getPageSize()));
+        while (true) {
+            List<Object[]> chunk = transactionRepository.findStatementPage(
+                    account.getAccountId(), from, to, afterDate, afterId, page);
+            for (Object[] r : chunk) {
+                table.addCell(cell(pdfService.formatDate((Calendar) r[1]), TextAlignment.LEFT));
+                table.addCell(cell((String) r[0], TextAlignment.LEFT));
+                table.addCell(cell((String) r[2], TextAlignment.LEFT));
+                table.addCell(cell(nvl((String) r[4]), TextAlignment.LEFT));
+                table.addCell(cell(nvl((String) r[5]), TextAlignment.LEFT));
+                table.addCell(cell(money((BigDecimal) r[3]), TextAlignment.RIGHT));
+            }
+            rows += chunk.size();
+            table.flush();
+            if (chunk.size() < page.getPageSize()) {
+                break;
+            }
+            Object[] last = chunk.get(chunk.size() - 1);
+            afterDate = (Calendar) last[1];
+            afterId = (String) last[0];
+        }
+        table.complete();
+
+        if (rows == 0) {
+            doc.add(new Paragraph("ไม่มีรายการในเดือนนี้"));
+        }
+        doc.add(new Paragraph("Closing balance: " + money(journalService.balanceAt(accountNo, to))));
+        doc.close();
+    }
+
+    /**
+     * ส่ง statement ของเดือนที่ระบุให้ทุกบัญชี ทำพร้อมกันตาม bank.statement.workers
+     * แต่ละบัญชีเขียนลงไฟล์ชั่วคราวแล้วแนบไฟล์ ไม่ถือ PDF ทั้งไฟล์ไว้ในหน่วยความจำ
+     * ไม่ durable: ไม่บันทึกว่าบัญชีใดส่งแล้ว ถ้าระบบปิดกลางรอบ การสั่งรอบเดิมใหม่จะส่งซ้ำให้บัญชีที่ส่งไปแล้ว
+     */
+    public MonthEndResult runMonthEnd(YearMonth month) {
+        AtomicInteger sent = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        List<Future<?>> inFlight = new ArrayList<>();
+        String after = "";
+        PageRequest page = PageRequest.of(0, Math.max(1, properties.getPageSize()));
+        while (true) {
+            List<Object[]> recipients = accountRepository.findStatementRecipients(after, page);
+            for (Object[] r : recipients) {
+                String accountId = (String) r[0];
+                String email = (String) r[1];
+                inFlight.add(workers.submit(() -> {
+                    try {
+                        sendStatement(accountId, email, month);
+                        sent.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                        log.warn("ส่ง statement {} ของบัญชี {} ไม่สำเร็จ: {}", month, accountId, e.getMessage());
+                    }
+                }));
+            }
+            //รอให้หน้าปัจจุบันเสร็จก่อนอ่านหน้าถัดไป คิวงานจึงไม่โตเกินหนึ่งหน้า
+            awaitAll(inFlight);
+            if (recipients.size() < page.getPageSize()) {
+                break;
+            }
+            after = (String) recipients.get(recipients.size() - 1)[0];
+        }
+        log.info("ส่ง statement {} สำเร็จ {} บัญชี ไม่สำเร็จ {} บัญชี", month, sent.get(), failed.get());
+        return new MonthEndResult(sent.get(), failed.get());
+    }
+
+    //ไม่รับงานใหม่ รอบัญชีที่กำลังส่งให้จบตามเวลาที่กำหนด ที่ค้างในคิวหลังจากนั้นไม่ถูกส่ง
+    @PreDestroy
+    void shutdown() {
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(properties.getShutdownWaitMs(), TimeUnit.MILLISECONDS)) {
+                List<Runnable> dropped = workers.shutdownNow();
+                log.warn("ปิดระบบระหว่างส่ง statement ยังไม่ได้ส่ง {} บัญชี", dropped.size());
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void sendStatement(String accountId, String email, YearMonth month) {
+        if (email == null || email.isBlank()) {
+            throw new IllegalArgumentException("ไม่มีอีเมลของเจ้าของบัญชี");
+        }
+        Path file = null;
+        try {
+            file = Files.createTempFile("statement-", ".pdf");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+                writeStatement(accountId, month, out);
+            }
+            mailService.sendStatementPdf(email, file, accountId, month.toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    log.warn("ลบไฟล์ชั่วคราว {} ไม่สำเร็จ", file);
+                }
+            }
+        }
+    }
+
+    private static void awaitAll(List<Future<?>> futures) {
+        for (Future<?> f : futures) {
+            try {
+                f.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("การส่ง statement ถูกยกเลิก", e);
+            } catch (ExecutionException e) {
+                log.warn("งาน statement ล้มเหลว: {}", e.getCause().getMessage());
+            }
+        }
+        futures.clear();
+    }
+
+    private static Calendar startOf(YearMonth month) {
+        return GregorianCalendar.from(month.atDay(1).atStartOfDay(ZONE));
+    }
+
+    private static Cell cell(String text, TextAlignment alignment) {
+        return new Cell()
+                .add(new Paragraph(text))
+                .setTextAlignment(alignment)
+                .setBorder(Border.NO_BORDER);
+    }
+
+    private static String money(BigDecimal amount) {
+        if (amount == null) return "0.00";
+        return amount.setScale(2, RoundingMode.HALF_UP).toPlainString();
+    }
+
+    private static String nvl(String v) {
+        return v == null || v.isBlank() ? "-" : v;
+    }
+}
@@ -0,0 +1,77 @@
+package org.digio.bank.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.digio.bank.config.SecurityProperties;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * ลงลายมือชื่อ token แบบ HMAC-SHA256: base64url(payload) + "." + base64url(mac)
+ * ตรวจสอบด้วยการเทียบแบบเวลาคงที่ ไม่ต้องเก็บ token ไว้ฝั่งเซิร์ฟเวอร์
+ */
+@Slf4j
+@Component
+public class TokenSigner {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+
+    public TokenSigner(SecurityProperties properties) {
+        byte[] secret;
+        if (properties.getTokenSecret() == null || properties.getTokenSecret().isBlank()) {
+            secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+            log.warn("ไม่ได้ตั้ง bank.security.token-secret ใช้กุญแจสุ่ม token จะใช้ไม่ได้หลังรีสตาร์ตหรือข้ามเครื่อง");
+        } else {
+            secret = Base64.getDecoder().decode(properties.getTokenSecret());
+            if (secret.length < 32) {
+                throw new IllegalArgumentException("bank.security.token-secret ต้องยาวอย่างน้อย 32 ไบต์");
+            }
+        }
+        this.key = new SecretKeySpec(secret, ALGORITHM);
+    }
+
+    public String sign(String payload) {
+        byte[] body = payload.getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(body) + "." + ENCODER.encodeToString(mac(body));
+    }
+
+    //คืน payload ถ้าลายมือชื่อถูกต้อง, null ถ้าไม่ถูกต้องหรือรูปแบบผิด
+    public String verify(String token) {
+        if (token == null) {
+            return null;
+        }
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot == token.length() - 1) {
+            return null;
+        }
+        try {
+            byte[] body = DECODER.decode(token.substring(0, dot));
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            return MessageDigest.isEqual(mac(body), signature) ? new String(body, StandardCharsets.UTF_8) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private byte[] mac(byte[] body) {
+        try {
+            //Mac ไม่ thread-safe สร้างใหม่ต่อครั้ง (ถูกมากเมื่อเทียบกับ bcrypt)
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(body);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC ไม่พร้อมใช้งาน", e);
+        }
+    }
+}
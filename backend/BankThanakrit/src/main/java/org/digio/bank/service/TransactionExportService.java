@@ -0,0 +1,82 @@
+package org.digio.bank.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.digio.bank.config.ExportProperties;
+import org.digio.bank.repository.TransactionExportReader;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Calendar;
+
+/**
+ * export รายการธุรกรรมเป็น NDJSON (หนึ่ง object ต่อบรรทัด) เขียนลง response ระหว่างอ่านจากฐานข้อมูล
+ * heap คงที่ไม่ว่าจะ export กี่แถว และ client ได้ byte แรกทันทีที่แถวแรกมาถึง
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionExportService {
+
+    private final TransactionExportReader reader;
+    private final ObjectMapper objectMapper;
+    private final ExportProperties properties;
+
+    //from/to = null คือไม่จำกัดช่วง
+    public long writeNdjson(Calendar from, Calendar to, OutputStream out) throws IOException {
+        Calendar start = from != null ? from : epoch();
+        Calendar end = to != null ? to : farFuture();
+        if (!start.before(end)) {
+            throw new IllegalArgumentException("ช่วงเวลาไม่ถูกต้อง");
+        }
+
+        //ค่าเริ่มต้นของ ObjectMapper flush ทุก object ปิดไว้แล้ว flush เองเป็นช่วง ๆ
+        ObjectWriter writer = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n");
+        long[] written = {0};
+        int flushEvery = Math.max(1, properties.getFlushEvery());
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            //ให้ Spring เป็นผู้ปิด response stream เอง
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            reader.forEach(start, end, view -> {
+                try {
+                    writer.writeValue(json, view);
+                    if (++written[0] % flushEvery == 0) {
+                        json.flush();
+                    }
+                } catch (IOException e) {
+                    //client ตัดการเชื่อมต่อ หยุดอ่านจากฐานข้อมูลทันที
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (written[0] > 0) {
+                json.writeRaw('\n');
+            }
+            json.flush();
+        } catch (UncheckedIOException e) {
+            log.warn("export ธุรกรรมถูกยกเลิกหลังเขียน {} แถว: {}", written[0], e.getCause().getMessage());
+            throw e.getCause();
+        }
+        log.info("export ธุรกรรม {} แถว", written[0]);
+        return written[0];
+    }
+
+    private static Calendar epoch() {
+        Calendar c = Calendar.getInstance();
+        c.setTimeInMillis(0);
+        return c;
+    }
+
+    private static Calendar farFuture() {
+        Calendar c = Calendar.getInstance();
+        c.set(9999, Calendar.DECEMBER, 31, 0, 0, 0);
+        return c;
+    }
+}
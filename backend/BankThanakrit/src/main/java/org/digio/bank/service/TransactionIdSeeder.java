@@ -0,0 +1,36 @@
+package org.digio.bank.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.digio.bank.config.NodeProperties;
+import org.digio.bank.repository.IssuedIdReader;
+import org.springframework.stereotype.Component;
+
+/**
+ * ตั้งต้น TransactionIdGenerator จากเลขล่าสุดที่ node นี้บันทึกไว้ ก่อนระบบเริ่มรับคำขอ
+ * รีสตาร์ทแล้วนาฬิกาช้ากว่าเดิม (ปรับเวลา/ย้ายเครื่อง) จะไม่ออกเลขซ้ำกับที่มีอยู่
+ * เลขที่ออกตอนนาฬิกาเร็วกว่าปัจจุบันเกิน bank.node.id-seed-tolerance-ms จะไม่ถูกค้นเจอ
+ * ถ้านาฬิกาอาจถอยมากกว่านี้ต้องเพิ่มค่านี้ (หรือรอให้เวลาผ่านไปก่อนเริ่มระบบ)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransactionIdSeeder {
+
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final IssuedIdReader issuedIdReader;
+    private final NodeProperties properties;
+
+    @PostConstruct
+    void seed() {
+        String upTo = TransactionIdGenerator.lastIdBefore(
+                System.currentTimeMillis() + Math.max(0L, properties.getIdSeedToleranceMs()) + 1);
+        String last = issuedIdReader.lastIssued(transactionIdGenerator.node(), upTo,
+                JournalService.ADJUSTMENT_PREFIX);
+        if (last != null) {
+            transactionIdGenerator.seed(last);
+            log.info("ตั้งต้นเลขที่ธุรกรรมของ node {} ต่อจาก {}", transactionIdGenerator.node(), last);
+        }
+    }
+}
@@ -2,34 +2,62 @@ package org.digio.bank.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.digio.bank.dto.CursorPage;
 import org.digio.bank.dto.Deposit;
 import org.digio.bank.dto.TransactionView;
 import org.digio.bank.dto.Transfer;
+import org.digio.bank.dto.TransferResult;
 import org.digio.bank.dto.Withdraw;
 import org.digio.entitty.model.Account;
 import org.digio.entitty.model.Member;
 import org.digio.entitty.model.Transaction;
 import org.digio.bank.repository.AccountRepository;
+import org.digio.bank.repository.TransactionBatchWriter;
 import org.digio.bank.repository.TransactionRepository;
+import org.digio.entitty.util.AccountNumbers;
+import org.digio.entitty.util.Money;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
-import java.security.SecureRandom;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class TransactionService {
 
+    public record Slip(String transientId, String email, byte[] pdf) {
+    }
+
     private final TransactionRepository transactionRepository;
     private final AccountRepository accountRepository;
     private final PasswordService passwordService;
     private final PdfService pdfService;
     private final MailService mailService;
+    private final BalanceMutationExecutor balanceExecutor;
+    private final ObjectProvider<LedgerEngine> ledgerEngine;
+    private final TransactionBatchWriter transactionBatchWriter;
+    private final JournalService journalService;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final PinTokenService pinTokenService;
+    private final DailySummaryService dailySummaryService;
+    private final SearchIndexService searchIndexService;
+    private final IdempotencyService idempotencyService;
 
-    private static final SecureRandom RANDOM = new SecureRandom();
 
     private static final String STATUS_OPEN  = "เปิดใช้งาน";
     private static final String TRANSACTION_SUCCESS = "สำเร็จ";
@@ -37,16 +65,92 @@ public class TransactionService {
     private static final String TRANSFER_TYPE = "โอนเงิน";
     private static final String RECEIVE_TYPE = "รับเงิน";
     private static final String WITHDRAW_TYPE = "ถอนเงิน";
+    private static final int BATCH_INSERT_SIZE = 500;
+    private static final int NAME_LOOKUP_CHUNK = 1000;
+    private static final String PIN_TOKEN_REJECTED = "การยืนยันตัวตนหมดอายุ กรุณากรอก PIN ใหม่";
 
 
+    //คำสั่งเดียวสำหรับรายการ + ชื่อเจ้าของบัญชีแบบ IN ทีละ NAME_LOOKUP_CHUNK แทนการค้นบัญชีทีละแถว
+    @Transactional(readOnly = true)
     public List<TransactionView> getAllTransactions() {
-        List<Transaction> list = transactionRepository.findAll();
-        return list.stream()
-                .map(this::toView)
-                .toList();
+        return toViews(transactionRepository.findAllViewRows());
+    }
+
+    //เรียงใหม่ -> เก่าที่ฝั่งเซิร์ฟเวอร์ ค่าใช้จ่ายต่อหน้าไม่ขึ้นกับขนาดตาราง
+    @Transactional(readOnly = true)
+    public CursorPage<TransactionView> getTransactionPage(String cursor, Integer size) {
+        int pageSize = KeysetCursor.size(size);
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        List<Object[]> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = transactionRepository.findViewRowsFirst(limit);
+        } else {
+            String[] keys = KeysetCursor.decode(cursor, 2);
+            Calendar beforeDate = Calendar.getInstance();
+            try {
+                beforeDate.setTimeInMillis(Long.parseLong(keys[0]));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("cursor ไม่ถูกต้อง");
+            }
+            rows = transactionRepository.findViewRowsBefore(beforeDate, keys[1], limit);
+        }
+        return KeysetCursor.page(rows, pageSize, this::toViews,
+                r -> KeysetCursor.encode(String.valueOf(((Calendar) r[1]).getTimeInMillis()), (String) r[0]));
+    }
+
+    //ผลค้นหาตามลำดับของ ids ที่ส่งมา รายการที่ถูกลบไปแล้วจะไม่อยู่ในผล
+    @Transactional(readOnly = true)
+    public List<TransactionView> getViewsByIds(List<String> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<String, TransactionView> byId = new HashMap<>();
+        for (TransactionView v : toViews(transactionRepository.findViewRowsByIds(ids))) {
+            byId.put(v.getTransientId(), v);
+        }
+        List<TransactionView> ordered = new ArrayList<>(byId.size());
+        for (String id : ids) {
+            TransactionView v = byId.get(id);
+            if (v != null) {
+                ordered.add(v);
+            }
+        }
+        return ordered;
+    }
+
+    //[transientId, transactionDate, type, amount, status, fromAccount, toAccount, accountId]
+    private List<TransactionView> toViews(List<Object[]> rows) {
+        Set<String> accountNos = new HashSet<>();
+        for (Object[] r : rows) {
+            addAccountNo(accountNos, (String) r[5]);
+            addAccountNo(accountNos, (String) r[6]);
+        }
+        Map<String, String> names = accountNames(accountNos);
+
+        List<TransactionView> views = new ArrayList<>(rows.size());
+        for (Object[] r : rows) {
+            TransactionView v = new TransactionView();
+            v.setTransientId((String) r[0]);
+            v.setTransactionDate((Calendar) r[1]);
+            v.setType((String) r[2]);
+            v.setAmount((BigDecimal) r[3]);
+            v.setStatus((String) r[4]);
+            v.setFromAccount((String) r[5]);
+            v.setToAccount((String) r[6]);
+            v.setFromAccountName(nameOf(names, (String) r[5]));
+            v.setToAccountName(nameOf(names, (String) r[6]));
+            v.setAccountId((String) r[7]);
+            views.add(v);
+        }
+        return views;
     }
 
     private TransactionView toView(Transaction t) {
+        Set<String> accountNos = new HashSet<>();
+        addAccountNo(accountNos, t.getFromAccount());
+        addAccountNo(accountNos, t.getToAccount());
+        Map<String, String> names = accountNames(accountNos);
+
         TransactionView v = new TransactionView();
         v.setTransientId(t.getTransientId());
         v.setTransactionDate(t.getTransactionDate());
@@ -55,45 +159,59 @@ public class TransactionService {
         v.setStatus(t.getStatus());
         v.setFromAccount(t.getFromAccount());
         v.setToAccount(t.getToAccount());
-        v.setFromAccountName(getAccountName(t.getFromAccount()));
-        v.setToAccountName(getAccountName(t.getToAccount()));
+        v.setFromAccountName(nameOf(names, t.getFromAccount()));
+        v.setToAccountName(nameOf(names, t.getToAccount()));
         v.setAccountId(t.getAccount() != null ? t.getAccount().getAccountId() : null);
         return v;
     }
 
+    private static void addAccountNo(Set<String> accountNos, String accountId) {
+        if (accountId != null && !accountId.isBlank()) {
+            accountNos.add(AccountNumbers.normalize(accountId));
+        }
+    }
+
+    //accountNo -> "ชื่อ นามสกุล"
+    private Map<String, String> accountNames(Set<String> accountNos) {
+        Map<String, String> names = new HashMap<>();
+        List<String> pending = new ArrayList<>(accountNos);
+        for (int i = 0; i < pending.size(); i += NAME_LOOKUP_CHUNK) {
+            List<String> chunk = pending.subList(i, Math.min(i + NAME_LOOKUP_CHUNK, pending.size()));
+            for (Object[] r : accountRepository.findOwnerNames(chunk)) {
+                names.put((String) r[0], r[1] + " " + r[2]);
+            }
+        }
+        return names;
+    }
+
+    private static String nameOf(Map<String, String> names, String accountId) {
+        if (accountId == null || accountId.isBlank()) return null;
+        return names.get(AccountNumbers.normalize(accountId));
+    }
+
+    //ส่งอีเมลสลิปใน thread ที่เรียก สำหรับงานเบื้องหลังใช้ PdfJobService แทน
     public void exportTransactionPdf(String transactionId) {
+        Slip slip = renderSlip(transactionId);
+        mailService.sendTransactionPdf(slip.email(), slip.pdf(), slip.transientId());
+
+        log.info("ส่ง PDF transaction {}", transactionId);
+        log.info("ส่ง PDF ถึง {}", slip.email());
+    }
+
+    //อ่านฐานข้อมูลแค่ตอนโหลดรายการ การสร้าง PDF และเข้ารหัสทำนอก transaction
+    public Slip renderSlip(String transactionId) {
         Transaction tx = transactionRepository.findById(transactionId)
                 .orElseThrow(() -> new RuntimeException("ไม่พบรายการธุรกรรม"));
 
         TransactionView view = toView(tx);
 
-        String rawAccountId = tx.getAccount().getAccountId();
-        String normalizedAccountId = normalizeAccount(rawAccountId);
-
-        if (normalizedAccountId.length() < 4) {
-            throw new IllegalStateException("เลขบัญชีไม่ถูกต้อง");
-        }
-
-        String pdfPassword = normalizedAccountId.substring(normalizedAccountId.length() - 4);
+        String pdfPassword = PdfService.pdfPassword(tx.getAccount().getAccountId());
         String email = tx.getAccount().getMember().getEmail();
         try {
-            byte[] pdfBytes = pdfService.generateTransactionPdf(view, pdfPassword);
-            mailService.sendTransactionPdf(email, pdfBytes, view.getTransientId());
-
+            return new Slip(view.getTransientId(), email, pdfService.generateTransactionPdf(view, pdfPassword));
         } catch (IOException e) {
             throw new IllegalArgumentException("สร้าง PDF ไม่สำเร็จ", e);
         }
-
-        log.info("ส่ง PDF transaction {}", transactionId);
-        log.info("ส่ง PDF ถึง {}", email);
-    }
-
-    private String getAccountName(String accountId) {
-        if (accountId == null || accountId.isBlank()) return null;
-        String normalizedId = normalizeAccount(accountId);
-        return accountRepository.findById(normalizedId)
-                .map(acc -> acc.getMember().getFirstNameTh() + " " + acc.getMember().getLastNameTh())
-                .orElse(null);
     }
 
     public Transaction getTransactionById(String id) {
@@ -101,13 +219,17 @@ public class TransactionService {
         return transactionRepository.findById(id).orElse(null);
     }
 
-    public List<Transaction> getByAccountId(String accountId) {
-        return transactionRepository.findByAccount_AccountId(accountId);
+    //รันบน applicationTaskExecutor (virtual thread เมื่อเปิด) ให้ thread ของ Tomcat คืนกลับทันที
+    @Async
+    @Transactional(readOnly = true)
+    public CompletableFuture<List<Transaction>> getByAccountId(String accountId) {
+        return CompletableFuture.completedFuture(transactionRepository.findByAccount_AccountId(accountId));
     }
 
+    @Transactional
     public Transaction createTransaction(Transaction req) {
         Transaction t = Transaction.builder()
-                .transientId(generateTransactionId())
+                .transientId(transactionIdGenerator.next())
                 .transactionDate(Calendar.getInstance())
                 .type(req.getType())
                 .amount(req.getAmount())
@@ -119,152 +241,511 @@ public class TransactionService {
                 .account(req.getAccount())
                 .build();
 
-        return transactionRepository.save(t);
-    }
-
-    private String generateTransactionId() {
-        String t1 = String.format("%08d", RANDOM.nextInt(100000000));
-
-        String letters = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
-        StringBuilder t2 = new StringBuilder();
-        for (int i = 0; i < 3; i++) {
-            t2.append(letters.charAt(RANDOM.nextInt(letters.length())));
-        }
-        String t3 = String.format("%05d", RANDOM.nextInt(100000));
-
-        return t1 + t2 + t3;
+        Transaction saved = transactionRepository.save(t);
+        dailySummaryService.record(saved);
+        searchIndexService.indexTransactions(saved);
+        return saved;
     }
 
     public Transaction deposit(Deposit req) {
-        if (req.getAmount() == null || req.getAmount() <= 0) {
+        if (req.getAmount() == null || req.getAmount().signum() <= 0) {
             throw new IllegalArgumentException("จำนวนเงินฝากต้องมากกว่า 0");
         }
+        req.setAmount(Money.of(req.getAmount()));
 
-        Account account = accountRepository.findById(req.getAccountId())
-                .orElseThrow(() -> new RuntimeException("ไม่พบบัญชีเลขที่ " + req.getAccountId()));
+        LedgerEngine ledger = ledgerEngine.getIfAvailable();
+        if (ledger != null) {
+            Transaction t = depositRecord(ledger.deposit(req.getAccountId(), req.getAmount()), req.getAmount());
+            ledger.record(t);
+            return t;
+        }
 
-        if (!STATUS_OPEN .equalsIgnoreCase(account.getStatus())) {
-            throw new IllegalArgumentException("ไม่สามารถทำรายการได้ บัญชีไม่ได้อยู่ในสถานะปกติ");
+        if (balanceExecutor.isAtomic()) {
+            return balanceExecutor.execute(() -> {
+                String accountNo = AccountNumbers.normalize(req.getAccountId());
+                if (accountRepository.credit(accountNo, req.getAmount(), STATUS_OPEN) == 0) {
+                    accountRepository.findByAnyAccountId(req.getAccountId())
+                            .orElseThrow(() -> new RuntimeException("ไม่พบบัญชีเลขที่ " + req.getAccountId()));
+                    throw new IllegalArgumentException("ไม่สามารถทำรายการได้ บัญชีไม่ได้อยู่ในสถานะปกติ");
+                }
+                //แถวถูกล็อกโดย UPDATE ข้างบนแล้ว ค่าที่อ่านได้คือยอดหลังฝาก
+                Account account = accountRepository.findByAnyAccountId(req.getAccountId()).orElseThrow();
+                return saveAndPost(depositRecord(account, req.getAmount()));
+            });
         }
 
-        double newBalance = account.getBalance() + req.getAmount();
-        account.setBalance(newBalance);
-        accountRepository.save(account);
+        if (balanceExecutor.isJournal()) {
+            //ฝากเงินเป็นการ append journal อย่างเดียว ไม่ล็อกและไม่แก้แถวบัญชี
+            return withJournalBalance(balanceExecutor.execute(() -> {
+                Account account = accountRepository.findByAnyAccountId(req.getAccountId())
+                        .orElseThrow(() -> new RuntimeException("ไม่พบบัญชีเลขที่ " + req.getAccountId()));
+
+                if (!STATUS_OPEN .equalsIgnoreCase(account.getStatus())) {
+                    throw new IllegalArgumentException("ไม่สามารถทำรายการได้ บัญชีไม่ได้อยู่ในสถานะปกติ");
+                }
+                return saveAndPost(depositRecord(account, req.getAmount()));
+            }));
+        }
 
-        Transaction transaction = Transaction.builder()
-                .transientId(generateTransactionId())
-                .transactionDate(Calendar.getInstance())
-                .type(DEPOSIT_TYPE)
-                .amount(req.getAmount())
-                .confirmPin(null)
-                .status(TRANSACTION_SUCCESS)
-                .fromAccount(null)
-                .toAccount(account.getAccountId())
-                .admin(null)
-                .account(account)
-                .build();
+        return balanceExecutor.execute(() -> {
+            Account account = balanceExecutor.acquire(req.getAccountId())
+                    .orElseThrow(() -> new RuntimeException("ไม่พบบัญชีเลขที่ " + req.getAccountId()));
+
+            if (!STATUS_OPEN .equalsIgnoreCase(account.getStatus())) {
+                throw new IllegalArgumentException("ไม่สามารถทำรายการได้ บัญชีไม่ได้อยู่ในสถานะปกติ");
+            }
 
-        return transactionRepository.save(transaction);
+            BigDecimal newBalance = account.getBalance().add(req.getAmount());
+            account.setBalance(newBalance);
+            accountRepository.save(account);
+
+            return saveAndPost(depositRecord(account, req.getAmount()));
+        });
     }
 
     public Transaction withdraw(Withdraw req) {
-        Account account = accountRepository.findById(req.getAccountId())
+        //ตรวจ PIN (bcrypt) ก่อนเข้าช่วงที่ล็อกบัญชี จะได้ไม่ถือล็อกระหว่างคำนวณ hash
+        Account checked = accountRepository.findByAnyAccountId(req.getAccountId())
                 .orElseThrow(() -> new RuntimeException("ไม่พบบัญชีเลขที่" + req.getAccountId()));
 
-        if (!STATUS_OPEN .equalsIgnoreCase(account.getStatus())) {
+        if (!STATUS_OPEN .equalsIgnoreCase(checked.getStatus())) {
             throw new IllegalArgumentException("ไม่สามารถทำรายการได้ บัญชีไม่ได้อยู่ในสถานะปกติ");
         }
 
-        Member member = account.getMember();
+        Member member = checked.getMember();
         if (member == null) {
             throw new IllegalArgumentException("ไม่มีผู้ใช้บัญชีเลขที่" + req.getAccountId());
         }
 
-        if (req.getPin() == null || req.getPin().isBlank()) {
-            throw new IllegalArgumentException("กรุณากรอก PIN");
+        authorize(member, req.getPin(), req.getPinToken(), req.getDeviceId());
+
+        if (req.getAmount() == null || req.getAmount().signum() <= 0) {
+            throw new IllegalArgumentException("จำนวนเงินต้องมากกว่า 0");
         }
+        req.setAmount(Money.of(req.getAmount()));
 
-        if (!passwordService.matches(req.getPin(), member.getPin())) {
-            throw new IllegalArgumentException("PIN ไม่ถูกต้อง");
+        LedgerEngine ledger = ledgerEngine.getIfAvailable();
+        if (ledger != null) {
+            Transaction t = withdrawRecord(ledger.withdraw(req.getAccountId(), req.getAmount()), req.getAmount());
+            ledger.record(t);
+            return t;
         }
 
-        if (req.getAmount() == null || req.getAmount() <= 0) {
-            throw new IllegalArgumentException("จำนวนเงินต้องมากกว่า 0");
+        if (balanceExecutor.isAtomic()) {
+            return balanceExecutor.execute(() -> {
+                String accountNo = AccountNumbers.normalize(checked.getAccountId());
+                if (accountRepository.debit(accountNo, req.getAmount(), STATUS_OPEN) == 0) {
+                    throw debitRejected(checked.getAccountId(), req.getAmount(),
+                            "ไม่สามารถทำรายการได้ บัญชีไม่ได้อยู่ในสถานะปกติ");
+                }
+                Account account = accountRepository.findById(checked.getAccountId()).orElseThrow();
+                return saveAndPost(withdrawRecord(account, req.getAmount()));
+            });
         }
 
-        if (account.getBalance() < req.getAmount()) {
-            throw new IllegalArgumentException("ยอดเงินในบัญชีไม่เพียงพอ");
+        if (balanceExecutor.isJournal()) {
+            return withJournalBalance(balanceExecutor.execute(() -> {
+                Account account = balanceExecutor.acquireForDebit(checked.getAccountId())
+                        .orElseThrow(() -> new RuntimeException("ไม่พบบัญชีเลขที่" + req.getAccountId()));
+
+                if (!STATUS_OPEN .equalsIgnoreCase(account.getStatus())) {
+                    throw new IllegalArgumentException("ไม่สามารถทำรายการได้ บัญชีไม่ได้อยู่ในสถานะปกติ");
+                }
+
+                if (journalService.currentBalance(accountNoOf(account)).compareTo(req.getAmount()) < 0) {
+                    throw new IllegalArgumentException("ยอดเงินในบัญชีไม่เพียงพอ");
+                }
+                return saveAndPost(withdrawRecord(account, req.getAmount()));
+            }));
         }
 
-        double newBalance = account.getBalance() - req.getAmount();
-        account.setBalance(newBalance);
-        accountRepository.save(account);
+        return balanceExecutor.execute(() -> {
+            Account account = balanceExecutor.acquire(req.getAccountId())
+                    .orElseThrow(() -> new RuntimeException("ไม่พบบัญชีเลขที่" + req.getAccountId()));
 
-        Calendar now = Calendar.getInstance();
+            if (!STATUS_OPEN .equalsIgnoreCase(account.getStatus())) {
+                throw new IllegalArgumentException("ไม่สามารถทำรายการได้ บัญชีไม่ได้อยู่ในสถานะปกติ");
+            }
 
-        Transaction t = Transaction.builder()
-                .transientId(generateTransactionId())
-                .transactionDate(now)
-                .type(WITHDRAW_TYPE)
-                .amount(-req.getAmount())
-                .status(TRANSACTION_SUCCESS)
-                .fromAccount(account.getAccountId())
-                .toAccount(null)
-                .account(account)
-                .build();
+            if (account.getBalance().compareTo(req.getAmount()) < 0) {
+                throw new IllegalArgumentException("ยอดเงินในบัญชีไม่เพียงพอ");
+            }
 
-        return transactionRepository.save(t);
-    }
+            BigDecimal newBalance = account.getBalance().subtract(req.getAmount());
+            account.setBalance(newBalance);
+            accountRepository.save(account);
 
-    private String normalizeAccount(String input) {
-        return input.replaceAll("\\D", "");
+            return saveAndPost(withdrawRecord(account, req.getAmount()));
+        });
     }
 
     public Transaction transfer(Transfer req) {
-        String inputFrom = normalizeAccount(req.getFromAccountId());
-        String inputTo = normalizeAccount(req.getToAccountId());
-        
-        Account from = accountRepository.findAll().stream()
-                .filter(a -> normalizeAccount(a.getAccountId()).equals(inputFrom))
-                .findFirst()
+        if (req.getAmount() == null || req.getAmount().signum() <= 0) {
+            throw new IllegalArgumentException("จำนวนเงินต้องมากกว่า 0");
+        }
+        req.setAmount(Money.of(req.getAmount()));
+
+        Account checked = accountRepository.findByAnyAccountId(req.getFromAccountId())
                 .orElseThrow(() -> new RuntimeException("ไม่พบบัญชีต้นทาง"));
 
-        Account to = accountRepository.findAll().stream()
-                .filter(a -> normalizeAccount(a.getAccountId()).equals(inputTo))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("ไม่พบบัญชีปลายทาง"));
+        authorize(checked.getMember(), req.getPin(), req.getPinToken(), req.getDeviceId());
 
-        if (!STATUS_OPEN .equalsIgnoreCase(from.getStatus())) {
-            throw new IllegalArgumentException("บัญชีต้นทางไม่ได้อยู่ในสถานะปกติ");
+        LedgerEngine ledger = ledgerEngine.getIfAvailable();
+        if (ledger != null) {
+            LedgerEngine.Legs legs = ledger.transfer(req.getFromAccountId(), req.getToAccountId(), req.getAmount());
+            Transaction[] records = transferRecords(legs.from(), legs.to(), req.getAmount(), req.getPin());
+            ledger.record(records);
+            return records[0];
+        }
+
+        if (balanceExecutor.isAtomic()) {
+            return balanceExecutor.execute(() -> atomicTransfer(req, checked));
+        }
+
+        if (balanceExecutor.isJournal()) {
+            //ล็อกเฉพาะบัญชีต้นทาง ขารับเงินของปลายทางเป็นการ append จึงไม่เกิดแถวร้อนที่บัญชีปลายทางยอดนิยม
+            return withJournalBalance(balanceExecutor.execute(() -> {
+                Account from = balanceExecutor.acquireForDebit(req.getFromAccountId())
+                        .orElseThrow(() -> new RuntimeException("ไม่พบบัญชีต้นทาง"));
+
+                Account to = accountRepository.findByAnyAccountId(req.getToAccountId())
+                        .orElseThrow(() -> new RuntimeException("ไม่พบบัญชีปลายทาง"));
+
+                String error = batchLegError(from, to, req.getAmount(), journalService.currentBalance(accountNoOf(from)));
+                if (error != null) {
+                    throw new IllegalArgumentException(error);
+                }
+                return saveAndPost(transferRecords(from, to, req.getAmount(), req.getPin()));
+            }));
         }
 
+        return balanceExecutor.execute(() -> {
+            BalanceMutationExecutor.AccountPair pair =
+                    balanceExecutor.acquireInOrder(req.getFromAccountId(), req.getToAccountId());
+
+            Account from = pair.first()
+                    .orElseThrow(() -> new RuntimeException("ไม่พบบัญชีต้นทาง"));
+
+            Account to = pair.second()
+                    .orElseThrow(() -> new RuntimeException("ไม่พบบัญชีปลายทาง"));
+
+            if (!STATUS_OPEN .equalsIgnoreCase(from.getStatus())) {
+                throw new IllegalArgumentException("บัญชีต้นทางไม่ได้อยู่ในสถานะปกติ");
+            }
+
+            if (!STATUS_OPEN .equalsIgnoreCase(to.getStatus())) {
+                throw new IllegalArgumentException("บัญชีปลายทางไม่ได้อยู่ในสถานะปกติ");
+            }
+
+            if (from.getBalance().compareTo(req.getAmount()) < 0) {
+                throw new IllegalArgumentException("ยอดเงินในบัญชีไม่เพียงพอ");
+            }
+
+            BigDecimal amount = req.getAmount();
+            //อัปเดตยอดเงินทั้ง 2 บัญชี
+            from.setBalance(from.getBalance().subtract(amount));
+            to.setBalance(to.getBalance().add(amount));
+            accountRepository.save(from);
+            accountRepository.save(to);
+
+            return saveAndPost(transferRecords(from, to, amount, req.getPin()));
+        });
+    }
+
+    /**
+     * โอนเงินหลายรายการในครั้งเดียว แต่ละรายการได้ผลของตัวเอง รายการที่ไม่ผ่านไม่ทำให้ทั้งชุดล้ม
+     * PIN ตรวจครั้งเดียวต่อบัญชีต้นทาง, ยอดเงินคำนวณต่อบัญชีในหน่วยความจำแล้วเขียนครั้งเดียวตอน commit
+     * และรายการธุรกรรมทั้งหมดถูก insert ด้วย JDBC batch
+     */
+    public List<TransferResult> transferBatch(List<Transfer> requests) {
+        TransferResult[] results = new TransferResult[requests.size()];
+        Set<String> accountNos = new HashSet<>();
+        Set<String> sourceNos = new HashSet<>();
+        Map<String, Boolean> pinChecks = verifyBatchPins(requests);
+
+        List<Integer> accepted = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            Transfer req = requests.get(i);
+            String fromNo = AccountNumbers.normalize(req.getFromAccountId());
+            String toNo = AccountNumbers.normalize(req.getToAccountId());
+            if (fromNo == null || fromNo.isEmpty()) {
+                results[i] = failed(i, req, "ไม่พบบัญชีต้นทาง");
+            } else if (toNo == null || toNo.isEmpty()) {
+                results[i] = failed(i, req, "ไม่พบบัญชีปลายทาง");
+            } else if (req.getAmount() == null || req.getAmount().signum() <= 0) {
+                results[i] = failed(i, req, "จำนวนเงินต้องมากกว่า 0");
+            } else if (req.getAmount().stripTrailingZeros().scale() > Money.SCALE) {
+                results[i] = failed(i, req, "จำนวนเงินต้องมีทศนิยมไม่เกิน 2 ตำแหน่ง");
+            } else if (!Boolean.TRUE.equals(pinChecks.get(pinKey(fromNo, req)))) {
+                results[i] = failed(i, req, !pinChecks.containsKey(pinKey(fromNo, req)) ? "ไม่พบบัญชีต้นทาง"
+                        : hasPinToken(req.getPinToken()) ? PIN_TOKEN_REJECTED : "PIN ไม่ถูกต้อง");
+            } else {
+                accepted.add(i);
+                sourceNos.add(fromNo);
+                accountNos.add(fromNo);
+                accountNos.add(toNo);
+            }
+        }
+
+        LedgerEngine ledger = ledgerEngine.getIfAvailable();
+        if (ledger != null) {
+            for (int i : accepted) {
+                Transfer req = requests.get(i);
+                try {
+                    LedgerEngine.Legs legs = ledger.transfer(req.getFromAccountId(), req.getToAccountId(), req.getAmount());
+                    Transaction[] records = transferRecords(legs.from(), legs.to(), req.getAmount(), req.getPin());
+                    ledger.record(records);
+                    results[i] = succeeded(i, req, records[0]);
+                } catch (RuntimeException e) {
+                    results[i] = failed(i, req, e.getMessage());
+                }
+            }
+            return Arrays.asList(results);
+        }
+
+        boolean journal = balanceExecutor.isJournal();
+        List<TransferResult> applied = balanceExecutor.execute(() -> {
+            Map<String, Account> accounts = balanceExecutor.acquireAll(accountNos, sourceNos);
+            //โหมด JOURNAL: ยอดคงเหลือต่อเนื่องของบัญชีต้นทางในชุดนี้ (ไม่แก้แถวบัญชี)
+            Map<String, BigDecimal> available = new HashMap<>();
+            List<TransferResult> out = new ArrayList<>(accepted.size());
+            List<Transaction> records = new ArrayList<>(accepted.size() * 2);
+            List<Transaction[]> postings = new ArrayList<>(accepted.size());
+            for (int i : accepted) {
+                Transfer req = requests.get(i);
+                String fromNo = AccountNumbers.normalize(req.getFromAccountId());
+                String toNo = AccountNumbers.normalize(req.getToAccountId());
+                Account from = accounts.get(fromNo);
+                Account to = accounts.get(toNo);
+                BigDecimal fromBalance = from == null ? null
+                        : journal ? available.computeIfAbsent(fromNo, journalService::currentBalance) : from.getBalance();
+                String error = batchLegError(from, to, req.getAmount(), fromBalance);
+                if (error != null) {
+                    out.add(failed(i, req, error));
+                    continue;
+                }
+                BigDecimal amount = req.getAmount();
+                if (journal) {
+                    available.put(fromNo, fromBalance.subtract(amount));
+                    if (sourceNos.contains(toNo)) {
+                        available.put(toNo, available.computeIfAbsent(toNo, journalService::currentBalance).add(amount));
+                    }
+                } else {
+                    from.setBalance(from.getBalance().subtract(amount));
+                    to.setBalance(to.getBalance().add(amount));
+                }
+                Transaction[] legs = transferRecords(from, to, amount, req.getPin());
+                records.add(legs[0]);
+                records.add(legs[1]);
+                postings.add(legs);
+                out.add(succeeded(i, req, legs[0]));
+            }
+            transactionBatchWriter.insertAll(records, BATCH_INSERT_SIZE);
+            journalService.postAll(postings);
+            dailySummaryService.record(records);
+            searchIndexService.indexTransactions(records);
+            return out;
+        });
+
+        for (TransferResult r : applied) {
+            results[r.getIndex()] = r;
+        }
+        return Arrays.asList(results);
+    }
+
+    //คีย์ = เลขบัญชีต้นทาง + PIN หรือ token, ค่า = ผลการตรวจ (ไม่มีคีย์ = ไม่พบบัญชี)
+    private Map<String, Boolean> verifyBatchPins(List<Transfer> requests) {
+        Set<String> sourceNos = new HashSet<>();
+        for (Transfer req : requests) {
+            String fromNo = AccountNumbers.normalize(req.getFromAccountId());
+            if (fromNo != null && !fromNo.isEmpty()) {
+                sourceNos.add(fromNo);
+            }
+        }
+        Map<String, Member> owners = new HashMap<>();
+        for (Account a : sourceNos.isEmpty() ? List.<Account>of() : accountRepository.findAllByAccountNoIn(sourceNos)) {
+            owners.put(a.getAccountNo(), a.getMember());
+        }
+
+        Map<String, Boolean> checks = new HashMap<>();
+        for (Transfer req : requests) {
+            String fromNo = AccountNumbers.normalize(req.getFromAccountId());
+            Member owner = owners.get(fromNo);
+            if (owner != null) {
+                checks.computeIfAbsent(pinKey(fromNo, req), k -> hasPinToken(req.getPinToken())
+                        ? pinTokenService.verify(req.getPinToken(), owner.getMemberId(), req.getDeviceId())
+                        : passwordService.matchesPin(req.getPin(), owner.getPin()));
+            }
+        }
+        return checks;
+    }
+
+    private static String pinKey(String accountNo, Transfer req) {
+        return hasPinToken(req.getPinToken())
+                ? accountNo + "\u0000T\u0000" + req.getPinToken() + '\u0000' + req.getDeviceId()
+                : accountNo + "\u0000P\u0000" + req.getPin();
+    }
+
+    private static boolean hasPinToken(String pinToken) {
+        return pinToken != null && !pinToken.isBlank();
+    }
+
+    //มี token: ตรวจ HMAC อย่างเดียว, ไม่มี: ตรวจ PIN ด้วย bcrypt แบบเดิม
+    private void authorize(Member member, String pin, String pinToken, String deviceId) {
+        if (hasPinToken(pinToken)) {
+            if (!pinTokenService.verify(pinToken, member.getMemberId(), deviceId)) {
+                throw new IllegalArgumentException(PIN_TOKEN_REJECTED);
+            }
+            return;
+        }
+
+        if (pin == null || pin.isBlank()) {
+            throw new IllegalArgumentException("กรุณากรอก PIN");
+        }
+
+        if (!passwordService.matchesPin(pin, member.getPin())) {
+            throw new IllegalArgumentException("PIN ไม่ถูกต้อง");
+        }
+    }
+
+    private String batchLegError(Account from, Account to, BigDecimal amount, BigDecimal fromBalance) {
+        if (from == null) {
+            return "ไม่พบบัญชีต้นทาง";
+        }
+        if (to == null) {
+            return "ไม่พบบัญชีปลายทาง";
+        }
+        if (!STATUS_OPEN .equalsIgnoreCase(from.getStatus())) {
+            return "บัญชีต้นทางไม่ได้อยู่ในสถานะปกติ";
+        }
         if (!STATUS_OPEN .equalsIgnoreCase(to.getStatus())) {
+            return "บัญชีปลายทางไม่ได้อยู่ในสถานะปกติ";
+        }
+        if (fromBalance.compareTo(amount) < 0) {
+            return "ยอดเงินในบัญชีไม่เพียงพอ";
+        }
+        return null;
+    }
+
+    private static TransferResult succeeded(int index, Transfer req, Transaction out) {
+        return new TransferResult(index, true, out.getTransientId(),
+                req.getFromAccountId(), req.getToAccountId(), req.getAmount(), TRANSACTION_SUCCESS);
+    }
+
+    private static TransferResult failed(int index, Transfer req, String message) {
+        return new TransferResult(index, false, null,
+                req.getFromAccountId(), req.getToAccountId(), req.getAmount(), message);
+    }
+
+    //ต้องเรียกภายใน balanceExecutor.execute เพื่อให้ debit/credit อยู่ใน transaction เดียวกัน
+    private Transaction atomicTransfer(Transfer req, Account checked) {
+        String fromNo = AccountNumbers.normalize(checked.getAccountId());
+        String toNo = AccountNumbers.normalize(req.getToAccountId());
+        BigDecimal amount = req.getAmount();
+
+        //สั่ง UPDATE เรียงตามเลขบัญชี เพื่อไม่ให้โอนสวนกันแล้ว deadlock
+        if (fromNo.compareTo(toNo) <= 0) {
+            debitForTransfer(checked, amount);
+            creditForTransfer(req.getToAccountId(), toNo, amount);
+        } else {
+            creditForTransfer(req.getToAccountId(), toNo, amount);
+            debitForTransfer(checked, amount);
+        }
+
+        Account from = accountRepository.findById(checked.getAccountId()).orElseThrow();
+        Account to = accountRepository.findByAnyAccountId(req.getToAccountId()).orElseThrow();
+        return saveAndPost(transferRecords(from, to, amount, req.getPin()));
+    }
+
+    private void debitForTransfer(Account checked, BigDecimal amount) {
+        String accountNo = AccountNumbers.normalize(checked.getAccountId());
+        if (accountRepository.debit(accountNo, amount, STATUS_OPEN) == 0) {
+            throw debitRejected(checked.getAccountId(), amount, "บัญชีต้นทางไม่ได้อยู่ในสถานะปกติ");
+        }
+    }
+
+    private void creditForTransfer(String toAccountId, String toNo, BigDecimal amount) {
+        if (accountRepository.credit(toNo, amount, STATUS_OPEN) == 0) {
+            accountRepository.findByAnyAccountId(toAccountId)
+                    .orElseThrow(() -> new RuntimeException("ไม่พบบัญชีปลายทาง"));
             throw new IllegalArgumentException("บัญชีปลายทางไม่ได้อยู่ในสถานะปกติ");
         }
+    }
 
-        if (!passwordService.matches(req.getPin(), from.getMember().getPin())) {
-            throw new IllegalArgumentException("PIN ไม่ถูกต้อง");
+    //UPDATE ไม่ผ่านเงื่อนไข อ่านแถวอีกครั้งเพื่อบอกสาเหตุให้ตรงกับข้อความเดิม
+    private RuntimeException debitRejected(String accountId, BigDecimal amount, String statusMessage) {
+        Account current = accountRepository.findById(accountId).orElse(null);
+        if (current == null) {
+            return new RuntimeException("ไม่พบบัญชีเลขที่" + accountId);
+        }
+        if (!STATUS_OPEN .equalsIgnoreCase(current.getStatus())) {
+            return new IllegalArgumentException(statusMessage);
         }
+        return new IllegalArgumentException("ยอดเงินในบัญชีไม่เพียงพอ");
+    }
+
+    private Transaction depositRecord(Account account, BigDecimal amount) {
+        return Transaction.builder()
+                .transientId(transactionIdGenerator.next())
+                .transactionDate(Calendar.getInstance())
+                .type(DEPOSIT_TYPE)
+                .amount(amount)
+                .confirmPin(null)
+                .status(TRANSACTION_SUCCESS)
+                .fromAccount(null)
+                .toAccount(account.getAccountId())
+                .admin(null)
+                .account(account)
+                .build();
+    }
 
-        if (from.getBalance() < req.getAmount()) {
-            throw new IllegalArgumentException("ยอดเงินในบัญชีไม่เพียงพอ");
+    private Transaction withdrawRecord(Account account, BigDecimal amount) {
+        return Transaction.builder()
+                .transientId(transactionIdGenerator.next())
+                .transactionDate(Calendar.getInstance())
+                .type(WITHDRAW_TYPE)
+                .amount(amount.negate())
+                .status(TRANSACTION_SUCCESS)
+                .fromAccount(account.getAccountId())
+                .toAccount(null)
+                .account(account)
+                .build();
+    }
+
+    //บันทึกแถว Transaction และ journal ของ posting เดียวกันใน transaction เดียว คืนแถวแรก (ขาหลัก)
+    private Transaction saveAndPost(Transaction... posting) {
+        for (int i = posting.length - 1; i > 0; i--) {
+            transactionRepository.save(posting[i]);
         }
+        Transaction saved = transactionRepository.save(posting[0]);
+        journalService.post(posting);
+        dailySummaryService.record(posting);
+        searchIndexService.indexTransactions(posting);
+        idempotencyService.completeInTransaction(saved);
+        return saved;
+    }
 
-        double amount = req.getAmount();
-        //อัปเดตยอดเงินทั้ง 2 บัญชี
-        from.setBalance(from.getBalance() - amount);
-        to.setBalance(to.getBalance() + amount);
-        accountRepository.save(from);
-        accountRepository.save(to);
+    //โหมด JOURNAL ไม่แก้ accounts.balance ตอนทำรายการ จึงใส่ยอดที่คำนวณจาก journal ให้ผลลัพธ์ (entity หลุด context แล้ว)
+    private Transaction withJournalBalance(Transaction t) {
+        Account account = t.getAccount();
+        account.setBalance(journalService.currentBalance(accountNoOf(account)));
+        return t;
+    }
+
+    private static String accountNoOf(Account account) {
+        return AccountNumbers.normalize(account.getAccountId());
+    }
 
+    //[0] = ขาโอนออกของต้นทาง, [1] = ขารับเงินของปลายทาง
+    private Transaction[] transferRecords(Account from, Account to, BigDecimal amount, String pin) {
         Calendar now = Calendar.getInstance();
         //โอนเงิน
         Transaction tOut = Transaction.builder()
-                .transientId(generateTransactionId())
+                .transientId(transactionIdGenerator.next())
                 .transactionDate(now)
                 .type(TRANSFER_TYPE)
-                .amount(-amount)
-                .confirmPin(req.getPin())
+                .amount(amount.negate())
+                .confirmPin(pin)
                 .status(TRANSACTION_SUCCESS)
                 .fromAccount(from.getAccountId())
                 .toAccount(to.getAccountId())
@@ -272,7 +753,7 @@ public class TransactionService {
                 .build();
         //รับเงิน
         Transaction tIn = Transaction.builder()
-                .transientId(generateTransactionId())
+                .transientId(transactionIdGenerator.next())
                 .transactionDate(now)
                 .type(RECEIVE_TYPE)
                 .amount(amount)
@@ -283,14 +764,13 @@ public class TransactionService {
                 .account(to)
                 .build();
 
-        transactionRepository.save(tIn);
-        return transactionRepository.save(tOut);
+        return new Transaction[]{tOut, tIn};
     }
 
     public void autoTransferEx() {
         String fromAccountId = "431-7-99003-6";
         String toAccountId   = "883-1-93408-4";
-        double amount        = 10.0;
+        BigDecimal amount    = new BigDecimal("10.00");
         String pin     = "123456";
 
         Transfer req = new Transfer();
@@ -316,9 +796,12 @@ public class TransactionService {
         }
     }
 
+    @Transactional
     public Transaction updateTransaction(String id, Transaction req) {
         return transactionRepository.findById(id)
                 .map(existing -> {
+                    //หักค่าเดิมออกก่อนแก้ แล้วบวกค่าใหม่เข้าไปหลังบันทึก
+                    dailySummaryService.reverse(existing);
 
                     existing.setTransactionDate(req.getTransactionDate());
                     existing.setType(req.getType());
@@ -330,16 +813,23 @@ public class TransactionService {
                     existing.setAdmin(req.getAdmin());
                     existing.setAccount(req.getAccount());
 
-                    return transactionRepository.save(existing);
+                    Transaction saved = transactionRepository.save(existing);
+                    dailySummaryService.record(saved);
+                    searchIndexService.indexTransactions(saved);
+                    return saved;
                 })
                 .orElse(null);
     }
 
+    @Transactional
     public boolean deleteTransaction(String id) {
-        if (!transactionRepository.existsById(id)) {
+        Transaction existing = transactionRepository.findById(id).orElse(null);
+        if (existing == null) {
             return false;
         }
-        transactionRepository.deleteById(id);
+        dailySummaryService.reverse(existing);
+        transactionRepository.delete(existing);
+        searchIndexService.removeTransaction(id);
         return true;
     }
 
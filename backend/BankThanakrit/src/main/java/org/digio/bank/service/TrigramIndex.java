@@ -0,0 +1,295 @@
+package org.digio.bank.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * inverted index แบบ trigram ในหน่วยความจำ หนึ่งชุดต่อชนิดเอกสาร
+ * docId เพิ่มขึ้นเรื่อย ๆ posting list จึงเรียงอยู่แล้วและ intersect ได้ด้วย binary search
+ * การแก้ไข = ทำเครื่องหมายลบเอกสารเดิมแล้วเพิ่มใหม่, สร้าง posting ใหม่เมื่อเอกสารที่ถูกลบเกินครึ่ง
+ */
+final class TrigramIndex {
+
+    static final int GRAM = 3;
+
+    private static final int COMPACT_MIN_DOCS = 1024;
+
+    private record Doc(String key, String[] fields, long sortKey) {
+    }
+
+    //total = จำนวนผลที่ตรงทั้งหมด ถ้า exact = false คือหยุดตรวจที่ maxCandidates ผลจริงอาจมากกว่านี้
+    record Result(List<String> keys, int total, boolean exact) {
+    }
+
+    //ผลที่แย่ที่สุดอยู่หัว heap: คะแนนน้อยกว่า แล้ว sortKey น้อยกว่า
+    private static final Comparator<long[]> WORST_FIRST =
+            (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]);
+
+    private final List<Doc> docs = new ArrayList<>();
+    private final BitSet deleted = new BitSet();
+    //จำนวนบิตใน deleted นับเองแทน cardinality() ที่ต้องไล่ทั้ง BitSet ทุกครั้งที่แก้
+    private int deletedCount;
+    private final Map<String, Integer> live = new HashMap<>();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    //ตัวพิมพ์เล็ก ตัด '-' และช่องว่าง: 431-7-99003-6 กับ 431799036 และ "สมชาย ใจดี" กับ "สมชายใจดี" ค้นได้เหมือนกัน
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c != '-' && !Character.isWhitespace(c)) {
+                sb.append(c);
+            }
+        }
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+
+    void put(String key, long sortKey, String... rawFields) {
+        String[] fields = new String[rawFields.length];
+        for (int i = 0; i < rawFields.length; i++) {
+            fields[i] = normalize(rawFields[i]);
+        }
+        lock.writeLock().lock();
+        try {
+            Integer previous = live.get(key);
+            if (previous != null) {
+                Doc old = docs.get(previous);
+                if (old.sortKey() == sortKey && Arrays.equals(old.fields(), fields)) {
+                    return;
+                }
+                markDeleted(previous);
+            }
+            add(new Doc(key, fields, sortKey));
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(String key) {
+        lock.writeLock().lock();
+        try {
+            Integer previous = live.remove(key);
+            if (previous != null) {
+                markDeleted(previous);
+                compactIfNeeded();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return live.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    Set<String> keys() {
+        lock.readLock().lock();
+        try {
+            return new HashSet<>(live.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //ลบเอกสารที่ sortKey น้อยกว่า cutoff คืนจำนวนที่ลบ
+    int removeOlderThan(long cutoff) {
+        lock.writeLock().lock();
+        try {
+            int removed = 0;
+            Iterator<Map.Entry<String, Integer>> it = live.entrySet().iterator();
+            while (it.hasNext()) {
+                int docId = it.next().getValue();
+                if (docs.get(docId).sortKey() < cutoff) {
+                    it.remove();
+                    markDeleted(docId);
+                    removed++;
+                }
+            }
+            if (removed > 0) {
+                compactIfNeeded();
+            }
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * เรียงผล: ตรงทั้งช่อง > ขึ้นต้นด้วยคำค้น > มีคำค้นอยู่ข้างใน แล้วตาม sortKey มาก -> น้อย
+     * ตรวจทุก candidate ว่ามีคำค้นจริง จึงไม่มีผลลวงจาก trigram ที่บังเอิญตรงกัน
+     * ให้คะแนน candidate ทั้งหมด (ไม่เกิน maxCandidates) ก่อนตัดเหลือ maxHits อันดับแรก
+     * ผลที่ตรงทั้งช่องแต่เก่าจึงไม่หลุดไปเพราะมีผลที่ตรงบางส่วนแต่ใหม่กว่าเต็ม maxHits
+     */
+    Result search(String normalizedQuery, int maxHits, int maxCandidates) {
+        Set<String> grams = grams(normalizedQuery);
+        lock.readLock().lock();
+        try {
+            List<Postings> lists = new ArrayList<>(grams.size());
+            for (String gram : grams) {
+                Postings p = postings.get(gram);
+                if (p == null) {
+                    return new Result(List.of(), 0, true);
+                }
+                lists.add(p);
+            }
+            lists.sort(Comparator.comparingInt(Postings::size));
+
+            //ไล่จาก docId มากไปน้อย = ลำดับที่เข้า index ล่าสุดก่อน ไม่ใช่ลำดับ sortKey
+            //ถ้าถึง maxCandidates ก่อนหมด เอกสารที่ไม่ได้ตรวจคือที่เข้า index ก่อน (อาจมี sortKey ใหม่กว่า)
+            //ผลจึงไม่ครบและผู้เรียกเห็นได้จาก exact = false
+            PriorityQueue<long[]> top = new PriorityQueue<>(WORST_FIRST);
+            Postings smallest = lists.get(0);
+            int matched = 0;
+            int checked = 0;
+            boolean exact = true;
+            for (int i = smallest.size() - 1; i >= 0; i--) {
+                int docId = smallest.get(i);
+                if (deleted.get(docId) || !inAll(lists, docId)) {
+                    continue;
+                }
+                if (checked++ >= maxCandidates) {
+                    exact = false;
+                    break;
+                }
+                int score = score(docs.get(docId).fields(), normalizedQuery);
+                if (score == 0) {
+                    continue;
+                }
+                matched++;
+                top.add(new long[]{score, docs.get(docId).sortKey(), docId});
+                if (top.size() > maxHits) {
+                    top.poll();
+                }
+            }
+
+            List<long[]> hits = new ArrayList<>(top);
+            hits.sort(WORST_FIRST.reversed());
+            List<String> keys = new ArrayList<>(hits.size());
+            for (long[] h : hits) {
+                keys.add(docs.get((int) h[2]).key());
+            }
+            return new Result(keys, matched, exact);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean inAll(List<Postings> lists, int docId) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(docId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int score(String[] fields, String query) {
+        int best = 0;
+        for (String f : fields) {
+            if (f.equals(query)) {
+                return 3;
+            }
+            if (f.startsWith(query)) {
+                best = Math.max(best, 2);
+            } else if (f.contains(query)) {
+                best = Math.max(best, 1);
+            }
+        }
+        return best;
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    //ต้องถือ write lock
+    private void add(Doc doc) {
+        int docId = docs.size();
+        docs.add(doc);
+        live.put(doc.key(), docId);
+        Set<String> grams = new LinkedHashSet<>();
+        for (String f : doc.fields()) {
+            grams.addAll(grams(f));
+        }
+        for (String gram : grams) {
+            postings.computeIfAbsent(gram, g -> new Postings()).add(docId);
+        }
+    }
+
+    //ต้องถือ write lock
+    private void markDeleted(int docId) {
+        if (!deleted.get(docId)) {
+            deleted.set(docId);
+            deletedCount++;
+        }
+    }
+
+    //ต้องถือ write lock
+    private void compactIfNeeded() {
+        if (docs.size() < COMPACT_MIN_DOCS || deletedCount * 2 < docs.size()) {
+            return;
+        }
+        List<Doc> alive = new ArrayList<>(live.size());
+        for (int docId : live.values()) {
+            alive.add(docs.get(docId));
+        }
+        alive.sort(Comparator.comparingInt(d -> live.get(d.key())));
+        docs.clear();
+        deleted.clear();
+        deletedCount = 0;
+        live.clear();
+        postings.clear();
+        alive.forEach(this::add);
+    }
+
+    //รายการ docId เรียงจากน้อยไปมาก
+    private static final class Postings {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int docId) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            ids[size++] = docId;
+        }
+
+        int get(int i) {
+            return ids[i];
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean contains(int docId) {
+            return Arrays.binarySearch(ids, 0, size, docId) >= 0;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package org.digio.bank.controller;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import org.digio.bank.BankThanakritApplication;
+import org.digio.bank.dto.Deposit;
+import org.digio.bank.repository.AccountRepository;
+import org.digio.bank.repository.MemberRepository;
+import org.digio.bank.service.PasswordService;
+import org.digio.bank.service.TransactionService;
+import org.digio.entitty.model.Account;
+import org.digio.entitty.model.Member;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * throughput และ latency ของ endpoint โอนเงินและออกสลิป PDF ภายใต้คำขอพร้อมกันจำนวนมาก
+ * เทียบ Tomcat บน platform thread (virtualThreads = false) กับ virtual thread (true)
+ *
+ * เปิดระบบทั้งตัวในโปรเซสเดียวกัน (profile test = H2 ในหน่วยความจำ) พร้อม SMTP จำลอง (GreenMail)
+ * ให้ job PDF ส่งอีเมลได้จริง แต่ละ thread ของ JMH คือ client หนึ่งรายที่รอคำตอบก่อนส่งคำขอถัดไป
+ * pdfSlip วัดตั้งแต่ส่งงานจนสลิปถูกส่งอีเมล (poll /transactions/pdf-jobs/{jobId})
+ *
+ * virtual thread มีผลเฉพาะเมื่อ build และรันบน Java 21 (-Pjava21) บน Java 17 สองค่าจะได้ผลเท่ากัน
+ * ตัวเลขจาก H2 ใช้เปรียบเทียบสองโหมดกันเอง ไม่ใช่ค่าที่คาดได้บน MySQL จริง
+ *
+ * รัน: mvn test-compile exec:java -Dexec.classpathScope=test
+ *          -Dexec.mainClass=org.digio.bank.controller.EndpointConcurrencyBenchmark
+ *      ส่งตัวเลือก JMH ต่อท้ายได้ เช่น -Dexec.args="-t 200 -p virtualThreads=true"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Threads(64)
+//ระบบทั้งตัวเปิดใน JVM ของ benchmark เอง และ exec:java ไม่ส่ง test classpath ให้ JVM ที่ fork
+@Fork(0)
+public class EndpointConcurrencyBenchmark {
+
+    private static final String PIN = "123456";
+    private static final int ACCOUNTS = 256;
+    private static final Pattern JOB_ID = Pattern.compile("\"jobId\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern STATUS = Pattern.compile("\"status\"\\s*:\\s*\"([A-Z]+)\"");
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    private ConfigurableApplicationContext context;
+    private GreenMail greenMail;
+    private HttpClient client;
+    private String baseUrl;
+    private final List<String> accountIds = new ArrayList<>();
+    private final List<String> transactionIds = new ArrayList<>();
+    private final AtomicLong failures = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void start() {
+        greenMail = new GreenMail(ServerSetupTest.SMTP);
+        greenMail.setUser("bank", "secret");
+        greenMail.start();
+
+        //ส่งเป็น argument เพื่อให้ทับค่าใน application.properties
+        context = new SpringApplicationBuilder(BankThanakritApplication.class)
+                .profiles("test")
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--spring.mail.host=127.0.0.1",
+                        "--spring.mail.port=" + ServerSetupTest.SMTP.getPort(),
+                        "--spring.mail.username=bank",
+                        "--spring.mail.password=secret",
+                        "--spring.mail.properties.mail.smtp.starttls.enable=false",
+                        "--bank.search.enabled=false");
+        baseUrl = "http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        seed();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        System.out.println("\nvirtualThreads=" + virtualThreads + " คำขอที่ไม่สำเร็จ " + failures.get()
+                + " อีเมลที่ได้รับ " + greenMail.getReceivedMessages().length);
+        context.close();
+        greenMail.stop();
+        accountIds.clear();
+        transactionIds.clear();
+        failures.set(0);
+    }
+
+    //บัญชีละ 1 รายการฝากไว้ใช้ออกสลิป ยอดตั้งต้นพอให้โอนได้ตลอดการวัด
+    private void seed() {
+        MemberRepository memberRepository = context.getBean(MemberRepository.class);
+        AccountRepository accountRepository = context.getBean(AccountRepository.class);
+        TransactionService transactionService = context.getBean(TransactionService.class);
+        String pinHash = context.getBean(PasswordService.class).encode(PIN);
+        Calendar birthDate = Calendar.getInstance();
+        birthDate.set(1990, Calendar.JANUARY, 1);
+        for (int n = 1; n <= ACCOUNTS; n++) {
+            Member member = memberRepository.save(Member.builder()
+                    .memberId(String.format("7%012d", n))
+                    .username("bench" + n)
+                    .password(pinHash)
+                    .pin(pinHash)
+                    .prefixTh("นาย")
+                    .prefixEn("Mr.")
+                    .firstNameTh("ทดสอบ")
+                    .lastNameTh("โหลด")
+                    .firstNameEn("Bench")
+                    .lastNameEn("Load")
+                    .email("bench" + n + "@example.com")
+                    .birthDate(birthDate)
+                    .phoneNumber("0800000000")
+                    .build());
+            Account account = accountRepository.save(Account.builder()
+                    .accountId(String.format("700-1-%05d-%d", n, n % 10))
+                    .balance(new BigDecimal("1000000.00"))
+                    .status("เปิดใช้งาน")
+                    .createdDate(Calendar.getInstance())
+                    .member(member)
+                    .build());
+            accountIds.add(account.getAccountId());
+
+            Deposit deposit = new Deposit();
+            deposit.setAccountId(account.getAccountId());
+            deposit.setAmount(new BigDecimal("100.00"));
+            transactionIds.add(transactionService.deposit(deposit).getTransientId());
+        }
+    }
+
+    @Benchmark
+    public int transfer() throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(ACCOUNTS);
+        int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+        String body = "{\"fromAccountId\":\"" + accountIds.get(from) + "\",\"toAccountId\":\"" + accountIds.get(to)
+                + "\",\"amount\":1.00,\"pin\":\"" + PIN + "\"}";
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/transactions/transfer"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        return check(response);
+    }
+
+    @Benchmark
+    public String pdfSlip() throws IOException, InterruptedException {
+        String transactionId = transactionIds.get(ThreadLocalRandom.current().nextInt(transactionIds.size()));
+        HttpResponse<String> submitted = client.send(HttpRequest.newBuilder(
+                        URI.create(baseUrl + "/transactions/" + transactionId + "/pdf"))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (check(submitted) != 202) {
+            return null;
+        }
+        Matcher jobId = JOB_ID.matcher(submitted.body());
+        if (!jobId.find()) {
+            failures.incrementAndGet();
+            return null;
+        }
+        HttpRequest poll = HttpRequest.newBuilder(URI.create(baseUrl + "/transactions/pdf-jobs/" + jobId.group(1)))
+                .GET()
+                .build();
+        while (true) {
+            HttpResponse<String> job = client.send(poll, HttpResponse.BodyHandlers.ofString());
+            Matcher status = STATUS.matcher(job.body());
+            String s = status.find() ? status.group(1) : "FAILED";
+            if ("SENT".equals(s)) {
+                return s;
+            }
+            if ("FAILED".equals(s)) {
+                failures.incrementAndGet();
+                return s;
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    //คำขอที่ถูกปฏิเสธ (เช่น pool เต็ม) นับแยกไว้ ไม่หยุดการวัด
+    private int check(HttpResponse<String> response) {
+        if (response.statusCode() >= 300) {
+            failures.incrementAndGet();
+        }
+        return response.statusCode();
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(EndpointConcurrencyBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,168 @@
+package org.digio.bank.service;
+
+import org.digio.bank.config.AccountNumberProperties;
+import org.digio.bank.dto.OpenAccount;
+import org.digio.bank.repository.MemberRepository;
+import org.digio.entitty.model.Account;
+import org.digio.entitty.model.Member;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AccountNumberAllocatorTest {
+
+    private static final String PIN = "123456";
+
+    @Autowired
+    private AccountNumberAllocator allocator;
+    @Autowired
+    private AccountNumberProperties properties;
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private PasswordService passwordService;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private int blockSize;
+    private int lowWatermark;
+
+    @BeforeEach
+    void remember() {
+        blockSize = properties.getBlockSize();
+        lowWatermark = properties.getLowWatermark();
+    }
+
+    @AfterEach
+    void restore() {
+        properties.setBlockSize(blockSize);
+        properties.setLowWatermark(lowWatermark);
+        jdbcTemplate.update("DELETE FROM `accounts`");
+        jdbcTemplate.update("DELETE FROM `members`");
+    }
+
+    @Test
+    void concurrentCallersGetUniqueWellFormedNumbersAcrossBlocks() throws Exception {
+        //ช่วงเล็กเพื่อให้ต้องจองหลายช่วงระหว่าง test
+        properties.setBlockSize(50);
+        properties.setLowWatermark(20);
+        int threads = 8;
+        int perThread = 400;
+        Set<String> issued = ConcurrentHashMap.newKeySet();
+        List<String> duplicates = new ArrayList<>();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        String accountId = allocator.next();
+                        if (!issued.add(accountId)) {
+                            synchronized (duplicates) {
+                                duplicates.add(accountId);
+                            }
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertTrue(duplicates.isEmpty(), "เลขซ้ำ: " + duplicates);
+        assertEquals(threads * perThread, issued.size());
+        for (String accountId : issued) {
+            assertTrue(accountId.matches("\\d{3}-\\d-\\d{5}-\\d"), accountId);
+            assertEquals(checksumOf(accountId), accountId.charAt(accountId.length() - 1) - '0', accountId);
+        }
+    }
+
+    @Test
+    void concurrentAccountOpeningsNeverCollide() throws Exception {
+        int count = 12;
+        String pin = passwordService.encode(PIN);
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            members.add(member(i, pin));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(count);
+        List<Future<Account>> futures = new ArrayList<>();
+        try {
+            for (Member m : members) {
+                futures.add(pool.submit(() -> {
+                    OpenAccount req = new OpenAccount();
+                    req.setMemberId(m.getMemberId());
+                    req.setPin(PIN);
+                    return accountService.createAccount(req);
+                }));
+            }
+            Set<String> ids = new HashSet<>();
+            for (Future<Account> future : futures) {
+                ids.add(future.get().getAccountId());
+            }
+            assertEquals(count, ids.size());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Integer stored = jdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT `account_id`) FROM `accounts`", Integer.class);
+        assertEquals(count, stored);
+    }
+
+    private Member member(int n, String pin) {
+        Calendar birthDate = Calendar.getInstance();
+        birthDate.set(1990, Calendar.JANUARY, 1);
+        return memberRepository.save(Member.builder()
+                .memberId(String.format("7%012d", n))
+                .username("opener" + n)
+                .password(pin)
+                .pin(pin)
+                .prefixTh("นาง")
+                .prefixEn("Mrs.")
+                .firstNameTh("ทดสอบ")
+                .lastNameTh("เปิดบัญชี")
+                .firstNameEn("Test")
+                .lastNameEn("Opening")
+                .email("opener" + n + "@example.com")
+                .birthDate(birthDate)
+                .phoneNumber("0800000000")
+                .build());
+    }
+
+    //ผลรวมของ 9 หลักแรก % 10 (หลักสุดท้ายของเลขบัญชี)
+    private static int checksumOf(String accountId) {
+        String digits = accountId.replace("-", "");
+        int sum = 0;
+        for (int i = 0; i < 9; i++) {
+            sum += digits.charAt(i) - '0';
+        }
+        return sum % 10;
+    }
+}
@@ -0,0 +1,190 @@
+package org.digio.bank.service;
+
+import org.digio.bank.dto.AdminSnapshot;
+import org.digio.bank.dto.Deposit;
+import org.digio.bank.dto.OpenAccount;
+import org.digio.bank.dto.Transfer;
+import org.digio.bank.dto.Withdraw;
+import org.digio.bank.repository.MemberRepository;
+import org.digio.entitty.model.Account;
+import org.digio.entitty.model.Member;
+import org.digio.entitty.model.Transaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.Calendar;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AdminDashboardServiceTest {
+
+    private static final String PIN = "123456";
+    private static final AtomicInteger SEQ = new AtomicInteger();
+    private static String pinHash;
+
+    @Autowired
+    private AdminDashboardService adminDashboardService;
+    @Autowired
+    private DashboardCounterService dashboardCounterService;
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private AdminService adminService;
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private PasswordService passwordService;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void resetCounters() {
+        jdbcTemplate.update("DELETE FROM `dashboard_counters`");
+    }
+
+    @AfterEach
+    void clean() {
+        for (String table : new String[]{"dashboard_counters", "journal_entries", "balance_snapshots",
+                "daily_account_summary", "transactions", "accounts", "members"}) {
+            jdbcTemplate.update("DELETE FROM `" + table + "`");
+        }
+    }
+
+    //ตัวนับที่ปรับทีละรายการต้องได้ค่าเดียวกับ GROUP BY ทั้งตาราง และเท่ากับที่สร้างใหม่จากข้อมูลเดิม
+    @Test
+    void countersFollowWritesAndMatchRebuild() {
+        Member member = member();
+        Account a = openAccount(member);
+        Account b = openAccount(member);
+        Account c = openAccount(member);
+
+        deposit(a, "1000.00");
+        withdraw(a, "100.00");
+        transfer(a, b, "300.00");
+        Transaction cancelled = withdraw(b, "20.00");
+        adminService.cancelTransaction(cancelled.getTransientId());
+        adminService.cancelTransaction(cancelled.getTransientId());
+        adminService.updateAccountStatus(c.getAccountId(), "อายัด");
+        accountService.deleteAccount(c.getAccountId());
+        adminService.updateAccountStatus(b.getAccountId(), "อายัด");
+
+        Map<String, String> expected = fullCount();
+        assertEquals("accounts=2 {อายัด=1, เปิดใช้งาน=1}", expected.get("accounts"));
+        assertEquals(expected, counted(adminDashboardService.snapshot()));
+
+        jdbcTemplate.update("DELETE FROM `dashboard_counters`");
+        dashboardCounterService.rebuildIfEmpty();
+        assertEquals(expected, counted(adminDashboardService.snapshot()));
+    }
+
+    private static Map<String, String> counted(AdminSnapshot s) {
+        Map<String, String> out = new TreeMap<>();
+        out.put("accounts", "accounts=" + s.getTotalAccounts() + " " + s.getAccountsByStatus());
+        out.put("transactions", "transactions=" + s.getTotalTransactions() + " " + s.getTransactionsByStatus()
+                + " " + s.getTransactionsByType());
+        Map<String, String> amounts = new TreeMap<>();
+        s.getAmountByType().forEach((type, amount) -> amounts.put(type, money(amount)));
+        out.put("amounts", amounts.toString());
+        return out;
+    }
+
+    //ค่าอ้างอิงจากการสแกนตารางจริง
+    private Map<String, String> fullCount() {
+        Map<String, Long> accountsByStatus = new TreeMap<>();
+        jdbcTemplate.query("SELECT `status`, COUNT(*) FROM `accounts` GROUP BY `status`",
+                rs -> { accountsByStatus.put(rs.getString(1), rs.getLong(2)); });
+        Map<String, Long> byStatus = new TreeMap<>();
+        Map<String, Long> byType = new TreeMap<>();
+        Map<String, String> amounts = new TreeMap<>();
+        Map<String, BigDecimal> sums = new TreeMap<>();
+        jdbcTemplate.query("SELECT `type`, `status`, COUNT(*), SUM(`amount`) FROM `transactions` GROUP BY `type`, `status`",
+                rs -> {
+                    byStatus.merge(rs.getString(2), rs.getLong(3), Long::sum);
+                    byType.merge(rs.getString(1), rs.getLong(3), Long::sum);
+                    if (!"ยกเลิก".equals(rs.getString(2))) {
+                        sums.merge(rs.getString(1), rs.getBigDecimal(4), BigDecimal::add);
+                    }
+                });
+        sums.forEach((type, amount) -> amounts.put(type, money(amount)));
+
+        Map<String, String> out = new TreeMap<>();
+        out.put("accounts", "accounts=" + accountsByStatus.values().stream().mapToLong(Long::longValue).sum()
+                + " " + accountsByStatus);
+        out.put("transactions", "transactions=" + byStatus.values().stream().mapToLong(Long::longValue).sum()
+                + " " + byStatus + " " + byType);
+        out.put("amounts", amounts.toString());
+        return out;
+    }
+
+    private static String money(BigDecimal amount) {
+        return amount.setScale(2).toPlainString();
+    }
+
+    private Account openAccount(Member member) {
+        OpenAccount req = new OpenAccount();
+        req.setMemberId(member.getMemberId());
+        req.setPin(PIN);
+        return accountService.createAccount(req);
+    }
+
+    private void deposit(Account account, String amount) {
+        Deposit req = new Deposit();
+        req.setAccountId(account.getAccountId());
+        req.setAmount(new BigDecimal(amount));
+        transactionService.deposit(req);
+    }
+
+    private Transaction withdraw(Account account, String amount) {
+        Withdraw req = new Withdraw();
+        req.setAccountId(account.getAccountId());
+        req.setAmount(new BigDecimal(amount));
+        req.setPin(PIN);
+        return transactionService.withdraw(req);
+    }
+
+    private void transfer(Account from, Account to, String amount) {
+        Transfer req = new Transfer();
+        req.setFromAccountId(from.getAccountId());
+        req.setToAccountId(to.getAccountId());
+        req.setAmount(new BigDecimal(amount));
+        req.setPin(PIN);
+        transactionService.transfer(req);
+    }
+
+    private Member member() {
+        int n = SEQ.incrementAndGet();
+        if (pinHash == null) {
+            pinHash = passwordService.encode(PIN);
+        }
+        Calendar birthDate = Calendar.getInstance();
+        birthDate.set(1990, Calendar.JANUARY, 1);
+        return memberRepository.save(Member.builder()
+                .memberId(String.format("0%012d", n))
+                .username("dashboard" + n)
+                .password(pinHash)
+                .pin(pinHash)
+                .prefixTh("นาย")
+                .prefixEn("Mr.")
+                .firstNameTh("ทดสอบ")
+                .lastNameTh("แดชบอร์ด")
+                .firstNameEn("Test")
+                .lastNameEn("Dashboard")
+                .email("dashboard" + n + "@example.com")
+                .birthDate(birthDate)
+                .phoneNumber("0800000000")
+                .build());
+    }
+}
@@ -0,0 +1,206 @@
+package org.digio.bank.service;
+
+import org.digio.bank.config.BalanceProperties;
+import org.digio.bank.dto.Transfer;
+import org.digio.bank.dto.Withdraw;
+import org.digio.bank.repository.AccountRepository;
+import org.digio.bank.repository.MemberRepository;
+import org.digio.entitty.model.Account;
+import org.digio.entitty.model.Member;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//ถอน/โอนพร้อมกันจากบัญชีเดียวกันในแต่ละโหมด ยอดต้องไม่ติดลบและตรงกับจำนวนรายการที่สำเร็จ
+@SpringBootTest
+@ActiveProfiles("test")
+class BalanceConcurrencyTest {
+
+    private static final String PIN = "123456";
+    private static final int THREADS = 8;
+    private static final int ATTEMPTS = 20;
+    private static final AtomicInteger SEQ = new AtomicInteger();
+
+    @Autowired
+    private BalanceProperties properties;
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private JournalService journalService;
+    @Autowired
+    private PasswordService passwordService;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private BalanceProperties.Mode mode;
+
+    @BeforeEach
+    void remember() {
+        mode = properties.getMode();
+    }
+
+    @AfterEach
+    void restore() {
+        properties.setMode(mode);
+        for (String table : new String[]{"journal_entries", "balance_snapshots", "daily_account_summary",
+                "transactions", "accounts", "members"}) {
+            jdbcTemplate.update("DELETE FROM `" + table + "`");
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = BalanceProperties.Mode.class, names = {"PESSIMISTIC", "OPTIMISTIC", "ATOMIC", "JOURNAL"})
+    void concurrentWithdrawalsNeverOverdraw(BalanceProperties.Mode mode) throws Exception {
+        properties.setMode(mode);
+        Account account = account(member(), "1000.00");
+        journalService.seedOpeningBalances();
+
+        int succeeded = runConcurrently(ATTEMPTS, i -> {
+            Withdraw req = new Withdraw();
+            req.setAccountId(account.getAccountId());
+            req.setAmount(new BigDecimal("100.00"));
+            req.setPin(PIN);
+            transactionService.withdraw(req);
+        });
+
+        BigDecimal balance = currentBalance(account);
+        assertTrue(balance.signum() >= 0, "ยอดติดลบ: " + balance);
+        assertEquals(0, new BigDecimal(1000 - 100 * succeeded).compareTo(balance));
+        assertEquals(succeeded, countTransactions(account));
+        if (mode != BalanceProperties.Mode.OPTIMISTIC) {
+            //โหมดที่รอ lock ต้องได้ครบ 10 รายการพอดี (OPTIMISTIC อาจหมด retry ก่อน)
+            assertEquals(10, succeeded);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = BalanceProperties.Mode.class, names = {"PESSIMISTIC", "OPTIMISTIC", "ATOMIC", "JOURNAL"})
+    void opposingTransfersKeepTotalAndNeverOverdraw(BalanceProperties.Mode mode) throws Exception {
+        properties.setMode(mode);
+        Member member = member();
+        Account a = account(member, "300.00");
+        Account b = account(member, "300.00");
+        journalService.seedOpeningBalances();
+
+        runConcurrently(ATTEMPTS, i -> {
+            Transfer req = new Transfer();
+            req.setFromAccountId((i % 2 == 0 ? a : b).getAccountId());
+            req.setToAccountId((i % 2 == 0 ? b : a).getAccountId());
+            req.setAmount(new BigDecimal("100.00"));
+            req.setPin(PIN);
+            transactionService.transfer(req);
+        });
+
+        BigDecimal balanceA = currentBalance(a);
+        BigDecimal balanceB = currentBalance(b);
+        assertTrue(balanceA.signum() >= 0 && balanceB.signum() >= 0, balanceA + " / " + balanceB);
+        assertEquals(0, new BigDecimal("600.00").compareTo(balanceA.add(balanceB)));
+    }
+
+    private interface Attempt {
+        void run(int i);
+    }
+
+    //คืนจำนวนรายการที่สำเร็จ รายการที่ถูกปฏิเสธ (ยอดไม่พอ/ชนกันเกิน retry) นับเป็นไม่สำเร็จ
+    private int runConcurrently(int attempts, Attempt attempt) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < attempts; i++) {
+                int n = i;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        attempt.run(n);
+                        succeeded.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        //ถูกปฏิเสธ
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return succeeded.get();
+    }
+
+    private Member member() {
+        int n = SEQ.incrementAndGet();
+        String pin = passwordService.encode(PIN);
+        Calendar birthDate = Calendar.getInstance();
+        birthDate.set(1990, Calendar.JANUARY, 1);
+        return memberRepository.save(Member.builder()
+                .memberId(String.format("9%012d", n))
+                .username("concurrency" + n)
+                .password(pin)
+                .pin(pin)
+                .prefixTh("นาย")
+                .prefixEn("Mr.")
+                .firstNameTh("ทดสอบ")
+                .lastNameTh("ระบบ")
+                .firstNameEn("Test")
+                .lastNameEn("Bank")
+                .email("concurrency" + n + "@example.com")
+                .birthDate(birthDate)
+                .phoneNumber("0800000000")
+                .build());
+    }
+
+    private Account account(Member member, String balance) {
+        int n = SEQ.incrementAndGet();
+        return accountRepository.save(Account.builder()
+                .accountId(String.format("900-1-%05d-%d", n, n % 10))
+                .balance(new BigDecimal(balance))
+                .status("เปิดใช้งาน")
+                .createdDate(Calendar.getInstance())
+                .member(member)
+                .build());
+    }
+
+    //โหมด JOURNAL ไม่แก้ accounts.balance ทุกรายการ จึงอ่านยอดจาก journal
+    private BigDecimal currentBalance(Account account) {
+        if (properties.getMode() == BalanceProperties.Mode.JOURNAL) {
+            return journalService.currentBalance(account.getAccountNo());
+        }
+        return balanceOf(account);
+    }
+
+    private BigDecimal balanceOf(Account account) {
+        return accountRepository.findById(account.getAccountId()).orElseThrow().getBalance();
+    }
+
+    private int countTransactions(Account account) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM `transactions` WHERE `account_id` = ?",
+                Integer.class, account.getAccountId());
+    }
+}
@@ -0,0 +1,221 @@
+package org.digio.bank.service;
+
+import org.digio.bank.dto.Deposit;
+import org.digio.bank.dto.Transfer;
+import org.digio.bank.dto.Withdraw;
+import org.digio.bank.repository.AccountRepository;
+import org.digio.bank.repository.DailySummaryRepository;
+import org.digio.bank.repository.MemberRepository;
+import org.digio.bank.repository.TransactionRepository;
+import org.digio.entitty.model.Account;
+import org.digio.entitty.model.DailyAccountSummary;
+import org.digio.entitty.model.Member;
+import org.digio.entitty.model.Transaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class DailySummaryServiceTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Asia/Bangkok");
+    private static final String PIN = "123456";
+    private static final AtomicInteger SEQ = new AtomicInteger();
+    private static String pinHash;
+
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private AdminService adminService;
+    @Autowired
+    private PasswordService passwordService;
+    @Autowired
+    private DailySummaryService dailySummaryService;
+    @Autowired
+    private DailySummaryRepository dailySummaryRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void clean() {
+        for (String table : new String[]{"journal_entries", "balance_snapshots", "daily_account_summary",
+                "transactions", "accounts", "members"}) {
+            jdbcTemplate.update("DELETE FROM `" + table + "`");
+        }
+    }
+
+    @Test
+    void rebuildMatchesIncrementalTotals() {
+        Member member = member();
+        Account a = account(member, "1000.00");
+        Account b = account(member, "0.00");
+
+        deposit(a, "250.00");
+        withdraw(a, "100.00");
+        transfer(a, b, "300.00");
+        transfer(b, a, "50.00");
+        Transaction cancelled = withdraw(a, "20.00");
+        adminService.cancelTransaction(cancelled.getTransientId());
+
+        Map<String, String> incremental = summaries();
+        assertFalse(incremental.isEmpty());
+        String today = incremental.keySet().iterator().next().split("\\|")[1];
+        assertEquals("deposit=250.00 withdraw=100.00 transfer=300.00 receive=50.00 count=4",
+                incremental.get(a.getAccountId() + "|" + today));
+        assertEquals("deposit=0.00 withdraw=0.00 transfer=50.00 receive=300.00 count=2",
+                incremental.get(b.getAccountId() + "|" + today));
+
+        jdbcTemplate.update("DELETE FROM `daily_account_summary`");
+        dailySummaryService.rebuildIfEmpty();
+
+        assertEquals(incremental, summaries());
+    }
+
+    @Test
+    void daysSplitAtBangkokMidnight() {
+        Account a = account(member(), "0.00");
+        LocalDate day = LocalDate.of(2026, 3, 10);
+        //23:30 กับ 00:30 เวลาไทยอยู่คนละวัน แม้เป็นวันเดียวกันตามเวลา UTC
+        posted(a, "D-1", day, 23, "100.00");
+        posted(a, "D-2", day.plusDays(1), 0, "40.00");
+
+        Map<String, String> incremental = summaries();
+        assertEquals("deposit=100.00 withdraw=0.00 transfer=0.00 receive=0.00 count=1",
+                incremental.get(a.getAccountId() + "|" + day));
+        assertEquals("deposit=40.00 withdraw=0.00 transfer=0.00 receive=0.00 count=1",
+                incremental.get(a.getAccountId() + "|" + day.plusDays(1)));
+
+        jdbcTemplate.update("DELETE FROM `daily_account_summary`");
+        dailySummaryService.rebuildIfEmpty();
+        assertEquals(incremental, summaries());
+    }
+
+    @Test
+    void rangeIsInclusiveAndBounded() {
+        Account a = account(member(), "0.00");
+        LocalDate day = LocalDate.of(2026, 3, 10);
+        for (int i = 0; i < 5; i++) {
+            posted(a, "R-" + i, day.plusDays(i), 12, "10.00");
+        }
+
+        List<DailyAccountSummary> range = dailySummaryService.getRange(a.getAccountId(), day.plusDays(1), day.plusDays(3));
+        assertEquals(List.of(day.plusDays(1), day.plusDays(2), day.plusDays(3)),
+                range.stream().map(DailyAccountSummary::getSummaryDate).toList());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> dailySummaryService.getRange(a.getAccountId(), day.plusDays(1), day));
+        assertThrows(IllegalArgumentException.class,
+                () -> dailySummaryService.getRange(a.getAccountId(), day, day.plusDays(3_661)));
+    }
+
+    //บันทึกรายการฝากที่เวลาไทยกำหนดเองแล้วเพิ่มยอดสรุปแบบเดียวกับตอนทำรายการจริง
+    private void posted(Account account, String id, LocalDate date, int hour, String amount) {
+        Transaction t = transactionRepository.save(Transaction.builder()
+                .transientId(id)
+                .transactionDate(GregorianCalendar.from(date.atTime(hour, 30).atZone(ZONE)))
+                .type("ฝากเงิน")
+                .amount(new BigDecimal(amount))
+                .status("สำเร็จ")
+                .account(account)
+                .build());
+        dailySummaryService.record(t);
+    }
+
+    private Map<String, String> summaries() {
+        Map<String, String> rows = new TreeMap<>();
+        for (DailyAccountSummary d : dailySummaryRepository.findAll()) {
+            rows.put(d.getAccountId() + "|" + d.getSummaryDate(),
+                    "deposit=" + money(d.getDeposit()) + " withdraw=" + money(d.getWithdraw())
+                            + " transfer=" + money(d.getTransfer()) + " receive=" + money(d.getReceive())
+                            + " count=" + d.getTransactionCount());
+        }
+        return rows;
+    }
+
+    private static String money(BigDecimal amount) {
+        return amount.setScale(2).toPlainString();
+    }
+
+    private void deposit(Account account, String amount) {
+        Deposit req = new Deposit();
+        req.setAccountId(account.getAccountId());
+        req.setAmount(new BigDecimal(amount));
+        transactionService.deposit(req);
+    }
+
+    private Transaction withdraw(Account account, String amount) {
+        Withdraw req = new Withdraw();
+        req.setAccountId(account.getAccountId());
+        req.setAmount(new BigDecimal(amount));
+        req.setPin(PIN);
+        return transactionService.withdraw(req);
+    }
+
+    private void transfer(Account from, Account to, String amount) {
+        Transfer req = new Transfer();
+        req.setFromAccountId(from.getAccountId());
+        req.setToAccountId(to.getAccountId());
+        req.setAmount(new BigDecimal(amount));
+        req.setPin(PIN);
+        transactionService.transfer(req);
+    }
+
+    private Member member() {
+        int n = SEQ.incrementAndGet();
+        if (pinHash == null) {
+            pinHash = passwordService.encode(PIN);
+        }
+        Calendar birthDate = Calendar.getInstance();
+        birthDate.set(1990, Calendar.JANUARY, 1);
+        return memberRepository.save(Member.builder()
+                .memberId(String.format("5%012d", n))
+                .username("summary" + n)
+                .password(pinHash)
+                .pin(pinHash)
+                .prefixTh("นาย")
+                .prefixEn("Mr.")
+                .firstNameTh("ทดสอบ")
+                .lastNameTh("สรุปยอด")
+                .firstNameEn("Test")
+                .lastNameEn("Summary")
+                .email("summary" + n + "@example.com")
+                .birthDate(birthDate)
+                .phoneNumber("0800000000")
+                .build());
+    }
+
+    private Account account(Member member, String balance) {
+        int n = SEQ.incrementAndGet();
+        return accountRepository.save(Account.builder()
+                .accountId(String.format("500-4-%05d-%d", n, n % 10))
+                .balance(new BigDecimal(balance))
+                .status("เปิดใช้งาน")
+                .createdDate(Calendar.getInstance())
+                .member(member)
+                .build());
+    }
+}
@@ -0,0 +1,236 @@
+package org.digio.bank.service;
+
+import org.digio.bank.config.IdempotencyProperties;
+import org.digio.bank.dto.Withdraw;
+import org.digio.bank.repository.AccountRepository;
+import org.digio.bank.repository.MemberRepository;
+import org.digio.entitty.model.Account;
+import org.digio.entitty.model.Member;
+import org.digio.entitty.model.Transaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.Calendar;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class IdempotencyServiceTest {
+
+    private static final String PIN = "123456";
+    private static final AtomicInteger SEQ = new AtomicInteger();
+    private static String pinHash;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+    @Autowired
+    private IdempotencyProperties properties;
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private PasswordService passwordService;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private boolean persistent;
+    private int maxEntries;
+
+    @BeforeEach
+    void remember() {
+        persistent = properties.isPersistent();
+        maxEntries = properties.getMaxEntries();
+    }
+
+    @AfterEach
+    void restore() {
+        properties.setPersistent(persistent);
+        properties.setMaxEntries(maxEntries);
+        for (String table : new String[]{"journal_entries", "balance_snapshots", "daily_account_summary",
+                "idempotency_keys", "transactions", "accounts", "members"}) {
+            jdbcTemplate.update("DELETE FROM `" + table + "`");
+        }
+    }
+
+    @Test
+    void replayReturnsSameTransactionAndMovesMoneyOnce() {
+        properties.setPersistent(true);
+        Account account = account(member(), "1000.00");
+
+        Transaction first = withdraw("key-1", account, "100.00");
+        Transaction second = withdraw("key-1", account, "100.00");
+
+        assertEquals(first.getTransientId(), second.getTransientId());
+        assertEquals(0, new BigDecimal("900.00").compareTo(balanceOf(account)));
+        assertEquals(1, countTransactions(account));
+    }
+
+    @Test
+    void replayAfterRestartComesFromTable() {
+        properties.setPersistent(true);
+        Account account = account(member(), "1000.00");
+        Transaction first = withdraw("key-restart", account, "100.00");
+
+        //คีย์ในหน่วยความจำหายไป (เหมือนรีสตาร์ต) ผลต้องมาจากตาราง idempotency_keys
+        properties.setMaxEntries(0);
+        withdraw("other-key", account, "1.00");
+
+        Transaction replay = withdraw("key-restart", account, "100.00");
+        assertEquals(first.getTransientId(), replay.getTransientId());
+        assertEquals(0, new BigDecimal("899.00").compareTo(balanceOf(account)));
+    }
+
+    @Test
+    void completionCommitsWithThePosting() {
+        properties.setPersistent(true);
+        Account account = account(member(), "1000.00");
+
+        String[] storedInWork = new String[1];
+        Transaction result = idempotencyService.execute("key-atomic", "withdraw", account.getAccountNo(),
+                IdempotencyService.fingerprint(account.getAccountNo(), new BigDecimal("10.00")), () -> {
+                    Transaction t = transactionService.withdraw(withdrawRequest(account, "10.00"));
+                    //รายการ commit แล้วตอนนี้ ผลของคีย์ต้อง commit มาด้วยแล้วเช่นกัน
+                    storedInWork[0] = jdbcTemplate.queryForObject(
+                            "SELECT `transient_id` FROM `idempotency_keys` WHERE `idem_key` LIKE '%:key-atomic'",
+                            String.class);
+                    return t;
+                });
+
+        assertEquals(result.getTransientId(), storedInWork[0]);
+    }
+
+    @Test
+    void sameKeyWithDifferentBodyIsRejected() {
+        properties.setPersistent(true);
+        Account account = account(member(), "1000.00");
+        withdraw("key-2", account, "100.00");
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> withdraw("key-2", account, "200.00"));
+        assertEquals(422, e.getStatusCode().value());
+        assertEquals(0, new BigDecimal("900.00").compareTo(balanceOf(account)));
+    }
+
+    @Test
+    void sameKeyFromAnotherCallerIsNotReplayed() {
+        properties.setPersistent(true);
+        Account a = account(member(), "1000.00");
+        Account b = account(member(), "1000.00");
+
+        Transaction fromA = withdraw("shared-key", a, "100.00");
+        Transaction fromB = withdraw("shared-key", b, "100.00");
+
+        assertNotEquals(fromA.getTransientId(), fromB.getTransientId());
+        assertEquals(0, new BigDecimal("900.00").compareTo(balanceOf(b)));
+    }
+
+    @Test
+    void inFlightKeyIsNotEvicted() throws Exception {
+        properties.setPersistent(false);
+        properties.setMaxEntries(1);
+        Account account = account(member(), "1000.00");
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Transaction> slow = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute("slow-key", "withdraw", account.getAccountNo(), "fp", () -> {
+                    started.countDown();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return transactionService.withdraw(withdrawRequest(account, "100.00"));
+                }));
+        started.await(10, TimeUnit.SECONDS);
+
+        //คีย์อื่นที่ทำเสร็จแล้วดันจำนวนเกิน maxEntries
+        withdraw("k-1", account, "1.00");
+        withdraw("k-2", account, "1.00");
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () ->
+                idempotencyService.execute("slow-key", "withdraw", account.getAccountNo(), "fp",
+                        () -> transactionService.withdraw(withdrawRequest(account, "100.00"))));
+        assertEquals(409, e.getStatusCode().value());
+
+        release.countDown();
+        slow.get(10, TimeUnit.SECONDS);
+        assertEquals(0, new BigDecimal("898.00").compareTo(balanceOf(account)));
+    }
+
+    private Transaction withdraw(String key, Account account, String amount) {
+        BigDecimal value = new BigDecimal(amount);
+        return idempotencyService.execute(key, "withdraw", account.getAccountNo(),
+                IdempotencyService.fingerprint(account.getAccountNo(), value),
+                () -> transactionService.withdraw(withdrawRequest(account, amount)));
+    }
+
+    private static Withdraw withdrawRequest(Account account, String amount) {
+        Withdraw req = new Withdraw();
+        req.setAccountId(account.getAccountId());
+        req.setAmount(new BigDecimal(amount));
+        req.setPin(PIN);
+        return req;
+    }
+
+    private int countTransactions(Account account) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM `transactions` WHERE `account_id` = ?",
+                Integer.class, account.getAccountId());
+    }
+
+    private Member member() {
+        int n = SEQ.incrementAndGet();
+        if (pinHash == null) {
+            pinHash = passwordService.encode(PIN);
+        }
+        Calendar birthDate = Calendar.getInstance();
+        birthDate.set(1990, Calendar.JANUARY, 1);
+        return memberRepository.save(Member.builder()
+                .memberId(String.format("4%012d", n))
+                .username("idem" + n)
+                .password(pinHash)
+                .pin(pinHash)
+                .prefixTh("นาย")
+                .prefixEn("Mr.")
+                .firstNameTh("ทดสอบ")
+                .lastNameTh("คีย์ซ้ำ")
+                .firstNameEn("Test")
+                .lastNameEn("Idempotency")
+                .email("idem" + n + "@example.com")
+                .birthDate(birthDate)
+                .phoneNumber("0800000000")
+                .build());
+    }
+
+    private Account account(Member member, String balance) {
+        int n = SEQ.incrementAndGet();
+        return accountRepository.save(Account.builder()
+                .accountId(String.format("400-5-%05d-%d", n, n % 10))
+                .balance(new BigDecimal(balance))
+                .status("เปิดใช้งาน")
+                .createdDate(Calendar.getInstance())
+                .member(member)
+                .build());
+    }
+
+    private BigDecimal balanceOf(Account account) {
+        return accountRepository.findById(account.getAccountId()).orElseThrow().getBalance();
+    }
+}
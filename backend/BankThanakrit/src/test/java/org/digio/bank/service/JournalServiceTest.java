@@ -0,0 +1,222 @@
+package org.digio.bank.service;
+
+import org.digio.bank.dto.Deposit;
+import org.digio.bank.dto.Withdraw;
+import org.digio.bank.repository.AccountRepository;
+import org.digio.bank.repository.MemberRepository;
+import org.digio.entitty.model.Account;
+import org.digio.entitty.model.Member;
+import org.digio.entitty.model.Transaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Calendar;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class JournalServiceTest {
+
+    private static final String PIN = "123456";
+    private static final AtomicInteger SEQ = new AtomicInteger();
+    private static String pinHash;
+
+    @Autowired
+    private JournalService journalService;
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private PasswordService passwordService;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void clean() {
+        for (String table : new String[]{"journal_entries", "balance_snapshots", "daily_account_summary",
+                "transactions", "accounts", "members"}) {
+            jdbcTemplate.update("DELETE FROM `" + table + "`");
+        }
+    }
+
+    @Test
+    void snapshotPlusTailEqualsSumOfEntries() {
+        Account account = account(member(), "0.00");
+        deposit(account, "500.00");
+        withdraw(account, "120.00");
+        journalService.snapshot();
+
+        deposit(account, "30.00");
+        withdraw(account, "10.00");
+
+        BigDecimal expected = new BigDecimal("400.00");
+        assertEquals(0, expected.compareTo(sumOfEntries(account.getAccountNo())));
+        assertEquals(0, expected.compareTo(journalService.currentBalance(account.getAccountNo())));
+        assertEquals(0, expected.compareTo(balanceOf(account)));
+
+        journalService.snapshot();
+        assertEquals(0, expected.compareTo(journalService.currentBalance(account.getAccountNo())));
+    }
+
+    @Test
+    void snapshotStopsBelowUncommittedPostingWithoutBlocking() throws Exception {
+        Account account = account(member(), "0.00");
+        deposit(account, "100.00");
+
+        //posting ที่ได้ entry id แล้วแต่ยังไม่ commit และวันที่ทางธุรกิจเก่ากว่าเวลาปัจจุบันมาก
+        Calendar old = Calendar.getInstance();
+        old.add(Calendar.DAY_OF_MONTH, -3);
+        Transaction late = Transaction.builder()
+                .transientId("LATE-POSTING-1")
+                .transactionDate(old)
+                .type("ฝากเงิน")
+                .amount(new BigDecimal("25.00"))
+                .status("สำเร็จ")
+                .account(account)
+                .build();
+        CountDownLatch posted = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> tx.executeWithoutResult(status -> {
+            journalService.post(late);
+            posted.countDown();
+            await(commit);
+        }));
+        assertTrue(posted.await(10, TimeUnit.SECONDS));
+
+        //รายการที่เข้ามาหลัง posting ค้าง commit ได้ตามปกติ และ snapshot ไม่ต้องรอ
+        deposit(account, "10.00");
+        CompletableFuture.runAsync(journalService::snapshot).get(5, TimeUnit.SECONDS);
+        long covered = lastSnapshotEntryId(account.getAccountNo());
+
+        commit.countDown();
+        writer.get(10, TimeUnit.SECONDS);
+        Long lateEntry = jdbcTemplate.queryForObject(
+                "SELECT MIN(`entry_id`) FROM `journal_entries` WHERE `transient_id` = 'LATE-POSTING-1'", Long.class);
+        assertTrue(covered < lateEntry, "snapshot ต้องไม่ครอบ entry ที่ยังไม่ commit: " + covered + " >= " + lateEntry);
+
+        journalService.snapshot();
+        assertTrue(lastSnapshotEntryId(account.getAccountNo()) >= lateEntry);
+        BigDecimal expected = new BigDecimal("135.00");
+        assertEquals(0, expected.compareTo(sumOfEntries(account.getAccountNo())));
+        assertEquals(0, expected.compareTo(journalService.currentBalance(account.getAccountNo())));
+    }
+
+    @Test
+    void adminAdjustmentLandsInJournalWithTheAccountUpdate() {
+        Account account = account(member(), "0.00");
+        deposit(account, "100.00");
+
+        Account update = accountRepository.findById(account.getAccountId()).orElseThrow();
+        update.setBalance(new BigDecimal("250.00"));
+        accountService.updateAccount(account.getAccountId(), update);
+
+        assertEquals(0, new BigDecimal("250.00").compareTo(balanceOf(account)));
+        assertEquals(0, new BigDecimal("250.00").compareTo(journalService.currentBalance(account.getAccountNo())));
+        assertEquals(0, new BigDecimal("250.00").compareTo(sumOfEntries(account.getAccountNo())));
+
+        //ปรับซ้ำทันที เลขรายการปรับปรุงต้องไม่ชนกันแม้อยู่ในมิลลิวินาทีเดียวกัน
+        update.setBalance(new BigDecimal("200.00"));
+        accountService.updateAccount(account.getAccountId(), update);
+        update.setBalance(new BigDecimal("150.00"));
+        accountService.updateAccount(account.getAccountId(), update);
+        assertEquals(3, jdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT `journal_id`) FROM `journal_entries` WHERE `journal_id` LIKE 'ADJ%'", Integer.class));
+        assertEquals(0, new BigDecimal("150.00").compareTo(journalService.currentBalance(account.getAccountNo())));
+    }
+
+    private long lastSnapshotEntryId(String accountNo) {
+        Long id = jdbcTemplate.queryForObject(
+                "SELECT MAX(`last_entry_id`) FROM `balance_snapshots` WHERE `account_no` = ?", Long.class, accountNo);
+        return id == null ? 0 : id;
+    }
+
+    private BigDecimal sumOfEntries(String accountNo) {
+        BigDecimal sum = jdbcTemplate.queryForObject(
+                "SELECT SUM(CASE WHEN `direction` = 'CREDIT' THEN `amount` ELSE -`amount` END) " +
+                        "FROM `journal_entries` WHERE `account_no` = ?", BigDecimal.class, accountNo);
+        return sum == null ? BigDecimal.ZERO : sum;
+    }
+
+    private void deposit(Account account, String amount) {
+        Deposit req = new Deposit();
+        req.setAccountId(account.getAccountId());
+        req.setAmount(new BigDecimal(amount));
+        transactionService.deposit(req);
+    }
+
+    private void withdraw(Account account, String amount) {
+        Withdraw req = new Withdraw();
+        req.setAccountId(account.getAccountId());
+        req.setAmount(new BigDecimal(amount));
+        req.setPin(PIN);
+        transactionService.withdraw(req);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Member member() {
+        int n = SEQ.incrementAndGet();
+        if (pinHash == null) {
+            pinHash = passwordService.encode(PIN);
+        }
+        Calendar birthDate = Calendar.getInstance();
+        birthDate.set(1990, Calendar.JANUARY, 1);
+        return memberRepository.save(Member.builder()
+                .memberId(String.format("3%012d", n))
+                .username("journal" + n)
+                .password(pinHash)
+                .pin(pinHash)
+                .prefixTh("นาย")
+                .prefixEn("Mr.")
+                .firstNameTh("ทดสอบ")
+                .lastNameTh("บัญชีคู่")
+                .firstNameEn("Test")
+                .lastNameEn("Journal")
+                .email("journal" + n + "@example.com")
+                .birthDate(birthDate)
+                .phoneNumber("0800000000")
+                .build());
+    }
+
+    private Account account(Member member, String balance) {
+        int n = SEQ.incrementAndGet();
+        return accountRepository.save(Account.builder()
+                .accountId(String.format("300-6-%05d-%d", n, n % 10))
+                .balance(new BigDecimal(balance))
+                .status("เปิดใช้งาน")
+                .createdDate(Calendar.getInstance())
+                .member(member)
+                .build());
+    }
+
+    private BigDecimal balanceOf(Account account) {
+        return accountRepository.findById(account.getAccountId()).orElseThrow().getBalance();
+    }
+}
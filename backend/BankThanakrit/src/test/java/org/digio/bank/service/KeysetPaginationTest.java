@@ -0,0 +1,195 @@
+package org.digio.bank.service;
+
+import org.digio.bank.dto.CursorPage;
+import org.digio.bank.dto.TransactionView;
+import org.digio.bank.repository.AccountRepository;
+import org.digio.bank.repository.MemberRepository;
+import org.digio.bank.repository.TransactionRepository;
+import org.digio.entitty.model.Account;
+import org.digio.entitty.model.Member;
+import org.digio.entitty.model.Transaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class KeysetPaginationTest {
+
+    private static final AtomicInteger SEQ = new AtomicInteger();
+
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private MemberService memberService;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void clean() {
+        for (String table : new String[]{"transactions", "accounts", "members"}) {
+            jdbcTemplate.update("DELETE FROM `" + table + "`");
+        }
+    }
+
+    @Test
+    void transactionPagesWalkTiesWithoutGapsOrDuplicates() {
+        Account account = account(member());
+        long tie = Calendar.getInstance().getTimeInMillis() / 1000 * 1000;
+        //5 รายการเวลาเดียวกัน ขอบหน้าตกกลางกลุ่มที่เวลาเท่ากัน
+        List<String> expected = new ArrayList<>();
+        for (String id : new String[]{"T-5", "T-4", "T-3", "T-2", "T-1"}) {
+            save(account, id, tie);
+            expected.add(id);
+        }
+        save(account, "S-2", tie - 60_000);
+        save(account, "S-1", tie - 120_000);
+        expected.add("S-2");
+        expected.add("S-1");
+
+        for (int size = 1; size <= 8; size++) {
+            int pageSize = size;
+            List<String> walked = walk(size, cursor -> transactionService.getTransactionPage(cursor, pageSize),
+                    TransactionView::getTransientId, expected.size());
+            assertEquals(expected, walked, "size " + size);
+        }
+    }
+
+    @Test
+    void lastPageHasNoCursorEvenWhenItIsFull() {
+        Account account = account(member());
+        long now = Calendar.getInstance().getTimeInMillis() / 1000 * 1000;
+        for (int i = 0; i < 4; i++) {
+            save(account, "F-" + i, now - i * 1000L);
+        }
+
+        CursorPage<TransactionView> first = transactionService.getTransactionPage(null, 2);
+        assertEquals(2, first.getItems().size());
+        assertNotNull(first.getNextCursor());
+
+        CursorPage<TransactionView> last = transactionService.getTransactionPage(first.getNextCursor(), 2);
+        assertEquals(List.of("F-2", "F-3"), last.getItems().stream().map(TransactionView::getTransientId).toList());
+        assertNull(last.getNextCursor());
+
+        CursorPage<TransactionView> all = transactionService.getTransactionPage(null, 4);
+        assertEquals(4, all.getItems().size());
+        assertNull(all.getNextCursor());
+    }
+
+    @Test
+    void memberAndAccountPagesFollowPrimaryKey() {
+        List<String> memberIds = new ArrayList<>();
+        List<String> accountIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Member m = member();
+            memberIds.add(m.getMemberId());
+            accountIds.add(account(m).getAccountId());
+        }
+        memberIds.sort(null);
+        accountIds.sort(null);
+
+        for (int size = 1; size <= 6; size++) {
+            int pageSize = size;
+            assertEquals(memberIds, walk(size, cursor -> memberService.getMemberPage(cursor, pageSize),
+                    Member::getMemberId, memberIds.size()), "members size " + size);
+            assertEquals(accountIds, walk(size, cursor -> accountService.getAccountPage(cursor, pageSize),
+                    Account::getAccountId, accountIds.size()), "accounts size " + size);
+        }
+    }
+
+    @Test
+    void invalidCursorOrSizeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> transactionService.getTransactionPage("not-a-cursor!", 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> transactionService.getTransactionPage(KeysetCursor.encode("abc", "T-1"), 10));
+        assertThrows(IllegalArgumentException.class, () -> memberService.getMemberPage(KeysetCursor.encode("a", "b"), 10));
+        assertThrows(IllegalArgumentException.class, () -> accountService.getAccountPage(null, 0));
+        assertEquals(KeysetCursor.MAX_SIZE, KeysetCursor.size(KeysetCursor.MAX_SIZE + 1));
+    }
+
+    //เดินทุกหน้าจนไม่มี cursor ถัดไป จำนวนหน้าต้องไม่เกินที่ควรเป็น (กันวนไม่จบ)
+    private static <T> List<String> walk(int size, Function<String, CursorPage<T>> fetch,
+                                         Function<T, String> keyOf, int total) {
+        List<String> keys = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPage<T> page = fetch.apply(cursor);
+            page.getItems().forEach(item -> keys.add(keyOf.apply(item)));
+            cursor = page.getNextCursor();
+            pages++;
+            assertTrue(pages <= Math.max(1, (total + size - 1) / size), "หน้าเกินจำนวนที่ควรเป็น");
+        } while (cursor != null);
+        return keys;
+    }
+
+    //หน้าเหล่านี้ไม่ใช้ PIN จึงไม่ต้อง bcrypt
+    private Member member() {
+        int n = SEQ.incrementAndGet();
+        Calendar birthDate = Calendar.getInstance();
+        birthDate.set(1990, Calendar.JANUARY, 1);
+        return memberRepository.save(Member.builder()
+                .memberId(String.format("6%012d", n))
+                .username("page" + n)
+                .password("-")
+                .pin("-")
+                .prefixTh("นาย")
+                .prefixEn("Mr.")
+                .firstNameTh("ทดสอบ")
+                .lastNameTh("แบ่งหน้า")
+                .firstNameEn("Test")
+                .lastNameEn("Paging")
+                .email("page" + n + "@example.com")
+                .birthDate(birthDate)
+                .phoneNumber("0800000000")
+                .build());
+    }
+
+    private Account account(Member member) {
+        int n = SEQ.incrementAndGet();
+        return accountRepository.save(Account.builder()
+                .accountId(String.format("600-3-%05d-%d", n, n % 10))
+                .balance(BigDecimal.ZERO)
+                .status("เปิดใช้งาน")
+                .createdDate(Calendar.getInstance())
+                .member(member)
+                .build());
+    }
+
+    private void save(Account account, String id, long millis) {
+        Calendar date = Calendar.getInstance();
+        date.setTimeInMillis(millis);
+        transactionRepository.save(Transaction.builder()
+                .transientId(id)
+                .transactionDate(date)
+                .type("ฝากเงิน")
+                .amount(new BigDecimal("1.00"))
+                .status("สำเร็จ")
+                .account(account)
+                .build());
+    }
+}
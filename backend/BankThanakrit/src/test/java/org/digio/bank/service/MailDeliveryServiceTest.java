@@ -0,0 +1,128 @@
+package org.digio.bank.service;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.digio.bank.config.MailDeliveryProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//ทดสอบกับ SMTP server จำลองในโปรเซส (GreenMail) ไม่ต้องใช้ฐานข้อมูลหรือ Spring context
+class MailDeliveryServiceTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP)
+            .withConfiguration(GreenMailConfiguration.aConfig().withUser("bank", "secret"))
+            .withPerMethodLifecycle(true);
+
+    private JavaMailSenderImpl sender;
+    private MailDeliveryService delivery;
+    private MailService mailService;
+
+    @BeforeEach
+    void setUp() {
+        sender = new JavaMailSenderImpl();
+        sender.setHost("127.0.0.1");
+        sender.setPort(ServerSetupTest.SMTP.getPort());
+        sender.setUsername("bank");
+        sender.setPassword("secret");
+        sender.getJavaMailProperties().put("mail.smtp.auth", "true");
+
+        MailDeliveryProperties properties = new MailDeliveryProperties();
+        properties.setConnections(2);
+        properties.setBatchSize(5);
+        properties.setSendTimeoutMs(10_000);
+        properties.setFailureThreshold(2);
+        properties.setOpenMs(60_000);
+
+        delivery = new MailDeliveryService(sender, properties, new SimpleMeterRegistry());
+        delivery.start();
+        mailService = new MailService(delivery);
+    }
+
+    @AfterEach
+    void tearDown() {
+        delivery.stop();
+    }
+
+    @Test
+    void timedOutMessageIsNeverSentLater() throws Exception {
+        delivery.stop();
+        MailDeliveryProperties properties = new MailDeliveryProperties();
+        properties.setConnections(1);
+        properties.setSendTimeoutMs(200);
+        delivery = new MailDeliveryService(sender, properties, new SimpleMeterRegistry());
+
+        //sender ยังไม่เริ่ม ข้อความจึงค้างในคิวจนหมดเวลา
+        MimeMessage message = delivery.createMimeMessage();
+        message.setRecipients(MimeMessage.RecipientType.TO, "member@example.com");
+        message.setSubject("late");
+        message.setText("body");
+        assertThrows(IllegalStateException.class, () -> delivery.send(message));
+
+        CompletableFuture<Void> cancelled = delivery.enqueue(message);
+        cancelled.cancel(false);
+        CompletableFuture<Void> kept = delivery.enqueue(message);
+        delivery.start();
+        kept.join();
+
+        assertEquals(1, greenMail.getReceivedMessages().length);
+        assertEquals(0, delivery.queueDepth());
+    }
+
+    @Test
+    void sendsSlipWithAttachment() throws Exception {
+        mailService.sendTransactionPdf("member@example.com", new byte[]{1, 2, 3}, "12345678ABC01001");
+
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertEquals(1, received.length);
+        assertEquals("Transaction Detail: 12345678ABC01001", received[0].getSubject());
+    }
+
+    @Test
+    void deliversQueuedMessagesInBatches() throws Exception {
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            MimeMessage message = delivery.createMimeMessage();
+            message.setRecipients(MimeMessage.RecipientType.TO, "member" + i + "@example.com");
+            message.setSubject("batch " + i);
+            message.setText("body");
+            results.add(delivery.enqueue(message));
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).join();
+
+        assertEquals(30, greenMail.getReceivedMessages().length);
+        assertEquals(0, delivery.queueDepth());
+    }
+
+    @Test
+    void opensBreakerWhenServerIsDown() {
+        greenMail.stop();
+
+        for (int i = 0; i < 2; i++) {
+            assertThrows(IllegalStateException.class,
+                    () -> mailService.sendTransactionPdf("member@example.com", new byte[]{1}, "TX"));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, delivery.breakerState());
+
+        //breaker เปิดแล้ว ผู้เรียกล้มเหลวทันทีโดยไม่เข้าคิว
+        long start = System.nanoTime();
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> mailService.sendTransactionPdf("member@example.com", new byte[]{1}, "TX"));
+        assertTrue(e.getMessage().contains("ขัดข้องชั่วคราว"));
+        assertTrue(System.nanoTime() - start < 1_000_000_000L);
+    }
+}
@@ -0,0 +1,154 @@
+package org.digio.bank.service;
+
+import org.digio.bank.config.SessionTokenFilter;
+import org.digio.bank.dto.Deposit;
+import org.digio.bank.repository.AccountRepository;
+import org.digio.bank.repository.MemberRepository;
+import org.digio.entitty.model.Account;
+import org.digio.entitty.model.Member;
+import org.digio.entitty.model.Transaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.Calendar;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OwnershipServiceTest {
+
+    private static final AtomicInteger SEQ = new AtomicInteger();
+
+    @Autowired
+    private OwnershipService ownershipService;
+    @Autowired
+    private SessionTokenService sessionTokenService;
+    @Autowired
+    private SessionTokenFilter sessionTokenFilter;
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void clean() {
+        for (String table : new String[]{"journal_entries", "balance_snapshots", "daily_account_summary",
+                "transactions", "accounts", "members"}) {
+            jdbcTemplate.update("DELETE FROM `" + table + "`");
+        }
+    }
+
+    @Test
+    void memberReachesOnlyOwnAccountsAndTransactions() {
+        Member owner = member();
+        Member other = member();
+        Account account = account(owner, "100.00");
+        Transaction deposit = deposit(account, "10.00");
+
+        SessionTokenService.Session ownerSession = session(owner.getMemberId(), SessionTokenService.ROLE_MEMBER);
+        SessionTokenService.Session otherSession = session(other.getMemberId(), SessionTokenService.ROLE_MEMBER);
+        SessionTokenService.Session admin = session("1", SessionTokenService.ROLE_ADMIN);
+
+        assertDoesNotThrow(() -> ownershipService.requireAccount(ownerSession, account.getAccountId()));
+        assertDoesNotThrow(() -> ownershipService.requireAccount(ownerSession, account.getAccountNo()));
+        assertDoesNotThrow(() -> ownershipService.requireTransaction(ownerSession, deposit.getTransientId()));
+        assertDoesNotThrow(() -> ownershipService.requireAccount(admin, account.getAccountId()));
+
+        assertForbidden(() -> ownershipService.requireAccount(otherSession, account.getAccountId()));
+        assertForbidden(() -> ownershipService.requireTransaction(otherSession, deposit.getTransientId()));
+        assertForbidden(() -> ownershipService.requireMember(otherSession, owner.getMemberId()));
+        assertForbidden(() -> ownershipService.requireAdmin(ownerSession));
+
+        //ไม่มีบัญชีนี้ ปล่อยให้ controller ตอบ 404
+        assertDoesNotThrow(() -> ownershipService.requireAccount(otherSession, "999-9-99999-9"));
+    }
+
+    @Test
+    void adminPathsRejectMemberSessions() throws Exception {
+        String memberToken = sessionTokenService.issue(member().getMemberId(), SessionTokenService.ROLE_MEMBER);
+        String adminToken = sessionTokenService.issue("1", SessionTokenService.ROLE_ADMIN);
+
+        assertEquals(403, filter("GET", "/transactions", memberToken));
+        assertEquals(403, filter("GET", "/transactions/export", memberToken));
+        assertEquals(403, filter("PUT", "/accounts/900-1-00001-1", memberToken));
+        assertEquals(200, filter("GET", "/transactions", adminToken));
+        assertEquals(200, filter("GET", "/transactions/T1", memberToken));
+        assertEquals(200, filter("GET", "/members/9000000000001/exists", null));
+    }
+
+    private int filter(String method, String path, String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        if (token != null) {
+            request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        sessionTokenFilter.doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+
+    private SessionTokenService.Session session(String subject, String role) {
+        return sessionTokenService.verify(sessionTokenService.issue(subject, role));
+    }
+
+    private Transaction deposit(Account account, String amount) {
+        Deposit req = new Deposit();
+        req.setAccountId(account.getAccountId());
+        req.setAmount(new BigDecimal(amount));
+        return transactionService.deposit(req);
+    }
+
+    private static void assertForbidden(Runnable check) {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, check::run);
+        assertEquals(403, e.getStatusCode().value());
+    }
+
+    private Member member() {
+        int n = SEQ.incrementAndGet();
+        Calendar birthDate = Calendar.getInstance();
+        birthDate.set(1990, Calendar.JANUARY, 1);
+        return memberRepository.save(Member.builder()
+                .memberId(String.format("1%012d", n))
+                .username("owner" + n)
+                .password("-")
+                .pin("-")
+                .prefixTh("นาย")
+                .prefixEn("Mr.")
+                .firstNameTh("ทดสอบ")
+                .lastNameTh("เจ้าของ")
+                .firstNameEn("Test")
+                .lastNameEn("Owner")
+                .email("owner" + n + "@example.com")
+                .birthDate(birthDate)
+                .phoneNumber("0800000000")
+                .build());
+    }
+
+    private Account account(Member member, String balance) {
+        int n = SEQ.incrementAndGet();
+        return accountRepository.save(Account.builder()
+                .accountId(String.format("100-8-%05d-%d", n, n % 10))
+                .balance(new BigDecimal(balance))
+                .status("เปิดใช้งาน")
+                .createdDate(Calendar.getInstance())
+                .member(member)
+                .build());
+    }
+}
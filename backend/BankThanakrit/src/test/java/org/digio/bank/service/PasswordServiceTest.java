@@ -0,0 +1,55 @@
+package org.digio.bank.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.digio.bank.config.PasswordProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//ไม่ต้องใช้ Spring context: ทดสอบว่าคิว login ที่เต็มไม่กระทบการตรวจ PIN ของรายการเงิน
+class PasswordServiceTest {
+
+    private static final String PIN_HASH = new BCryptPasswordEncoder().encode("123456");
+
+    private PasswordService passwordService;
+    private final List<CompletableFuture<String>> inFlight = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        PasswordProperties properties = new PasswordProperties();
+        properties.setThreads(1);
+        properties.setQueueCapacity(1);
+        properties.setPinThreads(1);
+        properties.setPinQueueCapacity(1);
+        passwordService = new PasswordService(properties, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        inFlight.forEach(f -> f.cancel(false));
+        passwordService.shutdown();
+    }
+
+    @Test
+    void fullLoginLaneDoesNotRejectPinChecks() {
+        //หนึ่งงานกำลังคำนวณ อีกหนึ่งงานเต็มคิว
+        inFlight.add(passwordService.encodeAsync("password-1"));
+        inFlight.add(passwordService.encodeAsync("password-2"));
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> passwordService.matches("123456", PIN_HASH));
+        assertEquals(429, e.getStatusCode().value());
+
+        assertTrue(passwordService.matchesPin("123456", PIN_HASH));
+    }
+}
@@ -0,0 +1,91 @@
+package org.digio.bank.service;
+
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import org.digio.bank.dto.TransactionView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Calendar;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * เวลา CPU และหน่วยความจำต่อสลิปของ PdfService
+ * legacyFonts = ต้นทุนการสร้างฟอนต์จาก path ต่อเอกสารแบบเดิม, cachedFonts = จาก FontProgram ที่โหลดไว้แล้ว
+ *
+ * รัน: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.digio.bank.service.PdfServiceBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PdfServiceBenchmark {
+
+    private PdfService pdfService;
+    private TransactionView view;
+
+    @Setup
+    public void setUp() throws IOException {
+        pdfService = new PdfService();
+        view = new TransactionView();
+        view.setTransientId("12345678ABC01001");
+        view.setTransactionDate(Calendar.getInstance());
+        view.setType("โอนเงิน");
+        view.setAmount(new BigDecimal("-1500.00"));
+        view.setStatus("สำเร็จ");
+        view.setFromAccount("431-7-99003-6");
+        view.setToAccount("883-1-93408-4");
+    }
+
+    @Benchmark
+    public byte[] slip() throws IOException {
+        return pdfService.generateTransactionPdf(view, "0036");
+    }
+
+    @Benchmark
+    public void legacyFonts(Blackhole bh) throws IOException {
+        try (PdfDocument pdf = new PdfDocument(new PdfWriter(new ByteArrayOutputStream()))) {
+            bh.consume(PdfFontFactory.createFont("fonts/Sarabun-Regular.ttf", PdfEncodings.IDENTITY_H,
+                    PdfFontFactory.EmbeddingStrategy.PREFER_EMBEDDED));
+            bh.consume(PdfFontFactory.createFont("fonts/Sarabun-Bold.ttf", PdfEncodings.IDENTITY_H,
+                    PdfFontFactory.EmbeddingStrategy.PREFER_EMBEDDED));
+            pdf.addNewPage();
+        }
+    }
+
+    @Benchmark
+    public void cachedFonts(Blackhole bh) throws IOException {
+        try (PdfDocument pdf = new PdfDocument(new PdfWriter(new ByteArrayOutputStream()))) {
+            bh.consume(pdfService.regularFont());
+            bh.consume(pdfService.boldFont());
+            pdf.addNewPage();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PdfServiceBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,131 @@
+package org.digio.bank.service;
+
+import org.digio.bank.repository.AccountRepository;
+import org.digio.bank.repository.MemberRepository;
+import org.digio.bank.repository.TransactionRepository;
+import org.digio.entitty.model.Account;
+import org.digio.entitty.model.Member;
+import org.digio.entitty.model.Transaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class StatementServiceTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Asia/Bangkok");
+    private static final AtomicInteger SEQ = new AtomicInteger();
+
+    @Autowired
+    private StatementService statementService;
+    @Autowired
+    private JournalService journalService;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void clean() {
+        for (String table : new String[]{"journal_entries", "balance_snapshots", "transactions",
+                "accounts", "members"}) {
+            jdbcTemplate.update("DELETE FROM `" + table + "`");
+        }
+    }
+
+    @Test
+    void balancesBeforeJournalSeedComeFromTransactionHistory() throws Exception {
+        Account account = account(member(), "1000.00");
+        YearMonth lastMonth = YearMonth.now(ZONE).minusMonths(1);
+        history(account, "H-1", lastMonth, 10, "300.00");
+        history(account, "H-2", lastMonth, 20, "-100.00");
+
+        //บัญชีเดิมได้ยอดยกมา 1000.00 ณ ตอนเริ่มใช้ journal
+        journalService.seedOpeningBalances();
+
+        assertEquals(0, new BigDecimal("800.00").compareTo(
+                journalService.balanceAt(account.getAccountNo(), startOf(lastMonth))));
+        assertEquals(0, new BigDecimal("1000.00").compareTo(
+                journalService.balanceAt(account.getAccountNo(), startOf(lastMonth.plusMonths(1)))));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        statementService.writeStatement(account.getAccountId(), lastMonth, out);
+        assertTrue(out.size() > 0);
+    }
+
+    @Test
+    void unknownAccountIsRejectedBeforeWriting() {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> statementService.requireAccount("999-9-99999-9"));
+        assertEquals(404, e.getStatusCode().value());
+    }
+
+    private void history(Account account, String id, YearMonth month, int day, String amount) {
+        BigDecimal value = new BigDecimal(amount);
+        transactionRepository.save(Transaction.builder()
+                .transientId(id)
+                .transactionDate(GregorianCalendar.from(month.atDay(day).atTime(12, 0).atZone(ZONE)))
+                .type(value.signum() > 0 ? "ฝากเงิน" : "ถอนเงิน")
+                .amount(value)
+                .status("สำเร็จ")
+                .account(account)
+                .build());
+    }
+
+    private static Calendar startOf(YearMonth month) {
+        return GregorianCalendar.from(month.atDay(1).atStartOfDay(ZONE));
+    }
+
+    private Member member() {
+        int n = SEQ.incrementAndGet();
+        Calendar birthDate = Calendar.getInstance();
+        birthDate.set(1990, Calendar.JANUARY, 1);
+        return memberRepository.save(Member.builder()
+                .memberId(String.format("2%012d", n))
+                .username("statement" + n)
+                .password("-")
+                .pin("-")
+                .prefixTh("นาย")
+                .prefixEn("Mr.")
+                .firstNameTh("ทดสอบ")
+                .lastNameTh("รายเดือน")
+                .firstNameEn("Test")
+                .lastNameEn("Statement")
+                .email("statement" + n + "@example.com")
+                .birthDate(birthDate)
+                .phoneNumber("0800000000")
+                .build());
+    }
+
+    private Account account(Member member, String balance) {
+        int n = SEQ.incrementAndGet();
+        return accountRepository.save(Account.builder()
+                .accountId(String.format("200-7-%05d-%d", n, n % 10))
+                .balance(new BigDecimal(balance))
+                .status("เปิดใช้งาน")
+                .createdDate(Calendar.getInstance())
+                .member(member)
+                .build());
+    }
+}
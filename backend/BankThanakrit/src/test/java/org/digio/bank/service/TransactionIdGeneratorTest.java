@@ -0,0 +1,121 @@
+package org.digio.bank.service;
+
+import org.digio.bank.config.NodeProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransactionIdGeneratorTest {
+
+    @Test
+    void idsKeepTheLegacyShapeAndIncreaseInOrder() {
+        TransactionIdGenerator generator = generator(7);
+
+        String previous = generator.next();
+        //มากกว่า 1000 ต่อมิลลิวินาทีเพื่อให้ต้องยืมมิลลิวินาทีถัดไป
+        for (int i = 0; i < 5_000; i++) {
+            String id = generator.next();
+            assertTrue(id.matches("\\d{8}[A-Z]{3}07\\d{3}"), id);
+            assertTrue(id.compareTo(previous) > 0, previous + " >= " + id);
+            previous = id;
+        }
+    }
+
+    @Test
+    void lastIdBeforeBoundsIdsByTime() {
+        TransactionIdGenerator generator = generator(99);
+        long before = System.currentTimeMillis();
+        String id = generator.next();
+        long after = System.currentTimeMillis();
+
+        assertTrue(id.compareTo(TransactionIdGenerator.lastIdBefore(before)) > 0);
+        assertTrue(id.compareTo(TransactionIdGenerator.lastIdBefore(after + 1)) <= 0);
+        assertEquals("00000000AAA99999", TransactionIdGenerator.lastIdBefore(TransactionIdGenerator.EPOCH + 1));
+    }
+
+    @Test
+    void formatOrdersByTimeThenSequence() {
+        assertEquals("00000000AAA00000", TransactionIdGenerator.format(0, 0, 0));
+        assertEquals("00000000AAB12999", TransactionIdGenerator.format(1, 12, 999));
+        assertEquals("00000001AAA00000", TransactionIdGenerator.format(26 * 26 * 26, 0, 0));
+
+        String earlier = TransactionIdGenerator.format(17_575, 99, 999);
+        String later = TransactionIdGenerator.format(17_576, 0, 0);
+        assertTrue(earlier.compareTo(later) < 0);
+    }
+
+    @Test
+    void concurrentCallersNeverShareAnId() throws Exception {
+        TransactionIdGenerator generator = generator(3);
+        int threads = 8;
+        int perThread = 2_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Callable<List<String>> task = () -> {
+                    List<String> ids = new ArrayList<>(perThread);
+                    for (int i = 0; i < perThread; i++) {
+                        ids.add(generator.next());
+                    }
+                    return ids;
+                };
+                futures.add(pool.submit(task));
+            }
+
+            Set<String> all = new HashSet<>();
+            for (Future<List<String>> future : futures) {
+                List<String> ids = future.get();
+                //ในแต่ละเธรดเลขต้องเพิ่มขึ้นตามลำดับที่ขอ
+                for (int i = 1; i < ids.size(); i++) {
+                    assertTrue(ids.get(i).compareTo(ids.get(i - 1)) > 0);
+                }
+                all.addAll(ids);
+            }
+            assertEquals(threads * perThread, all.size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void seededGeneratorContinuesAfterIdIssuedByAFastClock() {
+        TransactionIdGenerator generator = generator(4);
+        //เลขที่ออกตอนนาฬิกาเร็วกว่านี้ 1 ชั่วโมง
+        String issued = TransactionIdGenerator.lastIdBefore(System.currentTimeMillis() + 3_600_000L)
+                .substring(0, 11) + "04123";
+        generator.seed(issued);
+        String next = generator.next();
+        assertTrue(next.compareTo(issued) > 0, issued + " >= " + next);
+        assertEquals(issued.substring(0, 11) + "04124", next);
+
+        //เลขของ node อื่นหรือรูปแบบเก่าไม่มีผล
+        TransactionIdGenerator other = generator(5);
+        other.seed(issued);
+        other.seed("ADJ-legacy");
+        assertTrue(other.next().compareTo(issued) < 0);
+    }
+
+    @Test
+    void nodeIdOutOfRangeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> generator(100));
+        assertThrows(IllegalArgumentException.class, () -> generator(-1));
+    }
+
+    private static TransactionIdGenerator generator(int node) {
+        NodeProperties properties = new NodeProperties();
+        properties.setId(node);
+        return new TransactionIdGenerator(properties);
+    }
+}
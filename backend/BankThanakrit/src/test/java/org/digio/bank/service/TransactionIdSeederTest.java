@@ -0,0 +1,100 @@
+package org.digio.bank.service;
+
+import org.digio.bank.repository.AccountRepository;
+import org.digio.bank.repository.MemberRepository;
+import org.digio.bank.repository.TransactionRepository;
+import org.digio.entitty.model.Account;
+import org.digio.entitty.model.Member;
+import org.digio.entitty.model.Transaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.Calendar;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TransactionIdSeederTest {
+
+    @Autowired
+    private TransactionIdSeeder transactionIdSeeder;
+    @Autowired
+    private TransactionIdGenerator transactionIdGenerator;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void clean() {
+        for (String table : new String[]{"transactions", "accounts", "members"}) {
+            jdbcTemplate.update("DELETE FROM `" + table + "`");
+        }
+    }
+
+    //จำลองเลขที่ที่ออกไปก่อนรีสตาร์ทขณะนาฬิกาเร็วกว่าปัจจุบัน 5 นาที
+    @Test
+    void seedsPastTheLastPersistedIdOfThisNode() {
+        String issued = TransactionIdGenerator.lastIdBefore(System.currentTimeMillis() + 300_000L)
+                .substring(0, 11) + String.format("%02d", transactionIdGenerator.node()) + "500";
+        //เลขของ node อื่นที่สูงกว่าต้องไม่มีผล
+        String otherNode = issued.substring(0, 11) + String.format("%02d", (transactionIdGenerator.node() + 1) % 100)
+                + "999";
+        Account account = account();
+        save(issued, account);
+        save(otherNode, account);
+
+        transactionIdSeeder.seed();
+
+        //เดินต่อจากเลขของตัวเองในมิลลิวินาทีเดียวกัน ไม่ใช่จากเลขของ node อื่น
+        assertEquals(issued.substring(0, 13) + "501", transactionIdGenerator.next());
+    }
+
+    private void save(String transientId, Account account) {
+        transactionRepository.save(Transaction.builder()
+                .transientId(transientId)
+                .transactionDate(Calendar.getInstance())
+                .type("ฝากเงิน")
+                .amount(new BigDecimal("1.00"))
+                .status("สำเร็จ")
+                .account(account)
+                .build());
+    }
+
+    private Account account() {
+        Calendar birthDate = Calendar.getInstance();
+        birthDate.set(1990, Calendar.JANUARY, 1);
+        Member member = memberRepository.save(Member.builder()
+                .memberId("0999999999999")
+                .username("seeder")
+                .password("x")
+                .pin("x")
+                .prefixTh("นาย")
+                .prefixEn("Mr.")
+                .firstNameTh("ทดสอบ")
+                .lastNameTh("เลขที่")
+                .firstNameEn("Test")
+                .lastNameEn("Seeder")
+                .email("seeder@example.com")
+                .birthDate(birthDate)
+                .phoneNumber("0800000000")
+                .build());
+        return accountRepository.save(Account.builder()
+                .accountId("099-9-99999-9")
+                .balance(new BigDecimal("0.00"))
+                .status("เปิดใช้งาน")
+                .createdDate(Calendar.getInstance())
+                .member(member)
+                .build());
+    }
+}
@@ -0,0 +1,189 @@
+package org.digio.bank.service;
+
+import org.digio.bank.dto.Transfer;
+import org.digio.bank.dto.TransferResult;
+import org.digio.bank.repository.AccountRepository;
+import org.digio.bank.repository.MemberRepository;
+import org.digio.entitty.model.Account;
+import org.digio.entitty.model.Member;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TransferBatchTest {
+
+    private static final String PIN = "123456";
+    private static final AtomicInteger SEQ = new AtomicInteger();
+    private static String pinHash;
+
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private PasswordService passwordService;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void clean() {
+        for (String table : new String[]{"journal_entries", "balance_snapshots", "daily_account_summary",
+                "transactions", "accounts", "members"}) {
+            jdbcTemplate.update("DELETE FROM `" + table + "`");
+        }
+    }
+
+    @Test
+    void failingItemsDoNotAffectTheOthers() {
+        Account a = account("1000.00");
+        Account b = account("500.00");
+        Account c = account("0.00");
+
+        List<TransferResult> results = transactionService.transferBatch(List.of(
+                transfer(a, b, "600.00", PIN),
+                //เหลือ 400.00 หลังรายการแรก จึงต้องไม่พอ
+                transfer(a, c, "600.00", PIN),
+                transfer(b, c, "100.00", "000000"),
+                transfer(b, c, "0.00", PIN),
+                transfer(b, c, "10.001", PIN),
+                transfer(a, c, "400.00", PIN)));
+
+        assertEquals(6, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+        }
+        assertSuccess(results.get(0));
+        assertFailure(results.get(1), "ยอดเงินในบัญชีไม่เพียงพอ");
+        assertFailure(results.get(2), "PIN ไม่ถูกต้อง");
+        assertFailure(results.get(3), "จำนวนเงินต้องมากกว่า 0");
+        assertFailure(results.get(4), "จำนวนเงินต้องมีทศนิยมไม่เกิน 2 ตำแหน่ง");
+        assertSuccess(results.get(5));
+
+        assertEquals(0, new BigDecimal("0.00").compareTo(balanceOf(a)));
+        assertEquals(0, new BigDecimal("1100.00").compareTo(balanceOf(b)));
+        assertEquals(0, new BigDecimal("400.00").compareTo(balanceOf(c)));
+        //ธุรกรรม 2 ขา (ถอน + ฝาก) ต่อรายการที่สำเร็จ
+        assertEquals(4, countTransactions());
+    }
+
+    @Test
+    void chainedTransfersConserveMoney() {
+        Account a = account("300.00");
+        Account b = account("0.00");
+        Account c = account("0.00");
+
+        //b ได้เงินจากรายการก่อนหน้าในชุดเดียวกันแล้วโอนต่อได้
+        List<TransferResult> results = transactionService.transferBatch(List.of(
+                transfer(a, b, "200.00", PIN),
+                transfer(b, c, "150.00", PIN),
+                transfer(c, a, "50.00", PIN),
+                transfer(b, c, "100.00", PIN)));
+
+        assertSuccess(results.get(0));
+        assertSuccess(results.get(1));
+        assertSuccess(results.get(2));
+        assertFailure(results.get(3), "ยอดเงินในบัญชีไม่เพียงพอ");
+
+        BigDecimal total = balanceOf(a).add(balanceOf(b)).add(balanceOf(c));
+        assertEquals(0, new BigDecimal("300.00").compareTo(total));
+        assertEquals(0, new BigDecimal("150.00").compareTo(balanceOf(a)));
+        assertEquals(0, new BigDecimal("50.00").compareTo(balanceOf(b)));
+        assertEquals(0, new BigDecimal("100.00").compareTo(balanceOf(c)));
+    }
+
+    @Test
+    void unknownAccountsFailWithoutTouchingBalances() {
+        Account a = account("100.00");
+
+        List<TransferResult> results = transactionService.transferBatch(List.of(
+                transfer("999-9-99999-9", a.getAccountId(), "10.00"),
+                transfer(a.getAccountId(), "999-9-99999-9", "10.00")));
+
+        assertFailure(results.get(0), "ไม่พบบัญชีต้นทาง");
+        assertFailure(results.get(1), "ไม่พบบัญชีปลายทาง");
+        assertEquals(0, new BigDecimal("100.00").compareTo(balanceOf(a)));
+        assertEquals(0, countTransactions());
+    }
+
+    private static void assertSuccess(TransferResult result) {
+        assertTrue(result.isSuccess(), result.getMessage());
+        assertNotNull(result.getTransientId());
+    }
+
+    private static void assertFailure(TransferResult result, String message) {
+        assertFalse(result.isSuccess());
+        assertEquals(message, result.getMessage());
+    }
+
+    private static Transfer transfer(Account from, Account to, String amount, String pin) {
+        Transfer req = transfer(from.getAccountId(), to.getAccountId(), amount);
+        req.setPin(pin);
+        return req;
+    }
+
+    private static Transfer transfer(String fromAccountId, String toAccountId, String amount) {
+        Transfer req = new Transfer();
+        req.setFromAccountId(fromAccountId);
+        req.setToAccountId(toAccountId);
+        req.setAmount(new BigDecimal(amount));
+        req.setPin(PIN);
+        return req;
+    }
+
+    //แต่ละบัญชีมีเจ้าของของตัวเอง ทุกคนใช้ PIN เดียวกันจึง bcrypt ครั้งเดียว
+    private Account account(String balance) {
+        int n = SEQ.incrementAndGet();
+        if (pinHash == null) {
+            pinHash = passwordService.encode(PIN);
+        }
+        Calendar birthDate = Calendar.getInstance();
+        birthDate.set(1990, Calendar.JANUARY, 1);
+        Member member = memberRepository.save(Member.builder()
+                .memberId(String.format("8%012d", n))
+                .username("batch" + n)
+                .password(pinHash)
+                .pin(pinHash)
+                .prefixTh("นาย")
+                .prefixEn("Mr.")
+                .firstNameTh("ทดสอบ")
+                .lastNameTh("โอนชุด")
+                .firstNameEn("Test")
+                .lastNameEn("Batch")
+                .email("batch" + n + "@example.com")
+                .birthDate(birthDate)
+                .phoneNumber("0800000000")
+                .build());
+        return accountRepository.save(Account.builder()
+                .accountId(String.format("800-2-%05d-%d", n, n % 10))
+                .balance(new BigDecimal(balance))
+                .status("เปิดใช้งาน")
+                .createdDate(Calendar.getInstance())
+                .member(member)
+                .build());
+    }
+
+    private BigDecimal balanceOf(Account account) {
+        return accountRepository.findById(account.getAccountId()).orElseThrow().getBalance();
+    }
+
+    private int countTransactions() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM `transactions`", Integer.class);
+    }
+}
@@ -0,0 +1,70 @@
+package org.digio.bank.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrigramIndexTest {
+
+    @Test
+    void olderExactMatchOutranksNewerPartialMatchesBeyondMaxHits() {
+        TrigramIndex index = new TrigramIndex();
+        index.put("exact", 1, "somchai");
+        for (int i = 0; i < 20; i++) {
+            index.put("partial-" + i, 100 + i, "xsomchai" + i);
+        }
+
+        TrigramIndex.Result result = index.search("somchai", 5, 1_000);
+
+        assertEquals("exact", result.keys().get(0));
+        assertEquals(5, result.keys().size());
+        assertEquals(21, result.total());
+        assertTrue(result.exact());
+    }
+
+    @Test
+    void totalIsLowerBoundWhenCandidatesAreCapped() {
+        TrigramIndex index = new TrigramIndex();
+        for (int i = 0; i < 50; i++) {
+            index.put("doc-" + i, i, "4317990" + String.format("%02d", i));
+        }
+
+        TrigramIndex.Result result = index.search("431799", 10, 20);
+
+        assertEquals(20, result.total());
+        assertFalse(result.exact());
+        assertEquals(List.of("doc-49", "doc-48"), result.keys().subList(0, 2));
+    }
+
+    @Test
+    void evictsDocumentsOlderThanCutoff() {
+        TrigramIndex index = new TrigramIndex();
+        for (int i = 0; i < 2_000; i++) {
+            index.put("doc-" + i, i, "4317990" + String.format("%04d", i));
+        }
+
+        assertEquals(1_500, index.removeOlderThan(1_500));
+        assertEquals(500, index.size());
+        assertEquals(0, index.search("43179901499", 10, 1_000).total());
+        assertEquals(List.of("doc-1500"), index.search("43179901500", 10, 1_000).keys());
+    }
+
+    @Test
+    void compactionKeepsLiveDocumentsSearchable() {
+        TrigramIndex index = new TrigramIndex();
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 1_000; i++) {
+                index.put("doc-" + i, round, "name" + i + "r" + round);
+            }
+        }
+
+        assertEquals(1_000, index.size());
+        TrigramIndex.Result result = index.search("name999r2", 10, 1_000);
+        assertEquals(List.of("doc-999"), result.keys());
+        assertEquals(0, index.search("name999r0", 10, 1_000).total());
+    }
+}
@@ -6,11 +6,16 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.digio.entitty.util.AccountNumbers;
 
+import java.math.BigDecimal;
 import java.util.Calendar;
 
 @Entity
-@Table(name = "accounts")
+@Table(name = "accounts", indexes = {
+        @Index(name = "uk_accounts_account_no", columnList = "account_no", unique = true),
+        @Index(name = "idx_accounts_status", columnList = "status")
+})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -21,8 +26,12 @@ public class Account {
     @Column(name = "account_id", length = 18, nullable = false)
     private String accountId;
 
-    @Column(name = "balance", nullable = false)
-    private Double balance;
+    //เลขบัญชีแบบตัวเลขล้วน ใช้ค้นหาได้ทั้งแบบมีขีดและไม่มีขีด
+    @Column(name = "account_no", length = 18)
+    private String accountNo;
+
+    @Column(name = "balance", nullable = false, precision = 19, scale = 2)
+    private BigDecimal balance;
 
     @Column(name = "status", length = 50, nullable = false)
     private String status;
@@ -34,4 +43,14 @@ public class Account {
     @ManyToOne
     @JoinColumn(name = "member_id", nullable = false)
     private Member member;
+
+    @Version
+    @Column(name = "version")
+    private Long version;
+
+    @PrePersist
+    @PreUpdate
+    void syncAccountNo() {
+        this.accountNo = AccountNumbers.normalize(accountId);
+    }
 }
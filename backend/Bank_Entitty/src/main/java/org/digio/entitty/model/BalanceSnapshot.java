@@ -0,0 +1,41 @@
+package org.digio.entitty.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Calendar;
+
+//ยอดคงเหลือ ณ journal entry ที่ last_entry_id ยอดปัจจุบัน = snapshot ล่าสุด + journal ที่ตามมา
+@Entity
+@Table(name = "balance_snapshots", indexes = {
+        @Index(name = "idx_balance_snapshots_account_entry", columnList = "account_no, last_entry_id"),
+        @Index(name = "idx_balance_snapshots_account_date", columnList = "account_no, snapshot_date")
+})
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BalanceSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "snapshot_id")
+    private Long snapshotId;
+
+    @Column(name = "account_no", length = 18, nullable = false)
+    private String accountNo;
+
+    @Column(name = "last_entry_id", nullable = false)
+    private Long lastEntryId;
+
+    @Column(name = "balance", nullable = false, precision = 19, scale = 2)
+    private BigDecimal balance;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "snapshot_date", nullable = false)
+    private Calendar snapshotDate;
+}
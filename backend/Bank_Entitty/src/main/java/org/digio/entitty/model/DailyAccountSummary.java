@@ -0,0 +1,48 @@
+package org.digio.entitty.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+//ยอดรวมรายวันต่อบัญชี (วันตามเวลา Asia/Bangkok) ปรับแบบเพิ่ม/ลดใน transaction เดียวกับรายการเงิน
+@Entity
+@Table(name = "daily_account_summary", indexes = {
+        @Index(name = "uk_daily_summary_account_date", columnList = "account_id, summary_date", unique = true)
+})
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DailyAccountSummary {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "summary_id")
+    private Long summaryId;
+
+    @Column(name = "account_id", length = 18, nullable = false)
+    private String accountId;
+
+    @Column(name = "summary_date", nullable = false)
+    private LocalDate summaryDate;
+
+    @Column(name = "deposit", nullable = false, precision = 19, scale = 2)
+    private BigDecimal deposit;
+
+    @Column(name = "withdraw", nullable = false, precision = 19, scale = 2)
+    private BigDecimal withdraw;
+
+    @Column(name = "transfer", nullable = false, precision = 19, scale = 2)
+    private BigDecimal transfer;
+
+    @Column(name = "receive", nullable = false, precision = 19, scale = 2)
+    private BigDecimal receive;
+
+    @Column(name = "transaction_count", nullable = false)
+    private Integer transactionCount;
+}
@@ -0,0 +1,47 @@
+package org.digio.entitty.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+//ตัวนับของหน้าผู้ดูแล ปรับแบบเพิ่ม/ลดใน transaction เดียวกับการเขียนรายการ/บัญชี
+//แต่ละตัวนับแบ่งเป็นหลาย stripe เพื่อไม่ให้ทุกรายการรอล็อกแถวเดียวกัน ค่าจริงคือผลรวมทุก stripe
+@Entity
+@Table(name = "dashboard_counters", indexes = {
+        @Index(name = "uk_dashboard_counters_key", columnList = "kind, category, status, stripe", unique = true)
+})
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DashboardCounter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "counter_id")
+    private Long counterId;
+
+    //ACCOUNT หรือ TRANSACTION
+    @Column(name = "kind", length = 16, nullable = false)
+    private String kind;
+
+    //ประเภทรายการ (ว่างสำหรับบัญชี)
+    @Column(name = "category", length = 50, nullable = false)
+    private String category;
+
+    @Column(name = "status", length = 50, nullable = false)
+    private String status;
+
+    @Column(name = "stripe", nullable = false)
+    private Integer stripe;
+
+    @Column(name = "item_count", nullable = false)
+    private Long itemCount;
+
+    @Column(name = "amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+}
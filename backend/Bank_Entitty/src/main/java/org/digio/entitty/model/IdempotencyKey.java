@@ -0,0 +1,37 @@
+package org.digio.entitty.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Calendar;
+
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_keys_created_date", columnList = "created_date")
+})
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class IdempotencyKey {
+
+    //operation + ":" + ผู้ทำรายการ + ":" + ค่าจาก header Idempotency-Key
+    @Id
+    @Column(name = "idem_key", length = 150, nullable = false)
+    private String idemKey;
+
+    //SHA-256 ของเนื้อหาคำขอ คีย์เดิมที่มากับเนื้อหาต่างกันจะถูกปฏิเสธ
+    @Column(name = "request_hash", length = 64)
+    private String requestHash;
+
+    //null ระหว่างที่รายการยังทำไม่เสร็จ
+    @Column(name = "transient_id", length = 35)
+    private String transientId;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "created_date", nullable = false)
+    private Calendar createdDate;
+}
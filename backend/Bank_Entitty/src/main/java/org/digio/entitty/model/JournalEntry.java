@@ -0,0 +1,52 @@
+package org.digio.entitty.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Calendar;
+
+//บันทึกบัญชีคู่แบบเพิ่มอย่างเดียว หนึ่งแถวต่อหนึ่งขา ขาเดบิต/เครดิตของรายการเดียวกันใช้ journal_id เดียวกัน
+@Entity
+@Table(name = "journal_entries", indexes = {
+        @Index(name = "idx_journal_entries_account_entry", columnList = "account_no, entry_id"),
+        @Index(name = "idx_journal_entries_journal", columnList = "journal_id")
+})
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class JournalEntry {
+
+    public static final String DEBIT = "DEBIT";
+    public static final String CREDIT = "CREDIT";
+    //บัญชีเงินสดของธนาคาร เป็นคู่บัญชีของรายการฝากและถอน
+    public static final String CASH_ACCOUNT = "CASH";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "entry_id")
+    private Long entryId;
+
+    @Column(name = "journal_id", length = 35, nullable = false)
+    private String journalId;
+
+    @Column(name = "account_no", length = 18, nullable = false)
+    private String accountNo;
+
+    @Column(name = "direction", length = 6, nullable = false)
+    private String direction;
+
+    @Column(name = "amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "transient_id", length = 35)
+    private String transientId;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "posted_date", nullable = false)
+    private Calendar postedDate;
+}
@@ -0,0 +1,30 @@
+package org.digio.entitty.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Calendar;
+
+//ขอบล่างของ journal entry ที่อาจยังไม่ commit ของแต่ละเครื่อง entry ที่ id ไม่เกิน low_water ของทุกเครื่อง commit แล้ว
+@Entity
+@Table(name = "journal_watermarks")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class JournalWatermark {
+
+    @Id
+    @Column(name = "node_id", nullable = false)
+    private Integer nodeId;
+
+    @Column(name = "low_water", nullable = false)
+    private Long lowWater;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "updated_date", nullable = false)
+    private Calendar updatedDate;
+}
@@ -0,0 +1,24 @@
+package org.digio.entitty.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "number_sequences")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class NumberSequence {
+
+    @Id
+    @Column(name = "name", length = 50, nullable = false)
+    private String name;
+
+    //ค่าถัดไปที่ยังไม่ถูกจอง แต่ละเครื่องจองเป็นช่วง [nextValue, nextValue + blockSize)
+    @Column(name = "next_value", nullable = false)
+    private Long nextValue;
+}
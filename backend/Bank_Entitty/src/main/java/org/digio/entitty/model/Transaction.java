@@ -6,10 +6,15 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
 import java.util.Calendar;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        @Index(name = "idx_transactions_account_date", columnList = "account_id, transaction_date, transient_id"),
+        @Index(name = "idx_transactions_date_id", columnList = "transaction_date, transient_id"),
+        @Index(name = "idx_transactions_type_status", columnList = "type, status, amount")
+})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -27,8 +32,8 @@ public class Transaction {
     @Column(name = "type", length = 50, nullable = false)
     private String type;
 
-    @Column(name = "amount", nullable = false)
-    private Double amount;
+    @Column(name = "amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
 
     @Column(name = "confirm_pin", length = 6)
     private String confirmPin;
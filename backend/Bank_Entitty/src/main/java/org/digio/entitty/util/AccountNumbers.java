@@ -0,0 +1,41 @@
+package org.digio.entitty.util;
+
+public final class AccountNumbers {
+
+    private AccountNumbers() {
+        throw new IllegalArgumentException("Utility class");
+    }
+
+    /**
+     * ตัดทุกอักขระที่ไม่ใช่ตัวเลขออก เช่น 431-7-99003-6 -> 431799036
+     * ถ้า input เป็นตัวเลขล้วนอยู่แล้วจะคืน instance เดิมโดยไม่สร้าง String ใหม่
+     */
+    public static String normalize(String input) {
+        if (input == null) {
+            return null;
+        }
+        int len = input.length();
+        int digits = 0;
+        for (int i = 0; i < len; i++) {
+            if (isDigit(input.charAt(i))) {
+                digits++;
+            }
+        }
+        if (digits == len) {
+            return input;
+        }
+        char[] out = new char[digits];
+        int j = 0;
+        for (int i = 0; i < len; i++) {
+            char c = input.charAt(i);
+            if (isDigit(c)) {
+                out[j++] = c;
+            }
+        }
+        return new String(out);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
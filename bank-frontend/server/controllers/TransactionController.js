@@ -1,10 +1,21 @@
 const { spring } = require("../services/bankService");
 
+// ส่ง Idempotency-Key ต่อให้ backend เพื่อให้ retry แล้วไม่ตัดเงินซ้ำ
+// และ X-Device-Id ที่ pin token ผูกไว้
+const idempotencyHeaders = (req) => {
+  const headers = {};
+  const key = req.get("Idempotency-Key");
+  const deviceId = req.get("X-Device-Id");
+  if (key) headers["Idempotency-Key"] = key;
+  if (deviceId) headers["X-Device-Id"] = deviceId;
+  return { headers };
+};
+
 const getAllTransactions = async (req, res, next) => {
   try {
-    const { limit, offset } = req.query;
+    const { size, cursor } = req.query;
     const { data } = await spring.get("/transactions", {
-      params: { limit, offset },
+      params: { size, cursor },
     });
     res.json(data);
   } catch (e) {
@@ -35,15 +46,26 @@ const addTransaction = async (req, res, next) => {
 const exportTransactionPdf = async (req, res, next) => {
   try {
     const { transactionId } = req.params;
-    await spring.post(`/transactions/${transactionId}/pdf`,{},{ headers: { "Content-Type": "application/json" } });
-    res.json({
-      message: "ส่งสลิป PDF ไปยังอีเมลเรียบร้อยแล้ว",
+    const { data } = await spring.post(`/transactions/${transactionId}/pdf`,{},{ headers: { "Content-Type": "application/json" } });
+    res.status(202).json({
+      message: "กำลังส่งสลิป PDF ไปยังอีเมล",
+      job: data,
     });
   } catch (e) {
     next(e);
   }
 };
 
+const getPdfJob = async (req, res, next) => {
+  try {
+    const { jobId } = req.params;
+    const { data } = await spring.get(`/transactions/pdf-jobs/${jobId}`);
+    res.json(data);
+  } catch (e) {
+    next(e);
+  }
+};
+
 
 const updateTransaction = async (req, res, next) => {
   try {
@@ -79,7 +101,7 @@ const getTransactionsByAccount = async (req, res, next) => {
 const deposit = async (req, res, next) => {
   try {
     const body = req.body; 
-    const { data } = await spring.post("/transactions/deposit", body);
+    const { data } = await spring.post("/transactions/deposit", body, idempotencyHeaders(req));
     res.json(data);
   } catch (e) {
     next(e);
@@ -89,7 +111,7 @@ const deposit = async (req, res, next) => {
 const withdraw = async (req, res, next) => {
   try {
     const body = req.body;
-    const { data } = await spring.post("/transactions/withdraw", body);
+    const { data } = await spring.post("/transactions/withdraw", body, idempotencyHeaders(req));
     res.json(data);
   } catch (e) {
     next(e);
@@ -99,7 +121,17 @@ const withdraw = async (req, res, next) => {
 const transfer = async (req, res, next) => {
   try {
     const body = req.body;
-    const { data } = await spring.post("/transactions/transfer", body);
+    const { data } = await spring.post("/transactions/transfer", body, idempotencyHeaders(req));
+    res.json(data);
+  } catch (e) {
+    next(e);
+  }
+};
+
+const transferBatch = async (req, res, next) => {
+  try {
+    const body = req.body;
+    const { data } = await spring.post("/transactions/transfer/batch", body, idempotencyHeaders(req));
     res.json(data);
   } catch (e) {
     next(e);
@@ -111,10 +143,12 @@ module.exports = {
   getTransactionById,
   addTransaction,
   exportTransactionPdf,
+  getPdfJob,
   updateTransaction,
   deleteTransaction,
   getTransactionsByAccount,
   deposit,
   withdraw,
   transfer,
+  transferBatch,
 };
@@ -15,7 +15,10 @@ const addAccount = async (req, res, next) => {
 
 const getAllAccounts = async (req, res, next) => {
   try {
-    const { data } = await spring.get("/accounts");
+    const { size, cursor } = req.query;
+    const { data } = await spring.get("/accounts", {
+      params: { size, cursor },
+    });
     res.json(data);
   } catch (e) {
     next(e);
@@ -62,6 +65,19 @@ const getAccountsByMember = async (req, res, next) => {
   }
 };
 
+const getDailySummary = async (req, res, next) => {
+  try {
+    const { accountId } = req.params;
+    const { from, to } = req.query;
+    const { data } = await spring.get(`/accounts/${accountId}/daily-summary`, {
+      params: { from, to },
+    });
+    res.json(data);
+  } catch (e) {
+    next(e);
+  }
+};
+
 module.exports = {
   addAccount,
   getAllAccounts,
@@ -69,4 +85,5 @@ module.exports = {
   updateAccount,
   deleteAccount,
   getAccountsByMember,
+  getDailySummary,
 };
@@ -2,7 +2,8 @@ const { spring } = require("../services/bankService");
 
 const loginAdmin = async (req, res, next) => {
   try {
-    const { data } = await spring.post("/admins/login", req.body);
+    const { data, headers } = await spring.post("/admins/login", req.body);
+    if (headers["x-auth-token"]) res.set("X-Auth-Token", headers["x-auth-token"]);
     res.json(data);
   } catch (e) {
     next(e);
@@ -32,8 +33,57 @@ const cancelTransaction = async (req, res, next) => {
   }
 };
 
+const getDashboard = async (req, res, next) => {
+  try {
+    const { data } = await spring.get("/admins/dashboard");
+    res.json(data);
+  } catch (e) {
+    next(e);
+  }
+};
+
+const getAdminAccounts = async (req, res, next) => {
+  try {
+    const { size, cursor } = req.query;
+    const { data } = await spring.get("/admins/accounts", {
+      params: { size, cursor },
+    });
+    res.json(data);
+  } catch (e) {
+    next(e);
+  }
+};
+
+const searchAccounts = async (req, res, next) => {
+  try {
+    const { q, page, size } = req.query;
+    const { data } = await spring.get("/admins/search/accounts", {
+      params: { q, page, size },
+    });
+    res.json(data);
+  } catch (e) {
+    next(e);
+  }
+};
+
+const searchTransactions = async (req, res, next) => {
+  try {
+    const { q, page, size } = req.query;
+    const { data } = await spring.get("/admins/search/transactions", {
+      params: { q, page, size },
+    });
+    res.json(data);
+  } catch (e) {
+    next(e);
+  }
+};
+
 module.exports = {
   loginAdmin,
+  getDashboard,
+  getAdminAccounts,
+  searchAccounts,
+  searchTransactions,
   updateAccountStatus,
   cancelTransaction,
 };
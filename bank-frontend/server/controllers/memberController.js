@@ -22,9 +22,9 @@ const updateMember = async (req, res, next) => {
 
 const getAllMembers = async (req, res, next) => {
   try {
-    const { limit, offset } = req.query;
+    const { size, cursor } = req.query;
     const { data } = await spring.get("/members", {
-      params: { limit, offset },
+      params: { size, cursor },
     });
     res.json(data);
   } catch (e) {
@@ -42,6 +42,17 @@ const getMemberById = async (req, res, next) => {
   }
 };
 
+// ตอนสมัครยังไม่มี session ตรวจได้แค่ว่ามีเลขบัตรนี้แล้วหรือยัง
+const memberExists = async (req, res, next) => {
+  try {
+    const { memberId } = req.params;
+    await spring.get(`/members/${memberId}/exists`);
+    res.status(204).end();
+  } catch (e) {
+    next(e);
+  }
+};
+
 const getMemberByEmail = async (req, res, next) => {
   try {
     const { email } = req.params;
@@ -64,7 +75,29 @@ const getMemberByUsername = async (req, res, next) => {
 
 const loginMember = async (req, res, next) => {
   try {
-    const { data } = await spring.post("/members/login", req.body);
+    const { data, headers } = await spring.post("/members/login", req.body);
+    if (headers["x-auth-token"]) res.set("X-Auth-Token", headers["x-auth-token"]);
+    res.json(data);
+  } catch (e) {
+    next(e);
+  }
+};
+
+const logoutMember = async (req, res, next) => {
+  try {
+    await spring.post("/members/logout");
+    res.status(204).end();
+  } catch (e) {
+    next(e);
+  }
+};
+
+const issuePinToken = async (req, res, next) => {
+  try {
+    const { memberId } = req.params;
+    const deviceId = req.get("X-Device-Id");
+    const { data } = await spring.post(`/members/${memberId}/pin-token`, req.body,
+      deviceId ? { headers: { "X-Device-Id": deviceId } } : {});
     res.json(data);
   } catch (e) {
     next(e);
@@ -76,8 +109,11 @@ module.exports = {
   updateMember,
   getAllMembers,
   getMemberById,
+  memberExists,
   getMemberByEmail,
   getMemberByUsername,
   loginMember,
+  logoutMember,
+  issuePinToken,
 };
 
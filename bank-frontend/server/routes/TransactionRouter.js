@@ -5,17 +5,20 @@ const {
   getTransactionById,
   addTransaction,
   exportTransactionPdf,
+  getPdfJob,
   updateTransaction,
   deleteTransaction,
   getTransactionsByAccount,
   deposit,
   withdraw,
   transfer,
+  transferBatch,
 } = require("../controllers/TransactionController");
 
 const router = express.Router();
 
 router.get("/", getAllTransactions);
+router.get("/pdf-jobs/:jobId", getPdfJob);
 router.get("/:transactionId", getTransactionById);
 router.post("/", addTransaction);
 router.post("/:transactionId/pdf", exportTransactionPdf);
@@ -25,5 +28,6 @@ router.get("/account/:accountId", getTransactionsByAccount);
 router.post("/deposit", deposit);
 router.post("/withdraw", withdraw);
 router.post("/transfer", transfer);
+router.post("/transfer/batch", transferBatch);
 
 module.exports = router;
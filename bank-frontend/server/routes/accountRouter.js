@@ -6,6 +6,7 @@ const {
   updateAccount,
   deleteAccount,
   getAccountsByMember,
+  getDailySummary,
 } = require("../controllers/accountController");
 
 const router = express.Router();
@@ -13,6 +14,7 @@ const router = express.Router();
 router.post("/", addAccount);
 router.get("/", getAllAccounts);
 router.get("/member/:memberId", getAccountsByMember);
+router.get("/:accountId/daily-summary", getDailySummary);
 router.get("/:accountId", getAccountById);
 router.put("/:accountId", updateAccount);
 router.delete("/:accountId", deleteAccount);
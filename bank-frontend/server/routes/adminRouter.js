@@ -1,6 +1,10 @@
 const express = require("express");
 const { 
     loginAdmin,
+    getDashboard,
+    getAdminAccounts,
+    searchAccounts,
+    searchTransactions,
     updateAccountStatus,
     cancelTransaction
  } = require("../controllers/adminController");
@@ -8,6 +12,10 @@ const {
 const router = express.Router();
 
 router.post("/login", loginAdmin);
+router.get("/dashboard", getDashboard);
+router.get("/accounts", getAdminAccounts);
+router.get("/search/accounts", searchAccounts);
+router.get("/search/transactions", searchTransactions);
 router.post("/accounts/:accountId/status", updateAccountStatus);
 router.post("/transactions/:transactionId/cancel", cancelTransaction);
 
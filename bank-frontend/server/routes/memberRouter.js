@@ -4,19 +4,25 @@ const {
   updateMember,
   getAllMembers,
   getMemberById,
+  memberExists,
   getMemberByEmail,
   getMemberByUsername,
   loginMember,
+  logoutMember,
+  issuePinToken,
 } = require("../controllers/memberController");
 
 const router = express.Router();
 
 router.post("/", addMember);
 router.get("/", getAllMembers);
+router.get("/:memberId/exists", memberExists);
 router.get("/:memberId", getMemberById);   
 router.get("/email/:email", getMemberByEmail);
 router.get("/username/:username", getMemberByUsername);
 router.put("/:memberId", updateMember);     
 router.post("/login", loginMember);
+router.post("/logout", logoutMember);
+router.post("/:memberId/pin-token", issuePinToken);
 
 module.exports = router;
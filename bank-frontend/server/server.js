@@ -6,11 +6,16 @@ const accountRoutes = require("./routes/accountRouter");
 const transactionRoutes = require("./routes/TransactionRouter");
 const adminRoutes = require("./routes/adminRouter");
 const PasswordRouter = require("./routes/PasswordRouter");
+const { forwardAuth } = require("./services/bankService");
 
 const app = express();
 
-app.use(cors({ origin: ["http://localhost:3000","http://localhost:3001","http://localhost:3002"] }));
+app.use(cors({
+  origin: ["http://localhost:3000","http://localhost:3001","http://localhost:3002"],
+  exposedHeaders: ["X-Auth-Token"],
+}));
 app.use(express.json());
+app.use(forwardAuth);
 app.use(morgan("dev"));
 
 app.get("/health", (req, res) => res.json({ ok: true }));
@@ -1,8 +1,24 @@
 const axios = require("axios");
+const { AsyncLocalStorage } = require("async_hooks");
 
 const spring = axios.create({
   baseURL: "http://localhost:8083",
   timeout: 10000,
 });
 
-module.exports = { spring };
+// เก็บ Authorization ของ request ปัจจุบัน แล้วแนบให้ทุกครั้งที่เรียก backend
+const requestContext = new AsyncLocalStorage();
+
+const forwardAuth = (req, res, next) => {
+  requestContext.run({ authorization: req.get("Authorization") }, next);
+};
+
+spring.interceptors.request.use((config) => {
+  const authorization = requestContext.getStore()?.authorization;
+  if (authorization && !config.headers.Authorization) {
+    config.headers.Authorization = authorization;
+  }
+  return config;
+});
+
+module.exports = { spring, forwardAuth };
@@ -2,6 +2,7 @@ import React, { useState } from "react";
 import { NavLink, useNavigate } from "react-router-dom";
 import "../styles/navbar.css";
 import { useTranslation } from "react-i18next";
+import { logoutMember } from "../lib/api";
 
 export default function Navbar() {
   const [showLogoutModal, setShowLogoutModal] = useState(false);
@@ -14,6 +15,7 @@ export default function Navbar() {
   };
 
   const handleConfirmLogout = () => {
+    logoutMember();
     localStorage.removeItem("member");
     navigate("/", { replace: true });
     window.location.reload();
@@ -18,10 +18,19 @@ api.interceptors.request.use((config) => {
       const memberId = m?.memberId || m?.id || m?.member?.memberId;
       if (memberId) config.headers["x-member-id"] = memberId;
     }
+    const token = localStorage.getItem("sessionToken");
+    if (token) config.headers.Authorization = `Bearer ${token}`;
   } catch {}
   return config;
 });
 
+// เก็บ session token จาก header ตอน login
+const keepSessionToken = (r) => {
+  const token = r.headers?.["x-auth-token"];
+  if (token) localStorage.setItem("sessionToken", token);
+  return r;
+};
+
 const unwrap = (d) => {
   const isObject = d && typeof d === "object";
   if (!isObject) return d;
@@ -42,6 +51,9 @@ export const getAllMembers = (params = {}) =>
 export const getMemberById = (id) =>
   api.get(`/members/${id}`).then((r) => unwrap(r.data));
 
+export const memberExists = (id) =>
+  api.get(`/members/${id}/exists`).then(() => true);
+
 export const getMemberByEmail = (email) =>
   api.get(`/members/email/${email}`).then((r) => unwrap(r.data));
 
@@ -49,7 +61,12 @@ export const getMemberByUsername = (username) =>
   api.get(`/members/username/${username}`).then((r) => unwrap(r.data));
 
 export const loginMember = (body) =>
-  api.post("/members/login", body).then((r) => unwrap(r.data));
+  api.post("/members/login", body).then(keepSessionToken).then((r) => unwrap(r.data));
+
+export const logoutMember = () =>
+  api.post("/members/logout")
+     .catch(() => {})
+     .finally(() => localStorage.removeItem("sessionToken"));
 
 // Account
 export const getAccounts = (params = {}) =>
@@ -58,6 +75,10 @@ export const getAccounts = (params = {}) =>
 export const getAccountsByMember = (memberId) =>
   api.get(`/accounts/member/${memberId}`).then((r) => unwrap(r.data));
 
+// from/to รูปแบบ yyyy-MM-dd
+export const getDailySummary = (accountId, params = {}) =>
+  api.get(`/accounts/${accountId}/daily-summary`, { params }).then((r) => unwrap(r.data));
+
 export const addAccount = (body) =>
   api.post("/accounts", body).then((r) => unwrap(r.data));
 
@@ -83,18 +104,42 @@ export const updateTransaction = (transactionId, body) =>
 export const deleteTransaction = (transactionId) =>
   api.delete(`/transactions/${transactionId}`).then((r) => unwrap(r.data));
 
-export const deposit = (body) =>
-  api.post("/transactions/deposit", body).then((r) => unwrap(r.data));
+const newIdempotencyKey = () =>
+  window.crypto?.randomUUID?.() ??
+  `${Date.now()}-${Math.random().toString(36).slice(2)}`;
 
-export const withdraw = (body) =>
-  api.post("/transactions/withdraw", body).then((r) => unwrap(r.data));
+// ส่ง idempotencyKey เดิมซ้ำได้เมื่อ retry รายการเดิม backend จะคืนผลเดิมโดยไม่ตัดเงินซ้ำ
+export const deposit = (body, idempotencyKey = newIdempotencyKey()) =>
+  api
+    .post("/transactions/deposit", body, { headers: { "Idempotency-Key": idempotencyKey } })
+    .then((r) => unwrap(r.data));
 
-export const transfer = (body) =>
-  api.post("/transactions/transfer", body).then((r) => unwrap(r.data));
+export const withdraw = (body, idempotencyKey = newIdempotencyKey()) =>
+  api
+    .post("/transactions/withdraw", body, { headers: { "Idempotency-Key": idempotencyKey } })
+    .then((r) => unwrap(r.data));
+
+export const transfer = (body, idempotencyKey = newIdempotencyKey()) =>
+  api
+    .post("/transactions/transfer", body, { headers: { "Idempotency-Key": idempotencyKey } })
+    .then((r) => unwrap(r.data));
 
 // Admin
 export const loginAdmin = (body) =>
-  api.post("/admins/login", body).then((r) => unwrap(r.data));
+  api.post("/admins/login", body).then(keepSessionToken).then((r) => unwrap(r.data));
+
+export const getAdminDashboard = () =>
+  api.get("/admins/dashboard").then((r) => unwrap(r.data));
+
+export const getAdminAccounts = (params = {}) =>
+  api.get("/admins/accounts", { params }).then((r) => unwrap(r.data));
+
+// q อย่างน้อย 3 ตัวอักษร, page เริ่มที่ 0
+export const searchAdminAccounts = (params = {}) =>
+  api.get("/admins/search/accounts", { params }).then((r) => unwrap(r.data));
+
+export const searchAdminTransactions = (params = {}) =>
+  api.get("/admins/search/transactions", { params }).then((r) => unwrap(r.data));
 
 export const updateAccountStatus = (accountId, body) =>
   api.post(`/admins/accounts/${accountId}/status`, body).then((r) => unwrap(r.data));
@@ -1,7 +1,10 @@
 import React, { useEffect, useState } from "react";
 import "../../styles/admin_dashboard.css";
 import {
-  getAccounts,
+  getAdminDashboard,
+  getAdminAccounts,
+  searchAdminAccounts,
+  searchAdminTransactions,
   getTransactions,
   updateAccountStatus,
   cancelTransaction,
@@ -16,6 +19,12 @@ const toTimeValue = (raw) => {
   return new Date(raw).getTime();
 };
 
+const PAGE_SIZE = 100;
+const MIN_SEARCH_LENGTH = 3;
+
+// ฝั่งเซิร์ฟเวอร์ไม่นับขีดและช่องว่าง
+const searchLength = (q) => q.replace(/[-\s]/g, "").length;
+
 const toArray = (res) => {
   if (Array.isArray(res)) return res;
   if (res) return [res];
@@ -31,6 +40,10 @@ const getTxStatusClass = (status) => {
 export default function AdminDashboard() {
   const [accounts, setAccounts] = useState([]);
   const [transactions, setTransactions] = useState([]);
+  const [accountCursor, setAccountCursor] = useState(null);
+  const [txCursor, setTxCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
+  const [counters, setCounters] = useState(null);
   const [loading, setLoading] = useState(true);
 
   const [confirmModal, setConfirmModal] = useState({
@@ -48,25 +61,22 @@ export default function AdminDashboard() {
 
   const [accountSearch, setAccountSearch] = useState("");
   const [txSearch, setTxSearch] = useState("");
+  // ผลค้นหาจากเซิร์ฟเวอร์ { query, total, page, size, items }, null = แสดงรายการปกติ
+  const [accountResults, setAccountResults] = useState(null);
+  const [txResults, setTxResults] = useState(null);
+  const [searching, setSearching] = useState(false);
 
   useEffect(() => {
     const fetchData = async () => {
       try {
-        const [accRes, txRes] = await Promise.all([
-          getAccounts(),
-          getTransactions(),
-        ]);
-
-        const accArray = toArray(accRes);
-        const txArray = toArray(txRes);
-
-        const sortedTx = [...txArray].sort(
-          (a, b) =>
-            toTimeValue(b.transactionDate) - toTimeValue(a.transactionDate)
-        );
-
-        setAccounts(accArray);
-        setTransactions(sortedTx);
+        // หน้าแรกของบัญชี รายการล่าสุด และตัวเลขสรุปมาในคำขอเดียว
+        const snapshot = await getAdminDashboard();
+
+        setAccounts(toArray(snapshot?.accounts?.items));
+        setAccountCursor(snapshot?.accounts?.nextCursor || null);
+        setTransactions(toArray(snapshot?.transactions?.items));
+        setTxCursor(snapshot?.transactions?.nextCursor || null);
+        setCounters(snapshot);
       } catch (e) {
         console.error("LOAD ADMIN DASHBOARD ERROR", e);
         setErrorModal({
@@ -81,6 +91,85 @@ export default function AdminDashboard() {
     fetchData();
   }, []);
 
+  const loadMoreAccounts = async () => {
+    if (!accountCursor || loadingMore) return;
+    setLoadingMore(true);
+    try {
+      const page = await getAdminAccounts({ size: PAGE_SIZE, cursor: accountCursor });
+      setAccounts((prev) => [...prev, ...toArray(page?.items)]);
+      setAccountCursor(page?.nextCursor || null);
+    } catch (e) {
+      console.error("LOAD MORE ACCOUNTS ERROR", e);
+      setErrorModal({ open: true, message: "ไม่สามารถโหลดข้อมูลได้" });
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
+  const loadMoreTransactions = async () => {
+    if (!txCursor || loadingMore) return;
+    setLoadingMore(true);
+    try {
+      const page = await getTransactions({ size: PAGE_SIZE, cursor: txCursor });
+      setTransactions((prev) => [...prev, ...toArray(page?.items)]);
+      setTxCursor(page?.nextCursor || null);
+    } catch (e) {
+      console.error("LOAD MORE TRANSACTIONS ERROR", e);
+      setErrorModal({ open: true, message: "ไม่สามารถโหลดข้อมูลได้" });
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
+  const runSearch = async (query, page, search, results, setResults) => {
+    const q = query.trim();
+    if (!q) {
+      setResults(null);
+      return;
+    }
+    if (searchLength(q) < MIN_SEARCH_LENGTH) {
+      setErrorModal({
+        open: true,
+        message: `กรุณากรอกคำค้นหาอย่างน้อย ${MIN_SEARCH_LENGTH} ตัวอักษร`,
+      });
+      return;
+    }
+    if (searching) return;
+    setSearching(true);
+    try {
+      const res = await search({ q, page, size: PAGE_SIZE });
+      const items = toArray(res?.items);
+      setResults(
+        page > 0 && results
+          ? { ...res, items: [...results.items, ...items] }
+          : { ...res, items }
+      );
+    } catch (e) {
+      console.error("ADMIN SEARCH ERROR", e);
+      setErrorModal({
+        open: true,
+        message: e?.response?.data?.message || "ไม่สามารถค้นหาได้ กรุณาลองใหม่",
+      });
+    } finally {
+      setSearching(false);
+    }
+  };
+
+  const searchAccounts = (page = 0) =>
+    runSearch(accountSearch, page, searchAdminAccounts, accountResults, setAccountResults);
+
+  const searchTransactions = (page = 0) =>
+    runSearch(txSearch, page, searchAdminTransactions, txResults, setTxResults);
+
+  // total อาจเกินจำนวนผลที่จัดอันดับไว้ (max-hits) หน้าที่ได้ไม่เต็มคือหน้าสุดท้าย
+  const hasMoreResults = (results) =>
+    results &&
+    results.items?.length === results.size &&
+    (results.page + 1) * results.size < results.total;
+
+  const formatTotal = (results) =>
+    results.total.toLocaleString("th-TH") + (results.totalExact === false ? "+" : "");
+
   const openFreezeConfirm = (acc) => {
     const mode = acc.status === "อายัดบัญชี" ? "unfreeze" : "freeze";
     setConfirmModal({
@@ -120,18 +209,24 @@ export default function AdminDashboard() {
           { status }
         );
 
-        setAccounts((prev) =>
-          prev.map((a) => (a.accountId === updated.accountId ? updated : a))
+        const applyStatus = (a) =>
+          a.accountId === updated.accountId
+            ? { ...a, status: updated.status, balance: updated.balance }
+            : a;
+        setAccounts((prev) => prev.map(applyStatus));
+        setAccountResults((prev) =>
+          prev ? { ...prev, items: prev.items.map(applyStatus) } : prev
         );
       } else if (confirmModal.mode === "cancelTx") {
         await cancelTransaction(confirmModal.target.transientId);
 
-        setTransactions((prev) =>
-          prev.map((t) =>
-            t.transientId === confirmModal.target.transientId
-              ? { ...t, status: "ยกเลิก" }
-              : t
-          )
+        const applyCancel = (t) =>
+          t.transientId === confirmModal.target.transientId
+            ? { ...t, status: "ยกเลิก" }
+            : t;
+        setTransactions((prev) => prev.map(applyCancel));
+        setTxResults((prev) =>
+          prev ? { ...prev, items: prev.items.map(applyCancel) } : prev
         );
       }
     } catch (e) {
@@ -150,9 +245,7 @@ export default function AdminDashboard() {
   const accountSearchLower = accountSearch.trim().toLowerCase();
   const filteredAccounts = accounts.filter((acc) => {
     if (!accountSearchLower) return true;
-    const name = acc.member
-      ? `${acc.member.firstNameTh} ${acc.member.lastNameTh}`.toLowerCase()
-      : "";
+    const name = (acc.ownerName || "").toLowerCase();
     const id = (acc.accountId || "").toLowerCase();
     const status = (acc.status || "").toLowerCase();
 
@@ -181,6 +274,10 @@ export default function AdminDashboard() {
     );
   });
 
+  // ผลค้นหาจากเซิร์ฟเวอร์ครอบคลุมทุกแถว ส่วนการกรองในหน้าใช้กับแถวที่โหลดมาแล้วเท่านั้น
+  const accountRows = accountResults ? accountResults.items : filteredAccounts;
+  const txRows = txResults ? txResults.items : filteredTransactions;
+
   if (loading) {
     return (
       <div className="admin-dashboard-container">
@@ -196,6 +293,19 @@ export default function AdminDashboard() {
         จัดการบัญชีและรายการธุรกรรมของระบบ Digibank
       </p>
 
+      {counters && (
+        <p className="admin-dashboard-subtitle">
+          บัญชีทั้งหมด {counters.totalAccounts.toLocaleString("th-TH")} บัญชี
+          {Object.entries(counters.accountsByStatus || {}).map(
+            ([status, n]) => ` · ${status} ${n.toLocaleString("th-TH")}`
+          )}
+          {" | "}ธุรกรรมทั้งหมด {counters.totalTransactions.toLocaleString("th-TH")} รายการ
+          {Object.entries(counters.transactionsByType || {}).map(
+            ([type, n]) => ` · ${type} ${n.toLocaleString("th-TH")}`
+          )}
+        </p>
+      )}
+
       <div className="admin-tabs">
         <button
           type="button"
@@ -229,12 +339,17 @@ export default function AdminDashboard() {
                   className="admin-search-input"
                   placeholder="ค้นหาตามเลขบัญชี / ชื่อ / สถานะ"
                   value={accountSearch}
-                  onChange={(e) => setAccountSearch(e.target.value)}
+                  onChange={(e) => {
+                    setAccountSearch(e.target.value);
+                    if (!e.target.value.trim()) setAccountResults(null);
+                  }}
+                  onKeyDown={(e) => e.key === "Enter" && searchAccounts()}
                 />
                 <button
                   type="button"
                   className="admin-search-btn"
-                  onClick={() => {}}
+                  disabled={searching}
+                  onClick={() => searchAccounts()}
                 >
                   ค้นหา
                 </button>
@@ -253,21 +368,17 @@ export default function AdminDashboard() {
                   </tr>
                 </thead>
                 <tbody>
-                  {filteredAccounts.length === 0 ? (
+                  {accountRows.length === 0 ? (
                     <tr>
                       <td colSpan="5" className="admin-empty">
                         ไม่พบบัญชีที่ตรงกับคำค้นหา
                       </td>
                     </tr>
                   ) : (
-                    filteredAccounts.map((acc) => (
+                    accountRows.map((acc) => (
                       <tr key={acc.accountId}>
                         <td>{acc.accountId}</td>
-                        <td>
-                          {acc.member
-                            ? `${acc.member.firstNameTh} ${acc.member.lastNameTh}`
-                            : "-"}
-                        </td>
+                        <td>{acc.ownerName || "-"}</td>
                         <td>
                           {acc.balance?.toLocaleString("th-TH", {
                             minimumFractionDigits: 2,
@@ -303,6 +414,31 @@ export default function AdminDashboard() {
                 </tbody>
               </table>
             </div>
+            {accountResults && (
+              <p className="admin-dashboard-subtitle">
+                พบ {formatTotal(accountResults)} บัญชี
+              </p>
+            )}
+            {hasMoreResults(accountResults) && (
+              <button
+                type="button"
+                className="admin-search-btn"
+                disabled={searching}
+                onClick={() => searchAccounts(accountResults.page + 1)}
+              >
+                {searching ? "กำลังโหลด..." : "โหลดเพิ่ม"}
+              </button>
+            )}
+            {!accountResults && accountCursor && (
+              <button
+                type="button"
+                className="admin-search-btn"
+                disabled={loadingMore}
+                onClick={loadMoreAccounts}
+              >
+                {loadingMore ? "กำลังโหลด..." : "โหลดเพิ่ม"}
+              </button>
+            )}
           </section>
         )}
 
@@ -317,12 +453,17 @@ export default function AdminDashboard() {
                   className="admin-search-input"
                   placeholder="ค้นหาตามรหัส / ประเภท  / สถานะ"
                   value={txSearch}
-                  onChange={(e) => setTxSearch(e.target.value)}
+                  onChange={(e) => {
+                    setTxSearch(e.target.value);
+                    if (!e.target.value.trim()) setTxResults(null);
+                  }}
+                  onKeyDown={(e) => e.key === "Enter" && searchTransactions()}
                 />
                 <button
                   type="button"
                   className="admin-search-btn"
-                  onClick={() => {}}
+                  disabled={searching}
+                  onClick={() => searchTransactions()}
                 >
                   ค้นหา
                 </button>
@@ -344,14 +485,14 @@ export default function AdminDashboard() {
                   </tr>
                 </thead>
                 <tbody>
-                  {filteredTransactions.length === 0 ? (
+                  {txRows.length === 0 ? (
                     <tr>
                       <td colSpan="8" className="admin-empty">
                         ไม่พบธุรกรรมที่ตรงกับคำค้นหา
                       </td>
                     </tr>
                   ) : (
-                    filteredTransactions.map((t) => (
+                    txRows.map((t) => (
                       <tr key={t.transientId}>
                         <td>{t.transientId}</td>
                         <td>{t.type}</td>
@@ -404,6 +545,31 @@ export default function AdminDashboard() {
                 </tbody>
               </table>
             </div>
+            {txResults && (
+              <p className="admin-dashboard-subtitle">
+                พบ {formatTotal(txResults)} รายการ
+              </p>
+            )}
+            {hasMoreResults(txResults) && (
+              <button
+                type="button"
+                className="admin-search-btn"
+                disabled={searching}
+                onClick={() => searchTransactions(txResults.page + 1)}
+              >
+                {searching ? "กำลังโหลด..." : "โหลดเพิ่ม"}
+              </button>
+            )}
+            {!txResults && txCursor && (
+              <button
+                type="button"
+                className="admin-search-btn"
+                disabled={loadingMore}
+                onClick={loadMoreTransactions}
+              >
+                {loadingMore ? "กำลังโหลด..." : "โหลดเพิ่ม"}
+              </button>
+            )}
           </section>
         )}
       </div>
@@ -2,6 +2,7 @@ import React, { useState, useEffect } from "react";
 import { useNavigate } from "react-router-dom";
 import "../../styles/profile.css";
 import { useTranslation } from "react-i18next";
+import { logoutMember } from "../../lib/api";
 
 export default function Profile() {
   const navigate = useNavigate();
@@ -18,6 +19,7 @@ export default function Profile() {
   const birthValue = member?.birthdate || member?.birthDate;
 
   const handleConfirmLogout = () => {
+    logoutMember();
     localStorage.removeItem("member");
     navigate("/");
   };
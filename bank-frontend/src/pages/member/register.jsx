@@ -1,6 +1,6 @@
 import React, { useState, useRef, useEffect, useMemo } from "react";
 import { useNavigate } from "react-router-dom";
-import { addMember, getMemberById, getMemberByEmail, getMemberByUsername } from "../../lib/api";
+import { addMember, memberExists, getMemberByEmail, getMemberByUsername } from "../../lib/api";
 import "../../styles/register.css";
 import PropTypes from "prop-types";
 import { FiEye, FiEyeOff } from "react-icons/fi";
@@ -611,7 +611,7 @@ export default function Register() {
 
     setCheckingId(true);
     try {
-      const idExists = await checkExistence(() => getMemberById(memberForm.memberId), "memberId", msg("register.err.idUsed", "เลขบัตรประชาชนนี้ถูกใช้สมัครแล้ว"));
+      const idExists = await checkExistence(() => memberExists(memberForm.memberId), "memberId", msg("register.err.idUsed", "เลขบัตรประชาชนนี้ถูกใช้สมัครแล้ว"));
       if (idExists) return;
 
       const emailExists = await checkExistence(() => getMemberByEmail(memberForm.email), "email", msg("register.err.emailUsed", "อีเมลนี้ถูกใช้สมัครแล้ว"));
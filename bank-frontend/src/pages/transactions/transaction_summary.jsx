@@ -1,5 +1,5 @@
 import React, { useEffect, useState, useMemo } from "react";
-import { getTransactions, getAccountsByMember } from "../../lib/api";
+import { getAccountsByMember, getDailySummary } from "../../lib/api";
 import "../../styles/summary.css";
 import { useTranslation } from "react-i18next";
 
@@ -45,23 +45,6 @@ export default function Summary() {
   const selectedStartDate = useMemo(() => toDateString(startParts.year, startParts.month, startParts.day), [startParts]);
   const selectedEndDate = useMemo(() => toDateString(endParts.year, endParts.month, endParts.day), [endParts]);
 
-  const toTimeValue = (raw) => {
-    if (!raw) return 0;
-    if (Array.isArray(raw)) {
-      const [y, m, d, hh = 0, mm = 0, ss = 0] = raw;
-      return new Date(y, m - 1, d, hh, mm, ss).getTime();
-    }
-    return new Date(raw).getTime();
-  };
-
-  const mapTypeToThai = (type) => {
-    if (type === "receive") return "รับเงิน";
-    if (type === "transfer") return "โอนเงิน";
-    if (type === "deposit") return "ฝากเงิน";
-    if (type === "withdraw") return "ถอนเงิน";
-    return type || "";
-  };
-
   useEffect(() => {
     const fetchData = async () => {
       try {
@@ -81,32 +64,33 @@ export default function Summary() {
           return;
         }
 
-        const [txList, accList] = await Promise.all([getTransactions(), getAccountsByMember(memberId)]);
-
-        const activeAccountIds = new Set(accList.filter((acc) => acc.status === "เปิดใช้งาน").map((acc) => acc.accountId));
+        const accList = await getAccountsByMember(memberId);
+        const activeAccountIds = accList.filter((acc) => acc.status === "เปิดใช้งาน").map((acc) => acc.accountId);
         const primaryAccountId = localStorage.getItem("primaryAccountId");
-
-        const mapped = txList
-          .map((tx) => ({
-            type: mapTypeToThai(tx.type),
-            amount: tx.amount,
-            date: tx.transactionDate,
-            accountId: tx.accountId || tx.account?.accountId,
-          }))
-          .filter((t) => t.accountId && activeAccountIds.has(t.accountId));
-
-        const filteredByAccount = primaryAccountId ? mapped.filter((t) => t.accountId === primaryAccountId) : mapped;
+        const targetIds = primaryAccountId
+          ? activeAccountIds.filter((id) => id === primaryAccountId)
+          : activeAccountIds;
+
+        // backend เก็บยอดรวมรายวันไว้แล้ว ดึงเฉพาะช่วงวันที่ต้องการ (ค่าเริ่มต้นย้อนหลัง 1 ปี)
+        const today = new Date();
+        const lastYear = new Date(today.getFullYear() - 1, today.getMonth(), today.getDate());
+        const toIso = (d) => `${d.getFullYear()}-${pad2(d.getMonth() + 1)}-${pad2(d.getDate())}`;
+        const params = {
+          from: appliedStart || toIso(lastYear),
+          to: appliedEnd || toIso(today),
+        };
+        const summaries = await Promise.all(targetIds.map((id) => getDailySummary(id, params)));
 
         const agg = {};
 
-        filteredByAccount.forEach((tx) => {
-          const timeValue = toTimeValue(tx.date);
-          const d = new Date(timeValue);
-          const key = d.toISOString().slice(0, 10);
+        summaries.flat().forEach((row) => {
+          const raw = row.summaryDate;
+          const [y, m, d] = Array.isArray(raw) ? raw : String(raw).split("-").map(Number);
+          const key = `${y}-${pad2(m)}-${pad2(d)}`;
 
           if (!agg[key]) {
             agg[key] = {
-              dateObj: d,
+              dateObj: new Date(y, m - 1, d),
               dateKey: key,
               deposit: 0,
               withdraw: 0,
@@ -115,17 +99,10 @@ export default function Summary() {
             };
           }
 
-          const amountAbs = Math.abs(tx.amount || 0);
-
-          if (tx.type === "ฝากเงิน" || tx.type === "deposit") {
-            agg[key].deposit += amountAbs;
-          } else if (tx.type === "ถอนเงิน" || tx.type === "withdraw") {
-            agg[key].withdraw += amountAbs;
-          } else if (tx.type === "โอนเงิน" || tx.type === "transfer") {
-            agg[key].transfer += amountAbs;
-          } else if (tx.type === "รับเงิน" || tx.type === "receive") {
-            agg[key].receive += amountAbs;
-          }
+          agg[key].deposit += Number(row.deposit || 0);
+          agg[key].withdraw += Number(row.withdraw || 0);
+          agg[key].transfer += Number(row.transfer || 0);
+          agg[key].receive += Number(row.receive || 0);
         });
 
         const rowsSorted = Object.values(agg).sort((a, b) => a.dateObj - b.dateObj);
@@ -138,8 +115,9 @@ export default function Summary() {
       }
     };
 
+    setLoading(true);
     fetchData();
-  }, []);
+  }, [appliedStart, appliedEnd]);
 
   const rowsToRender = useMemo(() => {
     if (!allRows.length) return [];
@@ -0,0 +1,27 @@
+package org.digio.bank.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+@ConfigMapping(prefix = "bank.balance")
+public interface BalanceConfig {
+
+    enum Mode {
+        //ล็อกแถวบัญชีด้วย SELECT ... FOR UPDATE เรียงตามเลขบัญชีเพื่อกัน deadlock
+        PESSIMISTIC,
+        //ตรวจ @Version ตอน commit ถ้าชนกันให้ลองใหม่ตาม retry/backoff
+        OPTIMISTIC
+    }
+
+    @WithDefault("PESSIMISTIC")
+    Mode mode();
+
+    @WithDefault("5")
+    int maxRetries();
+
+    @WithDefault("10")
+    long backoffMs();
+
+    @WithDefault("200")
+    long maxBackoffMs();
+}
@@ -0,0 +1,31 @@
+package org.digio.bank.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+@ConfigMapping(prefix = "bank.mail")
+public interface MailDeliveryConfig {
+
+    //จำนวน sender thread (ควรเท่ากับ quarkus.mailer.max-pool-size ให้แต่ละ thread ได้ connection ของตัวเอง)
+    @WithDefault("2")
+    int connections();
+
+    //จำนวนข้อความสูงสุดที่ส่งต่อเนื่องในหนึ่งรอบ
+    @WithDefault("20")
+    int batchSize();
+
+    @WithDefault("1000")
+    int queueCapacity();
+
+    //เวลารอผลการส่งของผู้เรียก
+    @WithDefault("30000")
+    long sendTimeoutMs();
+
+    //ส่งไม่สำเร็จติดกันกี่ครั้งถึงเปิด circuit breaker
+    @WithDefault("5")
+    int failureThreshold();
+
+    //ระยะเวลาที่ breaker เปิด (ปฏิเสธทันที) ก่อนลองส่งใหม่หนึ่งครั้ง
+    @WithDefault("30000")
+    long openMs();
+}
@@ -0,0 +1,16 @@
+package org.digio.bank.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+@ConfigMapping(prefix = "bank.node")
+public interface NodeConfig {
+
+    //เลขประจำเครื่อง 0-99 ต้องไม่ซ้ำกันในแต่ละ instance ที่ต่อฐานข้อมูลเดียวกัน
+    @WithDefault("0")
+    int id();
+
+    //ตอนเริ่มระบบค้นเลขที่ธุรกรรมล่าสุดของ node นี้ย้อนจากเวลาปัจจุบัน + ค่านี้ (รองรับนาฬิกาที่เคยเร็วเกิน)
+    @WithDefault("600000")
+    long idSeedToleranceMs();
+}
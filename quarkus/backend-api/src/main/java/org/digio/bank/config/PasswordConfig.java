@@ -0,0 +1,40 @@
+package org.digio.bank.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+@ConfigMapping(prefix = "bank.password")
+public interface PasswordConfig {
+
+    //จำนวน thread ที่คำนวณ bcrypt พร้อมกันได้ (งาน CPU ล้วน ไม่ควรเกินจำนวน core) 0 = เท่าจำนวน core
+    @WithDefault("0")
+    int threads();
+
+    //งานที่รอได้สูงสุด เกินนี้ตอบ 429 ทันที
+    @WithDefault("64")
+    int queueCapacity();
+
+    //pool แยกสำหรับตรวจ PIN ที่อนุมัติรายการเงิน ไม่ใช้คิวร่วมกับ login 0 = เท่าจำนวน core
+    @WithDefault("0")
+    int pinThreads();
+
+    @WithDefault("64")
+    int pinQueueCapacity();
+
+    //รอผลรวมเวลาคิวไม่เกินนี้
+    @WithDefault("5000")
+    long timeoutMs();
+
+    default int resolvedThreads() {
+        return orCores(threads());
+    }
+
+    default int resolvedPinThreads() {
+        return orCores(pinThreads());
+    }
+
+    //สอง lane ใช้ core ร่วมกัน แต่ละ lane ใช้ได้ทุก core เมื่ออีก lane ว่าง จำนวนงานที่รอยังถูกจำกัดด้วยคิว
+    private static int orCores(int configured) {
+        return configured > 0 ? configured : Runtime.getRuntime().availableProcessors();
+    }
+}
@@ -1,5 +1,6 @@
 package org.digio.bank.controller;
 
+import io.smallrye.mutiny.Uni;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
@@ -7,6 +8,7 @@ import jakarta.ws.rs.core.Response;
 
 import org.digio.bank.dto.OpenAccount;
 import org.digio.bank.service.AccountService;
+import org.digio.bank.service.ReactiveAccountService;
 import org.digio.entity.model.Account;
 
 import java.util.List;
@@ -17,15 +19,21 @@ import java.util.List;
 public class AccountController {
 
     private final AccountService accountService;
+    private final ReactiveAccountService reactiveAccountService;
 
     @Inject
-    public AccountController(AccountService accountService) {
+    public AccountController(AccountService accountService, ReactiveAccountService reactiveAccountService) {
         this.accountService = accountService;
+        this.reactiveAccountService = reactiveAccountService;
     }
 
+    //ส่ง size หรือ cursor = แบ่งหน้าแบบ keyset (CursorPage), ไม่ส่ง = รายการทั้งหมดแบบเดิม
     @GET
-    public List<Account> getAllAccounts() {
-        return accountService.getAllAccounts();
+    public Response getAllAccounts(@QueryParam("size") Integer size, @QueryParam("cursor") String cursor) {
+        if (size != null || cursor != null) {
+            return Response.ok(accountService.getAccountPage(cursor, size)).build();
+        }
+        return Response.ok(accountService.getAllAccounts()).build();
     }
 
     @GET
@@ -37,8 +45,8 @@ public class AccountController {
 
     @GET
     @Path("/member/{memberId}")
-    public List<Account> getAccountsByMember(@PathParam("memberId") Long memberId) {
-        return accountService.getAccountsByMember(memberId);
+    public Uni<List<Account>> getAccountsByMember(@PathParam("memberId") String memberId) {
+        return reactiveAccountService.getAccountsByMember(memberId);
     }
 
     @POST
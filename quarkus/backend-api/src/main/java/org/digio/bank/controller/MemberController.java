@@ -10,8 +10,6 @@ import org.digio.bank.dto.Register;
 import org.digio.bank.service.MemberService;
 import org.digio.entity.model.Member;
 
-import java.util.List;
-
 @Path("/members")
 @Consumes(MediaType.APPLICATION_JSON)
 @Produces(MediaType.APPLICATION_JSON)
@@ -24,9 +22,13 @@ public class MemberController {
         this.memberService = memberService;
     }
 
+    //ส่ง size หรือ cursor = แบ่งหน้าแบบ keyset (CursorPage), ไม่ส่ง = รายการทั้งหมดแบบเดิม
     @GET
-    public List<Member> getAllMembers() {
-        return memberService.getAllMembers();
+    public Response getAllMembers(@QueryParam("size") Integer size, @QueryParam("cursor") String cursor) {
+        if (size != null || cursor != null) {
+            return Response.ok(memberService.getMemberPage(cursor, size)).build();
+        }
+        return Response.ok(memberService.getAllMembers()).build();
     }
 
     @GET
@@ -1,13 +1,14 @@
 package org.digio.bank.controller;
 
+import io.smallrye.mutiny.Uni;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import org.digio.bank.dto.Deposit;
-import org.digio.bank.dto.TransactionView;
 import org.digio.bank.dto.Transfer;
 import org.digio.bank.dto.Withdraw;
+import org.digio.bank.service.ReactiveTransactionService;
 import org.digio.bank.service.TransactionService;
 import org.digio.entity.model.Transaction;
 
@@ -19,16 +20,22 @@ import java.util.List;
 public class TransactionController {
 
     private final TransactionService transactionService;
+    private final ReactiveTransactionService reactiveTransactionService;
 
     @Inject
-    public TransactionController(TransactionService transactionService) {
+    public TransactionController(TransactionService transactionService,
+                                 ReactiveTransactionService reactiveTransactionService) {
         this.transactionService = transactionService;
+        this.reactiveTransactionService = reactiveTransactionService;
     }
 
+    //ส่ง size หรือ cursor = แบ่งหน้าแบบ keyset (CursorPage), ไม่ส่ง = รายการทั้งหมดแบบเดิม
     @GET
-    public List<TransactionView> getAllTransactions() {
-
-        return transactionService.getAllTransactions();
+    public Response getAllTransactions(@QueryParam("size") Integer size, @QueryParam("cursor") String cursor) {
+        if (size != null || cursor != null) {
+            return Response.ok(transactionService.getTransactionPage(cursor, size)).build();
+        }
+        return Response.ok(transactionService.getAllTransactions()).build();
     }
 
     @GET
@@ -42,9 +49,8 @@ public class TransactionController {
 
     @GET
     @Path("/account/{accountId}")
-    public Response getByAccount(@PathParam("accountId") String accountId) {
-        List<Transaction> transactions = transactionService.getByAccountId(accountId);
-        return Response.ok(transactions).build();
+    public Uni<List<Transaction>> getByAccount(@PathParam("accountId") String accountId) {
+        return reactiveTransactionService.getByAccountId(accountId);
     }
 
     @POST
@@ -75,11 +81,11 @@ public class TransactionController {
 
     @POST
     @Path("/transfer")
-    public Response transfer(Transfer request) {
-        Transaction transfer = transactionService.transfer(request);
-        return Response.status(Response.Status.CREATED)
-                .entity(transfer)
-                .build();
+    public Uni<Response> transfer(Transfer request) {
+        return reactiveTransactionService.transfer(request)
+                .map(transfer -> Response.status(Response.Status.CREATED)
+                        .entity(transfer)
+                        .build());
     }
 
     @POST
@@ -0,0 +1,16 @@
+package org.digio.bank.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> items;
+    //ส่งกลับมาใน ?cursor= เพื่อขอหน้าถัดไป, null = หน้าสุดท้าย
+    private String nextCursor;
+}
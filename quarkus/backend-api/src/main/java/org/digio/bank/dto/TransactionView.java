@@ -2,6 +2,7 @@ package org.digio.bank.dto;
 
 import lombok.Data;
 
+import java.math.BigDecimal;
 import java.time.Instant;
 
 @Data
@@ -9,7 +10,7 @@ public class TransactionView {
     private String transientId;
     private Instant transactionDate;
     private String type;
-    private Double amount;
+    private BigDecimal amount;
     private String status;
     private String fromAccount;
     private String toAccount;
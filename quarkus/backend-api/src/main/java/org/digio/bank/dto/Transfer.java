@@ -2,10 +2,12 @@ package org.digio.bank.dto;
 
 import lombok.Data;
 
+import java.math.BigDecimal;
+
 @Data
 public class Transfer {
     private String fromAccountId;
     private String toAccountId;
-    private Double amount;
+    private BigDecimal amount;
     private String pin;
 }
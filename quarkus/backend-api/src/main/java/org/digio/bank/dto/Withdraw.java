@@ -2,9 +2,11 @@ package org.digio.bank.dto;
 
 import lombok.Data;
 
+import java.math.BigDecimal;
+
 @Data
 public class Withdraw {
     private String accountId;
-    private Double amount;
+    private BigDecimal amount;
     private String pin;
 }
@@ -1,9 +1,27 @@
 package org.digio.bank.repository;
 
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.LockModeType;
 import org.digio.entity.model.Account;
 
+import java.util.List;
+
 @ApplicationScoped
 public class AccountRepository implements PanacheRepository<Account> {
+
+    //keyset ตาม primary key, หน้าแรกส่ง after = ""
+    public List<Account> findPageAfter(String after, int limit) {
+        return find("accountId > ?1", Sort.by("accountId"), after).range(0, limit - 1).list();
+    }
+
+    public Account findByAccountId(String accountId) {
+        return find("accountId", accountId).firstResult();
+    }
+
+    //SELECT ... FOR UPDATE ต้องเรียกภายใน transaction
+    public Account lockByAccountId(String accountId) {
+        return find("accountId", accountId).withLock(LockModeType.PESSIMISTIC_WRITE).firstResult();
+    }
 }
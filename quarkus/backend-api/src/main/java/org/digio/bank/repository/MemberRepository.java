@@ -1,9 +1,17 @@
 package org.digio.bank.repository;
 
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
 import org.digio.entity.model.Member;
 
+import java.util.List;
+
 @ApplicationScoped
 public class MemberRepository implements PanacheRepository<Member> {
+
+    //keyset ตาม primary key, หน้าแรกส่ง after = ""
+    public List<Member> findPageAfter(String after, int limit) {
+        return find("memberId > ?1", Sort.by("memberId"), after).range(0, limit - 1).list();
+    }
 }
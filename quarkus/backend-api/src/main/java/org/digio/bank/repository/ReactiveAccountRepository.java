@@ -0,0 +1,27 @@
+package org.digio.bank.repository;
+
+import io.quarkus.hibernate.reactive.panache.PanacheRepository;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.LockModeType;
+import org.digio.entity.model.Account;
+
+import java.util.List;
+
+//AccountRepository แบบ non-blocking (Hibernate Reactive) เรียกได้เฉพาะบน Vert.x context ภายใน session
+@ApplicationScoped
+public class ReactiveAccountRepository implements PanacheRepository<Account> {
+
+    public Uni<Account> findByAccountId(String accountId) {
+        return find("accountId", accountId).firstResult();
+    }
+
+    //SELECT ... FOR UPDATE ต้องเรียกภายใน transaction
+    public Uni<Account> lockByAccountId(String accountId) {
+        return find("accountId", accountId).withLock(LockModeType.PESSIMISTIC_WRITE).firstResult();
+    }
+
+    public Uni<List<Account>> findByMemberId(String memberId) {
+        return list("member.memberId", memberId);
+    }
+}
@@ -0,0 +1,17 @@
+package org.digio.bank.repository;
+
+import io.quarkus.hibernate.reactive.panache.PanacheRepository;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.digio.entity.model.Transaction;
+
+import java.util.List;
+
+//TransactionRepository แบบ non-blocking (Hibernate Reactive) เรียกได้เฉพาะบน Vert.x context ภายใน session
+@ApplicationScoped
+public class ReactiveTransactionRepository implements PanacheRepository<Transaction> {
+
+    public Uni<List<Transaction>> findByAccountId(String accountId) {
+        return list("account.accountId", accountId);
+    }
+}
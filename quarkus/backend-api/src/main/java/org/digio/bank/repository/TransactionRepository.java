@@ -1,9 +1,38 @@
 package org.digio.bank.repository;
 
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
 import org.digio.entity.model.Transaction;
 
+import java.time.Instant;
+import java.util.List;
+
 @ApplicationScoped
 public class TransactionRepository implements PanacheRepository<Transaction> {
+
+    private static final Sort NEWEST_FIRST = Sort.descending("transactionDate", "transientId");
+
+    //หน้าแรกของรายการทั้งหมด ใหม่ -> เก่า ใช้ idx_transactions_date_id
+    public List<Transaction> findPageFirst(int limit) {
+        return findAll(NEWEST_FIRST).range(0, limit - 1).list();
+    }
+
+    //หน้าถัดไปแบบ keyset ต่อจากแถว (beforeDate, beforeId)
+    public List<Transaction> findPageBefore(Instant beforeDate, String beforeId, int limit) {
+        return find("transactionDate < ?1 or (transactionDate = ?1 and transientId < ?2)",
+                NEWEST_FIRST, beforeDate, beforeId).range(0, limit - 1).list();
+    }
+
+    //เลขที่ล่าสุดที่ node หนึ่งออกไปแล้ว ไล่ primary key ถอยหลังจาก upTo ไม่สแกนทั้งตาราง คืน null ถ้ายังไม่เคยออกเลข
+    public String lastIssuedId(int node, String upTo) {
+        List<String> rows = getEntityManager()
+                .createQuery("select t.transientId from Transaction t where t.transientId <= :upTo "
+                        + "and substring(t.transientId, 12, 2) = :node order by t.transientId desc", String.class)
+                .setParameter("upTo", upTo)
+                .setParameter("node", String.format("%02d", node))
+                .setMaxResults(1)
+                .getResultList();
+        return rows.isEmpty() ? null : rows.get(0);
+    }
 }
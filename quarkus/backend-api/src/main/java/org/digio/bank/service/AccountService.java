@@ -4,12 +4,14 @@ import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 
+import org.digio.bank.dto.CursorPage;
 import org.digio.bank.dto.OpenAccount;
 import org.digio.bank.repository.AccountRepository;
 import org.digio.bank.repository.MemberRepository;
 import org.digio.bank.repository.TransactionRepository;
 import org.digio.entity.model.Account;
 import org.digio.entity.model.Member;
+import org.digio.entity.util.Money;
 
 import java.security.SecureRandom;
 import java.time.Instant;
@@ -41,12 +43,15 @@ public class AccountService {
         return accountRepository.listAll();
     }
 
-    public Account getAccountById(Long accountId) {
-        return accountRepository.findById(accountId);
+    public CursorPage<Account> getAccountPage(String cursor, Integer size) {
+        int pageSize = KeysetCursor.size(size);
+        String after = cursor == null || cursor.isBlank() ? "" : KeysetCursor.decode(cursor, 1)[0];
+        List<Account> rows = accountRepository.findPageAfter(after, pageSize + 1);
+        return KeysetCursor.page(rows, pageSize, page -> page, a -> KeysetCursor.encode(a.getAccountId()));
     }
 
-    public List<Account> getAccountsByMember(Long memberId) {
-        return accountRepository.find("member.memberId", memberId).list();
+    public Account getAccountById(Long accountId) {
+        return accountRepository.findById(accountId);
     }
 
     @Transactional
@@ -56,13 +61,13 @@ public class AccountService {
             throw new IllegalArgumentException("ไม่พบสมาชิก");
         }
 
-        if (!passwordService.matches(req.getPin(), member.getPin())) {
+        if (!passwordService.matchesPin(req.getPin(), member.getPin())) {
             throw new IllegalArgumentException("PIN ไม่ถูกต้อง");
         }
 
         Account account = Account.builder()
                 .accountId(generateAccountId())
-                .balance(0.00)
+                .balance(Money.ZERO)
                 .status("เปิดใช้งาน")
                 .createdDate(Instant.now())
                 .member(member)
@@ -94,7 +99,7 @@ public class AccountService {
         if (acc == null)
             return false;
 
-        if (acc.getBalance() == null || acc.getBalance() > 0) {
+        if (acc.getBalance() == null || acc.getBalance().signum() > 0) {
             throw new IllegalArgumentException("ไม่สามารถลบบัญชีที่มีเงินคงเหลือ");
         }
 
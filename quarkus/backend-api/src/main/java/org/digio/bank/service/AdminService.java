@@ -10,6 +10,7 @@ import org.digio.entity.model.Account;
 import org.digio.entity.model.Admin;
 import org.digio.entity.model.Transaction;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 @ApplicationScoped
@@ -70,7 +71,7 @@ public class AdminService {
         ensureHasAccount(t);
 
         String type = t.getType();
-        double absAmount = Math.abs(t.getAmount());
+        BigDecimal absAmount = t.getAmount().abs();
 
         if (DEPOSIT_TYPE.equals(type)) return cancelDeposit(t, absAmount);
         if (WITHDRAW_TYPE.equals(type)) return cancelWithdraw(t, absAmount);
@@ -93,21 +94,21 @@ public class AdminService {
         if (t.getAccount() == null) throw new IllegalStateException("ไม่พบบัญชีที่เกี่ยวข้อง");
     }
 
-    private Transaction cancelDeposit(Transaction t, double absAmount) {
+    private Transaction cancelDeposit(Transaction t, BigDecimal absAmount) {
         Account acc = t.getAccount();
-        acc.setBalance(acc.getBalance() - absAmount);
+        acc.setBalance(acc.getBalance().subtract(absAmount));
         t.setStatus(CANCELED_STATUS);
         return t;
     }
 
-    private Transaction cancelWithdraw(Transaction t, double absAmount) {
+    private Transaction cancelWithdraw(Transaction t, BigDecimal absAmount) {
         Account acc = t.getAccount();
-        acc.setBalance(acc.getBalance() + absAmount);
+        acc.setBalance(acc.getBalance().add(absAmount));
         t.setStatus(CANCELED_STATUS);
         return t;
     }
 
-    private Transaction cancelTransferOrReceive(Transaction t, double absAmount, String type) {
+    private Transaction cancelTransferOrReceive(Transaction t, BigDecimal absAmount, String type) {
         String fromId = t.getFromAccount();
         String toId = t.getToAccount();
         if (fromId == null || toId == null) {
@@ -135,8 +136,8 @@ public class AdminService {
             throw new IllegalStateException("รายการคู่ถูกยกเลิกไปแล้ว");
         }
 
-        fromAccount.setBalance(fromAccount.getBalance() + absAmount);
-        toAccount.setBalance(toAccount.getBalance() - absAmount);
+        fromAccount.setBalance(fromAccount.getBalance().add(absAmount));
+        toAccount.setBalance(toAccount.getBalance().subtract(absAmount));
 
         t.setStatus(CANCELED_STATUS);
         pair.setStatus(CANCELED_STATUS);
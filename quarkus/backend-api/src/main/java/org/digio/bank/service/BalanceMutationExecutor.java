@@ -0,0 +1,112 @@
+package org.digio.bank.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.OptimisticLockException;
+import org.digio.bank.config.BalanceConfig;
+import org.digio.bank.repository.AccountRepository;
+import org.digio.entity.model.Account;
+import org.hibernate.StaleStateException;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * ครอบการแก้ไขยอดเงิน (read-modify-write บน Account.balance) ด้วยกลยุทธ์ที่ตั้งไว้ใน bank.balance.mode
+ * PESSIMISTIC ล็อกแถวบัญชี, OPTIMISTIC อาศัย @Version แล้ว retry เมื่อชนกัน
+ * การโอน (สองบัญชี ล็อกตามลำดับเลขบัญชี) อยู่ใน ReactiveTransactionService
+ */
+@ApplicationScoped
+public class BalanceMutationExecutor {
+
+    private final AccountRepository accountRepository;
+    private final BalanceConfig config;
+
+    private final Timer lockWait;
+    private final Counter retries;
+    private final Counter conflicts;
+    private final Counter exhausted;
+
+    public BalanceMutationExecutor(AccountRepository accountRepository,
+                                   BalanceConfig config,
+                                   MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.config = config;
+        this.lockWait = Timer.builder("bank.balance.lock.wait")
+                .description("เวลารอล็อกแถวบัญชี")
+                .register(meterRegistry);
+        this.retries = Counter.builder("bank.balance.retries")
+                .description("จำนวนครั้งที่ลองทำรายการใหม่หลังชนกัน")
+                .register(meterRegistry);
+        this.conflicts = Counter.builder("bank.balance.conflicts")
+                .description("จำนวนครั้งที่ optimistic lock ชนกัน")
+                .register(meterRegistry);
+        this.exhausted = Counter.builder("bank.balance.retries.exhausted")
+                .description("จำนวนรายการที่ลองครบแล้วยังไม่สำเร็จ")
+                .register(meterRegistry);
+    }
+
+    //ทุกครั้งที่เรียก work เป็น transaction ใหม่ ผู้เรียกจึงต้องไม่อยู่ใน transaction อยู่แล้ว
+    public <T> T execute(Supplier<T> work) {
+        if (config.mode() != BalanceConfig.Mode.OPTIMISTIC) {
+            return QuarkusTransaction.requiringNew().call(work::get);
+        }
+
+        int attempt = 0;
+        while (true) {
+            try {
+                return QuarkusTransaction.requiringNew().call(work::get);
+            } catch (RuntimeException e) {
+                if (!isConflict(e)) {
+                    throw e;
+                }
+                conflicts.increment();
+                if (attempt >= config.maxRetries()) {
+                    exhausted.increment();
+                    throw new IllegalStateException("มีรายการอื่นกำลังทำกับบัญชีนี้ กรุณาลองใหม่อีกครั้ง", e);
+                }
+                attempt++;
+                retries.increment();
+                backoff(attempt);
+            }
+        }
+    }
+
+    //ต้องเรียกภายใน execute เท่านั้น
+    public Account acquire(String accountId) {
+        if (config.mode() != BalanceConfig.Mode.PESSIMISTIC) {
+            return accountRepository.findByAccountId(accountId);
+        }
+        long start = System.nanoTime();
+        try {
+            return accountRepository.lockByAccountId(accountId);
+        } finally {
+            lockWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    //Hibernate โยนตอน flush/commit และ Narayana ห่อไว้อีกชั้น จึงต้องไล่ดู cause
+    private static boolean isConflict(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof OptimisticLockException || t instanceof StaleStateException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void backoff(int attempt) {
+        long base = Math.min(config.maxBackoffMs(), config.backoffMs() << Math.min(attempt - 1, 16));
+        long sleep = base / 2 + ThreadLocalRandom.current().nextLong(base / 2 + 1);
+        try {
+            Thread.sleep(sleep);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("ทำรายการถูกยกเลิก", e);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.digio.bank.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * circuit breaker แบบนับความล้มเหลวติดกัน
+ * CLOSED -> (ล้มเหลวครบ threshold) -> OPEN -> (ครบ openMs) -> HALF_OPEN ให้ลองหนึ่งครั้ง -> CLOSED หรือ OPEN
+ */
+class CircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openMs;
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger failures = new AtomicInteger();
+    private volatile long openedAt;
+
+    CircuitBreaker(int failureThreshold, long openMs) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMs = openMs;
+    }
+
+    //true = ยังอยู่ในช่วงเปิด ผู้เรียกควรล้มเหลวทันที
+    boolean isOpen() {
+        return state.get() == State.OPEN && System.currentTimeMillis() - openedAt < openMs;
+    }
+
+    //ขออนุญาตใช้งาน ช่วง HALF_OPEN ให้ผ่านได้ครั้งเดียว
+    boolean allowRequest() {
+        State s = state.get();
+        if (s == State.CLOSED) {
+            return true;
+        }
+        if (s == State.OPEN && System.currentTimeMillis() - openedAt >= openMs) {
+            return state.compareAndSet(State.OPEN, State.HALF_OPEN);
+        }
+        return false;
+    }
+
+    void onSuccess() {
+        failures.set(0);
+        state.set(State.CLOSED);
+    }
+
+    void onFailure() {
+        if (state.get() == State.HALF_OPEN || failures.incrementAndGet() >= failureThreshold) {
+            openedAt = System.currentTimeMillis();
+            state.set(State.OPEN);
+        }
+    }
+
+    State state() {
+        return state.get();
+    }
+}
@@ -0,0 +1,60 @@
+package org.digio.bank.service;
+
+import org.digio.bank.dto.CursorPage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * cursor แบบทึบสำหรับ keyset pagination: base64url ของค่าคีย์เรียงของแถวสุดท้ายในหน้า
+ * client ไม่ต้องรู้โครงสร้างภายใน และหน้าถัดไปอ่านต่อจาก index โดยไม่ต้อง OFFSET
+ */
+final class KeysetCursor {
+
+    static final int DEFAULT_SIZE = 50;
+    static final int MAX_SIZE = 500;
+
+    private static final char SEP = '\u001f';
+
+    private KeysetCursor() {
+    }
+
+    static int size(Integer requested) {
+        if (requested == null) {
+            return DEFAULT_SIZE;
+        }
+        if (requested <= 0) {
+            throw new IllegalArgumentException("size ต้องมากกว่า 0");
+        }
+        return Math.min(requested, MAX_SIZE);
+    }
+
+    static String encode(String... keys) {
+        String joined = String.join(String.valueOf(SEP), keys);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(joined.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String[] decode(String cursor, int parts) {
+        try {
+            String joined = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] keys = joined.split(String.valueOf(SEP), -1);
+            if (keys.length == parts) {
+                return keys;
+            }
+        } catch (IllegalArgumentException ignored) {
+            //ตกไปโยน error ด้านล่าง
+        }
+        throw new IllegalArgumentException("cursor ไม่ถูกต้อง");
+    }
+
+    //rows ต้องดึงมา size + 1 แถว แถวเกินแปลว่ายังมีหน้าถัดไป
+    static <R, T> CursorPage<T> page(List<R> rows, int size, Function<List<R>, List<T>> mapper,
+                                     Function<R, String> cursorOf) {
+        boolean more = rows.size() > size;
+        List<R> page = more ? new ArrayList<>(rows.subList(0, size)) : rows;
+        return new CursorPage<>(mapper.apply(page), more ? cursorOf.apply(page.get(size - 1)) : null);
+    }
+}
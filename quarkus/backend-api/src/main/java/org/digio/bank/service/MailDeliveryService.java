@@ -0,0 +1,216 @@
+package org.digio.bank.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.logging.Log;
+import io.quarkus.mailer.Mail;
+import io.quarkus.mailer.Mailer;
+import io.vertx.ext.mail.SMTPException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.digio.bank.config.MailDeliveryConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * ส่งอีเมลผ่านคิวขนาดจำกัด แทนการให้ request thread แต่ละตัวรอ SMTP เอง
+ *
+ * sender thread ดึงงานทีละชุด (batch) แล้วส่งต่อเนื่องผ่าน Mailer ซึ่งใช้ connection ที่ login ค้างไว้ใน pool
+ * (quarkus.mailer.keep-alive / max-pool-size) ถ้าเซิร์ฟเวอร์มีปัญหาติดกันจนครบ threshold จะเปิด circuit breaker
+ * ให้ผู้เรียกล้มเหลวทันทีแทนการรอ timeout
+ */
+@ApplicationScoped
+public class MailDeliveryService {
+
+    //ผู้รับไม่มีอยู่/ปฏิเสธ ไม่ใช่ปัญหาของเซิร์ฟเวอร์
+    private static final Set<Integer> RECIPIENT_REPLY_CODES = Set.of(550, 551, 553);
+
+    private final Mailer mailer;
+    private final MailDeliveryConfig config;
+    private final BlockingQueue<Pending> queue;
+    private final CircuitBreaker breaker;
+    private final Timer latency;
+    private final Counter sent;
+    private final Counter failed;
+    private final Counter rejected;
+    private final List<Thread> senders = new ArrayList<>();
+    private volatile boolean running;
+
+    //ผู้เรียกที่หมดเวลารอกับ sender thread แย่งกัน claim: ใครได้ก่อนคนนั้นตัดสินว่าข้อความนี้จะถูกส่งหรือไม่
+    private record Pending(Mail mail, CompletableFuture<Void> result, AtomicBoolean claimed) {
+
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+    }
+
+    public MailDeliveryService(Mailer mailer,
+                               MailDeliveryConfig config,
+                               MeterRegistry meterRegistry) {
+        this.mailer = mailer;
+        this.config = config;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, config.queueCapacity()));
+        this.breaker = new CircuitBreaker(config.failureThreshold(), config.openMs());
+
+        Gauge.builder("bank.mail.queue.depth", queue, BlockingQueue::size)
+                .description("จำนวนอีเมลที่รอส่ง")
+                .register(meterRegistry);
+        Gauge.builder("bank.mail.breaker.open", breaker, b -> b.state() == CircuitBreaker.State.CLOSED ? 0 : 1)
+                .register(meterRegistry);
+        this.latency = Timer.builder("bank.mail.send.latency")
+                .description("เวลาส่งหนึ่งข้อความบน connection ที่เปิดอยู่")
+                .register(meterRegistry);
+        this.sent = Counter.builder("bank.mail.sent").register(meterRegistry);
+        this.failed = Counter.builder("bank.mail.failed").register(meterRegistry);
+        this.rejected = Counter.builder("bank.mail.rejected")
+                .description("อีเมลที่ถูกปฏิเสธเพราะคิวเต็มหรือ breaker เปิด")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        for (int i = 0; i < Math.max(1, config.connections()); i++) {
+            Thread t = new Thread(this::senderLoop, "mail-sender-" + (i + 1));
+            t.setDaemon(true);
+            t.start();
+            senders.add(t);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        senders.forEach(Thread::interrupt);
+    }
+
+    /**
+     * เข้าคิวแล้วรอผล ถ้า breaker เปิดหรือคิวเต็มจะล้มเหลวทันที
+     * หมดเวลาขณะข้อความยังอยู่ในคิวจะยกเลิกข้อความนั้น (ผู้เรียกลองใหม่ได้โดยไม่ได้อีเมลซ้ำ)
+     * ถ้า sender หยิบไปส่งแล้วจะรอผลจริง ซึ่งถูกจำกัดด้วย quarkus.mailer.timeout
+     */
+    public void send(Mail mail) {
+        Pending pending = offer(mail);
+        try {
+            try {
+                pending.result().get(config.sendTimeoutMs(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (pending.claim()) {
+                    pending.result().cancel(false);
+                    queue.remove(pending);
+                    throw new IllegalStateException("ส่งอีเมลไม่สำเร็จ: หมดเวลารอเซิร์ฟเวอร์อีเมล", e);
+                }
+                pending.result().get();
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re
+                    : new IllegalStateException("ส่งอีเมลไม่สำเร็จ", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (pending.claim()) {
+                pending.result().cancel(false);
+                queue.remove(pending);
+            }
+            throw new IllegalStateException("ส่งอีเมลไม่สำเร็จ: ถูกยกเลิก", e);
+        }
+    }
+
+    //ยกเลิก future ที่คืนไปก่อน sender หยิบข้อความ จะทำให้ข้อความนั้นไม่ถูกส่ง
+    public CompletableFuture<Void> enqueue(Mail mail) {
+        return offer(mail).result();
+    }
+
+    private Pending offer(Mail mail) {
+        if (breaker.isOpen()) {
+            rejected.increment();
+            throw breakerOpen();
+        }
+        Pending pending = new Pending(mail, new CompletableFuture<>(), new AtomicBoolean());
+        if (!queue.offer(pending)) {
+            rejected.increment();
+            throw new IllegalStateException("คิวส่งอีเมลเต็ม กรุณาลองใหม่ภายหลัง");
+        }
+        return pending;
+    }
+
+    private void senderLoop() {
+        List<Pending> batch = new ArrayList<>(config.batchSize());
+        while (running) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, Math.max(0, config.batchSize() - 1));
+                sendBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+        Pending left;
+        while ((left = queue.poll()) != null) {
+            left.result().completeExceptionally(new IllegalStateException("ระบบอีเมลกำลังปิด"));
+        }
+    }
+
+    private void sendBatch(List<Pending> batch) {
+        for (Pending p : batch) {
+            //ผู้เรียกยกเลิกหรือหมดเวลาไปแล้ว ห้ามส่ง ไม่งั้นการลองใหม่ของผู้เรียกจะได้อีเมลซ้ำ
+            if (p.result().isDone() || !p.claim()) {
+                continue;
+            }
+            if (!breaker.allowRequest()) {
+                fail(p, breakerOpen());
+                continue;
+            }
+            long start = System.nanoTime();
+            try {
+                mailer.send(p.mail());
+                latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                breaker.onSuccess();
+                sent.increment();
+                p.result().complete(null);
+            } catch (RuntimeException e) {
+                if (isRecipientError(e)) {
+                    //ปัญหาที่ผู้รับ ไม่ใช่เซิร์ฟเวอร์ ไม่นับเข้า breaker
+                    fail(p, new IllegalArgumentException("ที่อยู่อีเมลไม่ถูกต้อง", e));
+                    continue;
+                }
+                breaker.onFailure();
+                Log.warn("ส่งอีเมลไม่สำเร็จ: " + e.getMessage());
+                fail(p, new IllegalStateException("ส่งอีเมลไม่สำเร็จ", e));
+            }
+        }
+    }
+
+    //Mailer แบบ blocking อาจห่อ SMTPException ไว้ใน CompletionException จึงต้องไล่ดู cause
+    private static boolean isRecipientError(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SMTPException smtp) {
+                return RECIPIENT_REPLY_CODES.contains(smtp.getReplyCode());
+            }
+        }
+        return false;
+    }
+
+    private void fail(Pending p, RuntimeException e) {
+        failed.increment();
+        p.result().completeExceptionally(e);
+    }
+
+    private static IllegalStateException breakerOpen() {
+        return new IllegalStateException("ระบบอีเมลขัดข้องชั่วคราว กรุณาลองใหม่ภายหลัง");
+    }
+}
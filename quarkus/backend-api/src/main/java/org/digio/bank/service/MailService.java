@@ -1,36 +1,32 @@
 package org.digio.bank.service;
 
 import io.quarkus.mailer.Mail;
-import io.quarkus.mailer.Mailer;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
 
+//สร้างข้อความ ส่วนการส่งจริงผ่านคิวใน MailDeliveryService
 @ApplicationScoped
 public class MailService {
 
-    private final Mailer mailer;
+    private final MailDeliveryService mailDelivery;
 
     @Inject
-    public MailService(Mailer mailer) {
-        this.mailer = mailer;
+    public MailService(MailDeliveryService mailDelivery) {
+        this.mailDelivery = mailDelivery;
     }
 
     public void sendTransactionPdf(String email, byte[] pdf, String txId) {
-        try {
-            mailer.send(
-                    Mail.withText(
-                            email,
-                            "Transaction Detail: " + txId,
-                            "เอกสารแนบเป็นรายละเอียดรายการธุรกรรม\nรหัสผ่าน PDF คือเลขบัญชี 4 ตัวท้าย"
-                    ).addAttachment(
-                            "transaction-" + txId + ".pdf",
-                            pdf,
-                            "application/pdf"
-                    )
-            );
-        } catch (Exception e) {
-            throw new IllegalArgumentException("ส่งอีเมลไม่สำเร็จ");
-        }
+        mailDelivery.send(
+                Mail.withText(
+                        email,
+                        "Transaction Detail: " + txId,
+                        "เอกสารแนบเป็นรายละเอียดรายการธุรกรรม\nรหัสผ่าน PDF คือเลขบัญชี 4 ตัวท้าย"
+                ).addAttachment(
+                        "transaction-" + txId + ".pdf",
+                        pdf,
+                        "application/pdf"
+                )
+        );
     }
 }
@@ -4,6 +4,7 @@ import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 
+import org.digio.bank.dto.CursorPage;
 import org.digio.bank.dto.Register;
 import org.digio.bank.repository.MemberRepository;
 import org.digio.entity.model.Member;
@@ -14,6 +15,7 @@ import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 import java.util.logging.Logger;
 
@@ -39,6 +41,13 @@ public class MemberService {
         return memberRepository.listAll();
     }
 
+    public CursorPage<Member> getMemberPage(String cursor, Integer size) {
+        int pageSize = KeysetCursor.size(size);
+        String after = cursor == null || cursor.isBlank() ? "" : KeysetCursor.decode(cursor, 1)[0];
+        List<Member> rows = memberRepository.findPageAfter(after, pageSize + 1);
+        return KeysetCursor.page(rows, pageSize, page -> page, m -> KeysetCursor.encode(m.getMemberId()));
+    }
+
     public Member getMemberById(Long memberId) {
         return memberRepository.findById(memberId);
     }
@@ -65,8 +74,11 @@ public class MemberService {
             throw new IllegalArgumentException("รูปแบบเลขบัตรประชาชนไม่ถูกต้อง");
         }
 
-        String hashedPassword = passwordService.encode(req.getPassword());
-        String hashedPin = passwordService.encode(req.getPin());
+        //hash รหัสผ่านและ PIN พร้อมกันบน pool ของ bcrypt
+        CompletableFuture<String> passwordHash = passwordService.encodeAsync(req.getPassword());
+        CompletableFuture<String> pinHash = passwordService.encodeAsync(req.getPin());
+        String hashedPassword = passwordService.await(passwordHash);
+        String hashedPin = passwordService.await(pinHash);
 
         Address address = Address.builder()
                 .houseNumber(req.getHouseNumber())
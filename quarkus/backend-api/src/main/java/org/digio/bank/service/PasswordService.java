@@ -1,22 +1,186 @@
 package org.digio.bank.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.quarkus.elytron.security.common.BcryptUtil;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response;
+import org.digio.bank.config.PasswordConfig;
 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * bcrypt ทั้ง hash และตรวจสอบรันบน pool แยกที่จำกัดจำนวน thread และขนาดคิว
+ * login จำนวนมากจึงไม่แย่ง CPU ของเส้นทางถอน/โอน และเมื่อคิวเต็มจะตอบ 429 ทันทีแทนการรอนาน
+ * ตรวจ PIN เพื่ออนุมัติรายการเงิน (matchesPin) ใช้ pool ของตัวเอง คลื่น login ที่ทำให้คิวเต็มจึงไม่ทำให้ถอน/โอนได้ 429
+ */
 @ApplicationScoped
 public class PasswordService {
 
+    private static final String LANE_LOGIN = "login";
+    private static final String LANE_PIN = "pin";
+
+    private final PasswordConfig config;
+    private final Lane login;
+    private final Lane pin;
+
+    //pool หนึ่งชุดพร้อม metric ที่ติด tag lane
+    private static final class Lane {
+        final ThreadPoolExecutor workers;
+        final Timer encodeTimer;
+        final Timer matchTimer;
+        final Timer queueWait;
+        final Counter rejected;
+
+        Lane(String name, int threads, int queueCapacity, MeterRegistry meterRegistry) {
+            AtomicInteger seq = new AtomicInteger();
+            this.workers = new ThreadPoolExecutor(threads, threads,
+                    0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                    r -> {
+                        Thread t = new Thread(r, "bcrypt-" + name + "-" + seq.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    },
+                    new ThreadPoolExecutor.AbortPolicy());
+
+            this.encodeTimer = Timer.builder("bank.bcrypt.duration")
+                    .tag("op", "encode")
+                    .tag("lane", name)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            this.matchTimer = Timer.builder("bank.bcrypt.duration")
+                    .tag("op", "matches")
+                    .tag("lane", name)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            this.queueWait = Timer.builder("bank.bcrypt.queue.wait")
+                    .description("เวลาที่งาน bcrypt รอ thread ว่าง")
+                    .tag("lane", name)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            this.rejected = Counter.builder("bank.bcrypt.rejected")
+                    .description("งาน bcrypt ที่ถูกปฏิเสธเพราะคิวเต็ม")
+                    .tag("lane", name)
+                    .register(meterRegistry);
+            Gauge.builder("bank.bcrypt.queued", workers, e -> e.getQueue().size())
+                    .tag("lane", name)
+                    .register(meterRegistry);
+            Gauge.builder("bank.bcrypt.active", workers, ThreadPoolExecutor::getActiveCount)
+                    .tag("lane", name)
+                    .register(meterRegistry);
+        }
+    }
+
+    public PasswordService(PasswordConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.login = new Lane(LANE_LOGIN, config.resolvedThreads(),
+                config.queueCapacity(), meterRegistry);
+        this.pin = new Lane(LANE_PIN, config.resolvedPinThreads(),
+                config.pinQueueCapacity(), meterRegistry);
+    }
+
     public String encode(String rawText) {
-        if (rawText == null) {
+        if (rawText == null)
             return null;
-        }
-        return BcryptUtil.bcryptHash(rawText);
+        return await(encodeAsync(rawText));
     }
 
     public boolean matches(String rawText, String hashedText) {
-        if (rawText == null || hashedText == null) {
+        return matches(login, rawText, hashedText);
+    }
+
+    //PIN ที่อนุมัติรายการเงิน (ถอน/โอน/เปิดบัญชี) ไม่ต่อคิวหลัง login
+    public boolean matchesPin(String rawText, String hashedText) {
+        return matches(pin, rawText, hashedText);
+    }
+
+    //ใช้เมื่อต้อง hash หลายค่าพร้อมกัน เช่นรหัสผ่านและ PIN ตอนสมัครสมาชิก
+    public CompletableFuture<String> encodeAsync(String rawText) {
+        if (rawText == null)
+            return CompletableFuture.completedFuture(null);
+        return submit(login, login.encodeTimer, () -> BcryptUtil.bcryptHash(rawText));
+    }
+
+    public <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get(config.timeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            throw busy();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("ถูกขัดจังหวะระหว่างยืนยันตัวตน", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    //ไม่บล็อกผู้เรียก (ใช้จาก event loop) ผลกลับมาบน thread ของ pool bcrypt
+    public CompletableFuture<Boolean> matchesPinAsync(String rawText, String hashedText) {
+        if (rawText == null || hashedText == null)
+            return CompletableFuture.completedFuture(false);
+        return submit(pin, pin.matchTimer, () -> BcryptUtil.matches(rawText, hashedText))
+                .orTimeout(config.timeoutMs(), TimeUnit.MILLISECONDS)
+                .exceptionallyCompose(e -> CompletableFuture.failedFuture(e instanceof TimeoutException ? busy() : e));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        login.workers.shutdown();
+        pin.workers.shutdown();
+    }
+
+    private boolean matches(Lane lane, String rawText, String hashedText) {
+        if (rawText == null || hashedText == null)
             return false;
+        return await(submit(lane, lane.matchTimer, () -> BcryptUtil.matches(rawText, hashedText)));
+    }
+
+    private <T> CompletableFuture<T> submit(Lane lane, Timer timer, Supplier<T> work) {
+        long queuedAt = System.nanoTime();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            lane.workers.execute(() -> {
+                //ผู้เรียกเลิกรอแล้ว ไม่ต้องคำนวณ
+                if (future.isDone()) {
+                    return;
+                }
+                long startedAt = System.nanoTime();
+                lane.queueWait.record(startedAt - queuedAt, TimeUnit.NANOSECONDS);
+                try {
+                    future.complete(work.get());
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    timer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            lane.rejected.increment();
+            throw new WebApplicationException("มีผู้ใช้งานจำนวนมาก กรุณาลองใหม่ภายหลัง",
+                    Response.Status.TOO_MANY_REQUESTS);
         }
-        return BcryptUtil.matches(rawText, hashedText);
+        return future;
+    }
+
+    private static WebApplicationException busy() {
+        return new WebApplicationException("ระบบยืนยันตัวตนไม่ว่าง กรุณาลองใหม่ภายหลัง",
+                Response.Status.SERVICE_UNAVAILABLE);
     }
 }
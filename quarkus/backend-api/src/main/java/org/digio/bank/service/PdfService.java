@@ -21,6 +21,8 @@ import org.digio.bank.dto.TransactionView;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 
 @Slf4j
 @ApplicationScoped
@@ -66,7 +68,7 @@ public class PdfService {
         slip.addCell(line());
 
         slip.addCell(centerCell(
-                formatCurrency(Math.abs(v.getAmount())),
+                formatCurrency(v.getAmount()),
                 bold,
                 24,
                 Border.NO_BORDER
@@ -139,7 +141,7 @@ public class PdfService {
         return v == null || v.isBlank() ? "-" : v;
     }
 
-    private String formatCurrency(double amount) {
-        return String.format("฿%.2f", Math.abs(amount));
+    private String formatCurrency(BigDecimal amount) {
+        return "฿" + amount.abs().setScale(2, RoundingMode.HALF_UP).toPlainString();
     }
 }
@@ -0,0 +1,24 @@
+package org.digio.bank.service;
+
+import io.quarkus.hibernate.reactive.panache.Panache;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.digio.bank.repository.ReactiveAccountRepository;
+import org.digio.entity.model.Account;
+
+import java.util.List;
+
+//อ่านบัญชีแบบ non-blocking บน Vert.x event loop (Hibernate Reactive + Mutiny)
+@ApplicationScoped
+public class ReactiveAccountService {
+
+    private final ReactiveAccountRepository accountRepository;
+
+    public ReactiveAccountService(ReactiveAccountRepository accountRepository) {
+        this.accountRepository = accountRepository;
+    }
+
+    public Uni<List<Account>> getAccountsByMember(String memberId) {
+        return Panache.withSession(() -> accountRepository.findByMemberId(memberId));
+    }
+}
@@ -0,0 +1,225 @@
+package org.digio.bank.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.hibernate.reactive.panache.Panache;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.OptimisticLockException;
+import org.digio.bank.config.BalanceConfig;
+import org.digio.bank.dto.Transfer;
+import org.digio.bank.repository.ReactiveAccountRepository;
+import org.digio.bank.repository.ReactiveTransactionRepository;
+import org.digio.entity.model.Account;
+import org.digio.entity.model.Member;
+import org.digio.entity.model.Transaction;
+import org.digio.entity.util.Money;
+import org.hibernate.StaleStateException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * อ่านรายการและโอนเงินแบบ non-blocking บน Vert.x event loop (Hibernate Reactive + Mutiny)
+ * ระหว่างรอฐานข้อมูล event loop ไปรับคำขออื่นได้ ไม่ต้องจอง worker thread ต่อคำขอ
+ *
+ * ตรวจ PIN (bcrypt) เป็นงาน CPU จึงส่งไป pool ของ PasswordService แล้วกลับมาทำต่อบน context เดิม
+ * ล็อกบัญชีตาม bank.balance.mode แบบเดียวกับ BalanceMutationExecutor (ใช้ metric ชื่อเดียวกัน)
+ */
+@ApplicationScoped
+public class ReactiveTransactionService {
+
+    private static final String STATUS_OPEN = "เปิดใช้งาน";
+    private static final String TRANSACTION_SUCCESS = "สำเร็จ";
+    private static final String TRANSFER_TYPE = "โอนเงิน";
+    private static final String RECEIVE_TYPE = "รับเงิน";
+
+    private final ReactiveAccountRepository accountRepository;
+    private final ReactiveTransactionRepository transactionRepository;
+    private final PasswordService passwordService;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final BalanceConfig config;
+
+    private final Timer lockWait;
+    private final Counter retries;
+    private final Counter conflicts;
+    private final Counter exhausted;
+
+    public ReactiveTransactionService(ReactiveAccountRepository accountRepository,
+                                      ReactiveTransactionRepository transactionRepository,
+                                      PasswordService passwordService,
+                                      TransactionIdGenerator transactionIdGenerator,
+                                      BalanceConfig config,
+                                      MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.passwordService = passwordService;
+        this.transactionIdGenerator = transactionIdGenerator;
+        this.config = config;
+        this.lockWait = Timer.builder("bank.balance.lock.wait").register(meterRegistry);
+        this.retries = Counter.builder("bank.balance.retries").register(meterRegistry);
+        this.conflicts = Counter.builder("bank.balance.conflicts").register(meterRegistry);
+        this.exhausted = Counter.builder("bank.balance.retries.exhausted").register(meterRegistry);
+    }
+
+    public Uni<List<Transaction>> getByAccountId(String accountId) {
+        return Panache.withSession(() -> transactionRepository.findByAccountId(accountId));
+    }
+
+    public Uni<Transaction> transfer(Transfer req) {
+        if (req.getAmount() == null || req.getAmount().signum() <= 0) {
+            return Uni.createFrom().failure(new IllegalArgumentException("จำนวนเงินต้องมากกว่า 0"));
+        }
+        req.setAmount(Money.of(req.getAmount()));
+        Context context = Vertx.currentContext();
+        Executor onContext = command -> context.runOnContext(ignored -> command.run());
+
+        //ตรวจ PIN ก่อนเข้าช่วงที่ล็อกบัญชี จะได้ไม่ถือล็อกระหว่างคำนวณ hash
+        return Panache.withSession(() -> accountRepository.findByAccountId(req.getFromAccountId()))
+                .flatMap(checked -> {
+                    if (checked == null) {
+                        throw new IllegalArgumentException("ไม่พบบัญชีต้นทาง");
+                    }
+                    if (!STATUS_OPEN.equalsIgnoreCase(checked.getStatus())) {
+                        throw new IllegalArgumentException("ไม่สามารถทำรายการได้ บัญชีต้นทางไม่ได้อยู่ในสถานะปกติ");
+                    }
+                    Member member = checked.getMember();
+                    if (member == null) {
+                        throw new IllegalArgumentException("ไม่พบเจ้าของบัญชีต้นทาง");
+                    }
+                    if (req.getPin() == null || req.getPin().isBlank()) {
+                        throw new IllegalArgumentException("กรุณากรอก PIN");
+                    }
+                    return Uni.createFrom().completionStage(
+                            () -> passwordService.matchesPinAsync(req.getPin(), member.getPin()));
+                })
+                //bcrypt จบบน thread ของ pool ต้องกลับมาที่ Vert.x context ก่อนใช้ Hibernate Reactive
+                .emitOn(onContext)
+                .flatMap(matched -> {
+                    if (!matched) {
+                        throw new IllegalArgumentException("PIN ไม่ถูกต้อง");
+                    }
+                    return withRetry(() -> Panache.withTransaction(() -> move(req)), onContext);
+                });
+    }
+
+    private Uni<Transaction> move(Transfer req) {
+        return acquireInOrder(req.getFromAccountId(), req.getToAccountId()).flatMap(pair -> {
+            Account fromAccount = pair[0];
+            Account toAccount = pair[1];
+            if (fromAccount == null) {
+                throw new IllegalArgumentException("ไม่พบบัญชีต้นทาง");
+            }
+            if (toAccount == null) {
+                throw new IllegalArgumentException("ไม่พบบัญชีปลายทาง");
+            }
+            if (!STATUS_OPEN.equalsIgnoreCase(fromAccount.getStatus())) {
+                throw new IllegalArgumentException("ไม่สามารถทำรายการได้ บัญชีต้นทางไม่ได้อยู่ในสถานะปกติ");
+            }
+            if (!STATUS_OPEN.equalsIgnoreCase(toAccount.getStatus())) {
+                throw new IllegalArgumentException("ไม่สามารถทำรายการได้ บัญชีปลายทางไม่ได้อยู่ในสถานะปกติ");
+            }
+            if (fromAccount.getBalance().compareTo(req.getAmount()) < 0) {
+                throw new IllegalArgumentException("ยอดเงินในบัญชีต้นทางไม่เพียงพอ");
+            }
+
+            fromAccount.setBalance(fromAccount.getBalance().subtract(req.getAmount()));
+            toAccount.setBalance(toAccount.getBalance().add(req.getAmount()));
+
+            Transaction tOut = Transaction.builder()
+                    .transientId(transactionIdGenerator.next())
+                    .transactionDate(Instant.now())
+                    .type(TRANSFER_TYPE)
+                    .amount(req.getAmount().negate())
+                    .confirmPin(req.getPin())
+                    .status(TRANSACTION_SUCCESS)
+                    .fromAccount(req.getFromAccountId())
+                    .toAccount(req.getToAccountId())
+                    .admin(null)
+                    .account(fromAccount)
+                    .build();
+
+            Transaction tIn = Transaction.builder()
+                    .transientId(transactionIdGenerator.next())
+                    .transactionDate(Instant.now())
+                    .type(RECEIVE_TYPE)
+                    .amount(req.getAmount())
+                    .confirmPin(null)
+                    .status(TRANSACTION_SUCCESS)
+                    .fromAccount(req.getFromAccountId())
+                    .toAccount(req.getToAccountId())
+                    .admin(null)
+                    .account(toAccount)
+                    .build();
+
+            return transactionRepository.persist(tOut)
+                    .chain(() -> transactionRepository.persist(tIn))
+                    .replaceWith(tOut);
+        });
+    }
+
+    //ล็อก/โหลดสองบัญชีตามลำดับเลขบัญชีตัวเลขล้วนเสมอ กัน deadlock ของการโอนสวนกัน; คืนตามลำดับ first, second เดิม
+    private Uni<Account[]> acquireInOrder(String first, String second) {
+        boolean swap = first != null && second != null
+                && first.replaceAll("\\D", "").compareTo(second.replaceAll("\\D", "")) > 0;
+        String a = swap ? second : first;
+        String b = swap ? first : second;
+        return acquire(a).flatMap(accountA -> acquire(b).map(accountB -> swap
+                ? new Account[]{accountB, accountA}
+                : new Account[]{accountA, accountB}));
+    }
+
+    private Uni<Account> acquire(String accountId) {
+        if (config.mode() != BalanceConfig.Mode.PESSIMISTIC) {
+            return accountRepository.findByAccountId(accountId);
+        }
+        return Uni.createFrom().deferred(() -> {
+            long start = System.nanoTime();
+            return accountRepository.lockByAccountId(accountId)
+                    .eventually(() -> lockWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    //OPTIMISTIC: แต่ละรอบเป็น transaction ใหม่ ชนกันแล้วลองใหม่ตาม backoff ของ bank.balance
+    //รอ backoff แล้วรอบใหม่ต้องเริ่มบน Vert.x context เดิม
+    private <T> Uni<T> withRetry(Supplier<Uni<T>> work, Executor onContext) {
+        if (config.mode() != BalanceConfig.Mode.OPTIMISTIC) {
+            return work.get();
+        }
+        AtomicInteger attempt = new AtomicInteger();
+        return Uni.createFrom().deferred(() -> {
+                    if (attempt.getAndIncrement() > 0) {
+                        retries.increment();
+                    }
+                    return work.get();
+                })
+                .runSubscriptionOn(onContext)
+                .onFailure(ReactiveTransactionService::isConflict).invoke(e -> conflicts.increment())
+                .onFailure(ReactiveTransactionService::isConflict).retry()
+                .withBackOff(Duration.ofMillis(Math.max(1, config.backoffMs())),
+                        Duration.ofMillis(Math.max(1, config.maxBackoffMs())))
+                .withJitter(0.5)
+                .atMost(config.maxRetries())
+                .onFailure(ReactiveTransactionService::isConflict).transform(e -> {
+                    exhausted.increment();
+                    return new IllegalStateException("มีรายการอื่นกำลังทำกับบัญชีนี้ กรุณาลองใหม่อีกครั้ง", e);
+                });
+    }
+
+    private static boolean isConflict(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof OptimisticLockException || t instanceof StaleStateException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
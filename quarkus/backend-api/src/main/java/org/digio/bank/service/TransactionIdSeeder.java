@@ -0,0 +1,41 @@
+package org.digio.bank.service;
+
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.transaction.Transactional;
+import org.digio.bank.config.NodeConfig;
+import org.digio.bank.repository.TransactionRepository;
+
+/**
+ * ตั้งต้น TransactionIdGenerator จากเลขล่าสุดที่ node นี้บันทึกไว้ ก่อนระบบเริ่มรับคำขอ
+ * รีสตาร์ทแล้วนาฬิกาช้ากว่าเดิม (ปรับเวลา/ย้ายเครื่อง) จะไม่ออกเลขซ้ำกับที่มีอยู่
+ * เลขที่ออกตอนนาฬิกาเร็วกว่าปัจจุบันเกิน bank.node.id-seed-tolerance-ms จะไม่ถูกค้นเจอ
+ */
+@ApplicationScoped
+public class TransactionIdSeeder {
+
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final TransactionRepository transactionRepository;
+    private final NodeConfig config;
+
+    public TransactionIdSeeder(TransactionIdGenerator transactionIdGenerator,
+                               TransactionRepository transactionRepository,
+                               NodeConfig config) {
+        this.transactionIdGenerator = transactionIdGenerator;
+        this.transactionRepository = transactionRepository;
+        this.config = config;
+    }
+
+    @Transactional
+    void seed(@Observes StartupEvent event) {
+        String upTo = TransactionIdGenerator.lastIdBefore(
+                System.currentTimeMillis() + Math.max(0L, config.idSeedToleranceMs()) + 1);
+        String last = transactionRepository.lastIssuedId(transactionIdGenerator.node(), upTo);
+        if (last != null) {
+            transactionIdGenerator.seed(last);
+            Log.info("ตั้งต้นเลขที่ธุรกรรมของ node " + transactionIdGenerator.node() + " ต่อจาก " + last);
+        }
+    }
+}
@@ -3,19 +3,21 @@ package org.digio.bank.service;
 import io.quarkus.logging.Log;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.transaction.Transactional;
+import org.digio.bank.dto.CursorPage;
 import org.digio.bank.dto.Deposit;
 import org.digio.bank.dto.TransactionView;
-import org.digio.bank.dto.Transfer;
 import org.digio.bank.dto.Withdraw;
 import org.digio.bank.repository.AccountRepository;
 import org.digio.bank.repository.TransactionRepository;
 import org.digio.entity.model.Account;
 import org.digio.entity.model.Member;
 import org.digio.entity.model.Transaction;
+import org.digio.entity.util.Money;
 
 import java.io.IOException;
-import java.security.SecureRandom;
+import java.math.BigDecimal;
 import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 @ApplicationScoped
@@ -24,16 +26,15 @@ public class TransactionService {
     private final TransactionRepository transactionRepository;
     private final AccountRepository accountRepository;
     private final PasswordService passwordService;
-    private static final SecureRandom RANDOM = new SecureRandom();
     private final PdfService pdfService;
     private final MailService mailService;
+    private final BalanceMutationExecutor balanceExecutor;
+    private final TransactionIdGenerator transactionIdGenerator;
 
 
     private static final String STATUS_OPEN  = "เปิดใช้งาน";
     private static final String TRANSACTION_SUCCESS = "สำเร็จ";
     private static final String DEPOSIT_TYPE = "ฝากเงิน";
-    private static final String TRANSFER_TYPE = "โอนเงิน";
-    private static final String RECEIVE_TYPE = "รับเงิน";
     private static final String WITHDRAW_TYPE = "ถอนเงิน";
     private static final String TRANSACTION_ID = "transientId";
     private static final String ACCOUNT_ID = "accountId";
@@ -42,13 +43,17 @@ public class TransactionService {
                               AccountRepository accountRepository,
                               PasswordService passwordService,
                               PdfService pdfService,
-                              MailService mailService
+                              MailService mailService,
+                              BalanceMutationExecutor balanceExecutor,
+                              TransactionIdGenerator transactionIdGenerator
     ) {
         this.transactionRepository = transactionRepository;
         this.accountRepository = accountRepository;
         this.passwordService = passwordService;
         this.pdfService = pdfService;
         this.mailService = mailService;
+        this.balanceExecutor = balanceExecutor;
+        this.transactionIdGenerator = transactionIdGenerator;
     }
 
     private TransactionView toView(Transaction t) {
@@ -82,79 +87,83 @@ public class TransactionService {
         return transactions.stream().map(this::toView).toList();
     }
 
-    public Transaction getTransactionById(String transactionId) {
-        return transactionRepository.find(TRANSACTION_ID, transactionId).firstResult();
+    public CursorPage<TransactionView> getTransactionPage(String cursor, Integer size) {
+        int pageSize = KeysetCursor.size(size);
+        List<Transaction> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = transactionRepository.findPageFirst(pageSize + 1);
+        } else {
+            String[] keys = KeysetCursor.decode(cursor, 2);
+            Instant beforeDate;
+            try {
+                beforeDate = Instant.parse(keys[0]);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("cursor ไม่ถูกต้อง");
+            }
+            rows = transactionRepository.findPageBefore(beforeDate, keys[1], pageSize + 1);
+        }
+        return KeysetCursor.page(rows, pageSize, page -> page.stream().map(this::toView).toList(),
+                t -> KeysetCursor.encode(t.getTransactionDate().toString(), t.getTransientId()));
     }
 
-    public List<Transaction> getByAccountId(String accountId) {
-        Log.info("Get transactions for accountId: " + accountId);
-        return transactionRepository.find("account.accountId", accountId).list();
+    public Transaction getTransactionById(String transactionId) {
+        return transactionRepository.find(TRANSACTION_ID, transactionId).firstResult();
     }
 
-
-
     @Transactional
     public Transaction createTransaction(Transaction request) {
         transactionRepository.persist(request);
         return request;
     }
 
-    private String generateTransactionId() {
-        String t1 = String.format("%08d", RANDOM.nextInt(100000000));
-
-        String letters = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
-        StringBuilder t2 = new StringBuilder();
-        for (int i = 0; i < 3; i++) {
-            t2.append(letters.charAt(RANDOM.nextInt(letters.length())));
-        }
-        String t3 = String.format("%05d", RANDOM.nextInt(100000));
-
-        return t1 + t2 + t3;
-    }
-
-    @Transactional
     public Transaction deposit(Deposit req) {
-        if (req.getAmount() == null || req.getAmount() <= 0) {
+        if (req.getAmount() == null || req.getAmount().signum() <= 0) {
             throw new IllegalArgumentException("จำนวนเงินฝากต้องมากกว่า 0");
         }
-        Account account = accountRepository.find(ACCOUNT_ID, req.getAccountId()).firstResult();
-        Log.info("Deposit to account: " + account);
-        if (!STATUS_OPEN .equalsIgnoreCase(account.getStatus())) {
-            throw new IllegalArgumentException("ไม่สามารถทำรายการได้ บัญชีไม่ได้อยู่ในสถานะปกติ");
-        }
-        double newBalance = account.getBalance() + req.getAmount();
-        account.setBalance(newBalance);
-        accountRepository.persist(account);
-
-        Transaction transaction = Transaction.builder()
-                .transientId(generateTransactionId())
-                .transactionDate(Instant.now())
-                .type(DEPOSIT_TYPE)
-                .amount(req.getAmount())
-                .confirmPin(null)
-                .status(TRANSACTION_SUCCESS)
-                .fromAccount(null)
-                .toAccount(req.getAccountId())
-                .admin(null)
-                .account(account)
-                .build();
-
-        transactionRepository.persist(transaction);
-        return transaction;
+        req.setAmount(Money.of(req.getAmount()));
+        return balanceExecutor.execute(() -> {
+            Account account = balanceExecutor.acquire(req.getAccountId());
+            Log.info("Deposit to account: " + account);
+            if (account == null) {
+                throw new IllegalArgumentException("ไม่พบบัญชี");
+            }
+            if (!STATUS_OPEN .equalsIgnoreCase(account.getStatus())) {
+                throw new IllegalArgumentException("ไม่สามารถทำรายการได้ บัญชีไม่ได้อยู่ในสถานะปกติ");
+            }
+            BigDecimal newBalance = account.getBalance().add(req.getAmount());
+            account.setBalance(newBalance);
+            accountRepository.persist(account);
+
+            Transaction transaction = Transaction.builder()
+                    .transientId(transactionIdGenerator.next())
+                    .transactionDate(Instant.now())
+                    .type(DEPOSIT_TYPE)
+                    .amount(req.getAmount())
+                    .confirmPin(null)
+                    .status(TRANSACTION_SUCCESS)
+                    .fromAccount(null)
+                    .toAccount(req.getAccountId())
+                    .admin(null)
+                    .account(account)
+                    .build();
+
+            transactionRepository.persist(transaction);
+            return transaction;
+        });
     }
 
-    @Transactional
     public Transaction withdraw(Withdraw req) {
-        Account account = accountRepository.find(ACCOUNT_ID, req.getAccountId()).firstResult();
-        if (account == null) {
+        //ตรวจ PIN (bcrypt) ก่อนเข้าช่วงที่ล็อกบัญชี จะได้ไม่ถือล็อกระหว่างคำนวณ hash
+        Account checked = accountRepository.findByAccountId(req.getAccountId());
+        if (checked == null) {
             throw new IllegalArgumentException("ไม่พบบัญชี");
         }
 
-        if (!STATUS_OPEN .equalsIgnoreCase(account.getStatus())) {
+        if (!STATUS_OPEN .equalsIgnoreCase(checked.getStatus())) {
             throw new IllegalArgumentException("ไม่สามารถทำรายการได้ บัญชีไม่ได้อยู่ในสถานะปกติ");
         }
 
-        Member member = account.getMember();
+        Member member = checked.getMember();
         if (member == null) {
             throw new IllegalArgumentException("ไม่พบเจ้าของบัญชี");
         }
@@ -163,114 +172,46 @@ public class TransactionService {
             throw new IllegalArgumentException("กรุณากรอก PIN");
         }
 
-        if (!passwordService.matches(req.getPin(), account.getMember().getPin())) {
-            throw new IllegalArgumentException("PIN ไม่ถูกต้อง");
-        }
-
-        if (req.getAmount() == null || req.getAmount() <= 0) {
-            throw new IllegalArgumentException("จำนวนเงินต้องมากกว่า 0");
-        }
-
-        if (account.getBalance() < req.getAmount()) {
-            throw new IllegalArgumentException("ยอดเงินในบัญชีไม่เพียงพอ");
-        }
-        double newBalance = account.getBalance() - req.getAmount();
-        account.setBalance(newBalance);
-        accountRepository.persist(account);
-
-        Transaction transaction = Transaction.builder()
-                .transientId(generateTransactionId())
-                .transactionDate(Instant.now())
-                .type(WITHDRAW_TYPE)
-                .amount(-req.getAmount())
-                .confirmPin(req.getPin())
-                .status(TRANSACTION_SUCCESS)
-                .fromAccount(req.getAccountId())
-                .toAccount(null)
-                .admin(null)
-                .account(account)
-                .build();
-        transactionRepository.persist(transaction);
-        return transaction;
-    }
-
-    @Transactional
-    public Transaction transfer(Transfer req) {
-        Account fromAccount = accountRepository.find(ACCOUNT_ID, req.getFromAccountId()).firstResult();
-        if (fromAccount == null) {
-            throw new IllegalArgumentException("ไม่พบบัญชีต้นทาง");
-        }
-
-        if (!STATUS_OPEN.equalsIgnoreCase(fromAccount.getStatus())) {
-            throw new IllegalArgumentException("ไม่สามารถทำรายการได้ บัญชีต้นทางไม่ได้อยู่ในสถานะปกติ");
-        }
-
-        Member member = fromAccount.getMember();
-        if (member == null) {
-            throw new IllegalArgumentException("ไม่พบเจ้าของบัญชีต้นทาง");
-        }
-
-        if (req.getPin() == null || req.getPin().isBlank()) {
-            throw new IllegalArgumentException("กรุณากรอก PIN");
-        }
-
-        if (!passwordService.matches(req.getPin(), fromAccount.getMember().getPin())) {
+        if (!passwordService.matchesPin(req.getPin(), member.getPin())) {
             throw new IllegalArgumentException("PIN ไม่ถูกต้อง");
         }
 
-        Account toAccount = accountRepository.find(ACCOUNT_ID, req.getToAccountId()).firstResult();
-        if (toAccount == null) {
-            throw new IllegalArgumentException("ไม่พบบัญชีปลายทาง");
-        }
-
-        if (!STATUS_OPEN.equalsIgnoreCase(toAccount.getStatus())) {
-            throw new IllegalArgumentException("ไม่สามารถทำรายการได้ บัญชีปลายทางไม่ได้อยู่ในสถานะปกติ");
-        }
-
-        if (req.getAmount() == null || req.getAmount() <= 0) {
+        if (req.getAmount() == null || req.getAmount().signum() <= 0) {
             throw new IllegalArgumentException("จำนวนเงินต้องมากกว่า 0");
         }
-
-        if (fromAccount.getBalance() < req.getAmount()) {
-            throw new IllegalArgumentException("ยอดเงินในบัญชีต้นทางไม่เพียงพอ");
-        }
-
-        double newFromBalance = fromAccount.getBalance() - req.getAmount();
-        fromAccount.setBalance(newFromBalance);
-        accountRepository.persist(fromAccount);
-
-        double newToBalance = toAccount.getBalance() + req.getAmount();
-        toAccount.setBalance(newToBalance);
-        accountRepository.persist(toAccount);
-
-        Transaction tOut = Transaction.builder()
-                .transientId(generateTransactionId())
-                .transactionDate(Instant.now())
-                .type(TRANSFER_TYPE)
-                .amount(-req.getAmount())
-                .confirmPin(req.getPin())
-                .status(TRANSACTION_SUCCESS)
-                .fromAccount(req.getFromAccountId())
-                .toAccount(req.getToAccountId())
-                .admin(null)
-                .account(fromAccount)
-                .build();
-        transactionRepository.persist(tOut);
-
-        Transaction tIn = Transaction.builder()
-                .transientId(generateTransactionId())
-                .transactionDate(Instant.now())
-                .type(RECEIVE_TYPE)
-                .amount(req.getAmount())
-                .confirmPin(null)
-                .status(TRANSACTION_SUCCESS)
-                .fromAccount(req.getFromAccountId())
-                .toAccount(req.getToAccountId())
-                .admin(null)
-                .account(toAccount)
-                .build();
-        transactionRepository.persist(tIn);
-        return tOut;
+        req.setAmount(Money.of(req.getAmount()));
+
+        return balanceExecutor.execute(() -> {
+            Account account = balanceExecutor.acquire(req.getAccountId());
+            if (account == null) {
+                throw new IllegalArgumentException("ไม่พบบัญชี");
+            }
+            if (!STATUS_OPEN .equalsIgnoreCase(account.getStatus())) {
+                throw new IllegalArgumentException("ไม่สามารถทำรายการได้ บัญชีไม่ได้อยู่ในสถานะปกติ");
+            }
+
+            if (account.getBalance().compareTo(req.getAmount()) < 0) {
+                throw new IllegalArgumentException("ยอดเงินในบัญชีไม่เพียงพอ");
+            }
+            BigDecimal newBalance = account.getBalance().subtract(req.getAmount());
+            account.setBalance(newBalance);
+            accountRepository.persist(account);
+
+            Transaction transaction = Transaction.builder()
+                    .transientId(transactionIdGenerator.next())
+                    .transactionDate(Instant.now())
+                    .type(WITHDRAW_TYPE)
+                    .amount(req.getAmount().negate())
+                    .confirmPin(req.getPin())
+                    .status(TRANSACTION_SUCCESS)
+                    .fromAccount(req.getAccountId())
+                    .toAccount(null)
+                    .admin(null)
+                    .account(account)
+                    .build();
+            transactionRepository.persist(transaction);
+            return transaction;
+        });
     }
 
     @Transactional
@@ -2,6 +2,8 @@ package org.digio.entity.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+
+import java.math.BigDecimal;
 import java.time.Instant;
 
 @Entity
@@ -16,8 +18,8 @@ public class Account {
     @Column(name = "account_id", length = 18, nullable = false)
     public String accountId;
 
-    @Column(nullable = false)
-    public Double balance;
+    @Column(nullable = false, precision = 19, scale = 2)
+    public BigDecimal balance;
 
     @Column(length = 50, nullable = false)
     public String status;
@@ -28,4 +30,8 @@ public class Account {
     @ManyToOne
     @JoinColumn(name = "member_id", nullable = false)
     public Member member;
+
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    public Long version;
 }
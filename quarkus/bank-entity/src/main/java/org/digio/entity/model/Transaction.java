@@ -5,10 +5,14 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
 import java.time.Instant;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        @Index(name = "idx_transactions_date_id", columnList = "transaction_date, transient_id")
+})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -25,8 +29,8 @@ public class Transaction {
     @Column(name = "type", length = 50, nullable = false)
     private String type;
 
-    @Column(name = "amount", nullable = false)
-    private Double amount;
+    @Column(name = "amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
 
     @Column(name = "confirm_pin", length = 6)
     private String confirmPin;
@@ -0,0 +1,43 @@
+package org.digio.entity.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * จำนวนเงินเก็บเป็น DECIMAL(19,2) (BigDecimal scale 2) ในตารางและ DTO
+ * ส่วนงานที่คำนวณถี่ ๆ ในหน่วยความจำใช้หน่วยสตางค์แบบ long แทน
+ */
+public final class Money {
+
+    public static final int SCALE = 2;
+    public static final BigDecimal ZERO = BigDecimal.ZERO.setScale(SCALE);
+
+    private Money() {
+        throw new IllegalArgumentException("Utility class");
+    }
+
+    //ปรับเป็นทศนิยม 2 ตำแหน่ง ถ้ามีเศษสตางค์เกินจะไม่ปัดให้ แต่โยน IllegalArgumentException
+    public static BigDecimal of(BigDecimal amount) {
+        if (amount == null) {
+            return null;
+        }
+        try {
+            return amount.setScale(SCALE, RoundingMode.UNNECESSARY);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("จำนวนเงินต้องมีทศนิยมไม่เกิน 2 ตำแหน่ง");
+        }
+    }
+
+    //สำหรับค่าที่อ่านจากฐานข้อมูลเดิม (คอลัมน์ DOUBLE) ซึ่งอาจมีเศษทศนิยมจากการปัดของ floating point
+    public static BigDecimal rounded(BigDecimal amount) {
+        return amount == null ? null : amount.setScale(SCALE, RoundingMode.HALF_UP);
+    }
+
+    public static long toSatang(BigDecimal amount) {
+        return of(amount).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal fromSatang(long satang) {
+        return BigDecimal.valueOf(satang, SCALE);
+    }
+}